@@ -0,0 +1,87 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks;
+
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.query.Query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks the clauses of the query engine other than the filter (see
+ * {@link FilterBenchmark}). Each clause is executed in a query of its own, so that its cost can
+ * be told apart from the other clauses.
+ */
+public class ClauseBenchmark extends QueryEngineBenchmark {
+
+  /**
+   * The clauses, and the queries that exercise them.
+   */
+  public enum Clause {
+    GROUP_BY("SELECT category, sum(value), count(id), max(day) GROUP BY category"),
+    PIVOT("SELECT category, sum(value) GROUP BY category PIVOT flag"),
+    SORT("SELECT id, category, value ORDER BY category, value DESC"),
+    SKIPPING("SELECT id, category, value SKIPPING 10"),
+    LIMIT("SELECT id, category, value LIMIT 100 OFFSET 1000"),
+    SCALAR_FUNCTION("SELECT id, upper(category), value * 2 + 1, year(day)"),
+    FORMAT("SELECT id, value, day FORMAT value '#,##0.00', day 'yyyy-MM-dd'");
+
+    /**
+     * The query string.
+     */
+    private final String queryString;
+
+    /**
+     * Creates a new clause.
+     *
+     * @param queryString The query string.
+     */
+    Clause(String queryString) {
+      this.queryString = queryString;
+    }
+  }
+
+  /**
+   * The clause to benchmark.
+   */
+  @Param({"GROUP_BY", "PIVOT", "SORT", "SKIPPING", "LIMIT", "SCALAR_FUNCTION", "FORMAT"})
+  public Clause clause;
+
+  /**
+   * The query to execute.
+   */
+  private Query query;
+
+  /**
+   * Parses the query of the clause.
+   */
+  @Setup(Level.Trial)
+  public void setUpQuery() {
+    query = parseQuery(clause.queryString);
+  }
+
+  /**
+   * Executes the clause query.
+   *
+   * @return The result.
+   */
+  @Benchmark
+  public DataTable clause() {
+    return execute(query);
+  }
+}
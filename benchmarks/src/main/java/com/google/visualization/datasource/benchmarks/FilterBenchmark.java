@@ -0,0 +1,95 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks;
+
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.query.ComparisonFilter;
+import com.google.visualization.datasource.query.Query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks the filter (WHERE) clause of the query engine with each
+ * {@link ComparisonFilter.Operator}. The ordering operators compare the number column
+ * <code>value</code> to a constant, and match about half of the rows. The text operators match
+ * the text column <code>category</code>.
+ */
+public class FilterBenchmark extends QueryEngineBenchmark {
+
+  /**
+   * The operator of the filter.
+   */
+  @Param({"EQ", "NE", "LT", "GT", "LE", "GE", "CONTAINS", "STARTS_WITH", "ENDS_WITH", "MATCHES",
+      "LIKE"})
+  public ComparisonFilter.Operator operator;
+
+  /**
+   * The query to execute.
+   */
+  private Query query;
+
+  /**
+   * Parses the query of the operator.
+   */
+  @Setup(Level.Trial)
+  public void setUpQuery() {
+    query = parseQuery("SELECT id, category, value WHERE " + getCondition(operator));
+  }
+
+  /**
+   * Executes the filter query.
+   *
+   * @return The result.
+   */
+  @Benchmark
+  public DataTable filter() {
+    return execute(query);
+  }
+
+  /**
+   * Returns the condition of the WHERE clause for the given operator.
+   *
+   * @param operator The operator.
+   *
+   * @return The condition.
+   */
+  private static String getCondition(ComparisonFilter.Operator operator) {
+    switch (operator) {
+      case EQ:
+      case NE:
+        return "category " + operator.toQueryString() + " 'c1'";
+      case LT:
+      case GT:
+      case LE:
+      case GE:
+        return "value " + operator.toQueryString() + " 500";
+      case CONTAINS:
+        return "category CONTAINS '1'";
+      case STARTS_WITH:
+        return "category STARTS WITH 'c1'";
+      case ENDS_WITH:
+        return "category ENDS WITH '1'";
+      case MATCHES:
+        return "category MATCHES 'c1.*'";
+      case LIKE:
+        return "category LIKE 'c1%'";
+      default:
+        throw new IllegalArgumentException("Unknown operator: " + operator);
+    }
+  }
+}
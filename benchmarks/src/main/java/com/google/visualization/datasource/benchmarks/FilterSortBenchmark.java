@@ -0,0 +1,62 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks;
+
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.query.Query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks a filter followed by a sort, <code>WHERE value &gt; threshold ORDER BY
+ * value</code>, which exercises the rows passed from the filter to the sort and the selection.
+ * Run with <code>-prof gc</code> to see the allocation per query.
+ */
+public class FilterSortBenchmark extends QueryEngineBenchmark {
+
+  /**
+   * The threshold of the filter. The values are in [0, 1000), so a threshold of 500 keeps about
+   * half of the rows, and a threshold of 990 keeps about one percent of them.
+   */
+  @Param({"0", "500", "990"})
+  public int threshold;
+
+  /**
+   * The query to execute.
+   */
+  private Query query;
+
+  /**
+   * Parses the query.
+   */
+  @Setup(Level.Trial)
+  public void setUpQuery() {
+    query = parseQuery("SELECT id, category, value WHERE value > " + threshold
+        + " ORDER BY value");
+  }
+
+  /**
+   * Executes the filter and sort query.
+   *
+   * @return The result.
+   */
+  @Benchmark
+  public DataTable filterAndSort() {
+    return execute(query);
+  }
+}
@@ -0,0 +1,155 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks;
+
+import com.google.visualization.datasource.base.InvalidQueryException;
+import com.google.visualization.datasource.datatable.ColumnarDataTable;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.query.Query;
+import com.google.visualization.datasource.query.engine.ExecutionOptions;
+import com.google.visualization.datasource.query.engine.QueryEngine;
+import com.google.visualization.datasource.query.parser.QueryBuilder;
+
+import com.ibm.icu.util.ULocale;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The base class of the query engine benchmarks. Holds the synthetic table (see
+ * {@link SyntheticTables}) and the execution options, and executes a query on the table.
+ * The table parameters are JMH parameters, so they can be changed from the command line, e.g.,
+ * <code>-p rows=10000 -p nullRatio=0.5</code>.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class QueryEngineBenchmark {
+
+  /**
+   * The number of rows of the table.
+   */
+  @Param({"10000", "100000", "1000000", "10000000"})
+  public int rows;
+
+  /**
+   * The number of distinct values of the category column.
+   */
+  @Param({"100"})
+  public int cardinality;
+
+  /**
+   * The probability of a cell of the category, value and day columns to be null.
+   */
+  @Param({"0.0", "0.1"})
+  public double nullRatio;
+
+  /**
+   * Whether the table is a {@link ColumnarDataTable}.
+   */
+  @Param({"false"})
+  public boolean columnar;
+
+  /**
+   * The parallelism of the execution pool, or 1 for serial execution.
+   */
+  @Param({"1"})
+  public int parallelism;
+
+  /**
+   * The table the queries are executed on.
+   */
+  private DataTable table;
+
+  /**
+   * The execution pool, or null for serial execution.
+   */
+  private ForkJoinPool pool;
+
+  /**
+   * The execution options.
+   */
+  private ExecutionOptions options;
+
+  /**
+   * Creates the table and the execution options.
+   */
+  @Setup(Level.Trial)
+  public void setUpTable() {
+    table = SyntheticTables.create(rows, cardinality, nullRatio);
+    if (columnar) {
+      table = ColumnarDataTable.createFromDataTable(table);
+    }
+    if (parallelism > 1) {
+      pool = new ForkJoinPool(parallelism);
+      options = new ExecutionOptions(pool);
+    } else {
+      options = ExecutionOptions.SERIAL;
+    }
+  }
+
+  /**
+   * Shuts down the execution pool, if any.
+   */
+  @TearDown(Level.Trial)
+  public void tearDownPool() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
+  /**
+   * Parses a query.
+   *
+   * @param queryString The query string.
+   *
+   * @return The parsed query.
+   */
+  protected static Query parseQuery(String queryString) {
+    try {
+      return QueryBuilder.getInstance().parseQuery(queryString);
+    } catch (InvalidQueryException e) {
+      throw new IllegalArgumentException("Invalid benchmark query: " + queryString, e);
+    }
+  }
+
+  /**
+   * Executes a query on the table. The result is returned so that JMH consumes it.
+   *
+   * @param query The query.
+   *
+   * @return The result.
+   */
+  protected DataTable execute(Query query) {
+    return QueryEngine.executeQuery(query, table, ULocale.US, options);
+  }
+}
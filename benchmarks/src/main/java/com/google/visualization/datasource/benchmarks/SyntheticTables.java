@@ -0,0 +1,123 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.DataTableBuilder;
+import com.google.visualization.datasource.datatable.TableRow;
+import com.google.visualization.datasource.datatable.value.BooleanValue;
+import com.google.visualization.datasource.datatable.value.DateValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.ValueType;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates synthetic data tables for the benchmarks. The tables have the columns:
+ * <ul>
+ *   <li><code>id</code> (number): The row index, unique and never null.</li>
+ *   <li><code>category</code> (text): One of <code>cardinality</code> values, "c0", "c1", ...</li>
+ *   <li><code>value</code> (number): A uniformly distributed number in [0, 1000).</li>
+ *   <li><code>flag</code> (boolean): A uniformly distributed boolean.</li>
+ *   <li><code>day</code> (date): A uniformly distributed date in the years 2000 - 2009.</li>
+ * </ul>
+ * Every cell of the category, value and day columns is null with the given probability.
+ * The tables are created from a fixed seed, so a benchmark gets the same table in every run.
+ */
+public final class SyntheticTables {
+
+  /**
+   * The columns of the synthetic tables.
+   */
+  private static final List<ColumnDescription> COLUMNS = ImmutableList.of(
+      new ColumnDescription("id", ValueType.NUMBER, "Id"),
+      new ColumnDescription("category", ValueType.TEXT, "Category"),
+      new ColumnDescription("value", ValueType.NUMBER, "Value"),
+      new ColumnDescription("flag", ValueType.BOOLEAN, "Flag"),
+      new ColumnDescription("day", ValueType.DATE, "Day"));
+
+  /**
+   * The epoch day of January 1st, 2000.
+   */
+  private static final int FIRST_DAY = 10957;
+
+  /**
+   * The number of days in the day column range.
+   */
+  private static final int NUMBER_OF_DAYS = 3653;
+
+  /**
+   * The seed of the random values.
+   */
+  private static final long SEED = 20090101L;
+
+  /**
+   * A private constructor for a utility class.
+   */
+  private SyntheticTables() {}
+
+  /**
+   * Creates a synthetic table.
+   *
+   * @param numberOfRows The number of rows.
+   * @param cardinality The number of distinct non-null values in the category column.
+   * @param nullRatio The probability of a cell of the category, value and day columns to be
+   *     null, between 0 and 1.
+   *
+   * @return The table.
+   */
+  public static DataTable create(int numberOfRows, int cardinality, double nullRatio) {
+    if (numberOfRows < 0 || cardinality < 1 || nullRatio < 0 || nullRatio > 1) {
+      throw new IllegalArgumentException("Invalid table parameters: rows " + numberOfRows
+          + ", cardinality " + cardinality + ", null ratio " + nullRatio);
+    }
+    TextValue[] categories = new TextValue[cardinality];
+    for (int i = 0; i < cardinality; i++) {
+      categories[i] = new TextValue("c" + i);
+    }
+
+    Random random = new Random(SEED);
+    DataTableBuilder builder = new DataTableBuilder(COLUMNS, numberOfRows).setValidating(false);
+    for (int i = 0; i < numberOfRows; i++) {
+      TableRow row = new TableRow();
+      row.addCell(new NumberValue(i));
+      row.addCell(isNull(random, nullRatio) ? TextValue.getNullValue()
+          : categories[random.nextInt(cardinality)]);
+      row.addCell(isNull(random, nullRatio) ? NumberValue.getNullValue()
+          : new NumberValue(random.nextInt(1000000) / 1000.0));
+      row.addCell(BooleanValue.getInstance(random.nextBoolean()));
+      row.addCell(isNull(random, nullRatio) ? DateValue.getNullValue()
+          : DateValue.fromEpochDay(FIRST_DAY + random.nextInt(NUMBER_OF_DAYS)));
+      builder.addRow(row);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns whether the next cell is null.
+   *
+   * @param random The random generator.
+   * @param nullRatio The probability of a cell to be null.
+   *
+   * @return True if the next cell is null.
+   */
+  private static boolean isNull(Random random, double nullRatio) {
+    return (nullRatio > 0) && (random.nextDouble() < nullRatio);
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks;
+
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.query.Query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Benchmarks the selection of the top rows of a sorted and limited query, which keeps only the
+ * first <code>limit</code> rows in a bounded heap, against the full sort of the same table.
+ */
+public class TopRowsBenchmark extends QueryEngineBenchmark {
+
+  /**
+   * The number of top rows to select.
+   */
+  @Param({"10", "100", "1000", "10000"})
+  public int limit;
+
+  /**
+   * The sorted and limited query.
+   */
+  private Query topRowsQuery;
+
+  /**
+   * The sorted query without a limit.
+   */
+  private Query fullSortQuery;
+
+  /**
+   * Parses the queries.
+   */
+  @Setup(Level.Trial)
+  public void setUpQueries() {
+    topRowsQuery = parseQuery("SELECT id, category, value ORDER BY value LIMIT " + limit);
+    fullSortQuery = parseQuery("SELECT id, category, value ORDER BY value");
+  }
+
+  /**
+   * Executes the sorted and limited query, which selects the top rows with a heap.
+   *
+   * @return The result.
+   */
+  @Benchmark
+  public DataTable topRows() {
+    return execute(topRowsQuery);
+  }
+
+  /**
+   * Executes the sorted query without a limit, which sorts all the rows.
+   *
+   * @return The result.
+   */
+  @Benchmark
+  public DataTable fullSort() {
+    return execute(fullSortQuery);
+  }
+}
@@ -0,0 +1,490 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks.loadtest;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import com.google.visualization.datasource.DataSourceRequest;
+import com.google.visualization.datasource.base.OutputType;
+import com.google.visualization.datasource.benchmarks.SyntheticTables;
+import com.google.visualization.datasource.datatable.DataTable;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A load test of {@link com.google.visualization.datasource.DataSourceServlet}. Starts an
+ * embedded Jetty server on localhost that serves a synthetic table (see {@link SyntheticTables})
+ * using a {@link LoadTestServlet}, and sends it requests from many concurrent clients. Each
+ * request has a random query of the query mix and a random output type of the output mix.
+ * After a warm up period, the load test measures the requests for the test duration, and
+ * reports the throughput, the latency percentiles and the response sizes per output type.
+ *
+ * Usage: <code>java -cp target/benchmarks.jar
+ * com.google.visualization.datasource.benchmarks.loadtest.LoadTest [--name=value ...]</code>,
+ * with the arguments:
+ * <ul>
+ *   <li><code>rows</code>: The number of rows of the table (default 1000000).</li>
+ *   <li><code>cardinality</code>: The number of distinct categories (default 100).</li>
+ *   <li><code>nullRatio</code>: The ratio of null cells (default 0.0).</li>
+ *   <li><code>clients</code>: The number of concurrent clients (default 16).</li>
+ *   <li><code>warmup</code>: The warm up period in seconds (default 10).</li>
+ *   <li><code>duration</code>: The measured period in seconds (default 30).</li>
+ *   <li><code>queries</code>: A file with the query mix, one query per line (default: a built
+ *       in mix of grouping, filtering, sorting and paging queries). Empty lines and lines
+ *       starting with # are ignored.</li>
+ *   <li><code>outputs</code>: The output mix, a comma separated list of output types and
+ *       weights (default json:4,jsonp:1,csv:2,tsv-excel:1,html:1).</li>
+ *   <li><code>asyncThreads</code>: The number of threads that serve the requests
+ *       asynchronously, or 0 to serve them on the container threads (default 0).</li>
+ *   <li><code>seed</code>: The seed of the random choices of the clients (default 1).</li>
+ * </ul>
+ */
+public class LoadTest {
+
+  /**
+   * The path of the servlet.
+   */
+  private static final String SERVLET_PATH = "/datasource";
+
+  /**
+   * The default query mix.
+   */
+  private static final List<String> DEFAULT_QUERIES = ImmutableList.of(
+      "SELECT category, sum(value), count(id) GROUP BY category",
+      "SELECT category, avg(value) GROUP BY category PIVOT flag",
+      "SELECT id, category, value WHERE value > 990 ORDER BY value DESC",
+      "SELECT id, category, value, day WHERE category = 'c1' LIMIT 100",
+      "SELECT id, upper(category), year(day) ORDER BY id DESC LIMIT 100",
+      "SELECT * LIMIT 500 OFFSET 1000");
+
+  /**
+   * The default output mix.
+   */
+  private static final String DEFAULT_OUTPUTS = "json:4,jsonp:1,csv:2,tsv-excel:1,html:1";
+
+  /**
+   * The number of rows of the table.
+   */
+  private int rows = 1000000;
+
+  /**
+   * The number of distinct categories.
+   */
+  private int cardinality = 100;
+
+  /**
+   * The ratio of null cells.
+   */
+  private double nullRatio = 0.0;
+
+  /**
+   * The number of concurrent clients.
+   */
+  private int clients = 16;
+
+  /**
+   * The warm up period in seconds.
+   */
+  private int warmupSeconds = 10;
+
+  /**
+   * The measured period in seconds.
+   */
+  private int durationSeconds = 30;
+
+  /**
+   * The query mix.
+   */
+  private List<String> queries = DEFAULT_QUERIES;
+
+  /**
+   * The output mix, where each output type appears as many times as its weight.
+   */
+  private List<OutputType> outputs = parseOutputs(DEFAULT_OUTPUTS);
+
+  /**
+   * The number of threads that serve the requests asynchronously, or 0.
+   */
+  private int asyncThreads = 0;
+
+  /**
+   * The seed of the random choices of the clients.
+   */
+  private long seed = 1;
+
+  /**
+   * Runs the load test.
+   *
+   * @param args The arguments, see the class comment.
+   *
+   * @throws Exception If the load test failed.
+   */
+  public static void main(String[] args) throws Exception {
+    LoadTest loadTest = new LoadTest();
+    loadTest.parseArguments(args);
+    loadTest.run(System.out);
+  }
+
+  /**
+   * Sets the parameters of the load test from the command line arguments.
+   *
+   * @param args The arguments, of the form <code>--name=value</code>.
+   *
+   * @throws IOException If the query file could not be read.
+   */
+  private void parseArguments(String[] args) throws IOException {
+    for (String arg : args) {
+      int index = arg.indexOf('=');
+      if (!arg.startsWith("--") || index < 0) {
+        throw new IllegalArgumentException("Invalid argument: " + arg
+            + ". The arguments are of the form --name=value.");
+      }
+      String name = arg.substring(2, index);
+      String value = arg.substring(index + 1);
+      if (name.equals("rows")) {
+        rows = Integer.parseInt(value);
+      } else if (name.equals("cardinality")) {
+        cardinality = Integer.parseInt(value);
+      } else if (name.equals("nullRatio")) {
+        nullRatio = Double.parseDouble(value);
+      } else if (name.equals("clients")) {
+        clients = Integer.parseInt(value);
+      } else if (name.equals("warmup")) {
+        warmupSeconds = Integer.parseInt(value);
+      } else if (name.equals("duration")) {
+        durationSeconds = Integer.parseInt(value);
+      } else if (name.equals("queries")) {
+        queries = readQueries(new File(value));
+      } else if (name.equals("outputs")) {
+        outputs = parseOutputs(value);
+      } else if (name.equals("asyncThreads")) {
+        asyncThreads = Integer.parseInt(value);
+      } else if (name.equals("seed")) {
+        seed = Long.parseLong(value);
+      } else {
+        throw new IllegalArgumentException("Unknown argument: " + name);
+      }
+    }
+  }
+
+  /**
+   * Runs the load test and prints the report.
+   *
+   * @param out The stream to print the report to.
+   *
+   * @throws Exception If the server could not be started, or a query of the mix fails.
+   */
+  public void run(PrintStream out) throws Exception {
+    out.println("Creating a table of " + rows + " rows...");
+    DataTable table = SyntheticTables.create(rows, cardinality, nullRatio);
+
+    Server server = new Server(new InetSocketAddress("localhost", 0));
+    ServletContextHandler context = new ServletContextHandler();
+    ServletHolder holder = new ServletHolder(new LoadTestServlet(table, asyncThreads));
+    holder.setAsyncSupported(asyncThreads > 0);
+    context.addServlet(holder, SERVLET_PATH);
+    server.setHandler(context);
+    server.start();
+    try {
+      int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+      String baseUrl = "http://localhost:" + port + SERVLET_PATH;
+      checkQueries(baseUrl);
+      out.println("Running " + clients + " clients for " + warmupSeconds + "s of warm up and "
+          + durationSeconds + "s of measurement...");
+      Map<OutputType, Samples> samples = runClients(baseUrl);
+      printReport(out, samples);
+    } finally {
+      server.stop();
+    }
+  }
+
+  /**
+   * Sends each query of the mix once, and checks that it succeeds, so that a mistyped query
+   * fails the load test instead of being measured as a fast error response.
+   *
+   * @param baseUrl The url of the servlet.
+   *
+   * @throws IOException If a query fails.
+   */
+  private void checkQueries(String baseUrl) throws IOException {
+    for (String query : queries) {
+      HttpURLConnection connection = openConnection(baseUrl, query, OutputType.JSON, 0);
+      int status = connection.getResponseCode();
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      readFully((status < 400) ? connection.getInputStream() : connection.getErrorStream(),
+          body);
+      String response = body.toString("UTF-8");
+      if (status != HttpURLConnection.HTTP_OK || response.contains("\"status\":\"error\"")) {
+        throw new IOException("The query " + query + " failed: " + response);
+      }
+    }
+  }
+
+  /**
+   * Runs the clients for the warm up and measured periods.
+   *
+   * @param baseUrl The url of the servlet.
+   *
+   * @return The samples of the measured period, per output type.
+   *
+   * @throws Exception If a client failed.
+   */
+  private Map<OutputType, Samples> runClients(final String baseUrl) throws Exception {
+    final long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+    final long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+    ExecutorService executor = Executors.newFixedThreadPool(clients);
+    List<Future<Map<OutputType, Samples>>> results = Lists.newArrayList();
+    for (int i = 0; i < clients; i++) {
+      final Random random = new Random(seed + i);
+      results.add(executor.submit(new Callable<Map<OutputType, Samples>>() {
+        @Override
+        public Map<OutputType, Samples> call() {
+          return runClient(baseUrl, random, measureStart, measureEnd);
+        }
+      }));
+    }
+    executor.shutdown();
+
+    Map<OutputType, Samples> samples = Maps.newEnumMap(OutputType.class);
+    for (Future<Map<OutputType, Samples>> result : results) {
+      for (Map.Entry<OutputType, Samples> entry : result.get().entrySet()) {
+        if (!samples.containsKey(entry.getKey())) {
+          samples.put(entry.getKey(), new Samples());
+        }
+        samples.get(entry.getKey()).addAll(entry.getValue());
+      }
+    }
+    return samples;
+  }
+
+  /**
+   * Sends requests until the end of the measured period, and records the requests sent during
+   * the measured period.
+   *
+   * @param baseUrl The url of the servlet.
+   * @param random The random choices of the client.
+   * @param measureStart The start of the measured period, in nanoseconds.
+   * @param measureEnd The end of the measured period, in nanoseconds.
+   *
+   * @return The samples of the client, per output type.
+   */
+  private Map<OutputType, Samples> runClient(String baseUrl, Random random, long measureStart,
+      long measureEnd) {
+    Map<OutputType, Samples> samples = Maps.newEnumMap(OutputType.class);
+    int requestId = 0;
+    long start;
+    while ((start = System.nanoTime()) < measureEnd) {
+      String query = queries.get(random.nextInt(queries.size()));
+      OutputType outputType = outputs.get(random.nextInt(outputs.size()));
+      long size = -1;
+      try {
+        HttpURLConnection connection = openConnection(baseUrl, query, outputType, requestId++);
+        if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+          size = readFully(connection.getInputStream(), null);
+        } else {
+          readFully(connection.getErrorStream(), null);
+        }
+      } catch (IOException e) {
+        // Recorded as an error below.
+      }
+      long latency = System.nanoTime() - start;
+      if (start >= measureStart) {
+        if (!samples.containsKey(outputType)) {
+          samples.put(outputType, new Samples());
+        }
+        if (size >= 0) {
+          samples.get(outputType).add(latency, size);
+        } else {
+          samples.get(outputType).addError();
+        }
+      }
+    }
+    return samples;
+  }
+
+  /**
+   * Prints the report of the load test.
+   *
+   * @param out The stream to print to.
+   * @param samples The samples per output type.
+   */
+  private void printReport(PrintStream out, Map<OutputType, Samples> samples) {
+    Samples total = new Samples();
+    for (Samples outputSamples : samples.values()) {
+      total.addAll(outputSamples);
+    }
+    out.println();
+    out.printf("%-10s %9s %7s %9s %9s %9s %9s %12s %12s%n", "Output", "Requests", "Errors",
+        "Req/s", "p50 ms", "p95 ms", "p99 ms", "Mean bytes", "Max bytes");
+    for (Map.Entry<OutputType, Samples> entry : samples.entrySet()) {
+      printRow(out, entry.getKey().getCode(), entry.getValue());
+    }
+    printRow(out, "all", total);
+  }
+
+  /**
+   * Prints a row of the report.
+   *
+   * @param out The stream to print to.
+   * @param name The name of the row.
+   * @param samples The samples of the row.
+   */
+  private void printRow(PrintStream out, String name, Samples samples) {
+    out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %12d %12d%n", name, samples.getCount(),
+        samples.getErrors(), (double) samples.getCount() / durationSeconds,
+        toMillis(samples.getLatencyPercentile(50)), toMillis(samples.getLatencyPercentile(95)),
+        toMillis(samples.getLatencyPercentile(99)), samples.getMeanSize(),
+        samples.getMaxSize());
+  }
+
+  /**
+   * Opens a connection that sends a data source request.
+   *
+   * @param baseUrl The url of the servlet.
+   * @param query The query.
+   * @param outputType The output type.
+   * @param requestId The request id.
+   *
+   * @return The connection.
+   *
+   * @throws IOException If the connection could not be opened.
+   */
+  private static HttpURLConnection openConnection(String baseUrl, String query,
+      OutputType outputType, int requestId) throws IOException {
+    String tqx = "out:" + outputType.getCode() + ";reqId:" + requestId;
+    URL url = new URL(baseUrl + "?tq=" + URLEncoder.encode(query, "UTF-8") + "&tqx="
+        + URLEncoder.encode(tqx, "UTF-8"));
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    // The library serves json and jsonp only to same origin requests.
+    connection.setRequestProperty(DataSourceRequest.SAME_ORIGIN_HEADER, "1");
+    return connection;
+  }
+
+  /**
+   * Reads a response to its end, so that the connection can be reused, and closes the stream.
+   *
+   * @param in The response stream, or null.
+   * @param body The stream to copy the response to, or null.
+   *
+   * @return The size of the response in bytes.
+   *
+   * @throws IOException If the response could not be read.
+   */
+  private static long readFully(InputStream in, ByteArrayOutputStream body) throws IOException {
+    if (in == null) {
+      return 0;
+    }
+    long size = 0;
+    byte[] buffer = new byte[8192];
+    try {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        size += read;
+        if (body != null) {
+          body.write(buffer, 0, read);
+        }
+      }
+    } finally {
+      in.close();
+    }
+    return size;
+  }
+
+  /**
+   * Reads a query mix from a file.
+   *
+   * @param file The file, with one query per line.
+   *
+   * @return The queries.
+   *
+   * @throws IOException If the file could not be read.
+   */
+  private static List<String> readQueries(File file) throws IOException {
+    List<String> queries = Lists.newArrayList();
+    for (String line : Files.readLines(file, Charsets.UTF_8)) {
+      line = line.trim();
+      if (!line.isEmpty() && !line.startsWith("#")) {
+        queries.add(line);
+      }
+    }
+    if (queries.isEmpty()) {
+      throw new IllegalArgumentException("The query file " + file + " has no queries.");
+    }
+    return queries;
+  }
+
+  /**
+   * Parses an output mix.
+   *
+   * @param outputMix A comma separated list of output types and weights, e.g., json:4,csv:1.
+   *
+   * @return The output types, where each output type appears as many times as its weight.
+   */
+  private static List<OutputType> parseOutputs(String outputMix) {
+    List<OutputType> outputs = Lists.newArrayList();
+    for (String output : Splitter.on(',').trimResults().omitEmptyStrings().split(outputMix)) {
+      int index = output.lastIndexOf(':');
+      String code = (index < 0) ? output : output.substring(0, index);
+      int weight = (index < 0) ? 1 : Integer.parseInt(output.substring(index + 1));
+      OutputType outputType = OutputType.findByCode(code);
+      if (outputType == null) {
+        throw new IllegalArgumentException("Unknown output type: " + code);
+      }
+      for (int i = 0; i < weight; i++) {
+        outputs.add(outputType);
+      }
+    }
+    if (outputs.isEmpty()) {
+      throw new IllegalArgumentException("The output mix is empty.");
+    }
+    return outputs;
+  }
+
+  /**
+   * Converts nanoseconds to milliseconds.
+   *
+   * @param nanos The nanoseconds.
+   *
+   * @return The milliseconds.
+   */
+  private static double toMillis(long nanos) {
+    return nanos / 1000000.0;
+  }
+}
@@ -0,0 +1,76 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks.loadtest;
+
+import com.google.visualization.datasource.DataSourceServlet;
+import com.google.visualization.datasource.benchmarks.SyntheticTables;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.query.Query;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * The data source servlet of the load test. Serves a synthetic table (see
+ * {@link SyntheticTables}) that is created once, by the load test. All the requests share the
+ * same table, like a data source that keeps its data in memory. The library changes only the
+ * locale of the messages of a generated table, and the load test sends all the requests with the
+ * same locale, so sharing the table is safe here.
+ */
+public class LoadTestServlet extends DataSourceServlet {
+
+  /**
+   * The served table.
+   */
+  private final DataTable table;
+
+  /**
+   * The executor of asynchronous requests, or null to serve the requests synchronously.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Creates a new servlet.
+   *
+   * @param table The table to serve.
+   * @param asyncThreads The number of threads that serve the requests asynchronously, or 0 to
+   *     serve the requests synchronously on the container threads.
+   */
+  public LoadTestServlet(DataTable table, int asyncThreads) {
+    this.table = table;
+    executor = (asyncThreads > 0) ? Executors.newFixedThreadPool(asyncThreads) : null;
+  }
+
+  @Override
+  public DataTable generateDataTable(Query query, HttpServletRequest request) {
+    return table;
+  }
+
+  @Override
+  protected Executor getExecutor() {
+    return executor;
+  }
+
+  @Override
+  public void destroy() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+    super.destroy();
+  }
+}
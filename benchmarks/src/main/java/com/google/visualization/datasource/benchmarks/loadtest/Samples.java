@@ -0,0 +1,153 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.benchmarks.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The latencies and response sizes of the requests of a load test, and the number of failed
+ * requests. Not thread-safe; each client records its own samples, and the samples are merged at
+ * the end of the test.
+ */
+/* package */ class Samples {
+
+  /**
+   * The latencies of the successful requests, in nanoseconds.
+   */
+  private long[] latencies = new long[1024];
+
+  /**
+   * The response sizes of the successful requests, in bytes.
+   */
+  private long[] sizes = new long[1024];
+
+  /**
+   * The number of successful requests.
+   */
+  private int count;
+
+  /**
+   * The number of failed requests.
+   */
+  private int errors;
+
+  /**
+   * Whether the latencies are sorted.
+   */
+  private boolean sorted = true;
+
+  /**
+   * Records a successful request.
+   *
+   * @param latencyNanos The latency of the request in nanoseconds.
+   * @param size The size of the response in bytes.
+   */
+  public void add(long latencyNanos, long size) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+      sizes = Arrays.copyOf(sizes, count * 2);
+    }
+    latencies[count] = latencyNanos;
+    sizes[count] = size;
+    count++;
+    sorted = false;
+  }
+
+  /**
+   * Records a failed request.
+   */
+  public void addError() {
+    errors++;
+  }
+
+  /**
+   * Adds all the samples of the given samples to these samples.
+   *
+   * @param other The samples to add.
+   */
+  public void addAll(Samples other) {
+    for (int i = 0; i < other.count; i++) {
+      add(other.latencies[i], other.sizes[i]);
+    }
+    errors += other.errors;
+  }
+
+  /**
+   * Returns the number of successful requests.
+   *
+   * @return The number of successful requests.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the number of failed requests.
+   *
+   * @return The number of failed requests.
+   */
+  public int getErrors() {
+    return errors;
+  }
+
+  /**
+   * Returns a latency percentile, using the nearest rank method.
+   *
+   * @param percentile The percentile, between 0 and 100.
+   *
+   * @return The latency in nanoseconds, or 0 if there are no samples.
+   */
+  public long getLatencyPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    if (!sorted) {
+      // Only the latencies are sorted; the sizes are used only for their mean and maximum.
+      Arrays.sort(latencies, 0, count);
+      sorted = true;
+    }
+    int rank = (int) Math.ceil(percentile / 100 * count);
+    return latencies[Math.max(rank, 1) - 1];
+  }
+
+  /**
+   * Returns the mean response size.
+   *
+   * @return The mean response size in bytes, or 0 if there are no samples.
+   */
+  public long getMeanSize() {
+    if (count == 0) {
+      return 0;
+    }
+    long total = 0;
+    for (int i = 0; i < count; i++) {
+      total += sizes[i];
+    }
+    return total / count;
+  }
+
+  /**
+   * Returns the maximal response size.
+   *
+   * @return The maximal response size in bytes, or 0 if there are no samples.
+   */
+  public long getMaxSize() {
+    long max = 0;
+    for (int i = 0; i < count; i++) {
+      max = Math.max(max, sizes[i]);
+    }
+    return max;
+  }
+}
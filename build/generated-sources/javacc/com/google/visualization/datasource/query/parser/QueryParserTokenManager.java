@@ -0,0 +1,1710 @@
+/* Generated By:JavaCC: Do not edit this line. QueryParserTokenManager.java */
+package com.google.visualization.datasource.query.parser;
+import com.google.visualization.datasource.base.InvalidQueryException;
+import com.google.visualization.datasource.datatable.value.BooleanValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.Value;
+import com.google.visualization.datasource.query.AbstractColumn;
+import com.google.visualization.datasource.query.AggregationColumn;
+import com.google.visualization.datasource.query.AggregationType;
+import com.google.visualization.datasource.query.ColumnColumnFilter;
+import com.google.visualization.datasource.query.ColumnIsNullFilter;
+import com.google.visualization.datasource.query.ColumnValueFilter;
+import com.google.visualization.datasource.query.ComparisonFilter;
+import com.google.visualization.datasource.query.CompoundFilter;
+import com.google.visualization.datasource.query.NegationFilter;
+import com.google.visualization.datasource.query.Query;
+import com.google.visualization.datasource.query.QueryFilter;
+import com.google.visualization.datasource.query.QueryFormat;
+import com.google.visualization.datasource.query.QueryGroup;
+import com.google.visualization.datasource.query.QueryLabels;
+import com.google.visualization.datasource.query.QueryOptions;
+import com.google.visualization.datasource.query.QueryPivot;
+import com.google.visualization.datasource.query.QuerySelection;
+import com.google.visualization.datasource.query.QuerySort;
+import com.google.visualization.datasource.query.ScalarFunctionColumn;
+import com.google.visualization.datasource.query.SortOrder;
+import com.google.visualization.datasource.query.SimpleColumn;
+import com.google.visualization.datasource.query.scalarfunction.Constant;
+import com.google.visualization.datasource.query.scalarfunction.CurrentDateTime;
+import com.google.visualization.datasource.query.scalarfunction.DateDiff;
+import com.google.visualization.datasource.query.scalarfunction.Difference;
+import com.google.visualization.datasource.query.scalarfunction.Lower;
+import com.google.visualization.datasource.query.scalarfunction.Modulo;
+import com.google.visualization.datasource.query.scalarfunction.Product;
+import com.google.visualization.datasource.query.scalarfunction.Quotient;
+import com.google.visualization.datasource.query.scalarfunction.ScalarFunction;
+import com.google.visualization.datasource.query.scalarfunction.Sum;
+import com.google.visualization.datasource.query.scalarfunction.ToDate;
+import com.google.visualization.datasource.query.scalarfunction.TimeComponentExtractor;
+import com.google.visualization.datasource.query.scalarfunction.Upper;
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+/** Token Manager. */
+public class QueryParserTokenManager implements QueryParserConstants
+{
+
+  /** Debug output. */
+  public  java.io.PrintStream debugStream = System.out;
+  /** Set debug output. */
+  public  void setDebugStream(java.io.PrintStream ds) { debugStream = ds; }
+private int jjStopAtPos(int pos, int kind)
+{
+   jjmatchedKind = kind;
+   jjmatchedPos = pos;
+   return pos + 1;
+}
+private int jjMoveStringLiteralDfa0_0()
+{
+   switch(curChar)
+   {
+      case 9:
+         jjmatchedKind = 2;
+         return jjMoveNfa_0(0, 0);
+      case 10:
+         jjmatchedKind = 3;
+         return jjMoveNfa_0(0, 0);
+      case 13:
+         jjmatchedKind = 4;
+         return jjMoveNfa_0(0, 0);
+      case 32:
+         jjmatchedKind = 1;
+         return jjMoveNfa_0(0, 0);
+      case 37:
+         jjmatchedKind = 78;
+         return jjMoveNfa_0(0, 0);
+      case 40:
+         jjmatchedKind = 66;
+         return jjMoveNfa_0(0, 0);
+      case 41:
+         jjmatchedKind = 67;
+         return jjMoveNfa_0(0, 0);
+      case 42:
+         jjmatchedKind = 74;
+         return jjMoveNfa_0(0, 0);
+      case 43:
+         jjmatchedKind = 75;
+         return jjMoveNfa_0(0, 0);
+      case 44:
+         jjmatchedKind = 65;
+         return jjMoveNfa_0(0, 0);
+      case 45:
+         jjmatchedKind = 76;
+         return jjMoveNfa_0(0, 0);
+      case 47:
+         jjmatchedKind = 77;
+         return jjMoveNfa_0(0, 0);
+      case 60:
+         jjmatchedKind = 70;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x80L);
+      case 61:
+         jjmatchedKind = 68;
+         return jjMoveNfa_0(0, 0);
+      case 62:
+         jjmatchedKind = 72;
+         return jjMoveStringLiteralDfa1_0(0x0L, 0x200L);
+      case 65:
+         return jjMoveStringLiteralDfa1_0(0x40220000L, 0x0L);
+      case 66:
+         return jjMoveStringLiteralDfa1_0(0x400L, 0x0L);
+      case 67:
+         return jjMoveStringLiteralDfa1_0(0x200080000000L, 0x0L);
+      case 68:
+         return jjMoveStringLiteralDfa1_0(0x88008005040000L, 0x0L);
+      case 69:
+         return jjMoveStringLiteralDfa1_0(0x800000000000L, 0x0L);
+      case 70:
+         return jjMoveStringLiteralDfa1_0(0x108000L, 0x0L);
+      case 71:
+         return jjMoveStringLiteralDfa1_0(0x80L, 0x0L);
+      case 72:
+         return jjMoveStringLiteralDfa1_0(0x10000000000L, 0x0L);
+      case 73:
+         return jjMoveStringLiteralDfa1_0(0x800000000L, 0x0L);
+      case 76:
+         return jjMoveStringLiteralDfa1_0(0x22000000005000L, 0x0L);
+      case 77:
+         return jjMoveStringLiteralDfa1_0(0x10a4030000000L, 0x0L);
+      case 78:
+         return jjMoveStringLiteralDfa1_0(0x4001600800000L, 0x0L);
+      case 79:
+         return jjMoveStringLiteralDfa1_0(0x412200L, 0x0L);
+      case 80:
+         return jjMoveStringLiteralDfa1_0(0x100L, 0x0L);
+      case 81:
+         return jjMoveStringLiteralDfa1_0(0x10000000000000L, 0x0L);
+      case 83:
+         return jjMoveStringLiteralDfa1_0(0x440100000820L, 0x0L);
+      case 84:
+         return jjMoveStringLiteralDfa1_0(0x10000000a080000L, 0x0L);
+      case 85:
+         return jjMoveStringLiteralDfa1_0(0x40000000000000L, 0x0L);
+      case 87:
+         return jjMoveStringLiteralDfa1_0(0x100000000040L, 0x0L);
+      case 89:
+         return jjMoveStringLiteralDfa1_0(0x2000000000L, 0x0L);
+      case 97:
+         return jjMoveStringLiteralDfa1_0(0x40220000L, 0x0L);
+      case 98:
+         return jjMoveStringLiteralDfa1_0(0x400L, 0x0L);
+      case 99:
+         return jjMoveStringLiteralDfa1_0(0x200080000000L, 0x0L);
+      case 100:
+         return jjMoveStringLiteralDfa1_0(0x88008005040000L, 0x0L);
+      case 101:
+         return jjMoveStringLiteralDfa1_0(0x800000000000L, 0x0L);
+      case 102:
+         return jjMoveStringLiteralDfa1_0(0x108000L, 0x0L);
+      case 103:
+         return jjMoveStringLiteralDfa1_0(0x80L, 0x0L);
+      case 104:
+         return jjMoveStringLiteralDfa1_0(0x10000000000L, 0x0L);
+      case 105:
+         return jjMoveStringLiteralDfa1_0(0x800000000L, 0x0L);
+      case 108:
+         return jjMoveStringLiteralDfa1_0(0x22000000005000L, 0x0L);
+      case 109:
+         return jjMoveStringLiteralDfa1_0(0x10a4030000000L, 0x0L);
+      case 110:
+         return jjMoveStringLiteralDfa1_0(0x4001600800000L, 0x0L);
+      case 111:
+         return jjMoveStringLiteralDfa1_0(0x412200L, 0x0L);
+      case 112:
+         return jjMoveStringLiteralDfa1_0(0x100L, 0x0L);
+      case 113:
+         return jjMoveStringLiteralDfa1_0(0x10000000000000L, 0x0L);
+      case 115:
+         return jjMoveStringLiteralDfa1_0(0x440100000820L, 0x0L);
+      case 116:
+         return jjMoveStringLiteralDfa1_0(0x10000000a080000L, 0x0L);
+      case 117:
+         return jjMoveStringLiteralDfa1_0(0x40000000000000L, 0x0L);
+      case 119:
+         return jjMoveStringLiteralDfa1_0(0x100000000040L, 0x0L);
+      case 121:
+         return jjMoveStringLiteralDfa1_0(0x2000000000L, 0x0L);
+      default :
+         return jjMoveNfa_0(0, 0);
+   }
+}
+private int jjMoveStringLiteralDfa1_0(long active0, long active1)
+{
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 0);
+   }
+   switch(curChar)
+   {
+      case 61:
+         if ((active1 & 0x80L) != 0L)
+         {
+            jjmatchedKind = 71;
+            jjmatchedPos = 1;
+         }
+         else if ((active1 & 0x200L) != 0L)
+         {
+            jjmatchedKind = 73;
+            jjmatchedPos = 1;
+         }
+         break;
+      case 65:
+         return jjMoveStringLiteralDfa2_0(active0, 0x89008025104000L, active1, 0L);
+      case 69:
+         return jjMoveStringLiteralDfa2_0(active0, 0x42000040020L, active1, 0L);
+      case 70:
+         return jjMoveStringLiteralDfa2_0(active0, 0x2000L, active1, 0L);
+      case 72:
+         return jjMoveStringLiteralDfa2_0(active0, 0x40L, active1, 0L);
+      case 73:
+         return jjMoveStringLiteralDfa2_0(active0, 0x21a001a001100L, active1, 0L);
+      case 75:
+         return jjMoveStringLiteralDfa2_0(active0, 0x800L, active1, 0L);
+      case 78:
+         return jjMoveStringLiteralDfa2_0(active0, 0x800000200000L, active1, 0L);
+      case 79:
+         return jjMoveStringLiteralDfa2_0(active0, 0x124214680808000L, active1, 0L);
+      case 80:
+         return jjMoveStringLiteralDfa2_0(active0, 0x40000000010000L, active1, 0L);
+      case 82:
+         if ((active0 & 0x400000L) != 0L)
+         {
+            jjmatchedKind = 22;
+            jjmatchedPos = 1;
+         }
+         return jjMoveStringLiteralDfa2_0(active0, 0x80280L, active1, 0L);
+      case 83:
+         if ((active0 & 0x800000000L) != 0L)
+         {
+            jjmatchedKind = 35;
+            jjmatchedPos = 1;
+         }
+         return jjMoveStringLiteralDfa2_0(active0, 0x20000L, active1, 0L);
+      case 84:
+         return jjMoveStringLiteralDfa2_0(active0, 0x400000000000L, active1, 0L);
+      case 85:
+         return jjMoveStringLiteralDfa2_0(active0, 0x10001100000000L, active1, 0L);
+      case 86:
+         return jjMoveStringLiteralDfa2_0(active0, 0x40000000L, active1, 0L);
+      case 89:
+         if ((active0 & 0x400L) != 0L)
+         {
+            jjmatchedKind = 10;
+            jjmatchedPos = 1;
+         }
+         break;
+      case 97:
+         return jjMoveStringLiteralDfa2_0(active0, 0x89008025104000L, active1, 0L);
+      case 101:
+         return jjMoveStringLiteralDfa2_0(active0, 0x42000040020L, active1, 0L);
+      case 102:
+         return jjMoveStringLiteralDfa2_0(active0, 0x2000L, active1, 0L);
+      case 104:
+         return jjMoveStringLiteralDfa2_0(active0, 0x40L, active1, 0L);
+      case 105:
+         return jjMoveStringLiteralDfa2_0(active0, 0x21a001a001100L, active1, 0L);
+      case 107:
+         return jjMoveStringLiteralDfa2_0(active0, 0x800L, active1, 0L);
+      case 110:
+         return jjMoveStringLiteralDfa2_0(active0, 0x800000200000L, active1, 0L);
+      case 111:
+         return jjMoveStringLiteralDfa2_0(active0, 0x124214680808000L, active1, 0L);
+      case 112:
+         return jjMoveStringLiteralDfa2_0(active0, 0x40000000010000L, active1, 0L);
+      case 114:
+         if ((active0 & 0x400000L) != 0L)
+         {
+            jjmatchedKind = 22;
+            jjmatchedPos = 1;
+         }
+         return jjMoveStringLiteralDfa2_0(active0, 0x80280L, active1, 0L);
+      case 115:
+         if ((active0 & 0x800000000L) != 0L)
+         {
+            jjmatchedKind = 35;
+            jjmatchedPos = 1;
+         }
+         return jjMoveStringLiteralDfa2_0(active0, 0x20000L, active1, 0L);
+      case 116:
+         return jjMoveStringLiteralDfa2_0(active0, 0x400000000000L, active1, 0L);
+      case 117:
+         return jjMoveStringLiteralDfa2_0(active0, 0x10001100000000L, active1, 0L);
+      case 118:
+         return jjMoveStringLiteralDfa2_0(active0, 0x40000000L, active1, 0L);
+      case 121:
+         if ((active0 & 0x400L) != 0L)
+         {
+            jjmatchedKind = 10;
+            jjmatchedPos = 1;
+         }
+         break;
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 1);
+}
+private int jjMoveStringLiteralDfa2_0(long old0, long active0, long old1, long active1)
+{
+   if (((active0 &= old0) | (active1 &= old1)) == 0L)
+      return jjMoveNfa_0(0, 1);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 1);
+   }
+   switch(curChar)
+   {
+      case 65:
+         return jjMoveStringLiteralDfa3_0(active0, 0x10402000000000L);
+      case 66:
+         return jjMoveStringLiteralDfa3_0(active0, 0x4000L);
+      case 67:
+         if ((active0 & 0x20000L) != 0L)
+         {
+            jjmatchedKind = 17;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000000000L);
+      case 68:
+         if ((active0 & 0x200000L) != 0L)
+         {
+            jjmatchedKind = 21;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x100800000000200L);
+      case 69:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40L);
+      case 70:
+         return jjMoveStringLiteralDfa3_0(active0, 0x2000L);
+      case 71:
+         if ((active0 & 0x40000000L) != 0L)
+         {
+            jjmatchedKind = 30;
+            jjmatchedPos = 2;
+         }
+         break;
+      case 73:
+         return jjMoveStringLiteralDfa3_0(active0, 0x800L);
+      case 75:
+         return jjMoveStringLiteralDfa3_0(active0, 0x2000000000000L);
+      case 76:
+         return jjMoveStringLiteralDfa3_0(active0, 0x81000100020L);
+      case 77:
+         if ((active0 & 0x100000000L) != 0L)
+         {
+            jjmatchedKind = 32;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0xa001000L);
+      case 78:
+         if ((active0 & 0x10000000L) != 0L)
+         {
+            jjmatchedKind = 28;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x224000000000L);
+      case 79:
+         return jjMoveStringLiteralDfa3_0(active0, 0x80L);
+      case 80:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000000000000L);
+      case 82:
+         return jjMoveStringLiteralDfa3_0(active0, 0x8000L);
+      case 83:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000L);
+      case 84:
+         if ((active0 & 0x800000L) != 0L)
+         {
+            jjmatchedKind = 23;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x9100005010000L);
+      case 85:
+         return jjMoveStringLiteralDfa3_0(active0, 0x10080080000L);
+      case 86:
+         return jjMoveStringLiteralDfa3_0(active0, 0x100L);
+      case 87:
+         if ((active0 & 0x4000000000000L) != 0L)
+         {
+            jjmatchedKind = 50;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x20000000000000L);
+      case 88:
+         if ((active0 & 0x20000000L) != 0L)
+         {
+            jjmatchedKind = 29;
+            jjmatchedPos = 2;
+         }
+         break;
+      case 89:
+         if ((active0 & 0x8000000000L) != 0L)
+         {
+            jjmatchedKind = 39;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x80000000000000L);
+      case 95:
+         return jjMoveStringLiteralDfa3_0(active0, 0x600000000L);
+      case 97:
+         return jjMoveStringLiteralDfa3_0(active0, 0x10402000000000L);
+      case 98:
+         return jjMoveStringLiteralDfa3_0(active0, 0x4000L);
+      case 99:
+         if ((active0 & 0x20000L) != 0L)
+         {
+            jjmatchedKind = 17;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000000000L);
+      case 100:
+         if ((active0 & 0x200000L) != 0L)
+         {
+            jjmatchedKind = 21;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x100800000000200L);
+      case 101:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40L);
+      case 102:
+         return jjMoveStringLiteralDfa3_0(active0, 0x2000L);
+      case 103:
+         if ((active0 & 0x40000000L) != 0L)
+         {
+            jjmatchedKind = 30;
+            jjmatchedPos = 2;
+         }
+         break;
+      case 105:
+         return jjMoveStringLiteralDfa3_0(active0, 0x800L);
+      case 107:
+         return jjMoveStringLiteralDfa3_0(active0, 0x2000000000000L);
+      case 108:
+         return jjMoveStringLiteralDfa3_0(active0, 0x81000100020L);
+      case 109:
+         if ((active0 & 0x100000000L) != 0L)
+         {
+            jjmatchedKind = 32;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0xa001000L);
+      case 110:
+         if ((active0 & 0x10000000L) != 0L)
+         {
+            jjmatchedKind = 28;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x224000000000L);
+      case 111:
+         return jjMoveStringLiteralDfa3_0(active0, 0x80L);
+      case 112:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000000000000L);
+      case 114:
+         return jjMoveStringLiteralDfa3_0(active0, 0x8000L);
+      case 115:
+         return jjMoveStringLiteralDfa3_0(active0, 0x40000L);
+      case 116:
+         if ((active0 & 0x800000L) != 0L)
+         {
+            jjmatchedKind = 23;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x9100005010000L);
+      case 117:
+         return jjMoveStringLiteralDfa3_0(active0, 0x10080080000L);
+      case 118:
+         return jjMoveStringLiteralDfa3_0(active0, 0x100L);
+      case 119:
+         if ((active0 & 0x4000000000000L) != 0L)
+         {
+            jjmatchedKind = 50;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x20000000000000L);
+      case 120:
+         if ((active0 & 0x20000000L) != 0L)
+         {
+            jjmatchedKind = 29;
+            jjmatchedPos = 2;
+         }
+         break;
+      case 121:
+         if ((active0 & 0x8000000000L) != 0L)
+         {
+            jjmatchedKind = 39;
+            jjmatchedPos = 2;
+         }
+         return jjMoveStringLiteralDfa3_0(active0, 0x80000000000000L);
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 2);
+}
+private int jjMoveStringLiteralDfa3_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjMoveNfa_0(0, 2);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 2);
+   }
+   switch(curChar)
+   {
+      case 65:
+         return jjMoveStringLiteralDfa4_0(active0, 0x100000000000000L);
+      case 67:
+         if ((active0 & 0x40000L) != 0L)
+         {
+            jjmatchedKind = 18;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x1000000000000L);
+      case 69:
+         if ((active0 & 0x80000L) != 0L)
+         {
+            jjmatchedKind = 19;
+            jjmatchedPos = 3;
+         }
+         else if ((active0 & 0x1000000L) != 0L)
+         {
+            jjmatchedKind = 24;
+            jjmatchedPos = 3;
+         }
+         else if ((active0 & 0x2000000000000L) != 0L)
+         {
+            jjmatchedKind = 49;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x6800000e004220L);
+      case 70:
+         return jjMoveStringLiteralDfa4_0(active0, 0x400000000L);
+      case 72:
+         if ((active0 & 0x100000000000L) != 0L)
+         {
+            jjmatchedKind = 44;
+            jjmatchedPos = 3;
+         }
+         break;
+      case 73:
+         return jjMoveStringLiteralDfa4_0(active0, 0x11000L);
+      case 76:
+         if ((active0 & 0x1000000000L) != 0L)
+         {
+            jjmatchedKind = 36;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x80000000000L);
+      case 77:
+         return jjMoveStringLiteralDfa4_0(active0, 0x8000L);
+      case 78:
+         return jjMoveStringLiteralDfa4_0(active0, 0x80000000L);
+      case 79:
+         return jjMoveStringLiteralDfa4_0(active0, 0x80040000000100L);
+      case 80:
+         return jjMoveStringLiteralDfa4_0(active0, 0x800L);
+      case 82:
+         if ((active0 & 0x2000000000L) != 0L)
+         {
+            jjmatchedKind = 37;
+            jjmatchedPos = 3;
+         }
+         else if ((active0 & 0x10000000000L) != 0L)
+         {
+            jjmatchedKind = 40;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x10400000000040L);
+      case 83:
+         if ((active0 & 0x800000000000L) != 0L)
+         {
+            jjmatchedKind = 47;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x102000L);
+      case 84:
+         return jjMoveStringLiteralDfa4_0(active0, 0x204000000000L);
+      case 85:
+         return jjMoveStringLiteralDfa4_0(active0, 0x20000000080L);
+      case 86:
+         return jjMoveStringLiteralDfa4_0(active0, 0x200000000L);
+      case 97:
+         return jjMoveStringLiteralDfa4_0(active0, 0x100000000000000L);
+      case 99:
+         if ((active0 & 0x40000L) != 0L)
+         {
+            jjmatchedKind = 18;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x1000000000000L);
+      case 101:
+         if ((active0 & 0x80000L) != 0L)
+         {
+            jjmatchedKind = 19;
+            jjmatchedPos = 3;
+         }
+         else if ((active0 & 0x1000000L) != 0L)
+         {
+            jjmatchedKind = 24;
+            jjmatchedPos = 3;
+         }
+         else if ((active0 & 0x2000000000000L) != 0L)
+         {
+            jjmatchedKind = 49;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x6800000e004220L);
+      case 102:
+         return jjMoveStringLiteralDfa4_0(active0, 0x400000000L);
+      case 104:
+         if ((active0 & 0x100000000000L) != 0L)
+         {
+            jjmatchedKind = 44;
+            jjmatchedPos = 3;
+         }
+         break;
+      case 105:
+         return jjMoveStringLiteralDfa4_0(active0, 0x11000L);
+      case 108:
+         if ((active0 & 0x1000000000L) != 0L)
+         {
+            jjmatchedKind = 36;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x80000000000L);
+      case 109:
+         return jjMoveStringLiteralDfa4_0(active0, 0x8000L);
+      case 110:
+         return jjMoveStringLiteralDfa4_0(active0, 0x80000000L);
+      case 111:
+         return jjMoveStringLiteralDfa4_0(active0, 0x80040000000100L);
+      case 112:
+         return jjMoveStringLiteralDfa4_0(active0, 0x800L);
+      case 114:
+         if ((active0 & 0x2000000000L) != 0L)
+         {
+            jjmatchedKind = 37;
+            jjmatchedPos = 3;
+         }
+         else if ((active0 & 0x10000000000L) != 0L)
+         {
+            jjmatchedKind = 40;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x10400000000040L);
+      case 115:
+         if ((active0 & 0x800000000000L) != 0L)
+         {
+            jjmatchedKind = 47;
+            jjmatchedPos = 3;
+         }
+         return jjMoveStringLiteralDfa4_0(active0, 0x102000L);
+      case 116:
+         return jjMoveStringLiteralDfa4_0(active0, 0x204000000000L);
+      case 117:
+         return jjMoveStringLiteralDfa4_0(active0, 0x20000000080L);
+      case 118:
+         return jjMoveStringLiteralDfa4_0(active0, 0x200000000L);
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 3);
+}
+private int jjMoveStringLiteralDfa4_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjMoveNfa_0(0, 3);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 3);
+   }
+   switch(curChar)
+   {
+      case 65:
+         return jjMoveStringLiteralDfa5_0(active0, 0x200200008000L);
+      case 67:
+         return jjMoveStringLiteralDfa5_0(active0, 0x20L);
+      case 68:
+         return jjMoveStringLiteralDfa5_0(active0, 0x8000000000000L);
+      case 69:
+         if ((active0 & 0x40L) != 0L)
+         {
+            jjmatchedKind = 6;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x100000L) != 0L)
+         {
+            jjmatchedKind = 20;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x2000L);
+      case 70:
+         return jjMoveStringLiteralDfa5_0(active0, 0x80000000000000L);
+      case 72:
+         if ((active0 & 0x4000000000L) != 0L)
+         {
+            jjmatchedKind = 38;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x1000000000000L);
+      case 73:
+         return jjMoveStringLiteralDfa5_0(active0, 0x80000000000L);
+      case 76:
+         if ((active0 & 0x4000L) != 0L)
+         {
+            jjmatchedKind = 14;
+            jjmatchedPos = 4;
+         }
+         break;
+      case 78:
+         return jjMoveStringLiteralDfa5_0(active0, 0x40000000000L);
+      case 79:
+         return jjMoveStringLiteralDfa5_0(active0, 0x402010000L);
+      case 80:
+         if ((active0 & 0x80L) != 0L)
+         {
+            jjmatchedKind = 7;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x800L);
+      case 82:
+         if ((active0 & 0x200L) != 0L)
+         {
+            jjmatchedKind = 9;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x20000000000000L) != 0L)
+         {
+            jjmatchedKind = 53;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x40000000000000L) != 0L)
+         {
+            jjmatchedKind = 54;
+            jjmatchedPos = 4;
+         }
+         break;
+      case 83:
+         return jjMoveStringLiteralDfa5_0(active0, 0x8000000L);
+      case 84:
+         if ((active0 & 0x100L) != 0L)
+         {
+            jjmatchedKind = 8;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x1000L) != 0L)
+         {
+            jjmatchedKind = 12;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x80000000L) != 0L)
+         {
+            jjmatchedKind = 31;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x110420004000000L);
+      case 97:
+         return jjMoveStringLiteralDfa5_0(active0, 0x200200008000L);
+      case 99:
+         return jjMoveStringLiteralDfa5_0(active0, 0x20L);
+      case 100:
+         return jjMoveStringLiteralDfa5_0(active0, 0x8000000000000L);
+      case 101:
+         if ((active0 & 0x40L) != 0L)
+         {
+            jjmatchedKind = 6;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x100000L) != 0L)
+         {
+            jjmatchedKind = 20;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x2000L);
+      case 102:
+         return jjMoveStringLiteralDfa5_0(active0, 0x80000000000000L);
+      case 104:
+         if ((active0 & 0x4000000000L) != 0L)
+         {
+            jjmatchedKind = 38;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x1000000000000L);
+      case 105:
+         return jjMoveStringLiteralDfa5_0(active0, 0x80000000000L);
+      case 108:
+         if ((active0 & 0x4000L) != 0L)
+         {
+            jjmatchedKind = 14;
+            jjmatchedPos = 4;
+         }
+         break;
+      case 110:
+         return jjMoveStringLiteralDfa5_0(active0, 0x40000000000L);
+      case 111:
+         return jjMoveStringLiteralDfa5_0(active0, 0x402010000L);
+      case 112:
+         if ((active0 & 0x80L) != 0L)
+         {
+            jjmatchedKind = 7;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x800L);
+      case 114:
+         if ((active0 & 0x200L) != 0L)
+         {
+            jjmatchedKind = 9;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x20000000000000L) != 0L)
+         {
+            jjmatchedKind = 53;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x40000000000000L) != 0L)
+         {
+            jjmatchedKind = 54;
+            jjmatchedPos = 4;
+         }
+         break;
+      case 115:
+         return jjMoveStringLiteralDfa5_0(active0, 0x8000000L);
+      case 116:
+         if ((active0 & 0x100L) != 0L)
+         {
+            jjmatchedKind = 8;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x1000L) != 0L)
+         {
+            jjmatchedKind = 12;
+            jjmatchedPos = 4;
+         }
+         else if ((active0 & 0x80000000L) != 0L)
+         {
+            jjmatchedKind = 31;
+            jjmatchedPos = 4;
+         }
+         return jjMoveStringLiteralDfa5_0(active0, 0x110420004000000L);
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 4);
+}
+private int jjMoveStringLiteralDfa5_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjMoveNfa_0(0, 4);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 4);
+   }
+   switch(curChar)
+   {
+      case 68:
+         if ((active0 & 0x40000000000L) != 0L)
+         {
+            jjmatchedKind = 42;
+            jjmatchedPos = 5;
+         }
+         break;
+      case 69:
+         if ((active0 & 0x20000000000L) != 0L)
+         {
+            jjmatchedKind = 41;
+            jjmatchedPos = 5;
+         }
+         else if ((active0 & 0x100000000000000L) != 0L)
+         {
+            jjmatchedKind = 56;
+            jjmatchedPos = 5;
+         }
+         return jjMoveStringLiteralDfa6_0(active0, 0x11000000000000L);
+      case 70:
+         return jjMoveStringLiteralDfa6_0(active0, 0x2000000L);
+      case 73:
+         return jjMoveStringLiteralDfa6_0(active0, 0x8200004000800L);
+      case 76:
+         return jjMoveStringLiteralDfa6_0(active0, 0x200000000L);
+      case 78:
+         return jjMoveStringLiteralDfa6_0(active0, 0x10000L);
+      case 82:
+         return jjMoveStringLiteralDfa6_0(active0, 0x400000000L);
+      case 83:
+         if ((active0 & 0x400000000000L) != 0L)
+         {
+            jjmatchedKind = 46;
+            jjmatchedPos = 5;
+         }
+         return jjMoveStringLiteralDfa6_0(active0, 0x80000000000L);
+      case 84:
+         if ((active0 & 0x20L) != 0L)
+         {
+            jjmatchedKind = 5;
+            jjmatchedPos = 5;
+         }
+         else if ((active0 & 0x2000L) != 0L)
+         {
+            jjmatchedKind = 13;
+            jjmatchedPos = 5;
+         }
+         else if ((active0 & 0x8000L) != 0L)
+         {
+            jjmatchedKind = 15;
+            jjmatchedPos = 5;
+         }
+         return jjMoveStringLiteralDfa6_0(active0, 0x8000000L);
+      case 87:
+         return jjMoveStringLiteralDfa6_0(active0, 0x80000000000000L);
+      case 100:
+         if ((active0 & 0x40000000000L) != 0L)
+         {
+            jjmatchedKind = 42;
+            jjmatchedPos = 5;
+         }
+         break;
+      case 101:
+         if ((active0 & 0x20000000000L) != 0L)
+         {
+            jjmatchedKind = 41;
+            jjmatchedPos = 5;
+         }
+         else if ((active0 & 0x100000000000000L) != 0L)
+         {
+            jjmatchedKind = 56;
+            jjmatchedPos = 5;
+         }
+         return jjMoveStringLiteralDfa6_0(active0, 0x11000000000000L);
+      case 102:
+         return jjMoveStringLiteralDfa6_0(active0, 0x2000000L);
+      case 105:
+         return jjMoveStringLiteralDfa6_0(active0, 0x8200004000800L);
+      case 108:
+         return jjMoveStringLiteralDfa6_0(active0, 0x200000000L);
+      case 110:
+         return jjMoveStringLiteralDfa6_0(active0, 0x10000L);
+      case 114:
+         return jjMoveStringLiteralDfa6_0(active0, 0x400000000L);
+      case 115:
+         if ((active0 & 0x400000000000L) != 0L)
+         {
+            jjmatchedKind = 46;
+            jjmatchedPos = 5;
+         }
+         return jjMoveStringLiteralDfa6_0(active0, 0x80000000000L);
+      case 116:
+         if ((active0 & 0x20L) != 0L)
+         {
+            jjmatchedKind = 5;
+            jjmatchedPos = 5;
+         }
+         else if ((active0 & 0x2000L) != 0L)
+         {
+            jjmatchedKind = 13;
+            jjmatchedPos = 5;
+         }
+         else if ((active0 & 0x8000L) != 0L)
+         {
+            jjmatchedKind = 15;
+            jjmatchedPos = 5;
+         }
+         return jjMoveStringLiteralDfa6_0(active0, 0x8000000L);
+      case 119:
+         return jjMoveStringLiteralDfa6_0(active0, 0x80000000000000L);
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 5);
+}
+private int jjMoveStringLiteralDfa6_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjMoveNfa_0(0, 5);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 5);
+   }
+   switch(curChar)
+   {
+      case 65:
+         return jjMoveStringLiteralDfa7_0(active0, 0x8000000L);
+      case 68:
+         return jjMoveStringLiteralDfa7_0(active0, 0x2000000L);
+      case 69:
+         return jjMoveStringLiteralDfa7_0(active0, 0x80080000000000L);
+      case 70:
+         return jjMoveStringLiteralDfa7_0(active0, 0x8000000000000L);
+      case 77:
+         return jjMoveStringLiteralDfa7_0(active0, 0x404000000L);
+      case 78:
+         return jjMoveStringLiteralDfa7_0(active0, 0x200000000800L);
+      case 82:
+         if ((active0 & 0x10000000000000L) != 0L)
+         {
+            jjmatchedKind = 52;
+            jjmatchedPos = 6;
+         }
+         break;
+      case 83:
+         if ((active0 & 0x10000L) != 0L)
+         {
+            jjmatchedKind = 16;
+            jjmatchedPos = 6;
+         }
+         else if ((active0 & 0x1000000000000L) != 0L)
+         {
+            jjmatchedKind = 48;
+            jjmatchedPos = 6;
+         }
+         break;
+      case 85:
+         return jjMoveStringLiteralDfa7_0(active0, 0x200000000L);
+      case 97:
+         return jjMoveStringLiteralDfa7_0(active0, 0x8000000L);
+      case 100:
+         return jjMoveStringLiteralDfa7_0(active0, 0x2000000L);
+      case 101:
+         return jjMoveStringLiteralDfa7_0(active0, 0x80080000000000L);
+      case 102:
+         return jjMoveStringLiteralDfa7_0(active0, 0x8000000000000L);
+      case 109:
+         return jjMoveStringLiteralDfa7_0(active0, 0x404000000L);
+      case 110:
+         return jjMoveStringLiteralDfa7_0(active0, 0x200000000800L);
+      case 114:
+         if ((active0 & 0x10000000000000L) != 0L)
+         {
+            jjmatchedKind = 52;
+            jjmatchedPos = 6;
+         }
+         break;
+      case 115:
+         if ((active0 & 0x10000L) != 0L)
+         {
+            jjmatchedKind = 16;
+            jjmatchedPos = 6;
+         }
+         else if ((active0 & 0x1000000000000L) != 0L)
+         {
+            jjmatchedKind = 48;
+            jjmatchedPos = 6;
+         }
+         break;
+      case 117:
+         return jjMoveStringLiteralDfa7_0(active0, 0x200000000L);
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 6);
+}
+private int jjMoveStringLiteralDfa7_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjMoveNfa_0(0, 6);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 6);
+   }
+   switch(curChar)
+   {
+      case 65:
+         return jjMoveStringLiteralDfa8_0(active0, 0x402000000L);
+      case 67:
+         return jjMoveStringLiteralDfa8_0(active0, 0x80000000000L);
+      case 69:
+         if ((active0 & 0x4000000L) != 0L)
+         {
+            jjmatchedKind = 26;
+            jjmatchedPos = 7;
+         }
+         return jjMoveStringLiteralDfa8_0(active0, 0x80000200000000L);
+      case 70:
+         if ((active0 & 0x8000000000000L) != 0L)
+         {
+            jjmatchedKind = 51;
+            jjmatchedPos = 7;
+         }
+         break;
+      case 71:
+         if ((active0 & 0x800L) != 0L)
+         {
+            jjmatchedKind = 11;
+            jjmatchedPos = 7;
+         }
+         break;
+      case 77:
+         return jjMoveStringLiteralDfa8_0(active0, 0x8000000L);
+      case 83:
+         if ((active0 & 0x200000000000L) != 0L)
+         {
+            jjmatchedKind = 45;
+            jjmatchedPos = 7;
+         }
+         break;
+      case 97:
+         return jjMoveStringLiteralDfa8_0(active0, 0x402000000L);
+      case 99:
+         return jjMoveStringLiteralDfa8_0(active0, 0x80000000000L);
+      case 101:
+         if ((active0 & 0x4000000L) != 0L)
+         {
+            jjmatchedKind = 26;
+            jjmatchedPos = 7;
+         }
+         return jjMoveStringLiteralDfa8_0(active0, 0x80000200000000L);
+      case 102:
+         if ((active0 & 0x8000000000000L) != 0L)
+         {
+            jjmatchedKind = 51;
+            jjmatchedPos = 7;
+         }
+         break;
+      case 103:
+         if ((active0 & 0x800L) != 0L)
+         {
+            jjmatchedKind = 11;
+            jjmatchedPos = 7;
+         }
+         break;
+      case 109:
+         return jjMoveStringLiteralDfa8_0(active0, 0x8000000L);
+      case 115:
+         if ((active0 & 0x200000000000L) != 0L)
+         {
+            jjmatchedKind = 45;
+            jjmatchedPos = 7;
+         }
+         break;
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 7);
+}
+private int jjMoveStringLiteralDfa8_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjMoveNfa_0(0, 7);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 7);
+   }
+   switch(curChar)
+   {
+      case 75:
+         if ((active0 & 0x80000000000000L) != 0L)
+         {
+            jjmatchedKind = 55;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 79:
+         return jjMoveStringLiteralDfa9_0(active0, 0x80000000000L);
+      case 80:
+         if ((active0 & 0x8000000L) != 0L)
+         {
+            jjmatchedKind = 27;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 83:
+         if ((active0 & 0x200000000L) != 0L)
+         {
+            jjmatchedKind = 33;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 84:
+         if ((active0 & 0x400000000L) != 0L)
+         {
+            jjmatchedKind = 34;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 89:
+         if ((active0 & 0x2000000L) != 0L)
+         {
+            jjmatchedKind = 25;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 107:
+         if ((active0 & 0x80000000000000L) != 0L)
+         {
+            jjmatchedKind = 55;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 111:
+         return jjMoveStringLiteralDfa9_0(active0, 0x80000000000L);
+      case 112:
+         if ((active0 & 0x8000000L) != 0L)
+         {
+            jjmatchedKind = 27;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 115:
+         if ((active0 & 0x200000000L) != 0L)
+         {
+            jjmatchedKind = 33;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 116:
+         if ((active0 & 0x400000000L) != 0L)
+         {
+            jjmatchedKind = 34;
+            jjmatchedPos = 8;
+         }
+         break;
+      case 121:
+         if ((active0 & 0x2000000L) != 0L)
+         {
+            jjmatchedKind = 25;
+            jjmatchedPos = 8;
+         }
+         break;
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 8);
+}
+private int jjMoveStringLiteralDfa9_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjMoveNfa_0(0, 8);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 8);
+   }
+   switch(curChar)
+   {
+      case 78:
+         return jjMoveStringLiteralDfa10_0(active0, 0x80000000000L);
+      case 110:
+         return jjMoveStringLiteralDfa10_0(active0, 0x80000000000L);
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 9);
+}
+private int jjMoveStringLiteralDfa10_0(long old0, long active0)
+{
+   if (((active0 &= old0)) == 0L)
+      return jjMoveNfa_0(0, 9);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) {
+   return jjMoveNfa_0(0, 9);
+   }
+   switch(curChar)
+   {
+      case 68:
+         if ((active0 & 0x80000000000L) != 0L)
+         {
+            jjmatchedKind = 43;
+            jjmatchedPos = 10;
+         }
+         break;
+      case 100:
+         if ((active0 & 0x80000000000L) != 0L)
+         {
+            jjmatchedKind = 43;
+            jjmatchedPos = 10;
+         }
+         break;
+      default :
+         break;
+   }
+   return jjMoveNfa_0(0, 10);
+}
+static final long[] jjbitVec0 = {
+   0xfffffffffffffffeL, 0xffffffffffffffffL, 0xffffffffffffffffL, 0xffffffffffffffffL
+};
+static final long[] jjbitVec2 = {
+   0x0L, 0x0L, 0xffffffffffffffffL, 0xffffffffffffffffL
+};
+private int jjMoveNfa_0(int startState, int curPos)
+{
+   int strKind = jjmatchedKind;
+   int strPos = jjmatchedPos;
+   int seenUpto;
+   input_stream.backup(seenUpto = curPos + 1);
+   try { curChar = input_stream.readChar(); }
+   catch(java.io.IOException e) { throw new Error("Internal Error"); }
+   curPos = 0;
+   int startsAt = 0;
+   jjnewStateCnt = 19;
+   int i = 1;
+   jjstateSet[0] = startState;
+   int kind = 0x7fffffff;
+   for (;;)
+   {
+      if (++jjround == 0x7fffffff)
+         ReInitRounds();
+      if (curChar < 64)
+      {
+         long l = 1L << curChar;
+         do
+         {
+            switch(jjstateSet[--i])
+            {
+               case 0:
+                  if ((0x3ff000000000000L & l) != 0L)
+                  {
+                     if (kind > 58)
+                        kind = 58;
+                     jjCheckNAddStates(0, 2);
+                  }
+                  else if (curChar == 60)
+                     jjstateSet[jjnewStateCnt++] = 12;
+                  else if (curChar == 33)
+                     jjstateSet[jjnewStateCnt++] = 10;
+                  else if (curChar == 34)
+                     jjCheckNAdd(8);
+                  else if (curChar == 39)
+                     jjCheckNAddTwoStates(5, 6);
+                  else if (curChar == 46)
+                     jjCheckNAdd(3);
+                  break;
+               case 1:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 57)
+                     kind = 57;
+                  jjstateSet[jjnewStateCnt++] = 1;
+                  break;
+               case 2:
+                  if (curChar == 46)
+                     jjCheckNAdd(3);
+                  break;
+               case 3:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 59)
+                     kind = 59;
+                  jjCheckNAdd(3);
+                  break;
+               case 4:
+                  if (curChar == 39)
+                     jjCheckNAddTwoStates(5, 6);
+                  break;
+               case 5:
+                  if ((0xffffff7fffffffffL & l) != 0L)
+                     jjCheckNAddTwoStates(5, 6);
+                  break;
+               case 6:
+                  if (curChar == 39 && kind > 63)
+                     kind = 63;
+                  break;
+               case 7:
+                  if (curChar == 34)
+                     jjCheckNAdd(8);
+                  break;
+               case 8:
+                  if ((0xfffffffbffffffffL & l) != 0L)
+                     jjCheckNAddTwoStates(8, 9);
+                  break;
+               case 9:
+                  if (curChar == 34 && kind > 64)
+                     kind = 64;
+                  break;
+               case 10:
+                  if (curChar == 61 && kind > 69)
+                     kind = 69;
+                  break;
+               case 11:
+                  if (curChar == 33)
+                     jjstateSet[jjnewStateCnt++] = 10;
+                  break;
+               case 12:
+                  if (curChar == 62 && kind > 69)
+                     kind = 69;
+                  break;
+               case 13:
+                  if (curChar == 60)
+                     jjstateSet[jjnewStateCnt++] = 12;
+                  break;
+               case 14:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 58)
+                     kind = 58;
+                  jjCheckNAddStates(0, 2);
+                  break;
+               case 15:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 58)
+                     kind = 58;
+                  jjCheckNAdd(15);
+                  break;
+               case 16:
+                  if ((0x3ff000000000000L & l) != 0L)
+                     jjCheckNAddTwoStates(16, 17);
+                  break;
+               case 17:
+                  if (curChar != 46)
+                     break;
+                  if (kind > 59)
+                     kind = 59;
+                  jjCheckNAdd(18);
+                  break;
+               case 18:
+                  if ((0x3ff000000000000L & l) == 0L)
+                     break;
+                  if (kind > 59)
+                     kind = 59;
+                  jjCheckNAdd(18);
+                  break;
+               default : break;
+            }
+         } while(i != startsAt);
+      }
+      else if (curChar < 128)
+      {
+         long l = 1L << (curChar & 077);
+         do
+         {
+            switch(jjstateSet[--i])
+            {
+               case 0:
+               case 1:
+                  if ((0x7fffffe87fffffeL & l) == 0L)
+                     break;
+                  if (kind > 57)
+                     kind = 57;
+                  jjCheckNAdd(1);
+                  break;
+               case 5:
+                  jjAddStates(3, 4);
+                  break;
+               case 8:
+                  jjAddStates(5, 6);
+                  break;
+               default : break;
+            }
+         } while(i != startsAt);
+      }
+      else
+      {
+         int hiByte = (int)(curChar >> 8);
+         int i1 = hiByte >> 6;
+         long l1 = 1L << (hiByte & 077);
+         int i2 = (curChar & 0xff) >> 6;
+         long l2 = 1L << (curChar & 077);
+         do
+         {
+            switch(jjstateSet[--i])
+            {
+               case 5:
+                  if (jjCanMove_0(hiByte, i1, i2, l1, l2))
+                     jjAddStates(3, 4);
+                  break;
+               case 8:
+                  if (jjCanMove_0(hiByte, i1, i2, l1, l2))
+                     jjAddStates(5, 6);
+                  break;
+               default : break;
+            }
+         } while(i != startsAt);
+      }
+      if (kind != 0x7fffffff)
+      {
+         jjmatchedKind = kind;
+         jjmatchedPos = curPos;
+         kind = 0x7fffffff;
+      }
+      ++curPos;
+      if ((i = jjnewStateCnt) == (startsAt = 19 - (jjnewStateCnt = startsAt)))
+         break;
+      try { curChar = input_stream.readChar(); }
+      catch(java.io.IOException e) { break; }
+   }
+   if (jjmatchedPos > strPos)
+      return curPos;
+
+   int toRet = Math.max(curPos, seenUpto);
+
+   if (curPos < toRet)
+      for (i = toRet - Math.min(curPos, seenUpto); i-- > 0; )
+         try { curChar = input_stream.readChar(); }
+         catch(java.io.IOException e) { throw new Error("Internal Error : Please send a bug report."); }
+
+   if (jjmatchedPos < strPos)
+   {
+      jjmatchedKind = strKind;
+      jjmatchedPos = strPos;
+   }
+   else if (jjmatchedPos == strPos && jjmatchedKind > strKind)
+      jjmatchedKind = strKind;
+
+   return toRet;
+}
+static final int[] jjnextStates = {
+   15, 16, 17, 5, 6, 8, 9, 
+};
+private static final boolean jjCanMove_0(int hiByte, int i1, int i2, long l1, long l2)
+{
+   switch(hiByte)
+   {
+      case 0:
+         return ((jjbitVec2[i2] & l2) != 0L);
+      default :
+         if ((jjbitVec0[i1] & l1) != 0L)
+            return true;
+         return false;
+   }
+}
+
+/** Token literal values. */
+public static final String[] jjstrLiteralImages = {
+"", null, null, null, null, null, null, null, null, null, null, null, null, 
+null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
+null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
+null, null, null, null, null, null, null, null, null, null, null, null, null, null, 
+null, null, null, null, null, null, null, null, null, null, "\54", "\50", "\51", 
+"\75", null, "\74", "\74\75", "\76", "\76\75", "\52", "\53", "\55", "\57", "\45", 
+null, };
+
+/** Lexer state names. */
+public static final String[] lexStateNames = {
+   "DEFAULT",
+};
+static final long[] jjtoToken = {
+   0x8fffffffffffffe1L, 0xffffL, 
+};
+static final long[] jjtoSkip = {
+   0x1eL, 0x0L, 
+};
+protected JavaCharStream input_stream;
+private final int[] jjrounds = new int[19];
+private final int[] jjstateSet = new int[38];
+protected char curChar;
+/** Constructor. */
+public QueryParserTokenManager(JavaCharStream stream){
+   if (JavaCharStream.staticFlag)
+      throw new Error("ERROR: Cannot use a static CharStream class with a non-static lexical analyzer.");
+   input_stream = stream;
+}
+
+/** Constructor. */
+public QueryParserTokenManager(JavaCharStream stream, int lexState){
+   this(stream);
+   SwitchTo(lexState);
+}
+
+/** Reinitialise parser. */
+public void ReInit(JavaCharStream stream)
+{
+   jjmatchedPos = jjnewStateCnt = 0;
+   curLexState = defaultLexState;
+   input_stream = stream;
+   ReInitRounds();
+}
+private void ReInitRounds()
+{
+   int i;
+   jjround = 0x80000001;
+   for (i = 19; i-- > 0;)
+      jjrounds[i] = 0x80000000;
+}
+
+/** Reinitialise parser. */
+public void ReInit(JavaCharStream stream, int lexState)
+{
+   ReInit(stream);
+   SwitchTo(lexState);
+}
+
+/** Switch to specified lex state. */
+public void SwitchTo(int lexState)
+{
+   if (lexState >= 1 || lexState < 0)
+      throw new TokenMgrError("Error: Ignoring invalid lexical state : " + lexState + ". State unchanged.", TokenMgrError.INVALID_LEXICAL_STATE);
+   else
+      curLexState = lexState;
+}
+
+protected Token jjFillToken()
+{
+   final Token t;
+   final String curTokenImage;
+   final int beginLine;
+   final int endLine;
+   final int beginColumn;
+   final int endColumn;
+   String im = jjstrLiteralImages[jjmatchedKind];
+   curTokenImage = (im == null) ? input_stream.GetImage() : im;
+   beginLine = input_stream.getBeginLine();
+   beginColumn = input_stream.getBeginColumn();
+   endLine = input_stream.getEndLine();
+   endColumn = input_stream.getEndColumn();
+   t = Token.newToken(jjmatchedKind, curTokenImage);
+
+   t.beginLine = beginLine;
+   t.endLine = endLine;
+   t.beginColumn = beginColumn;
+   t.endColumn = endColumn;
+
+   return t;
+}
+
+int curLexState = 0;
+int defaultLexState = 0;
+int jjnewStateCnt;
+int jjround;
+int jjmatchedPos;
+int jjmatchedKind;
+
+/** Get the next Token. */
+public Token getNextToken() 
+{
+  Token matchedToken;
+  int curPos = 0;
+
+  EOFLoop :
+  for (;;)
+  {
+   try
+   {
+      curChar = input_stream.BeginToken();
+   }
+   catch(java.io.IOException e)
+   {
+      jjmatchedKind = 0;
+      matchedToken = jjFillToken();
+      return matchedToken;
+   }
+
+   jjmatchedKind = 0x7fffffff;
+   jjmatchedPos = 0;
+   curPos = jjMoveStringLiteralDfa0_0();
+   if (jjmatchedPos == 0 && jjmatchedKind > 79)
+   {
+      jjmatchedKind = 79;
+   }
+   if (jjmatchedKind != 0x7fffffff)
+   {
+      if (jjmatchedPos + 1 < curPos)
+         input_stream.backup(curPos - jjmatchedPos - 1);
+      if ((jjtoToken[jjmatchedKind >> 6] & (1L << (jjmatchedKind & 077))) != 0L)
+      {
+         matchedToken = jjFillToken();
+         return matchedToken;
+      }
+      else
+      {
+         continue EOFLoop;
+      }
+   }
+   int error_line = input_stream.getEndLine();
+   int error_column = input_stream.getEndColumn();
+   String error_after = null;
+   boolean EOFSeen = false;
+   try { input_stream.readChar(); input_stream.backup(1); }
+   catch (java.io.IOException e1) {
+      EOFSeen = true;
+      error_after = curPos <= 1 ? "" : input_stream.GetImage();
+      if (curChar == '\n' || curChar == '\r') {
+         error_line++;
+         error_column = 0;
+      }
+      else
+         error_column++;
+   }
+   if (!EOFSeen) {
+      input_stream.backup(1);
+      error_after = curPos <= 1 ? "" : input_stream.GetImage();
+   }
+   throw new TokenMgrError(EOFSeen, curLexState, error_line, error_column, error_after, curChar, TokenMgrError.LEXICAL_ERROR);
+  }
+}
+
+private void jjCheckNAdd(int state)
+{
+   if (jjrounds[state] != jjround)
+   {
+      jjstateSet[jjnewStateCnt++] = state;
+      jjrounds[state] = jjround;
+   }
+}
+private void jjAddStates(int start, int end)
+{
+   do {
+      jjstateSet[jjnewStateCnt++] = jjnextStates[start];
+   } while (start++ != end);
+}
+private void jjCheckNAddTwoStates(int state1, int state2)
+{
+   jjCheckNAdd(state1);
+   jjCheckNAdd(state2);
+}
+
+private void jjCheckNAddStates(int start, int end)
+{
+   do {
+      jjCheckNAdd(jjnextStates[start]);
+   } while (start++ != end);
+}
+
+}
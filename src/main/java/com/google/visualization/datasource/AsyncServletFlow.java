@@ -0,0 +1,286 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource;
+
+import com.google.visualization.datasource.base.DataSourceException;
+import com.google.visualization.datasource.base.ReasonType;
+import com.google.visualization.datasource.base.ResponseStatus;
+import com.google.visualization.datasource.base.StatusType;
+import com.google.visualization.datasource.query.engine.ExecutionOptions;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The data source servlet flow of a single request, run on an executor using a Servlet 3
+ * {@link AsyncContext}. See
+ * {@link DataSourceHelper#executeDataSourceServletFlowAsync(HttpServletRequest,
+ * HttpServletResponse, DataTableGenerator, boolean, QueryResultCache, ParsedQueryCache,
+ * ExecutionOptions, Executor, long)}.
+ *
+ * The flow and the timeout race to write the response. Whoever claims the response first writes
+ * it and completes the request, and the other one does not touch the response. A timeout that
+ * finds the flow writing the response waits a bounded time for it to complete the request.
+ */
+/* package */ final class AsyncServletFlow implements Runnable, AsyncListener {
+
+  /**
+   * Log.
+   */
+  private static final Log log = LogFactory.getLog(AsyncServletFlow.class.getName());
+
+  /**
+   * The default time in milliseconds that a timeout waits for the flow to finish writing the
+   * response.
+   */
+  /* package */ static final long DEFAULT_COMPLETION_WAIT_MILLIS = 5000;
+
+  /**
+   * The asynchronous context of the request.
+   */
+  private final AsyncContext asyncContext;
+
+  /**
+   * The request.
+   */
+  private final HttpServletRequest req;
+
+  /**
+   * The response.
+   */
+  private final HttpServletResponse resp;
+
+  /**
+   * The data source request, extracted from the request before the flow is dispatched, so that
+   * neither the flow nor the timeout read the parameters of a request that may have completed.
+   */
+  private final DataSourceRequest dsRequest;
+
+  /**
+   * The data table generator.
+   */
+  private final DataTableGenerator dtGenerator;
+
+  /**
+   * Whether the server serves trusted domains only.
+   */
+  private final boolean isRestrictedAccessMode;
+
+  /**
+   * The query result cache, or null.
+   */
+  private final QueryResultCache resultCache;
+
+  /**
+   * The parsed query cache, or null.
+   */
+  private final ParsedQueryCache queryCache;
+
+  /**
+   * The execution options.
+   */
+  private final ExecutionOptions options;
+
+  /**
+   * Set by whoever writes the response: the flow, the timeout or an error.
+   */
+  private final AtomicBoolean responseClaimed = new AtomicBoolean();
+
+  /**
+   * Released when whoever claimed the response has completed the request.
+   */
+  private final CountDownLatch completed = new CountDownLatch(1);
+
+  /**
+   * The time in milliseconds that a timeout waits for the flow to finish writing the response.
+   */
+  private volatile long completionWaitMillis = DEFAULT_COMPLETION_WAIT_MILLIS;
+
+  /**
+   * Creates a new flow.
+   *
+   * @param asyncContext The asynchronous context of the request.
+   * @param req The request.
+   * @param resp The response.
+   * @param dsRequest The data source request.
+   * @param dtGenerator The data table generator.
+   * @param isRestrictedAccessMode Whether the server serves trusted domains only.
+   * @param resultCache The query result cache, or null.
+   * @param queryCache The parsed query cache, or null.
+   * @param options The execution options.
+   */
+  private AsyncServletFlow(AsyncContext asyncContext, HttpServletRequest req,
+      HttpServletResponse resp, DataSourceRequest dsRequest, DataTableGenerator dtGenerator,
+      boolean isRestrictedAccessMode, QueryResultCache resultCache, ParsedQueryCache queryCache,
+      ExecutionOptions options) {
+    this.asyncContext = asyncContext;
+    this.req = req;
+    this.resp = resp;
+    this.dsRequest = dsRequest;
+    this.dtGenerator = dtGenerator;
+    this.isRestrictedAccessMode = isRestrictedAccessMode;
+    this.resultCache = resultCache;
+    this.queryCache = queryCache;
+    this.options = options;
+  }
+
+  /**
+   * Puts the given request in asynchronous mode and runs its flow on the given executor. The
+   * data source request parameters are extracted first, and an invalid request is answered
+   * right away, without being dispatched.
+   *
+   * @param req The request.
+   * @param resp The response.
+   * @param dtGenerator The data table generator.
+   * @param isRestrictedAccessMode Whether the server serves trusted domains only.
+   * @param resultCache The query result cache, or null.
+   * @param queryCache The parsed query cache, or null.
+   * @param options The execution options.
+   * @param executor The executor on which to run the flow.
+   * @param timeoutMillis The timeout of the request in milliseconds. Zero or less means no
+   *     timeout.
+   *
+   * @throws IOException In case of I/O errors.
+   */
+  static void start(HttpServletRequest req, HttpServletResponse resp,
+      DataTableGenerator dtGenerator, boolean isRestrictedAccessMode,
+      QueryResultCache resultCache, ParsedQueryCache queryCache, ExecutionOptions options,
+      Executor executor, long timeoutMillis) throws IOException {
+    DataSourceRequest dsRequest;
+    try {
+      dsRequest = new DataSourceRequest(req, queryCache);
+    } catch (DataSourceException e) {
+      DataSourceHelper.setServletErrorResponse(e, req, resp);
+      return;
+    }
+    AsyncContext asyncContext = req.startAsync(req, resp);
+    asyncContext.setTimeout(Math.max(0, timeoutMillis));
+    AsyncServletFlow flow = new AsyncServletFlow(asyncContext, req, resp, dsRequest, dtGenerator,
+        isRestrictedAccessMode, resultCache, queryCache, options);
+    asyncContext.addListener(flow);
+    try {
+      executor.execute(flow);
+    } catch (RejectedExecutionException e) {
+      log.error("The data source request was rejected by the executor", e);
+      flow.respondWithError(new ResponseStatus(StatusType.ERROR, ReasonType.INTERNAL_ERROR,
+          e.getMessage()));
+    }
+  }
+
+  @Override
+  public void run() {
+    if (responseClaimed.get()) {
+      // The request timed out while the flow was queued, and was completed by the timeout.
+      return;
+    }
+    boolean ownsResponse = true;
+    try {
+      ownsResponse = DataSourceHelper.executeDataSourceServletFlow(req, resp, dsRequest,
+          dtGenerator, isRestrictedAccessMode, resultCache, queryCache, options,
+          responseClaimed);
+    } catch (IOException e) {
+      // Only writing the response throws an IOException, so the response was claimed.
+      log.error("Failed to write the data source response", e);
+    } finally {
+      if (ownsResponse) {
+        // Keep the timeout from writing a response if the flow failed before claiming it.
+        responseClaimed.set(true);
+        asyncContext.complete();
+        completed.countDown();
+      }
+    }
+  }
+
+  @Override
+  public void onTimeout(AsyncEvent event) throws IOException {
+    if (respondWithError(new ResponseStatus(StatusType.ERROR, ReasonType.TIMEOUT,
+        "The data source request timed out."))) {
+      log.warn("The data source request timed out");
+      return;
+    }
+    // The flow is writing the response. Wait for it to complete the request, so that the
+    // container does not end the request in the middle of the response, but do not hold the
+    // container thread for longer than the completion wait.
+    try {
+      if (!completed.await(completionWaitMillis, TimeUnit.MILLISECONDS)) {
+        log.warn("The data source request timed out while its response was being written");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Sets the time that a timeout waits for the flow to finish writing the response.
+   *
+   * @param completionWaitMillis The time to wait in milliseconds.
+   */
+  /* package */ void setCompletionWaitMillis(long completionWaitMillis) {
+    this.completionWaitMillis = completionWaitMillis;
+  }
+
+  @Override
+  public void onError(AsyncEvent event) {
+    log.error("The data source request failed", event.getThrowable());
+    if (responseClaimed.compareAndSet(false, true)) {
+      asyncContext.complete();
+      completed.countDown();
+    }
+  }
+
+  @Override
+  public void onComplete(AsyncEvent event) {
+  }
+
+  @Override
+  public void onStartAsync(AsyncEvent event) {
+  }
+
+  /**
+   * Writes the given error response and completes the request, unless the response was already
+   * claimed.
+   *
+   * @param status The error status.
+   *
+   * @return True if the response was written by this call.
+   *
+   * @throws IOException In case of I/O errors.
+   */
+  private boolean respondWithError(ResponseStatus status) throws IOException {
+    if (!responseClaimed.compareAndSet(false, true)) {
+      return false;
+    }
+    try {
+      DataSourceHelper.setServletErrorResponse(status, dsRequest, resp);
+    } finally {
+      asyncContext.complete();
+      completed.countDown();
+    }
+    return true;
+  }
+}
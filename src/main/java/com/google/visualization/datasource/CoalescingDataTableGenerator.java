@@ -0,0 +1,317 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource;
+
+import com.google.visualization.datasource.base.DataSourceException;
+import com.google.visualization.datasource.base.ReasonType;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.query.Query;
+import com.google.visualization.datasource.query.engine.ExecutionOptions;
+import com.google.visualization.datasource.query.engine.ExecutionStage;
+import com.google.visualization.datasource.query.engine.StageTimer;
+
+import com.ibm.icu.util.ULocale;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A decorator of a {@link VersionedDataTableGenerator} that coalesces identical concurrent
+ * queries. When many requests with the same query, user locale and data version arrive at the
+ * same time (e.g., a popular dashboard opened by many users at once), the data table is
+ * generated and the completion query is applied only once, and all the requests share the
+ * result. Each request still renders the shared result with its own response parameters, e.g.,
+ * its own <code>reqId</code> and <code>responseHandler</code>.
+ *
+ * The data version token identifies everything in the request that affects the generated data
+ * (see {@link VersionedDataTableGenerator#getDataVersion}), so requests are coalesced only if
+ * they would get the same data. Requests whose data version is null are never coalesced.
+ *
+ * Only requests that overlap in time are coalesced; a result is dropped as soon as it is
+ * computed. To keep results for later requests, use a {@link QueryResultCache} as well.
+ * The shared results must not be changed.
+ *
+ * The decorator is used by
+ * {@link DataSourceHelper#executeDataSourceServletFlow(javax.servlet.http.HttpServletRequest,
+ * javax.servlet.http.HttpServletResponse, DataTableGenerator, boolean)} and its overloads when
+ * it is passed as the data table generator, and by {@link DataSourceServlet} when it is returned
+ * by {@link DataSourceServlet#getDataTableGenerator()}. This class is thread-safe.
+ */
+public class CoalescingDataTableGenerator implements VersionedDataTableGenerator {
+
+  /**
+   * The decorated generator.
+   */
+  private final VersionedDataTableGenerator generator;
+
+  /**
+   * The computations in flight, by a key created by
+   * {@link #createKey(QueryPair, ULocale, String)}.
+   */
+  private final ConcurrentMap<String, FutureTask<DataTable>> inFlight =
+      new ConcurrentHashMap<String, FutureTask<DataTable>>();
+
+  /**
+   * The number of computations performed.
+   */
+  private final AtomicLong executionCount = new AtomicLong();
+
+  /**
+   * The number of requests that shared the result of another request's computation.
+   */
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  /**
+   * Creates a new decorator of the given generator.
+   *
+   * @param generator The generator to decorate.
+   */
+  public CoalescingDataTableGenerator(VersionedDataTableGenerator generator) {
+    this.generator = generator;
+  }
+
+  /**
+   * Returns the decorated generator.
+   *
+   * @return The decorated generator.
+   */
+  public VersionedDataTableGenerator getGenerator() {
+    return generator;
+  }
+
+  /**
+   * Generates the data table using the decorated generator. Calls to this method are not
+   * coalesced, since the caller may change the returned table, e.g., by applying a query to it.
+   * Use {@link #generateAndApplyQuery(QueryPair, ULocale, HttpServletRequest)} instead.
+   */
+  @Override
+  public DataTable generateDataTable(Query query, HttpServletRequest request)
+      throws DataSourceException {
+    return generator.generateDataTable(query, request);
+  }
+
+  @Override
+  public String getDataVersion(Query query, HttpServletRequest request)
+      throws DataSourceException {
+    return generator.getDataVersion(query, request);
+  }
+
+  @Override
+  public Capabilities getCapabilities() {
+    return generator.getCapabilities();
+  }
+
+  /**
+   * Generates the data table of the data source query and applies the completion query to it.
+   * If an identical computation is in flight, waits for it and returns its result instead.
+   * Requests that wait on another request's computation also get its exception, if it fails.
+   *
+   * @param query The split query.
+   * @param locale The user locale.
+   * @param request The http request.
+   *
+   * @return The result of the query. The result may be shared, and must not be changed.
+   *
+   * @throws DataSourceException If the data could not be generated, or the query could not be
+   *     applied, for any reason.
+   */
+  public DataTable generateAndApplyQuery(QueryPair query, ULocale locale,
+      HttpServletRequest request) throws DataSourceException {
+    return generateAndApplyQuery(query, locale, request, ExecutionOptions.SERIAL);
+  }
+
+  /**
+   * Generates the data table of the data source query and applies the completion query to it
+   * using the given execution options. See
+   * {@link #generateAndApplyQuery(QueryPair, ULocale, HttpServletRequest)}. A request that
+   * shares the computation of another request does not report the GENERATE stage and the
+   * completion query stages to its listener; only the request that performs the computation
+   * does.
+   *
+   * @param query The split query.
+   * @param locale The user locale.
+   * @param request The http request.
+   * @param options The execution options.
+   *
+   * @return The result of the query. The result may be shared, and must not be changed.
+   *
+   * @throws DataSourceException If the data could not be generated, or the query could not be
+   *     applied, for any reason.
+   */
+  public DataTable generateAndApplyQuery(QueryPair query, ULocale locale,
+      HttpServletRequest request, ExecutionOptions options) throws DataSourceException {
+    return generateAndApplyQuery(query, locale, request, options,
+        generator.getDataVersion(query.getDataSourceQuery(), request));
+  }
+
+  /**
+   * Generates the data table of the data source query and applies the completion query to it,
+   * given the data version of the data source query. See
+   * {@link #generateAndApplyQuery(QueryPair, ULocale, HttpServletRequest, ExecutionOptions)}.
+   * This lets a caller that already got the data version, e.g., to look up a result cache, avoid
+   * asking the decorated generator for it again.
+   *
+   * @param query The split query.
+   * @param locale The user locale.
+   * @param request The http request.
+   * @param options The execution options.
+   * @param dataVersion The data version of the data source query, as returned by
+   *     {@link #getDataVersion(Query, HttpServletRequest)}. If null, the computation is not
+   *     shared.
+   *
+   * @return The result of the query. The result may be shared, and must not be changed.
+   *
+   * @throws DataSourceException If the data could not be generated, or the query could not be
+   *     applied, for any reason.
+   */
+  public DataTable generateAndApplyQuery(final QueryPair query, final ULocale locale,
+      final HttpServletRequest request, final ExecutionOptions options, String dataVersion)
+      throws DataSourceException {
+    if (dataVersion == null) {
+      executionCount.incrementAndGet();
+      return generate(query, locale, request, options);
+    }
+
+    String key = createKey(query, locale, dataVersion);
+    FutureTask<DataTable> task = new FutureTask<DataTable>(new Callable<DataTable>() {
+      @Override
+      public DataTable call() throws DataSourceException {
+        return generate(query, locale, request, options);
+      }
+    });
+    FutureTask<DataTable> existing = inFlight.putIfAbsent(key, task);
+    if (existing == null) {
+      executionCount.incrementAndGet();
+      try {
+        task.run();
+      } finally {
+        inFlight.remove(key, task);
+      }
+    } else {
+      coalescedCount.incrementAndGet();
+      task = existing;
+    }
+
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DataSourceException(ReasonType.INTERNAL_ERROR,
+          "Interrupted while waiting for an identical query.");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof DataSourceException) {
+        throw (DataSourceException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+  }
+
+  /**
+   * Returns the number of computations performed, i.e., the number of times the data table was
+   * generated by {@link #generateAndApplyQuery(QueryPair, ULocale, HttpServletRequest)}.
+   *
+   * @return The number of computations.
+   */
+  public long getExecutionCount() {
+    return executionCount.get();
+  }
+
+  /**
+   * Returns the number of requests that shared the result of an identical request in flight,
+   * i.e., the number of computations saved.
+   *
+   * @return The number of coalesced requests.
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /**
+   * Returns the number of computations in flight.
+   *
+   * @return The number of computations in flight.
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  /**
+   * Generates the data table and applies the completion query to it.
+   *
+   * @param query The split query.
+   * @param locale The user locale.
+   * @param request The http request.
+   * @param options The execution options.
+   *
+   * @return The result of the query.
+   *
+   * @throws DataSourceException If the data could not be generated, or the query could not be
+   *     applied, for any reason.
+   */
+  private DataTable generate(QueryPair query, ULocale locale, HttpServletRequest request,
+      ExecutionOptions options) throws DataSourceException {
+    StageTimer timer = StageTimer.start(options, -1, -1);
+    DataTable dataTable = generator.generateDataTable(query.getDataSourceQuery(), request);
+    if (timer != null) {
+      timer.stop(ExecutionStage.GENERATE, dataTable.getNumberOfRows(),
+          dataTable.getNumberOfColumns());
+    }
+    return DataSourceHelper.applyQuery(query.getCompletionQuery(), dataTable, locale, options);
+  }
+
+  /**
+   * Returns the key of a computation. The queries are normalized by their query strings, so
+   * equivalent query strings that differ only in white space or letter case of keywords share
+   * the same key.
+   *
+   * @param query The split query.
+   * @param locale The user locale.
+   * @param dataVersion The data version token.
+   *
+   * @return The key.
+   */
+  /* package */ static String createKey(QueryPair query, ULocale locale, String dataVersion) {
+    // The locale cannot contain a new line, and the other parts are preceded by their lengths,
+    // so different parts cannot run into each other.
+    String dataSourceQuery = toQueryString(query.getDataSourceQuery());
+    return locale + "\n" + dataVersion.length() + ":" + dataVersion
+        + dataSourceQuery.length() + ":" + dataSourceQuery
+        + toQueryString(query.getCompletionQuery());
+  }
+
+  /**
+   * Returns the query string of the given query, or an empty string if the query is null.
+   *
+   * @param query The query, or null.
+   *
+   * @return The query string.
+   */
+  private static String toQueryString(Query query) {
+    return (query == null) ? "" : query.toQueryString();
+  }
+}
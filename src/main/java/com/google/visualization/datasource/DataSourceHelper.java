@@ -27,7 +27,11 @@ import com.google.visualization.datasource.datatable.DataTable;
 import com.google.visualization.datasource.query.AggregationColumn;
 import com.google.visualization.datasource.query.Query;
 import com.google.visualization.datasource.query.ScalarFunctionColumn;
+import com.google.visualization.datasource.query.engine.ExecutionListener;
+import com.google.visualization.datasource.query.engine.ExecutionOptions;
+import com.google.visualization.datasource.query.engine.ExecutionStage;
 import com.google.visualization.datasource.query.engine.QueryEngine;
+import com.google.visualization.datasource.query.engine.StageTimer;
 import com.google.visualization.datasource.query.parser.QueryBuilder;
 import com.google.visualization.datasource.render.CsvRenderer;
 import com.google.visualization.datasource.render.HtmlRenderer;
@@ -39,8 +43,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -67,6 +74,12 @@ public class DataSourceHelper {
    */
   /* package */ static final String LOCALE_REQUEST_PARAMETER = "hl";
 
+  /**
+   * A comment that precedes jsonp responses, to prevent the first characters of the response
+   * from being the response handler, which is not controlled by the server.
+   */
+  private static final String JSONP_RESPONSE_PREFIX = "// Data table response\n";
+
   /**
    * A private constructor for this Singleton.
    */
@@ -116,10 +129,160 @@ public class DataSourceHelper {
    */
   public static void executeDataSourceServletFlow(HttpServletRequest req, HttpServletResponse resp,
       DataTableGenerator dtGenerator, boolean isRestrictedAccessMode) throws IOException {
+    executeDataSourceServletFlow(req, resp, dtGenerator, isRestrictedAccessMode, null);
+  }
+
+  /**
+   * Executes the default data source servlet flow, with an optional cache of query results.
+   *
+   * The flow is the same as the default flow. In addition, if a cache is given and the
+   * data-table generator is a {@link VersionedDataTableGenerator}, the result of the completion
+   * query is cached under the query, the user locale and the data version of the generator.
+   * Later requests with the same query, locale and data version are served from the cache,
+   * without generating the data table or running the query again.
+   *
+   * @param req The HttpServletRequest.
+   * @param resp The HttpServletResponse.
+   * @param dtGenerator An implementation of {@link DataTableGenerator} interface.
+   * @param isRestrictedAccessMode Indicates whether the server should serve trusted domains only.
+   *     Currently this translates to serving only requests from the same domain.
+   * @param resultCache The query result cache, or null to disable caching.
+   *
+   * @throws IOException In case of I/O errors.
+   */
+  public static void executeDataSourceServletFlow(HttpServletRequest req, HttpServletResponse resp,
+      DataTableGenerator dtGenerator, boolean isRestrictedAccessMode,
+      QueryResultCache resultCache) throws IOException {
+    executeDataSourceServletFlow(req, resp, dtGenerator, isRestrictedAccessMode, resultCache,
+        null);
+  }
+
+  /**
+   * Executes the default data source servlet flow, with optional caches of query results and of
+   * parsed queries.
+   *
+   * The flow is the same as the flow with a query result cache. In addition, if a parsed query
+   * cache is given, the query string is parsed and validated, and the query is split, only the
+   * first time it is requested. Later requests with the same query string use the cached,
+   * frozen, query and split.
+   *
+   * @param req The HttpServletRequest.
+   * @param resp The HttpServletResponse.
+   * @param dtGenerator An implementation of {@link DataTableGenerator} interface.
+   * @param isRestrictedAccessMode Indicates whether the server should serve trusted domains only.
+   *     Currently this translates to serving only requests from the same domain.
+   * @param resultCache The query result cache, or null to disable caching of results.
+   * @param queryCache The parsed query cache, or null to disable caching of parsed queries.
+   *
+   * @throws IOException In case of I/O errors.
+   */
+  public static void executeDataSourceServletFlow(HttpServletRequest req, HttpServletResponse resp,
+      DataTableGenerator dtGenerator, boolean isRestrictedAccessMode,
+      QueryResultCache resultCache, ParsedQueryCache queryCache) throws IOException {
+    executeDataSourceServletFlow(req, resp, dtGenerator, isRestrictedAccessMode, resultCache,
+        queryCache, ExecutionOptions.SERIAL);
+  }
+
+  /**
+   * Executes the default data source servlet flow, with optional caches of query results and of
+   * parsed queries, and the given execution options.
+   *
+   * The flow is the same as the flow with caches. The completion query is executed with the
+   * given options, e.g., in parallel. If the options have an {@link ExecutionListener}, it is told
+   * about the split of the query, the generation of the data table, each stage of the
+   * completion query and the rendering of the response.
+   *
+   * @param req The HttpServletRequest.
+   * @param resp The HttpServletResponse.
+   * @param dtGenerator An implementation of {@link DataTableGenerator} interface.
+   * @param isRestrictedAccessMode Indicates whether the server should serve trusted domains only.
+   *     Currently this translates to serving only requests from the same domain.
+   * @param resultCache The query result cache, or null to disable caching of results.
+   * @param queryCache The parsed query cache, or null to disable caching of parsed queries.
+   * @param options The execution options.
+   *
+   * @throws IOException In case of I/O errors.
+   */
+  public static void executeDataSourceServletFlow(HttpServletRequest req, HttpServletResponse resp,
+      DataTableGenerator dtGenerator, boolean isRestrictedAccessMode,
+      QueryResultCache resultCache, ParsedQueryCache queryCache, ExecutionOptions options)
+      throws IOException {
+    executeDataSourceServletFlow(req, resp, null, dtGenerator, isRestrictedAccessMode,
+        resultCache, queryCache, options, null);
+  }
+
+  /**
+   * Executes the default data source servlet flow asynchronously, on the given executor, so that
+   * the container thread is released while the data table is generated and the query is
+   * executed. The flow and its error handling are the same as in
+   * {@link #executeDataSourceServletFlow(HttpServletRequest, HttpServletResponse,
+   * DataTableGenerator, boolean, QueryResultCache, ParsedQueryCache, ExecutionOptions)}.
+   *
+   * The request must support asynchronous processing, i.e., the servlet and its filters must be
+   * declared with <code>async-supported</code>. If the response is not written within the given
+   * timeout, a TIMEOUT error response is sent instead. The flow keeps running in the background
+   * until the data table generator returns, but its response is discarded. If the executor
+   * rejects the flow, an INTERNAL_ERROR response is sent.
+   *
+   * Any executor can be used, e.g., a fixed thread pool that limits the number of concurrent
+   * backend calls, or a virtual thread per task executor on JDKs that support it.
+   *
+   * @param req The HttpServletRequest.
+   * @param resp The HttpServletResponse.
+   * @param dtGenerator An implementation of {@link DataTableGenerator} interface.
+   * @param isRestrictedAccessMode Indicates whether the server should serve trusted domains only.
+   *     Currently this translates to serving only requests from the same domain.
+   * @param resultCache The query result cache, or null to disable caching of results.
+   * @param queryCache The parsed query cache, or null to disable caching of parsed queries.
+   * @param options The execution options.
+   * @param executor The executor on which to run the flow.
+   * @param timeoutMillis The timeout of the request in milliseconds. Zero or less means no
+   *     timeout.
+   *
+   * @throws IOException In case of I/O errors.
+   */
+  public static void executeDataSourceServletFlowAsync(HttpServletRequest req,
+      HttpServletResponse resp, DataTableGenerator dtGenerator, boolean isRestrictedAccessMode,
+      QueryResultCache resultCache, ParsedQueryCache queryCache, ExecutionOptions options,
+      Executor executor, long timeoutMillis) throws IOException {
+    AsyncServletFlow.start(req, resp, dtGenerator, isRestrictedAccessMode, resultCache,
+        queryCache, options, executor, timeoutMillis);
+  }
+
+  /**
+   * Executes the default data source servlet flow, and writes the response only if it can claim
+   * the given flag. This lets an asynchronous flow race against its timeout, so that exactly one
+   * of them writes the response. Before each step that reads the servlet request or updates the
+   * result cache, the flow gives up if the response was already claimed, because the request
+   * may have been completed.
+   *
+   * @param req The HttpServletRequest.
+   * @param resp The HttpServletResponse.
+   * @param preparedRequest The data source request, if it was extracted from the servlet request
+   *     in advance, or null to extract it here.
+   * @param dtGenerator An implementation of {@link DataTableGenerator} interface.
+   * @param isRestrictedAccessMode Indicates whether the server should serve trusted domains only.
+   * @param resultCache The query result cache, or null to disable caching of results.
+   * @param queryCache The parsed query cache, or null to disable caching of parsed queries.
+   * @param options The execution options.
+   * @param responseClaimed A flag that is set by whoever writes the response, or null to always
+   *     write the response.
+   *
+   * @return True if the response was claimed and written by this flow.
+   *
+   * @throws IOException In case of I/O errors.
+   */
+  /* package */ static boolean executeDataSourceServletFlow(HttpServletRequest req,
+      HttpServletResponse resp, DataSourceRequest preparedRequest, DataTableGenerator dtGenerator,
+      boolean isRestrictedAccessMode, QueryResultCache resultCache, ParsedQueryCache queryCache,
+      ExecutionOptions options, AtomicBoolean responseClaimed) throws IOException {
     // Extract the data source request parameters.
-    DataSourceRequest dsRequest = null;
+    DataSourceRequest dsRequest = preparedRequest;
+    boolean claimed = false;
     try {
-      dsRequest = new DataSourceRequest(req);
+      if (dsRequest == null) {
+        dsRequest = new DataSourceRequest(req, queryCache);
+      }
 
       if (isRestrictedAccessMode) {
         // Verify that the request is approved for access.
@@ -127,19 +290,87 @@ public class DataSourceHelper {
       }
 
       // Split the query.
-      QueryPair query = DataSourceHelper.splitQuery(dsRequest.getQuery(),
-          dtGenerator.getCapabilities());
+      StageTimer timer = StageTimer.start(options, -1, -1);
+      QueryPair query;
+      if (queryCache == null) {
+        query = DataSourceHelper.splitQuery(dsRequest.getQuery(), dtGenerator.getCapabilities());
+      } else {
+        query = queryCache.splitQuery(dsRequest.getQuery(), dtGenerator.getCapabilities());
+      }
+      if (timer != null) {
+        timer.stop(ExecutionStage.SPLIT, -1, -1);
+      }
 
-      // Generate the data table.
-      DataTable dataTable = dtGenerator.generateDataTable(query.getDataSourceQuery(), req);
+      // Look for the result in the cache.
+      boolean isVersioned = (resultCache != null)
+          && (dtGenerator instanceof VersionedDataTableGenerator);
+      String dataVersion = null;
+      DataTable newDataTable = null;
+      if (isClaimedElsewhere(responseClaimed)) {
+        return false;
+      }
+      if (isVersioned) {
+        dataVersion = ((VersionedDataTableGenerator) dtGenerator).getDataVersion(
+            query.getDataSourceQuery(), req);
+        if (dataVersion != null) {
+          newDataTable = resultCache.get(dsRequest.getQuery(), dsRequest.getUserLocale(),
+              dataVersion);
+        }
+      }
 
-      // Apply the completion query to the data table.
-      DataTable newDataTable = DataSourceHelper.applyQuery(query.getCompletionQuery(), dataTable,
-          dsRequest.getUserLocale());
+      if (newDataTable == null) {
+        if (isClaimedElsewhere(responseClaimed)) {
+          return false;
+        }
+        if (dtGenerator instanceof CoalescingDataTableGenerator) {
+          // Generate the data table and apply the completion query, once for all the identical
+          // requests in flight. The data version is reused if it was already taken.
+          CoalescingDataTableGenerator coalescer = (CoalescingDataTableGenerator) dtGenerator;
+          if (isVersioned) {
+            newDataTable = coalescer.generateAndApplyQuery(query, dsRequest.getUserLocale(), req,
+                options, dataVersion);
+          } else {
+            newDataTable = coalescer.generateAndApplyQuery(query, dsRequest.getUserLocale(), req,
+                options);
+          }
+        } else {
+          // Generate the data table.
+          timer = StageTimer.start(options, -1, -1);
+          DataTable dataTable = dtGenerator.generateDataTable(query.getDataSourceQuery(), req);
+          if (timer != null) {
+            timer.stop(ExecutionStage.GENERATE, dataTable.getNumberOfRows(),
+                dataTable.getNumberOfColumns());
+          }
+
+          // Apply the completion query to the data table.
+          newDataTable = DataSourceHelper.applyQuery(query.getCompletionQuery(), dataTable,
+              dsRequest.getUserLocale(), options);
+        }
+
+        if (isClaimedElsewhere(responseClaimed)) {
+          return false;
+        }
+        if (dataVersion != null) {
+          resultCache.put(dsRequest.getQuery(), dsRequest.getUserLocale(), dataVersion,
+              newDataTable);
+        }
+      }
 
       // Set the response.
+      if (!claimResponse(responseClaimed)) {
+        return false;
+      }
+      claimed = true;
+      timer = StageTimer.start(options, newDataTable.getNumberOfRows(),
+          newDataTable.getNumberOfColumns());
       setServletResponse(newDataTable, dsRequest, resp);
+      if (timer != null) {
+        timer.stop(ExecutionStage.RENDER, -1, -1);
+      }
     } catch (DataSourceException e) {
+      if (!claimed && !claimResponse(responseClaimed)) {
+        return false;
+      }
       if (dsRequest != null) {
         setServletErrorResponse(e, dsRequest, resp);
       } else {
@@ -147,6 +378,14 @@ public class DataSourceHelper {
       }
     } catch (RuntimeException e) {
       log.error("A runtime exception has occured", e);
+      if (!claimed && !claimResponse(responseClaimed)) {
+        return false;
+      }
+      if (resp.isCommitted()) {
+        // Part of the response was already sent, and an error response would only be appended
+        // to it.
+        throw e;
+      }
       ResponseStatus status = new ResponseStatus(StatusType.ERROR, ReasonType.INTERNAL_ERROR,
           e.getMessage());
       if (dsRequest == null) {
@@ -154,6 +393,30 @@ public class DataSourceHelper {
       }
       DataSourceHelper.setServletErrorResponse(status, dsRequest, resp);
     }
+    return true;
+  }
+
+  /**
+   * Returns true if the response was already claimed by someone else, e.g., by the timeout of an
+   * asynchronous flow.
+   *
+   * @param responseClaimed The flag that is set by whoever writes the response, or null.
+   *
+   * @return True if the response was already claimed.
+   */
+  private static boolean isClaimedElsewhere(AtomicBoolean responseClaimed) {
+    return (responseClaimed != null) && responseClaimed.get();
+  }
+
+  /**
+   * Claims the right to write the response.
+   *
+   * @param responseClaimed A flag that is set by whoever writes the response, or null.
+   *
+   * @return True if the flag is null or was set by this call.
+   */
+  private static boolean claimResponse(AtomicBoolean responseClaimed) {
+    return (responseClaimed == null) || responseClaimed.compareAndSet(false, true);
   }
 
   /**
@@ -189,8 +452,47 @@ public class DataSourceHelper {
    */
   public static void setServletResponse(DataTable dataTable, DataSourceRequest dataSourceRequest,
       HttpServletResponse res) throws IOException {
-    String responseMessage = generateResponse(dataTable, dataSourceRequest);
-    setServletResponse(responseMessage, dataSourceRequest, res);
+    DataSourceParameters dataSourceParameters = dataSourceRequest.getDataSourceParameters();
+    OutputType outputType = dataSourceParameters.getOutputType();
+    if ((outputType != OutputType.CSV) && (outputType != OutputType.TSV_EXCEL)
+        && (outputType != OutputType.HTML) && (outputType != OutputType.JSON)
+        && (outputType != OutputType.JSONP)) {
+      String responseMessage = generateResponse(dataTable, dataSourceRequest);
+      setServletResponse(responseMessage, dataSourceRequest, res);
+      return;
+    }
+
+    // The other responses are written directly to the servlet output stream, so that they are
+    // never held in memory as a whole. If the rendering fails, whatever was written is discarded
+    // while it is still in the response buffer, so that the caller can write an error response
+    // instead. Once the response is committed, part of it was already sent and the exception is
+    // passed on as is.
+    try {
+      if ((outputType == OutputType.CSV) || (outputType == OutputType.TSV_EXCEL)) {
+        ResponseWriter.setServletCsvResponse(dataTable, dataSourceRequest.getUserLocale(),
+            dataSourceParameters, res);
+      } else if (outputType == OutputType.HTML) {
+        ResponseWriter.setServletHtmlResponse(dataTable, dataSourceRequest.getUserLocale(), res);
+      } else {
+        if (outputType == OutputType.JSONP) {
+          ResponseWriter.setServletResponseJSONP(res);
+        } else {
+          ResponseWriter.setServletResponseJSON(res);
+        }
+        Writer writer = ResponseWriter.getServletResponseWriter(res);
+        if (outputType == OutputType.JSONP) {
+          writer.write(JSONP_RESPONSE_PREFIX);
+        }
+        JsonRenderer.renderJsonResponse(dataSourceParameters, getResponseStatus(dataTable),
+            dataTable, writer);
+        writer.flush();
+      }
+    } catch (RuntimeException e) {
+      if (!res.isCommitted()) {
+        res.resetBuffer();
+      }
+      throw e;
+    }
   }
 
   /**
@@ -270,10 +572,7 @@ public class DataSourceHelper {
    */
   public static String generateResponse(DataTable dataTable, DataSourceRequest dataSourceRequest) {
     CharSequence response;
-    ResponseStatus responseStatus = null;
-    if (!dataTable.getWarnings().isEmpty()) {
-      responseStatus = new ResponseStatus(StatusType.WARNING);
-    }
+    ResponseStatus responseStatus = getResponseStatus(dataTable);
     switch (dataSourceRequest.getDataSourceParameters().getOutputType()) {
       case CSV:
         response = CsvRenderer.renderDataTable(dataTable, dataSourceRequest.getUserLocale(), ",");
@@ -285,9 +584,7 @@ public class DataSourceHelper {
         response = HtmlRenderer.renderDataTable(dataTable, dataSourceRequest.getUserLocale());
         break;
       case JSONP:
-        // Appending a comment to the response to prevent the first characters to be the
-        // response handler which is not controlled by the server.
-        response = "// Data table response\n" + JsonRenderer.renderJsonResponse(
+        response = JSONP_RESPONSE_PREFIX + JsonRenderer.renderJsonResponse(
             dataSourceRequest.getDataSourceParameters(), responseStatus, dataTable);
         break;
       case JSON:
@@ -302,6 +599,21 @@ public class DataSourceHelper {
     return response.toString();
   }
 
+  /**
+   * Returns the response status for a response with the given data table: a WARNING status if
+   * the data table has warnings, and null otherwise.
+   *
+   * @param dataTable The data table.
+   *
+   * @return The response status, or null if the data table has no warnings.
+   */
+  private static ResponseStatus getResponseStatus(DataTable dataTable) {
+    if (!dataTable.getWarnings().isEmpty()) {
+      return new ResponseStatus(StatusType.WARNING);
+    }
+    return null;
+  }
+
   /**
    * Generates an error response string for the given {@link DataSourceException}.
    * Receives an exception, and renders it to an error response according to the
@@ -405,9 +717,29 @@ public class DataSourceHelper {
    */
   public static DataTable applyQuery(Query query, DataTable dataTable, ULocale locale)
       throws InvalidQueryException, DataSourceException {
+    return applyQuery(query, dataTable, locale, ExecutionOptions.SERIAL);
+  }
+
+  /**
+   * Applies the given <code>Query</code> on the given <code>DataTable</code> using the given
+   * execution options, e.g., to execute the query in parallel, and returns the resulting
+   * <code>DataTable</code>. See {@link #applyQuery(Query, DataTable, ULocale)}.
+   *
+   * @param query The query object.
+   * @param dataTable The data table on which to apply the query.
+   * @param locale The user locale for the current request.
+   * @param options The execution options.
+   *
+   * @return The data table result of the query execution over the given data table.
+   *
+   * @throws InvalidQueryException If the query is invalid.
+   * @throws DataSourceException If the data source cannot execute the query.
+   */
+  public static DataTable applyQuery(Query query, DataTable dataTable, ULocale locale,
+      ExecutionOptions options) throws InvalidQueryException, DataSourceException {
     dataTable.setLocaleForUserMessages(locale);
     validateQueryAgainstColumnStructure(query, dataTable);
-    dataTable = QueryEngine.executeQuery(query, dataTable, locale);
+    dataTable = QueryEngine.executeQuery(query, dataTable, locale, options);
     dataTable.setLocaleForUserMessages(locale);
     return dataTable;
   }
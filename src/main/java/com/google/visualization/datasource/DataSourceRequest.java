@@ -97,10 +97,24 @@ public class DataSourceRequest {
    * @throws DataSourceException In case of an invalid 'tq' or 'tqx' parameter.
    */
   public DataSourceRequest(HttpServletRequest req) throws DataSourceException {
+    this(req, null);
+  }
+
+  /**
+   * Builds a DataSource request from an <code>HttpServletRequest</code>, taking the parsed query
+   * from the given cache. The query of the request is then frozen, see {@link Query#freeze()}.
+   *
+   * @param req The HttpServletRequest.
+   * @param queryCache The parsed query cache, or null to parse the query without caching.
+   *
+   * @throws DataSourceException In case of an invalid 'tq' or 'tqx' parameter.
+   */
+  public DataSourceRequest(HttpServletRequest req, ParsedQueryCache queryCache)
+      throws DataSourceException {
     inferLocaleFromRequest(req);
     sameOrigin = determineSameOrigin(req);
     createDataSourceParametersFromRequest(req);
-    createQueryFromRequest(req);
+    createQueryFromRequest(req, queryCache);
   }
 
   /**
@@ -129,7 +143,7 @@ public class DataSourceRequest {
       }
     }
     try {
-      dataSourceRequest.createQueryFromRequest(req);
+      dataSourceRequest.createQueryFromRequest(req, null);
     } catch (InvalidQueryException e) {
       // If we can't parse the 'tq' parameter, a null query is set.
     }
@@ -155,12 +169,18 @@ public class DataSourceRequest {
    * Creates the <code>Query</code> based on the 'tq' parameter on the given request.
    *
    * @param req The http servlet request.
+   * @param queryCache The parsed query cache, or null to parse the query without caching.
    *
    * @throws InvalidQueryException if the 'tq' string is invalid or missing on the request.
    */
-  private void createQueryFromRequest(HttpServletRequest req) throws InvalidQueryException {
+  private void createQueryFromRequest(HttpServletRequest req, ParsedQueryCache queryCache)
+      throws InvalidQueryException {
     String queryString = req.getParameter(QUERY_REQUEST_PARAMETER);
-    query = DataSourceHelper.parseQuery(queryString);
+    if (queryCache == null) {
+      query = DataSourceHelper.parseQuery(queryString);
+    } else {
+      query = queryCache.parseQuery(queryString, null);
+    }
   }
 
   /**
@@ -14,7 +14,10 @@
 
 package com.google.visualization.datasource;
 
+import com.google.visualization.datasource.query.engine.ExecutionOptions;
+
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -27,9 +30,107 @@ import javax.servlet.http.HttpServletResponse;
  */
 public abstract class DataSourceServlet extends HttpServlet implements DataTableGenerator {
 
+  /**
+   * The default timeout of asynchronous requests in milliseconds.
+   */
+  public static final long DEFAULT_ASYNC_TIMEOUT_MILLIS = 30000;
+
   @Override
   protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-    DataSourceHelper.executeDataSourceServletFlow(req, resp, this, isRestrictedAccessMode());
+    Executor executor = getExecutor();
+    if ((executor != null) && req.isAsyncSupported()) {
+      DataSourceHelper.executeDataSourceServletFlowAsync(req, resp, getDataTableGenerator(),
+          isRestrictedAccessMode(), getQueryResultCache(), getParsedQueryCache(),
+          getExecutionOptions(), executor, getAsyncTimeoutMillis());
+    } else {
+      DataSourceHelper.executeDataSourceServletFlow(req, resp, getDataTableGenerator(),
+          isRestrictedAccessMode(), getQueryResultCache(), getParsedQueryCache(),
+          getExecutionOptions());
+    }
+  }
+
+  /**
+   * Returns the options with which the completion queries of this servlet are executed.
+   *
+   * To execute queries in parallel, or to measure the stages of each request with an
+   * {@link com.google.visualization.datasource.query.engine.ExecutionListener}, override this
+   * method and return the same options on every call.
+   *
+   * @return The execution options. The default implementation returns
+   *     {@link ExecutionOptions#SERIAL}.
+   */
+  protected ExecutionOptions getExecutionOptions() {
+    return ExecutionOptions.SERIAL;
+  }
+
+  /**
+   * Returns the data table generator that serves the requests of this servlet.
+   *
+   * To coalesce identical concurrent requests, implement {@link VersionedDataTableGenerator},
+   * override this method and return the same {@link CoalescingDataTableGenerator} of this
+   * servlet on every call, e.g., a decorator created in the servlet's <code>init</code> method.
+   *
+   * @return The data table generator. The default implementation returns this servlet.
+   */
+  protected DataTableGenerator getDataTableGenerator() {
+    return this;
+  }
+
+  /**
+   * Returns the executor on which requests are served asynchronously, or null if requests are
+   * served on the container thread. When an executor is used, the container thread is released
+   * while the data table is generated, so that slow backends do not exhaust the container
+   * thread pool. {@link #generateDataTable} is then called on the executor's threads.
+   *
+   * To serve requests asynchronously, override this method and return the same executor on every
+   * call, e.g., an executor created in the servlet's <code>init</code> method and shut down in
+   * its <code>destroy</code> method. The servlet and its filters must also be declared with
+   * <code>async-supported</code>; otherwise, requests are served on the container thread.
+   *
+   * @return The executor, or null. The default implementation returns null.
+   */
+  protected Executor getExecutor() {
+    return null;
+  }
+
+  /**
+   * Returns the timeout of asynchronous requests in milliseconds. A request that has not been
+   * answered within the timeout gets a TIMEOUT error response. Zero or less means no timeout.
+   * Used only if {@link #getExecutor()} returns an executor.
+   *
+   * @return The timeout in milliseconds. The default implementation returns
+   *     {@link #DEFAULT_ASYNC_TIMEOUT_MILLIS}.
+   */
+  protected long getAsyncTimeoutMillis() {
+    return DEFAULT_ASYNC_TIMEOUT_MILLIS;
+  }
+
+  /**
+   * Returns the cache of query results used by this servlet, or null if results are not cached.
+   * Results are cached only if this servlet also implements
+   * {@link VersionedDataTableGenerator}.
+   *
+   * To enable caching, override this method and return the same cache on every call, e.g., a
+   * cache created in the servlet's <code>init</code> method.
+   *
+   * @return The query result cache, or null. The default implementation returns null.
+   */
+  protected QueryResultCache getQueryResultCache() {
+    return null;
+  }
+
+  /**
+   * Returns the cache of parsed queries used by this servlet, or null if queries are parsed on
+   * every request. The queries passed to {@link #generateDataTable} are frozen when a cache is
+   * used, and must not be changed.
+   *
+   * To enable caching, override this method and return the same cache on every call, e.g., a
+   * cache created in the servlet's <code>init</code> method.
+   *
+   * @return The parsed query cache, or null. The default implementation returns null.
+   */
+  protected ParsedQueryCache getParsedQueryCache() {
+    return null;
   }
 
   /**
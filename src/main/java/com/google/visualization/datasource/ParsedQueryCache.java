@@ -0,0 +1,189 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.visualization.datasource.base.DataSourceException;
+import com.google.visualization.datasource.base.InvalidQueryException;
+import com.google.visualization.datasource.query.Query;
+import com.google.visualization.datasource.query.parser.QueryBuilder;
+
+import com.ibm.icu.util.ULocale;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache of parsed queries. A query string is parsed and validated once, and the
+ * resulting {@link Query} is cached under the query string and the user locale. Optionally, the
+ * split of a cached query is cached as well, per the capabilities of the data source.
+ *
+ * The cached queries, and the queries of the cached splits, are frozen (see
+ * {@link Query#freeze()}), since they are shared by all the requests with the same query string.
+ * Invalid query strings are not cached, so they are parsed again on every request.
+ *
+ * The cache is safe for use by concurrent servlet threads.
+ *
+ * Caching is disabled by default. To enable it, override
+ * {@link DataSourceServlet#getParsedQueryCache()}, or pass a cache to
+ * {@link DataSourceHelper#executeDataSourceServletFlow(javax.servlet.http.HttpServletRequest,
+ * javax.servlet.http.HttpServletResponse, DataTableGenerator, boolean, QueryResultCache,
+ * ParsedQueryCache)}.
+ */
+public class ParsedQueryCache {
+
+  /**
+   * The parsed queries, by a key created by {@link #createKey(String, ULocale)}.
+   */
+  private final Cache<String, Query> queries;
+
+  /**
+   * The splits of the cached queries, by capabilities. The keys are compared by identity and are
+   * weakly referenced, so the splits of a query are dropped when the query is evicted.
+   */
+  private final Cache<Query, Map<Capabilities, QueryPair>> splits;
+
+  /**
+   * Creates a new empty cache.
+   *
+   * @param maximumSize The maximum number of query strings in the cache.
+   */
+  public ParsedQueryCache(long maximumSize) {
+    queries = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .recordStats()
+        .build();
+    splits = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .weakKeys()
+        .build();
+  }
+
+  /**
+   * Returns the parsed and validated query of the given query string. The query is taken from
+   * this cache if it is there, and is parsed and added to this cache otherwise.
+   * See {@link QueryBuilder#parseQuery(String, ULocale)}.
+   *
+   * @param queryString The query string.
+   * @param locale The user locale.
+   *
+   * @return The frozen query.
+   *
+   * @throws InvalidQueryException Thrown if the query is invalid.
+   */
+  public Query parseQuery(String queryString, ULocale locale) throws InvalidQueryException {
+    String key = createKey(queryString, locale);
+    Query query = queries.getIfPresent(key);
+    if (query == null) {
+      // Two threads may parse the same query string concurrently, in which case the last one is
+      // cached. Both queries are equal, so this is harmless.
+      query = QueryBuilder.getInstance().parseQuery(queryString, locale);
+      query.freeze();
+      queries.put(key, query);
+    }
+    return query;
+  }
+
+  /**
+   * Splits the given query according to the given capabilities. If the query was returned by
+   * {@link #parseQuery(String, ULocale)}, the split is cached, and the queries of the split are
+   * frozen. Otherwise, the query is split without caching.
+   * See {@link QuerySplitter#splitQuery(Query, Capabilities)}.
+   *
+   * @param query The query to split.
+   * @param capabilities The capabilities supported by the data source.
+   *
+   * @return The split query.
+   *
+   * @throws DataSourceException Thrown if the capabilities are not supported.
+   */
+  public QueryPair splitQuery(Query query, Capabilities capabilities)
+      throws DataSourceException {
+    if (!query.isFrozen()) {
+      return QuerySplitter.splitQuery(query, capabilities);
+    }
+    Map<Capabilities, QueryPair> querySplits = splits.getIfPresent(query);
+    if (querySplits == null) {
+      querySplits = new ConcurrentHashMap<Capabilities, QueryPair>();
+      Map<Capabilities, QueryPair> existing = splits.asMap().putIfAbsent(query, querySplits);
+      if (existing != null) {
+        querySplits = existing;
+      }
+    }
+    QueryPair queryPair = querySplits.get(capabilities);
+    if (queryPair == null) {
+      queryPair = QuerySplitter.splitQuery(query, capabilities);
+      if (queryPair.getDataSourceQuery() != null) {
+        queryPair.getDataSourceQuery().freeze();
+      }
+      if (queryPair.getCompletionQuery() != null) {
+        queryPair.getCompletionQuery().freeze();
+      }
+      querySplits.put(capabilities, queryPair);
+    }
+    return queryPair;
+  }
+
+  /**
+   * Removes all the queries from this cache.
+   */
+  public void invalidateAll() {
+    queries.invalidateAll();
+    splits.invalidateAll();
+  }
+
+  /**
+   * Returns the number of query strings in this cache.
+   *
+   * @return The number of query strings in this cache.
+   */
+  public long size() {
+    return queries.size();
+  }
+
+  /**
+   * Returns the number of times a query string was found in this cache.
+   *
+   * @return The number of cache hits.
+   */
+  public long getHitCount() {
+    return queries.stats().hitCount();
+  }
+
+  /**
+   * Returns the number of times a query string was not found in this cache.
+   *
+   * @return The number of cache misses.
+   */
+  public long getMissCount() {
+    return queries.stats().missCount();
+  }
+
+  /**
+   * Returns the key of a query string. An empty and a missing query string share the same key.
+   *
+   * @param queryString The query string.
+   * @param locale The user locale.
+   *
+   * @return The key.
+   */
+  /* package */ static String createKey(String queryString, ULocale locale) {
+    // The locale cannot contain a new line, so it cannot run into the query string.
+    return locale + "\n" + StringUtils.defaultString(queryString);
+  }
+}
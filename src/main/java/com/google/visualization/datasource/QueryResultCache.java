@@ -0,0 +1,186 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.visualization.datasource;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.query.Query;
+
+import com.ibm.icu.util.ULocale;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded cache of query results, i.e., of data tables after the completion query was applied.
+ * A result is cached under the query string, the user locale and the data version token
+ * returned by a {@link VersionedDataTableGenerator}.
+ *
+ * The size of the cache is measured in table cells. When the total number of cells in the cache
+ * exceeds the maximum weight, the least recently used results are evicted. A result is also
+ * evicted when it is older than the time to live, so a result is never served for longer than that
+ * even if the data version token does not change.
+ *
+ * The cache is safe for use by concurrent servlet threads. The data tables in the cache are
+ * shared by all the requests that hit them, so they must not be changed.
+ *
+ * Caching is disabled by default. To enable it, override
+ * {@link DataSourceServlet#getQueryResultCache()}, or pass a cache to
+ * {@link DataSourceHelper#executeDataSourceServletFlow(javax.servlet.http.HttpServletRequest,
+ * javax.servlet.http.HttpServletResponse, DataTableGenerator, boolean, QueryResultCache)}.
+ */
+public class QueryResultCache {
+
+  /**
+   * The cache, from a key created by {@link #createKey(Query, ULocale, String)} to a result.
+   */
+  private final Cache<String, DataTable> cache;
+
+  /**
+   * Creates a new empty cache.
+   *
+   * @param maximumWeight The maximum total number of cells in the cached tables.
+   * @param timeToLiveMillis The time, in milliseconds, after which a cached result is evicted.
+   */
+  public QueryResultCache(long maximumWeight, long timeToLiveMillis) {
+    this(maximumWeight, timeToLiveMillis, Ticker.systemTicker());
+  }
+
+  /**
+   * Creates a new empty cache that uses the given ticker to measure time.
+   *
+   * @param maximumWeight The maximum total number of cells in the cached tables.
+   * @param timeToLiveMillis The time, in milliseconds, after which a cached result is evicted.
+   * @param ticker The ticker.
+   */
+  /* package */ QueryResultCache(long maximumWeight, long timeToLiveMillis, Ticker ticker) {
+    // A single segment, so that the maximum weight and the eviction order apply to the whole
+    // cache and not to each segment separately. Reads do not lock the segment.
+    cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .maximumWeight(maximumWeight)
+        .weigher(new Weigher<String, DataTable>() {
+          @Override
+          public int weigh(String key, DataTable table) {
+            return getWeight(table);
+          }
+        })
+        .expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Returns the cached result of the given query, or null if there is none.
+   *
+   * @param query The query.
+   * @param locale The user locale.
+   * @param dataVersion The data version token.
+   *
+   * @return The cached result, or null.
+   */
+  public DataTable get(Query query, ULocale locale, String dataVersion) {
+    return cache.getIfPresent(createKey(query, locale, dataVersion));
+  }
+
+  /**
+   * Caches the result of the given query. The result must not be changed afterwards.
+   *
+   * @param query The query.
+   * @param locale The user locale.
+   * @param dataVersion The data version token.
+   * @param result The result of the query.
+   */
+  public void put(Query query, ULocale locale, String dataVersion, DataTable result) {
+    cache.put(createKey(query, locale, dataVersion), result);
+  }
+
+  /**
+   * Removes all the results from this cache.
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Returns the number of results in this cache.
+   *
+   * @return The number of results in this cache.
+   */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Returns the number of times a result was found in this cache.
+   *
+   * @return The number of cache hits.
+   */
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  /**
+   * Returns the number of times a result was not found in this cache.
+   *
+   * @return The number of cache misses.
+   */
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  /**
+   * Returns the number of results evicted from this cache, because the cache was full or
+   * because they expired.
+   *
+   * @return The number of evictions.
+   */
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  /**
+   * Returns the key of a query result. The query is normalized by its query string, so equivalent
+   * query strings that differ only in white space or letter case of keywords share the same key.
+   *
+   * @param query The query.
+   * @param locale The user locale.
+   * @param dataVersion The data version token.
+   *
+   * @return The key.
+   */
+  /* package */ static String createKey(Query query, ULocale locale, String dataVersion) {
+    // The locale cannot contain a new line, and the data version is preceded by its length, so
+    // different parts cannot run into each other.
+    return locale + "\n" + dataVersion.length() + ":" + dataVersion + query.toQueryString();
+  }
+
+  /**
+   * Returns the weight of a result: the number of cells in the table, plus one for the table
+   * itself.
+   *
+   * @param table The result.
+   *
+   * @return The weight of the result.
+   */
+  private static int getWeight(DataTable table) {
+    long cells = (long) table.getNumberOfRows() * table.getNumberOfColumns();
+    return (int) Math.min(cells + 1, Integer.MAX_VALUE);
+  }
+}
@@ -16,8 +16,16 @@ package com.google.visualization.datasource;
 
 import com.google.visualization.datasource.base.DataSourceParameters;
 import com.google.visualization.datasource.base.OutputType;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.render.CsvRenderer;
+import com.google.visualization.datasource.render.HtmlRenderer;
 
+import com.ibm.icu.util.ULocale;
+
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
@@ -80,6 +88,67 @@ public class ResponseWriter {
     }
   }
 
+  /**
+   * Writes the given data table on the given <code>HttpServletResponse</code> as csv if the
+   * <code>OutputType</code> is CSV, or as tab separated values if it is TSV_EXCEL. The table is
+   * written row by row directly to the servlet output stream, so that the response is never
+   * held in memory as a whole. The response is the same as the one set by
+   * {@link #setServletResponse(String, DataSourceParameters, HttpServletResponse)} for the
+   * message rendered by {@link CsvRenderer}.
+   * This method assumes the <code>StatusType</code> is 'OK'.
+   *
+   * @param dataTable The data table.
+   * @param locale The user locale.
+   * @param dataSourceParameters The data source parameters.
+   * @param res The HTTP response.
+   *
+   * @throws IOException In case of a I/O error.
+   */
+  public static void setServletCsvResponse(DataTable dataTable, ULocale locale,
+      DataSourceParameters dataSourceParameters, HttpServletResponse res) throws IOException {
+    OutputType type = dataSourceParameters.getOutputType();
+    Writer writer;
+    String separator;
+    switch (type) {
+      case CSV:
+        setServletResponseCSV(dataSourceParameters, res);
+        writer = getServletResponseWriter(res, "UTF-8", null);
+        separator = ",";
+        break;
+      case TSV_EXCEL:
+        setServletResponseTSVExcel(dataSourceParameters, res);
+        writer = getServletResponseWriter(res, "UTF-16LE", UTF_16LE_BOM);
+        separator = "\t";
+        break;
+      default:
+        throw new IllegalArgumentException("Not a csv output type: " + type);
+    }
+    CsvRenderer.renderDataTable(dataTable, locale, separator, writer);
+    writer.flush();
+  }
+
+  /**
+   * Writes the given data table on the given <code>HttpServletResponse</code> as html. The
+   * table is written row by row directly to the servlet output stream, so that the response is
+   * never held in memory as a whole. The response is the same as the one set by
+   * {@link #setServletResponse(String, DataSourceParameters, HttpServletResponse)} for the
+   * message rendered by {@link HtmlRenderer}.
+   * This method assumes the <code>StatusType</code> is 'OK'.
+   *
+   * @param dataTable The data table.
+   * @param locale The user locale.
+   * @param res The HTTP response.
+   *
+   * @throws IOException In case of a I/O error.
+   */
+  public static void setServletHtmlResponse(DataTable dataTable, ULocale locale,
+      HttpServletResponse res) throws IOException {
+    setServletResponseHTML(res);
+    Writer writer = getServletResponseWriter(res);
+    HtmlRenderer.renderDataTable(dataTable, locale, writer);
+    writer.flush();
+  }
+
   /**
    * Sets the specified responseMessage on the given <code>HttpServletResponse</code> if
    * the <code>OutputType</code> is CSV.
@@ -160,6 +229,43 @@ public class ResponseWriter {
     res.setContentType("application/json; charset=UTF-8");
   }
 
+  /**
+   * Returns a buffered writer that writes to the servlet response output stream using UTF-8
+   * charset without byte-order mark. The caller must flush the writer after writing the
+   * response.
+   *
+   * @param res The servlet response.
+   *
+   * @return A writer on the servlet response.
+   *
+   * @throws IOException In case of a I/O error.
+   */
+  static Writer getServletResponseWriter(HttpServletResponse res) throws IOException {
+    return getServletResponseWriter(res, "UTF-8", null);
+  }
+
+  /**
+   * Returns a buffered writer that writes to the servlet response output stream using the
+   * specified charset, after an optional byte-order mark. The caller must flush the writer after
+   * writing the response.
+   *
+   * @param res The servlet response.
+   * @param charset The name of the charset.
+   * @param byteOrderMark An optional byte-order mark.
+   *
+   * @return A writer on the servlet response.
+   *
+   * @throws IOException In case of a I/O error.
+   */
+  private static Writer getServletResponseWriter(HttpServletResponse res, String charset,
+      byte[] byteOrderMark) throws IOException {
+    ServletOutputStream outputStream = res.getOutputStream();
+    if (byteOrderMark != null) {
+      outputStream.write(byteOrderMark);
+    }
+    return new BufferedWriter(new OutputStreamWriter(outputStream, charset));
+  }
+
   /**
    * Writes the response to the servlet response using UTF-8 charset without
    * byte-order mark.
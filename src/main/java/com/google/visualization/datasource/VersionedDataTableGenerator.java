@@ -0,0 +1,48 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.visualization.datasource;
+
+import com.google.visualization.datasource.base.DataSourceException;
+import com.google.visualization.datasource.query.Query;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A <code>DataTableGenerator</code> that can tell which version of its data a request would
+ * see. The results of queries over such a generator can be kept in a {@link QueryResultCache}.
+ */
+public interface VersionedDataTableGenerator extends DataTableGenerator {
+
+  /**
+   * Returns a token that identifies the data a call to <code>generateDataTable</code> with the
+   * same arguments would return. The token must change whenever that data changes, e.g., a
+   * modification time or a database change number. If the generated data table depends on
+   * anything in the request other than the query and the user locale (e.g., the identity of the
+   * user), the token must identify that as well.
+   *
+   * This method is called for every request, before the data table is generated, so it should be
+   * much cheaper than generating the data table.
+   *
+   * @param query The query that will be passed to <code>generateDataTable</code>.
+   * @param request The http request.
+   *
+   * @return The data version token, or null if the results for this request must not be cached.
+   *
+   * @throws DataSourceException If the data version could not be determined for any reason.
+   */
+  public String getDataVersion(Query query, HttpServletRequest request)
+      throws DataSourceException;
+}
@@ -0,0 +1,594 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.datatable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.visualization.datasource.datatable.value.BooleanValue;
+import com.google.visualization.datasource.datatable.value.DateTimeValue;
+import com.google.visualization.datasource.datatable.value.DateValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.TimeOfDayValue;
+import com.google.visualization.datasource.datatable.value.Value;
+import com.google.visualization.datasource.datatable.value.ValueType;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The cells of a single column of a {@link ColumnarDataTable}, stored in primitive arrays.
+ * Null values are kept in a bitmap, and formatted values and custom properties, which are
+ * uncommon in large tables, are allocated only when first used.
+ */
+/* package */ abstract class ColumnVector {
+
+  /**
+   * The initial capacity of a vector.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * The indices of the null values.
+   */
+  private BitSet nulls = new BitSet();
+
+  /**
+   * The formatted values, or null if no cell in this vector has a formatted value.
+   */
+  private String[] formattedValues = null;
+
+  /**
+   * The cell custom properties by row index, or null if no cell in this vector has custom
+   * properties.
+   */
+  private Map<Integer, Map<String, String>> customProperties = null;
+
+  /**
+   * The number of cells in this vector.
+   */
+  private int size = 0;
+
+  /**
+   * Creates a new empty vector for values of the given type.
+   *
+   * @param type The value type.
+   *
+   * @return A new empty vector.
+   */
+  static ColumnVector create(ValueType type) {
+    switch (type) {
+      case BOOLEAN:
+        return new BooleanVector();
+      case NUMBER:
+        return new NumberVector();
+      case TEXT:
+        return new TextVector();
+      case DATE:
+        return new DateVector();
+      case DATETIME:
+        return new DateTimeVector();
+      case TIMEOFDAY:
+        return new TimeOfDayVector();
+      default:
+        throw new IllegalArgumentException("Unsupported value type: " + type);
+    }
+  }
+
+  /**
+   * Returns the type of the values in this vector.
+   *
+   * @return The type of the values in this vector.
+   */
+  abstract ValueType getType();
+
+  /**
+   * Returns the number of cells in this vector.
+   *
+   * @return The number of cells in this vector.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Appends a cell to the end of this vector. The cell's type is not checked.
+   *
+   * @param cell The cell to append, or null to append a null value.
+   */
+  void add(TableCell cell) {
+    if (size == getCapacity()) {
+      resize(Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+    }
+    size++;
+    set(size - 1, cell);
+  }
+
+  /**
+   * Replaces the cell at the given index. The cell's type is not checked.
+   *
+   * @param index The index of the cell to replace.
+   * @param cell The new cell, or null to set a null value.
+   */
+  void set(int index, TableCell cell) {
+    Value value = (cell == null) ? null : cell.getValue();
+    if ((value == null) || value.isNull()) {
+      nulls.set(index);
+    } else {
+      nulls.clear(index);
+      setValue(index, value);
+    }
+
+    String formattedValue = (cell == null) ? null : cell.getFormattedValue();
+    if (formattedValue != null) {
+      if (formattedValues == null) {
+        formattedValues = new String[getCapacity()];
+      }
+      formattedValues[index] = formattedValue;
+    } else if (formattedValues != null) {
+      formattedValues[index] = null;
+    }
+
+    Map<String, String> properties =
+        (cell == null) ? null : cell.getCustomProperties();
+    if ((properties != null) && !properties.isEmpty()) {
+      if (customProperties == null) {
+        customProperties = Maps.newHashMap();
+      }
+      customProperties.put(index, Maps.newHashMap(properties));
+    } else if (customProperties != null) {
+      customProperties.remove(index);
+    }
+  }
+
+  /**
+   * Returns a new cell holding the value at the given index.
+   *
+   * @param index The index of the cell.
+   *
+   * @return A new cell.
+   */
+  TableCell getCell(int index) {
+    TableCell cell = new TableCell(getValue(index),
+        (formattedValues == null) ? null : formattedValues[index]);
+    if (customProperties != null) {
+      Map<String, String> properties = customProperties.get(index);
+      if (properties != null) {
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+          cell.setCustomProperty(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return cell;
+  }
+
+  /**
+   * Returns the value at the given index.
+   *
+   * @param index The index of the value.
+   *
+   * @return The value at the given index.
+   */
+  Value getValue(int index) {
+    if (nulls.get(index)) {
+      return Value.getNullValueFromValueType(getType());
+    }
+    return getNonNullValue(index);
+  }
+
+  /**
+   * Returns true if the value at the given index is null.
+   *
+   * @param index The index of the value.
+   *
+   * @return True if the value at the given index is null.
+   */
+  boolean isNull(int index) {
+    return nulls.get(index);
+  }
+
+  /**
+   * Returns the number at the given index of a number vector. The result is undefined if the
+   * value at the given index is null.
+   *
+   * @param index The index of the value.
+   *
+   * @return The number at the given index.
+   *
+   * @throws UnsupportedOperationException Thrown if this is not a number vector.
+   */
+  double getNumber(int index) {
+    throw new UnsupportedOperationException("Not a number column: " + getType());
+  }
+
+  /**
+   * Removes all cells from this vector.
+   */
+  void clear() {
+    size = 0;
+    nulls = new BitSet();
+    formattedValues = null;
+    customProperties = null;
+    resize(0);
+  }
+
+  /**
+   * Trims the capacity of this vector to its size.
+   */
+  void trimToSize() {
+    if (getCapacity() != size) {
+      resize(size);
+    }
+  }
+
+  /**
+   * Returns a deep copy of this vector.
+   *
+   * @return A deep copy of this vector.
+   */
+  ColumnVector copy() {
+    ColumnVector result = create(getType());
+    result.resize(size);
+    result.size = size;
+    copyValuesTo(result);
+    result.nulls = (BitSet) nulls.clone();
+    if (formattedValues != null) {
+      result.formattedValues = Arrays.copyOf(formattedValues, size);
+    }
+    if (customProperties != null) {
+      result.customProperties = Maps.newHashMap();
+      for (Map.Entry<Integer, Map<String, String>> entry : customProperties.entrySet()) {
+        result.customProperties.put(entry.getKey(), Maps.newHashMap(entry.getValue()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Changes the capacity of this vector, keeping the first min(size, capacity) cells.
+   *
+   * @param capacity The new capacity.
+   */
+  private void resize(int capacity) {
+    resizeValues(capacity);
+    if (formattedValues != null) {
+      formattedValues = Arrays.copyOf(formattedValues, capacity);
+    }
+  }
+
+  /**
+   * Returns the number of values the underlying arrays can hold.
+   *
+   * @return The capacity of this vector.
+   */
+  protected abstract int getCapacity();
+
+  /**
+   * Changes the length of the underlying arrays.
+   *
+   * @param capacity The new length.
+   */
+  protected abstract void resizeValues(int capacity);
+
+  /**
+   * Copies the underlying arrays into another vector of the same type and capacity.
+   *
+   * @param other The vector to copy to.
+   */
+  protected abstract void copyValuesTo(ColumnVector other);
+
+  /**
+   * Stores a non null value at the given index.
+   *
+   * @param index The index.
+   * @param value The value.
+   */
+  protected abstract void setValue(int index, Value value);
+
+  /**
+   * Returns the non null value at the given index.
+   *
+   * @param index The index.
+   *
+   * @return The value.
+   */
+  protected abstract Value getNonNullValue(int index);
+
+  /**
+   * A vector of number values.
+   */
+  private static class NumberVector extends ColumnVector {
+
+    /**
+     * The values.
+     */
+    private double[] values = new double[0];
+
+    @Override
+    ValueType getType() {
+      return ValueType.NUMBER;
+    }
+
+    @Override
+    protected int getCapacity() {
+      return values.length;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void copyValuesTo(ColumnVector other) {
+      System.arraycopy(values, 0, ((NumberVector) other).values, 0, size());
+    }
+
+    @Override
+    protected void setValue(int index, Value value) {
+      values[index] = ((NumberValue) value).getValue();
+    }
+
+    @Override
+    protected Value getNonNullValue(int index) {
+      return new NumberValue(values[index]);
+    }
+
+    @Override
+    double getNumber(int index) {
+      return values[index];
+    }
+  }
+
+  /**
+   * A vector of boolean values, stored as a bitset.
+   */
+  private static class BooleanVector extends ColumnVector {
+
+    /**
+     * The values.
+     */
+    private BitSet values = new BitSet();
+
+    /**
+     * The number of values this vector can hold before it grows.
+     */
+    private int capacity = 0;
+
+    @Override
+    ValueType getType() {
+      return ValueType.BOOLEAN;
+    }
+
+    @Override
+    protected int getCapacity() {
+      return capacity;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+      if (capacity < this.capacity) {
+        values = values.get(0, capacity);
+      }
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected void copyValuesTo(ColumnVector other) {
+      ((BooleanVector) other).values = (BitSet) values.clone();
+    }
+
+    @Override
+    protected void setValue(int index, Value value) {
+      values.set(index, ((BooleanValue) value).getValue());
+    }
+
+    @Override
+    protected Value getNonNullValue(int index) {
+      return BooleanValue.getInstance(values.get(index));
+    }
+  }
+
+  /**
+   * A vector of text values, dictionary encoded: each distinct string is stored once, and each
+   * cell holds the index of its string in the dictionary.
+   */
+  private static class TextVector extends ColumnVector {
+
+    /**
+     * The dictionary index of each value.
+     */
+    private int[] codes = new int[0];
+
+    /**
+     * The distinct values, in order of first appearance.
+     */
+    private List<TextValue> dictionary = Lists.newArrayList();
+
+    /**
+     * Map from a distinct string to its index in the dictionary.
+     */
+    private Map<String, Integer> codesByString = Maps.newHashMap();
+
+    @Override
+    ValueType getType() {
+      return ValueType.TEXT;
+    }
+
+    @Override
+    protected int getCapacity() {
+      return codes.length;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+      codes = Arrays.copyOf(codes, capacity);
+      if (capacity == 0) {
+        dictionary = Lists.newArrayList();
+        codesByString = Maps.newHashMap();
+      }
+    }
+
+    @Override
+    protected void copyValuesTo(ColumnVector other) {
+      TextVector otherVector = (TextVector) other;
+      System.arraycopy(codes, 0, otherVector.codes, 0, size());
+      otherVector.dictionary = Lists.newArrayList(dictionary);
+      otherVector.codesByString = Maps.newHashMap(codesByString);
+    }
+
+    @Override
+    protected void setValue(int index, Value value) {
+      TextValue textValue = (TextValue) value;
+      Integer code = codesByString.get(textValue.getValue());
+      if (code == null) {
+        code = dictionary.size();
+        dictionary.add(textValue);
+        codesByString.put(textValue.getValue(), code);
+      }
+      codes[index] = code;
+    }
+
+    @Override
+    protected Value getNonNullValue(int index) {
+      return dictionary.get(codes[index]);
+    }
+  }
+
+  /**
+   * A vector of date values, stored as days since 1970-01-01.
+   */
+  private static class DateVector extends ColumnVector {
+
+    /**
+     * The values, as days since 1970-01-01.
+     */
+    private int[] epochDays = new int[0];
+
+    @Override
+    ValueType getType() {
+      return ValueType.DATE;
+    }
+
+    @Override
+    protected int getCapacity() {
+      return epochDays.length;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+      epochDays = Arrays.copyOf(epochDays, capacity);
+    }
+
+    @Override
+    protected void copyValuesTo(ColumnVector other) {
+      System.arraycopy(epochDays, 0, ((DateVector) other).epochDays, 0, size());
+    }
+
+    @Override
+    protected void setValue(int index, Value value) {
+      epochDays[index] = ((DateValue) value).getEpochDay();
+    }
+
+    @Override
+    protected Value getNonNullValue(int index) {
+      return DateValue.fromEpochDay(epochDays[index]);
+    }
+  }
+
+  /**
+   * A vector of date-time values, stored as milliseconds since 1970-01-01 00:00:00 GMT.
+   */
+  private static class DateTimeVector extends ColumnVector {
+
+    /**
+     * The values, as milliseconds since 1970-01-01 00:00:00 GMT.
+     */
+    private long[] epochMillis = new long[0];
+
+    @Override
+    ValueType getType() {
+      return ValueType.DATETIME;
+    }
+
+    @Override
+    protected int getCapacity() {
+      return epochMillis.length;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+      epochMillis = Arrays.copyOf(epochMillis, capacity);
+    }
+
+    @Override
+    protected void copyValuesTo(ColumnVector other) {
+      System.arraycopy(epochMillis, 0, ((DateTimeVector) other).epochMillis, 0, size());
+    }
+
+    @Override
+    protected void setValue(int index, Value value) {
+      epochMillis[index] = ((DateTimeValue) value).getEpochMillis();
+    }
+
+    @Override
+    protected Value getNonNullValue(int index) {
+      return DateTimeValue.fromEpochMillis(epochMillis[index]);
+    }
+  }
+
+  /**
+   * A vector of time of day values, stored as milliseconds since midnight.
+   */
+  private static class TimeOfDayVector extends ColumnVector {
+
+    /**
+     * The values, as milliseconds since midnight.
+     */
+    private int[] millisOfDay = new int[0];
+
+    @Override
+    ValueType getType() {
+      return ValueType.TIMEOFDAY;
+    }
+
+    @Override
+    protected int getCapacity() {
+      return millisOfDay.length;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+      millisOfDay = Arrays.copyOf(millisOfDay, capacity);
+    }
+
+    @Override
+    protected void copyValuesTo(ColumnVector other) {
+      System.arraycopy(millisOfDay, 0, ((TimeOfDayVector) other).millisOfDay, 0, size());
+    }
+
+    @Override
+    protected void setValue(int index, Value value) {
+      millisOfDay[index] = ((TimeOfDayValue) value).getMillisOfDay();
+    }
+
+    @Override
+    protected Value getNonNullValue(int index) {
+      return TimeOfDayValue.fromMillisOfDay(millisOfDay[index]);
+    }
+  }
+}
@@ -0,0 +1,351 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.datatable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.visualization.datasource.base.TypeMismatchException;
+import com.google.visualization.datasource.base.Warning;
+import com.google.visualization.datasource.datatable.value.Value;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A data table that stores its cells column by column in primitive arrays, instead of as
+ * {@link TableRow} and {@link TableCell} objects. Number values are stored as doubles, date,
+ * date-time and time of day values as days or milliseconds since the epoch or midnight, boolean
+ * values in a bitset, and text values as indices into a per column dictionary of distinct
+ * strings. Null values are kept in a bitmap per column.
+ *
+ * This makes a columnar table a fraction of the size of an equivalent {@link DataTable}, so it is
+ * suited for keeping large tables in memory, e.g., in a cache shared by many requests. A columnar
+ * table is a {@link DataTable}, and can be passed as is to the query engine and the renderers.
+ * The query engine never changes a columnar table; it copies the rows that match the query's
+ * filter into a new table and works on that table instead.
+ *
+ * Rows and cells are created on demand whenever they are requested, so changing a row or a cell
+ * returned by this table does not change the table. Use {@link #setCell} instead.
+ */
+public class ColumnarDataTable extends DataTable {
+
+  /**
+   * The cells of each column, in the order of the columns.
+   */
+  private List<ColumnVector> vectors = Lists.newArrayList();
+
+  /**
+   * The number of rows in this table.
+   */
+  private int numberOfRows = 0;
+
+  /**
+   * The row custom properties by row index, or null if no row has custom properties.
+   */
+  private Map<Integer, Map<String, String>> rowCustomProperties = null;
+
+  /**
+   * A read-only view of the rows of this table, see {@link #getRows()}.
+   */
+  private final List<TableRow> rowsView = new RowsView();
+
+  /**
+   * Creates a new empty columnar table.
+   */
+  public ColumnarDataTable() {
+    super();
+  }
+
+  /**
+   * Returns a new columnar table with the same data and metadata as the given table. The
+   * columns are cloned, so later changes to the given table do not change the returned table.
+   *
+   * @param table The table to copy.
+   *
+   * @return A new columnar table.
+   */
+  public static ColumnarDataTable createFromDataTable(DataTable table) {
+    ColumnarDataTable result = new ColumnarDataTable();
+    for (ColumnDescription column : table.getColumnDescriptions()) {
+      result.addColumn(column.clone());
+    }
+    try {
+      result.addRows(table.getRows());
+    } catch (TypeMismatchException e) {
+      // Should not happen. We assume the given table is valid.
+    }
+    for (Map.Entry<String, String> entry : table.getCustomProperties().entrySet()) {
+      result.setCustomProperty(entry.getKey(), entry.getValue());
+    }
+    for (Warning warning : table.getWarnings()) {
+      result.addWarning(warning);
+    }
+    result.setLocaleForUserMessages(table.getLocaleForUserMessages());
+    result.trimToSize();
+    return result;
+  }
+
+  /**
+   * Adds a single row to the end of the table. Throws a TypeMismatchException if the row's cells
+   * do not match the current columns. If the row is too short, i.e., has too few cells, then the
+   * remaining columns are filled with null values. The given row is not kept by this table.
+   *
+   * @param row The row of values.
+   *
+   * @throws TypeMismatchException Thrown if the values in the cells do not match the columns.
+   */
+  @Override
+  public void addRow(TableRow row) throws TypeMismatchException {
+    List<TableCell> cells = row.getCells();
+    if (cells.size() > vectors.size()) {
+      throw new TypeMismatchException("Row has too many cells. Should be at most of size: " +
+          vectors.size());
+    }
+    for (int i = 0; i < cells.size(); i++) {
+      if (cells.get(i).getType() != vectors.get(i).getType()) {
+        throw new TypeMismatchException("Cell type does not match column type, at index: " + i +
+            ". Should be of type: " + vectors.get(i).getType().toString());
+      }
+    }
+    for (int i = 0; i < vectors.size(); i++) {
+      vectors.get(i).add((i < cells.size()) ? cells.get(i) : null);
+    }
+
+    Map<String, String> properties = row.getCustomProperties();
+    if (!properties.isEmpty()) {
+      if (rowCustomProperties == null) {
+        rowCustomProperties = Maps.newHashMap();
+      }
+      rowCustomProperties.put(numberOfRows, Maps.newHashMap(properties));
+    }
+    numberOfRows++;
+    invalidateSignature();
+  }
+
+  @Override
+  public void setRows(Collection<TableRow> rows) throws TypeMismatchException {
+    // The rows may be a view of this table, so copy them before clearing.
+    List<TableRow> newRows = Lists.newArrayList(rows);
+    for (ColumnVector vector : vectors) {
+      vector.clear();
+    }
+    numberOfRows = 0;
+    rowCustomProperties = null;
+    invalidateSignature();
+    addRows(newRows);
+  }
+
+  @Override
+  /* package */ void setTrustedRows(List<TableRow> trustedRows) {
+    // The cells are copied into the column vectors, so they are checked on the way.
+    try {
+      setRows(trustedRows);
+    } catch (TypeMismatchException e) {
+      throw new IllegalArgumentException(e.getMessageToUser(), e);
+    }
+  }
+
+  /**
+   * Returns a read-only list of all table rows. The rows are created on demand when they are
+   * retrieved from the list, and changing them does not change this table.
+   *
+   * @return A read-only list of all table rows.
+   */
+  @Override
+  public List<TableRow> getRows() {
+    return rowsView;
+  }
+
+  /**
+   * Returns a new row holding the cells at the given index.
+   *
+   * @param rowIndex the index of the requested row.
+   *
+   * @return A new row holding the cells at the given index.
+   */
+  @Override
+  public TableRow getRow(int rowIndex) {
+    checkRowIndex(rowIndex);
+    TableRow row = new TableRow();
+    for (ColumnVector vector : vectors) {
+      row.addCell(vector.getCell(rowIndex));
+    }
+    if (rowCustomProperties != null) {
+      Map<String, String> properties = rowCustomProperties.get(rowIndex);
+      if (properties != null) {
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+          row.setCustomProperty(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+    return row;
+  }
+
+  @Override
+  public int getNumberOfRows() {
+    return numberOfRows;
+  }
+
+  @Override
+  public List<TableCell> getColumnCells(int columnIndex) {
+    ColumnVector vector = vectors.get(columnIndex);
+    List<TableCell> colCells = Lists.newArrayListWithCapacity(numberOfRows);
+    for (int i = 0; i < numberOfRows; i++) {
+      colCells.add(vector.getCell(i));
+    }
+    return colCells;
+  }
+
+  @Override
+  public void addColumn(ColumnDescription columnDescription) {
+    super.addColumn(columnDescription);
+    ColumnVector vector = ColumnVector.create(columnDescription.getType());
+    for (int i = 0; i < numberOfRows; i++) {
+      vector.add(null);
+    }
+    vectors.add(vector);
+  }
+
+  @Override
+  public TableCell getCell(int rowIndex, int colIndex) {
+    checkRowIndex(rowIndex);
+    return vectors.get(colIndex).getCell(rowIndex);
+  }
+
+  @Override
+  public TableCell setCell(int rowIndex, int colIndex, TableCell cell)
+      throws TypeMismatchException, IndexOutOfBoundsException {
+    checkRowIndex(rowIndex);
+    ColumnVector vector = vectors.get(colIndex);
+    if (!vector.getType().equals(cell.getType())) {
+      throw new TypeMismatchException("New cell value type does not match expected value type." +
+          " Expected type: " + vector.getType() +
+          " but was: " + cell.getType().toString());
+    }
+    TableCell previousCell = vector.getCell(rowIndex);
+    vector.set(rowIndex, cell);
+    invalidateSignature();
+    return previousCell;
+  }
+
+  @Override
+  public Value getValue(int rowIndex, int colIndex) {
+    checkRowIndex(rowIndex);
+    return vectors.get(colIndex).getValue(rowIndex);
+  }
+
+  /**
+   * Returns true if the value in the cell at the specified row and column indexes is null.
+   *
+   * @param rowIndex The row index.
+   * @param colIndex The column index.
+   *
+   * @return True if the value in the cell is null.
+   */
+  public boolean isNull(int rowIndex, int colIndex) {
+    checkRowIndex(rowIndex);
+    return vectors.get(colIndex).isNull(rowIndex);
+  }
+
+  /**
+   * Returns the number in the cell at the specified row and column indexes, without creating a
+   * value object. The column must be a number column. The result is undefined if the value in
+   * the cell is null, see {@link #isNull(int, int)}.
+   *
+   * @param rowIndex The row index.
+   * @param colIndex The column index.
+   *
+   * @return The number in the cell.
+   *
+   * @throws UnsupportedOperationException Thrown if the column is not a number column.
+   */
+  public double getNumber(int rowIndex, int colIndex) {
+    checkRowIndex(rowIndex);
+    return vectors.get(colIndex).getNumber(rowIndex);
+  }
+
+  /**
+   * Releases the memory reserved for rows that have not been added yet. Call this after the
+   * last row has been added to a table that is kept in memory for a long time.
+   */
+  public void trimToSize() {
+    for (ColumnVector vector : vectors) {
+      vector.trimToSize();
+    }
+  }
+
+  /**
+   * Returns a new columnar table, with the same data and metadata as this one. This is a deep
+   * clone.
+   *
+   * @return The cloned data table.
+   */
+  @Override
+  public ColumnarDataTable clone() {
+    ColumnarDataTable result = new ColumnarDataTable();
+    for (ColumnDescription column : getColumnDescriptions()) {
+      result.addColumn(column.clone());
+    }
+    for (int i = 0; i < vectors.size(); i++) {
+      result.vectors.set(i, vectors.get(i).copy());
+    }
+    result.numberOfRows = numberOfRows;
+    if (rowCustomProperties != null) {
+      result.rowCustomProperties = Maps.newHashMap();
+      for (Map.Entry<Integer, Map<String, String>> entry : rowCustomProperties.entrySet()) {
+        result.rowCustomProperties.put(entry.getKey(), Maps.newHashMap(entry.getValue()));
+      }
+    }
+    for (Map.Entry<String, String> entry : getCustomProperties().entrySet()) {
+      result.setCustomProperty(entry.getKey(), entry.getValue());
+    }
+    for (Warning warning : getWarnings()) {
+      result.addWarning(warning);
+    }
+    result.setLocaleForUserMessages(getLocaleForUserMessages());
+    return result;
+  }
+
+  /**
+   * Throws an IndexOutOfBoundsException if the given row index is out of range.
+   *
+   * @param rowIndex The row index.
+   */
+  private void checkRowIndex(int rowIndex) {
+    if ((rowIndex < 0) || (rowIndex >= numberOfRows)) {
+      throw new IndexOutOfBoundsException("Row index: " + rowIndex + ", number of rows: "
+          + numberOfRows);
+    }
+  }
+
+  /**
+   * A read-only list of the rows of this table, that creates each row when it is retrieved.
+   */
+  private class RowsView extends AbstractList<TableRow> implements RandomAccess {
+
+    @Override
+    public TableRow get(int index) {
+      return getRow(index);
+    }
+
+    @Override
+    public int size() {
+      return numberOfRows;
+    }
+  }
+}
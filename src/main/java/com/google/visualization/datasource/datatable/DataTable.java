@@ -60,6 +60,11 @@ public class DataTable {
    */
   private List<ColumnDescription> columns;
 
+  /**
+   * A read-only view of the column descriptions, returned by {@link #getColumnDescriptions()}.
+   */
+  private List<ColumnDescription> columnsView;
+
   /**
    * Map from a column to its index in the columns list.
    */
@@ -85,11 +90,18 @@ public class DataTable {
    */
   private ULocale localeForUserMessages = null;
 
+  /**
+   * The signature of the contents of this table, or null if it was not computed since the table
+   * was last changed. See {@link #getSignature()}.
+   */
+  private String signature = null;
+
   /**
    * Create a new empty result.
    */
   public DataTable() {
     columns = Lists.newArrayList();
+    columnsView = Collections.unmodifiableList(columns);
     columnIndexById = Maps.newHashMap();
     rows = Lists.newArrayList();
     warnings = Lists.newArrayList();
@@ -121,6 +133,7 @@ public class DataTable {
     }
 
     rows.add(row);
+    invalidateSignature();
   }
 
   /**
@@ -162,9 +175,22 @@ public class DataTable {
    */
   public void setRows(Collection<TableRow> rows) throws TypeMismatchException {
     this.rows.clear();
+    invalidateSignature();
     addRows(rows);
   }
 
+  /**
+   * Replaces the rows of this table with the given rows, without checking them. The rows must
+   * have a cell per column, of the type of the column. The given list is kept by this table, and
+   * must not be used by the caller afterwards. See {@link DataTableBuilder}.
+   *
+   * @param trustedRows The new rows.
+   */
+  /* package */ void setTrustedRows(List<TableRow> trustedRows) {
+    rows = trustedRows;
+    invalidateSignature();
+  }
+
   /**
    * Returns the list of all table rows.
    *
@@ -204,13 +230,14 @@ public class DataTable {
   }
 
   /**
-   * Returns the list of all column descriptions.
+   * Returns the list of all column descriptions. The returned list is a read-only view of the
+   * columns of this table, so it reflects columns added later.
    *
    * @return The list of all column descriptions. The returned list is
-   *     immutable.
+   *     unmodifiable.
    */
   public List<ColumnDescription> getColumnDescriptions() {
-    return ImmutableList.copyOf(columns);
+    return columnsView;
   }
 
   /**
@@ -267,6 +294,7 @@ public class DataTable {
 
     columnIndexById.put(columnId, columns.size());
     columns.add(columnDescription);
+    invalidateSignature();
     for (TableRow row : rows) {
       row.addCell(new TableCell(Value.getNullValueFromValueType(columnDescription.getType())));
     }
@@ -339,6 +367,7 @@ public class DataTable {
           " Expected type: " + row.getCell(colIndex).getType() +
           " but was: " + cell.getType().toString());
     }
+    invalidateSignature();
     return row.setCell(colIndex, cell);
   }
 
@@ -540,6 +569,37 @@ public class DataTable {
       throw new RuntimeException("Null keys/values are not allowed.");
     }
     customProperties.put(propertyKey, propertyValue);
+    invalidateSignature();
+  }
+
+  /**
+   * Returns a signature of the contents of this table: a 64-bit hash of its columns, values and
+   * custom properties, as a decimal string. Formatted values and warnings are ignored.
+   * Clients send back the signature of the last table they received, so that an unchanged table
+   * does not have to be sent again.
+   *
+   * The signature is computed once and kept until the table is changed through one of its
+   * methods. Changes made directly to the rows, cells or column descriptions of this table are
+   * not detected, so call {@link #invalidateSignature()} after making them.
+   *
+   * @return The signature of the contents of this table.
+   */
+  public String getSignature() {
+    String result = signature;
+    if (result == null) {
+      result = TableSignature.compute(this);
+      signature = result;
+    }
+    return result;
+  }
+
+  /**
+   * Discards the signature of this table, so that it is computed again when it is next
+   * requested. Called whenever the contents of this table change through its methods, and must
+   * be called after changing its rows, cells or column descriptions directly.
+   */
+  public void invalidateSignature() {
+    signature = null;
   }
 
   /**
@@ -564,16 +624,18 @@ public class DataTable {
   public String toString() {
     StringBuilder sb = new StringBuilder();
 
-    for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
-      TableRow tableRow = rows.get(rowIndex);
-      for (int cellIndex = 0; cellIndex < tableRow.getCells().size(); cellIndex++) {
-        TableCell tableCell = tableRow.getCells().get(cellIndex);
+    int numberOfRows = getNumberOfRows();
+    for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+      TableRow tableRow = getRow(rowIndex);
+      List<TableCell> cells = tableRow.getCells();
+      for (int cellIndex = 0; cellIndex < cells.size(); cellIndex++) {
+        TableCell tableCell = cells.get(cellIndex);
         sb.append(tableCell.toString());
-        if (cellIndex < tableRow.getCells().size() - 1) {
+        if (cellIndex < cells.size() - 1) {
           sb.append(",");
         }
       }
-      if (rowIndex < rows.size() - 1) {
+      if (rowIndex < numberOfRows - 1) {
         sb.append("\n");
       }
     }
@@ -0,0 +1,232 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.datatable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A builder of a {@link DataTable} from rows that are known to match the columns of the table.
+ * {@link DataTable#addRow(TableRow)} checks the type of every cell and pads short rows, which is
+ * wasted work for a generator that already creates correctly typed rows. A builder collects
+ * the rows in a list that is sized up front, and hands it to the table as is.
+ *
+ * Each row added to a builder must have exactly one cell per column, of the type of the column.
+ * The rows are not checked, unless validation is turned on with {@link #setValidating(boolean)}.
+ * Validation is on by default when Java assertions are enabled for this class, so that tests
+ * catch rows that do not match their columns.
+ *
+ * A builder can build a single table. This class is not thread-safe.
+ */
+public class DataTableBuilder {
+
+  /**
+   * The columns of the table.
+   */
+  private final List<ColumnDescription> columns;
+
+  /**
+   * The rows of the table, or null if the table was already built.
+   */
+  private List<TableRow> rows;
+
+  /**
+   * Whether to check the rows when they are added.
+   */
+  private boolean validating = DataTableBuilder.class.desiredAssertionStatus();
+
+  /**
+   * Creates a new builder of a table with the given columns.
+   *
+   * @param columns The columns of the table.
+   */
+  public DataTableBuilder(Collection<ColumnDescription> columns) {
+    this(columns, 10);
+  }
+
+  /**
+   * Creates a new builder of a table with the given columns, and room for the given number of
+   * rows. More rows can be added, at the cost of growing the row list.
+   *
+   * @param columns The columns of the table.
+   * @param expectedNumberOfRows The expected number of rows.
+   */
+  public DataTableBuilder(Collection<ColumnDescription> columns, int expectedNumberOfRows) {
+    this.columns = ImmutableList.copyOf(columns);
+    rows = Lists.newArrayListWithCapacity(Math.max(0, expectedNumberOfRows));
+  }
+
+  /**
+   * Sets whether to check each row that is added to this builder against the columns.
+   * Validation costs about as much as {@link DataTable#addRow(TableRow)}, so use it for
+   * debugging only.
+   *
+   * @param validating True to check the rows.
+   *
+   * @return This builder.
+   */
+  public DataTableBuilder setValidating(boolean validating) {
+    this.validating = validating;
+    return this;
+  }
+
+  /**
+   * Returns whether this builder checks each row that is added to it.
+   *
+   * @return True if this builder checks the rows.
+   */
+  public boolean isValidating() {
+    return validating;
+  }
+
+  /**
+   * Adds a row to the end of the table. The row must have exactly one cell per column, of the
+   * type of the column. The row is kept by the table, and must not be changed afterwards.
+   *
+   * @param row The row.
+   *
+   * @return This builder.
+   *
+   * @throws IllegalArgumentException Thrown if validation is on and the row does not match the
+   *     columns.
+   */
+  public DataTableBuilder addRow(TableRow row) {
+    checkNotBuilt();
+    if (validating) {
+      validateRow(row);
+    }
+    rows.add(row);
+    return this;
+  }
+
+  /**
+   * Adds rows to the end of the table. See {@link #addRow(TableRow)}.
+   *
+   * @param rowsToAdd The rows.
+   *
+   * @return This builder.
+   *
+   * @throws IllegalArgumentException Thrown if validation is on and a row does not match the
+   *     columns.
+   */
+  public DataTableBuilder addRows(Collection<TableRow> rowsToAdd) {
+    checkNotBuilt();
+    if (validating) {
+      for (TableRow row : rowsToAdd) {
+        validateRow(row);
+      }
+    }
+    rows.addAll(rowsToAdd);
+    return this;
+  }
+
+  /**
+   * Returns the number of rows added so far.
+   *
+   * @return The number of rows added so far.
+   */
+  public int getNumberOfRows() {
+    checkNotBuilt();
+    return rows.size();
+  }
+
+  /**
+   * Returns a new table with the columns and rows of this builder.
+   *
+   * @return The new table.
+   */
+  public DataTable build() {
+    DataTable table = new DataTable();
+    table.addColumns(columns);
+    buildInto(table);
+    return table;
+  }
+
+  /**
+   * Replaces the rows of the given table with the rows of this builder. The table must have the
+   * columns of this builder. This is used to fill a table whose columns, custom properties or
+   * warnings were already set.
+   *
+   * @param table The table to fill.
+   *
+   * @throws IllegalArgumentException Thrown if validation is on and the table does not have the
+   *     columns of this builder.
+   */
+  public void buildInto(DataTable table) {
+    checkNotBuilt();
+    if (validating) {
+      validateColumns(table.getColumnDescriptions());
+    }
+    List<TableRow> builtRows = rows;
+    rows = null;
+    table.setTrustedRows(builtRows);
+  }
+
+  /**
+   * Checks that the given row matches the columns. This is the same check that
+   * {@link DataTable#addRow(TableRow)} does, except that short rows are not padded.
+   *
+   * @param row The row.
+   *
+   * @throws IllegalArgumentException Thrown if the row does not match the columns.
+   */
+  private void validateRow(TableRow row) {
+    List<TableCell> cells = row.getCells();
+    if (cells.size() != columns.size()) {
+      throw new IllegalArgumentException("Row has " + cells.size()
+          + " cells. Should be of size: " + columns.size());
+    }
+    for (int i = 0; i < cells.size(); i++) {
+      if (cells.get(i).getType() != columns.get(i).getType()) {
+        throw new IllegalArgumentException("Cell type does not match column type, at index: "
+            + i + ". Should be of type: " + columns.get(i).getType().toString());
+      }
+    }
+  }
+
+  /**
+   * Checks that the given columns have the ids and types of the columns of this builder.
+   *
+   * @param tableColumns The columns of a table.
+   *
+   * @throws IllegalArgumentException Thrown if the columns do not match.
+   */
+  private void validateColumns(List<ColumnDescription> tableColumns) {
+    if (tableColumns.size() != columns.size()) {
+      throw new IllegalArgumentException("Table has " + tableColumns.size()
+          + " columns. Should have: " + columns.size());
+    }
+    for (int i = 0; i < columns.size(); i++) {
+      ColumnDescription tableColumn = tableColumns.get(i);
+      if (!tableColumn.getId().equals(columns.get(i).getId())
+          || (tableColumn.getType() != columns.get(i).getType())) {
+        throw new IllegalArgumentException("Table column does not match builder column, at index: "
+            + i + ". Should be: " + columns.get(i).getId());
+      }
+    }
+  }
+
+  /**
+   * Throws an IllegalStateException if the table was already built.
+   */
+  private void checkNotBuilt() {
+    if (rows == null) {
+      throw new IllegalStateException("The table was already built.");
+    }
+  }
+}
@@ -14,7 +14,6 @@
 
 package com.google.visualization.datasource.datatable;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.visualization.datasource.datatable.value.Value;
@@ -39,6 +38,11 @@ public class TableRow {
    */
   private List<TableCell> cells = Lists.newArrayList();
 
+  /**
+   * A read-only view of the cells, returned by {@link #getCells()}. Created on first use.
+   */
+  private List<TableCell> cellsView = null;
+
   /**
    * Custom properties for the row.
    */
@@ -96,13 +100,17 @@ public class TableRow {
   }
 
   /**
-   * Returns the list of all cell values.
+   * Returns the list of all cell values. The returned list is a read-only view of the cells of
+   * this row, so getting it does not copy the cells.
    *
    * @return The list of all cell values. The returned list is
-   *     immutable.
+   *     unmodifiable.
    */
   public List<TableCell> getCells() {
-    return ImmutableList.copyOf(cells);
+    if (cellsView == null) {
+      cellsView = Collections.unmodifiableList(cells);
+    }
+    return cellsView;
   }
 
   /**
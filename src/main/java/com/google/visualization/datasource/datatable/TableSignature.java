@@ -0,0 +1,206 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.visualization.datasource.datatable;
+
+import com.google.visualization.datasource.datatable.value.BooleanValue;
+import com.google.visualization.datasource.datatable.value.DateTimeValue;
+import com.google.visualization.datasource.datatable.value.DateValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TimeOfDayValue;
+import com.google.visualization.datasource.datatable.value.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes a 64-bit hash of the contents of a data table: its columns, values and custom
+ * properties. Formatted values and warnings are ignored. The hash is computed in a single pass
+ * over the table, without rendering it.
+ *
+ * Two tables with the same contents have the same signature. The order of custom properties
+ * does not change the signature.
+ */
+/* package */ final class TableSignature {
+
+  /**
+   * The FNV-1a 64-bit offset basis.
+   */
+  private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  /**
+   * The FNV-1a 64-bit prime.
+   */
+  private static final long PRIME = 0x100000001b3L;
+
+  /**
+   * A marker hashed in place of a null value or a null string.
+   */
+  private static final long NULL_MARKER = 0x6e756c6cL;
+
+  /**
+   * The hash of everything added so far.
+   */
+  private long hash = OFFSET_BASIS;
+
+  /**
+   * Private constructor, use {@link #compute(DataTable)}.
+   */
+  private TableSignature() {}
+
+  /**
+   * Returns the signature of the given table, as an unsigned decimal string.
+   *
+   * @param table The data table.
+   *
+   * @return The signature of the table.
+   */
+  static String compute(DataTable table) {
+    TableSignature signature = new TableSignature();
+    List<ColumnDescription> columns = table.getColumnDescriptions();
+    signature.add(columns.size());
+    for (ColumnDescription column : columns) {
+      signature.add(column.getId());
+      signature.add(column.getLabel());
+      signature.add(column.getType().getTypeCodeLowerCase());
+      signature.add(column.getPattern());
+      signature.add(column.getCustomProperties());
+    }
+
+    int numberOfRows = table.getNumberOfRows();
+    signature.add(numberOfRows);
+    for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+      TableRow row = table.getRow(rowIndex);
+      List<TableCell> cells = row.getCells();
+      signature.add(cells.size());
+      for (TableCell cell : cells) {
+        signature.add(cell.getValue());
+        signature.add(cell.getCustomProperties());
+      }
+      signature.add(row.getCustomProperties());
+    }
+    signature.add(table.getCustomProperties());
+    return Long.toUnsignedString(signature.getHash());
+  }
+
+  /**
+   * Adds a number to the hash.
+   *
+   * @param value The number.
+   */
+  private void add(long value) {
+    hash = (hash ^ value) * PRIME;
+  }
+
+  /**
+   * Adds a string to the hash. The length is added first, so that consecutive strings cannot be
+   * confused with each other.
+   *
+   * @param str The string, can be null.
+   */
+  private void add(String str) {
+    if (str == null) {
+      add(NULL_MARKER);
+      return;
+    }
+    int length = str.length();
+    add(length);
+    for (int i = 0; i < length; i++) {
+      add(str.charAt(i));
+    }
+  }
+
+  /**
+   * Adds a value to the hash.
+   *
+   * @param value The value, can be null.
+   */
+  private void add(Value value) {
+    if ((value == null) || value.isNull()) {
+      add(NULL_MARKER);
+      return;
+    }
+    switch (value.getType()) {
+      case BOOLEAN:
+        add(((BooleanValue) value).getValue() ? 1 : 0);
+        break;
+      case NUMBER:
+        add(Double.doubleToLongBits(((NumberValue) value).getValue()));
+        break;
+      case TEXT:
+        add(value.toString());
+        break;
+      case DATE:
+        DateValue dateValue = (DateValue) value;
+        add(dateValue.getYear());
+        add(dateValue.getMonth());
+        add(dateValue.getDayOfMonth());
+        break;
+      case TIMEOFDAY:
+        TimeOfDayValue timeOfDayValue = (TimeOfDayValue) value;
+        add(timeOfDayValue.getHours());
+        add(timeOfDayValue.getMinutes());
+        add(timeOfDayValue.getSeconds());
+        add(timeOfDayValue.getMilliseconds());
+        break;
+      case DATETIME:
+        DateTimeValue dateTimeValue = (DateTimeValue) value;
+        add(dateTimeValue.getYear());
+        add(dateTimeValue.getMonth());
+        add(dateTimeValue.getDayOfMonth());
+        add(dateTimeValue.getHourOfDay());
+        add(dateTimeValue.getMinute());
+        add(dateTimeValue.getSecond());
+        add(dateTimeValue.getMillisecond());
+        break;
+      default:
+        throw new IllegalArgumentException("Illegal value Type " + value.getType());
+    }
+  }
+
+  /**
+   * Adds a custom properties map to the hash. The entries are hashed separately and summed, so
+   * the order in which the map returns them does not matter.
+   *
+   * @param properties The custom properties.
+   */
+  private void add(Map<String, String> properties) {
+    long sum = 0;
+    for (Map.Entry<String, String> entry : properties.entrySet()) {
+      TableSignature entrySignature = new TableSignature();
+      entrySignature.add(entry.getKey());
+      entrySignature.add(entry.getValue());
+      sum += entrySignature.getHash();
+    }
+    add(properties.size());
+    add(sum);
+  }
+
+  /**
+   * Returns the hash of everything added so far. The bits are mixed, so that similar inputs
+   * give very different hashes.
+   *
+   * @return The hash.
+   */
+  private long getHash() {
+    long h = hash;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,221 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.datatable;
+
+import com.google.visualization.datasource.datatable.value.Value;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A per-column dictionary of values, used to share value instances while loading a data table.
+ * Low cardinality columns (e.g., countries or statuses) repeat a small number of distinct values
+ * in many rows. When a dictionary is used, each distinct value of a column is kept once and all
+ * equal values of that column share the same immutable {@link Value} instance. Only values are
+ * shared: every cell is a new {@link TableCell}, so cells can be changed, e.g., by formatting,
+ * without affecting other cells.
+ *
+ * Columns are identified by their ids only, so a dictionary can be reused for several loads of
+ * the same data. A dictionary that is reused for different tables shares the values of all
+ * their columns with the same id, so use separate dictionaries for unrelated tables. A column
+ * stops adding values once it holds the maximal number of distinct values, so that high
+ * cardinality columns do not grow the dictionary without limit, and the values are kept until
+ * {@link #clear()} is called.
+ *
+ * This class is thread-safe.
+ */
+public class ValueDictionary {
+
+  /**
+   * The default maximal number of distinct values kept for a single column.
+   */
+  public static final int DEFAULT_MAX_COLUMN_SIZE = 10000;
+
+  /**
+   * The maximal number of distinct values kept for a single column.
+   */
+  private final int maxColumnSize;
+
+  /**
+   * The dictionaries of the columns, by column id.
+   */
+  private final ConcurrentMap<String, ColumnDictionary> columnDictionaries =
+      new ConcurrentHashMap<String, ColumnDictionary>();
+
+  /**
+   * Creates a new dictionary with the default maximal column size.
+   */
+  public ValueDictionary() {
+    this(DEFAULT_MAX_COLUMN_SIZE);
+  }
+
+  /**
+   * Creates a new dictionary.
+   *
+   * @param maxColumnSize The maximal number of distinct values kept for a single column.
+   */
+  public ValueDictionary(int maxColumnSize) {
+    if (maxColumnSize <= 0) {
+      throw new IllegalArgumentException("The maximal column size must be positive: "
+          + maxColumnSize);
+    }
+    this.maxColumnSize = maxColumnSize;
+  }
+
+  /**
+   * Returns the shared instance of the given value in the given column. If the column does not
+   * hold an equal value yet, the given value is added and returned, unless the column is full.
+   * Null values are returned as is, as they are singletons.
+   *
+   * @param columnId The column id.
+   * @param value The value.
+   *
+   * @return A value equal to the given value.
+   */
+  public Value intern(String columnId, Value value) {
+    if (value.isNull()) {
+      return value;
+    }
+    return getColumnDictionary(columnId).intern(value, maxColumnSize);
+  }
+
+  /**
+   * Returns a new table cell for the given value in the given column. The value is interned
+   * using {@link #intern(String, Value)}.
+   *
+   * @param columnId The column id.
+   * @param value The value.
+   *
+   * @return A new table cell for the given value.
+   */
+  public TableCell createCell(String columnId, Value value) {
+    return new TableCell(intern(columnId, value));
+  }
+
+  /**
+   * Returns the ids of the columns that have a dictionary.
+   *
+   * @return The ids of the columns that have a dictionary.
+   */
+  public Set<String> getColumnIds() {
+    return Collections.unmodifiableSet(columnDictionaries.keySet());
+  }
+
+  /**
+   * Returns the number of distinct values kept for the given column.
+   *
+   * @param columnId The column id.
+   *
+   * @return The number of distinct values kept for the given column.
+   */
+  public int getSize(String columnId) {
+    ColumnDictionary columnDictionary = columnDictionaries.get(columnId);
+    return (columnDictionary == null) ? 0 : columnDictionary.values.size();
+  }
+
+  /**
+   * Returns the number of distinct values kept for all the columns.
+   *
+   * @return The number of distinct values kept for all the columns.
+   */
+  public int getTotalSize() {
+    int result = 0;
+    for (ColumnDictionary columnDictionary : columnDictionaries.values()) {
+      result += columnDictionary.values.size();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of values of the given column that were replaced by a shared instance,
+   * i.e., the number of instances saved.
+   *
+   * @param columnId The column id.
+   *
+   * @return The number of shared instances returned for the given column.
+   */
+  public long getSharedCount(String columnId) {
+    ColumnDictionary columnDictionary = columnDictionaries.get(columnId);
+    return (columnDictionary == null) ? 0 : columnDictionary.sharedCount.get();
+  }
+
+  /**
+   * Removes all the values from this dictionary.
+   */
+  public void clear() {
+    columnDictionaries.clear();
+  }
+
+  /**
+   * Returns the dictionary of the given column, creating it if needed.
+   *
+   * @param columnId The column id.
+   *
+   * @return The dictionary of the given column.
+   */
+  private ColumnDictionary getColumnDictionary(String columnId) {
+    ColumnDictionary columnDictionary = columnDictionaries.get(columnId);
+    if (columnDictionary == null) {
+      columnDictionary = new ColumnDictionary();
+      ColumnDictionary existing = columnDictionaries.putIfAbsent(columnId, columnDictionary);
+      if (existing != null) {
+        columnDictionary = existing;
+      }
+    }
+    return columnDictionary;
+  }
+
+  /**
+   * The dictionary of a single column.
+   */
+  private static class ColumnDictionary {
+
+    /**
+     * The distinct values of the column.
+     */
+    private final ConcurrentMap<Value, Value> values = new ConcurrentHashMap<Value, Value>();
+
+    /**
+     * The number of shared instances returned.
+     */
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    /**
+     * Returns the shared instance of the given non null value.
+     *
+     * @param value The value.
+     * @param maxSize The maximal number of distinct values to keep.
+     *
+     * @return A value equal to the given value.
+     */
+    Value intern(Value value, int maxSize) {
+      Value existing = values.get(value);
+      if (existing == null) {
+        if (values.size() >= maxSize) {
+          return value;
+        }
+        existing = values.putIfAbsent(value, value);
+        if (existing == null) {
+          return value;
+        }
+      }
+      sharedCount.incrementAndGet();
+      return existing;
+    }
+  }
+}
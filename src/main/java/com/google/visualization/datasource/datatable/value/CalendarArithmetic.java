@@ -0,0 +1,256 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.datatable.value;
+
+/**
+ * Calendar arithmetic on epoch days (days since 1970-01-01) that matches the default
+ * ibm.icu.GregorianCalendar in GMT: dates before the Gregorian cutover (October 15, 1582) are
+ * Julian calendar dates, and later dates are Gregorian calendar dates.
+ * Months use the java convention: January = 0, ..., December = 11.
+ */
+/* package */ final class CalendarArithmetic {
+
+  /**
+   * The epoch day of the first day of the Gregorian calendar (1582-10-15).
+   */
+  private static final long GREGORIAN_CUTOVER_EPOCH_DAY = -141427;
+
+  /**
+   * The number of days between 0000-03-01 in the Gregorian calendar and the epoch.
+   */
+  private static final long GREGORIAN_DAYS_TO_EPOCH = 719468;
+
+  /**
+   * The number of days between 0000-03-01 in the Julian calendar and the epoch.
+   */
+  private static final long JULIAN_DAYS_TO_EPOCH = 719470;
+
+  /**
+   * The number of milliseconds in a day.
+   */
+  static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  /**
+   * Private constructor, to prevent initialization.
+   */
+  private CalendarArithmetic() {}
+
+  /**
+   * Returns true if the given date is a valid date, i.e., a date that the default
+   * GregorianCalendar would return the same fields for.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @param dayOfMonth The day of month.
+   *
+   * @return True if the given date is valid.
+   */
+  static boolean isValidDate(int year, int month, int dayOfMonth) {
+    if ((year < 1) || (month < 0) || (month > 11) || (dayOfMonth < 1)) {
+      return false;
+    }
+    if (isInGregorianGap(year, month, dayOfMonth)) {
+      return false;
+    }
+    return dayOfMonth <= getMonthLength(year, month);
+  }
+
+  /**
+   * Returns the epoch day of the given date. The date is not validated.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @param dayOfMonth The day of month.
+   *
+   * @return The number of days since 1970-01-01.
+   */
+  static long toEpochDay(int year, int month, int dayOfMonth) {
+    int monthOfYear = month + 1;
+    // Years start on March first, so that the leap day is the last day of a year.
+    long y = (monthOfYear <= 2) ? year - 1L : year;
+    int dayOfYear = (153 * (monthOfYear + ((monthOfYear > 2) ? -3 : 9)) + 2) / 5 + dayOfMonth - 1;
+    if (isJulianDate(year, month, dayOfMonth)) {
+      long era = Math.floorDiv(y, 4);
+      long yearOfEra = y - era * 4;
+      return era * 1461 + yearOfEra * 365 + dayOfYear - JULIAN_DAYS_TO_EPOCH;
+    }
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - GREGORIAN_DAYS_TO_EPOCH;
+  }
+
+  /**
+   * Returns the date of the given epoch day, packed into a single int as returned by
+   * {@link #packDate(int, int, int)}.
+   *
+   * @param epochDay The number of days since 1970-01-01.
+   *
+   * @return The packed date.
+   */
+  static int toPackedDate(long epochDay) {
+    long y;
+    long dayOfYear;
+    if (epochDay < GREGORIAN_CUTOVER_EPOCH_DAY) {
+      long z = epochDay + JULIAN_DAYS_TO_EPOCH;
+      long era = Math.floorDiv(z, 1461);
+      long dayOfEra = z - era * 1461;
+      long yearOfEra = (dayOfEra - dayOfEra / 1460) / 365;
+      y = yearOfEra + era * 4;
+      dayOfYear = dayOfEra - 365 * yearOfEra;
+    } else {
+      long z = epochDay + GREGORIAN_DAYS_TO_EPOCH;
+      long era = Math.floorDiv(z, 146097);
+      long dayOfEra = z - era * 146097;
+      long yearOfEra =
+          (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      y = yearOfEra + era * 400;
+      dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    }
+    int shiftedMonth = (int) ((5 * dayOfYear + 2) / 153);
+    int dayOfMonth = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+    int monthOfYear = (shiftedMonth < 10) ? shiftedMonth + 3 : shiftedMonth - 9;
+    int year = (int) ((monthOfYear <= 2) ? y + 1 : y);
+    return packDate(year, monthOfYear - 1, dayOfMonth);
+  }
+
+  /**
+   * Packs a date into a single int. The packed ints of two dates compare in the same order as
+   * the dates.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @param dayOfMonth The day of month.
+   *
+   * @return The packed date.
+   */
+  static int packDate(int year, int month, int dayOfMonth) {
+    return (year << 9) | (month << 5) | dayOfMonth;
+  }
+
+  /**
+   * Returns the year of a packed date.
+   *
+   * @param packedDate The packed date.
+   *
+   * @return The year.
+   */
+  static int getPackedYear(int packedDate) {
+    return packedDate >> 9;
+  }
+
+  /**
+   * Returns the month of a packed date.
+   *
+   * @param packedDate The packed date.
+   *
+   * @return The month.
+   */
+  static int getPackedMonth(int packedDate) {
+    return (packedDate >> 5) & 0xF;
+  }
+
+  /**
+   * Returns the day of month of a packed date.
+   *
+   * @param packedDate The packed date.
+   *
+   * @return The day of month.
+   */
+  static int getPackedDayOfMonth(int packedDate) {
+    return packedDate & 0x1F;
+  }
+
+  /**
+   * Appends a non-negative number, padded on the left to the given width.
+   *
+   * @param builder The builder to append to.
+   * @param value The number.
+   * @param width The minimal number of characters to append.
+   * @param padding The character to pad with.
+   */
+  static void appendPadded(StringBuilder builder, int value, int width, char padding) {
+    String digits = Integer.toString(value);
+    for (int i = digits.length(); i < width; i++) {
+      builder.append(padding);
+    }
+    builder.append(digits);
+  }
+
+  /**
+   * Returns the number of days in the given month.
+   *
+   * @param year The year.
+   * @param month The month.
+   *
+   * @return The number of days in the given month.
+   */
+  private static int getMonthLength(int year, int month) {
+    switch (month) {
+      case 1:
+        return isLeapYear(year) ? 29 : 28;
+      case 3:
+      case 5:
+      case 8:
+      case 10:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * Returns true if the given year is a leap year, using the Julian rule for years before the
+   * cutover year and the Gregorian rule from the cutover year on.
+   *
+   * @param year The year.
+   *
+   * @return True if the given year is a leap year.
+   */
+  private static boolean isLeapYear(int year) {
+    if (year <= 1582) {
+      return (year % 4) == 0;
+    }
+    return ((year % 4) == 0) && (((year % 100) != 0) || ((year % 400) == 0));
+  }
+
+  /**
+   * Returns true if the given date is before the Gregorian cutover.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @param dayOfMonth The day of month.
+   *
+   * @return True if the given date is a Julian calendar date.
+   */
+  private static boolean isJulianDate(int year, int month, int dayOfMonth) {
+    return (year < 1582) || ((year == 1582)
+        && ((month < 9) || ((month == 9) && (dayOfMonth < 15))));
+  }
+
+  /**
+   * Returns true if the given date is one of the days skipped by the Gregorian cutover
+   * (1582-10-05 to 1582-10-14).
+   *
+   * @param year The year.
+   * @param month The month.
+   * @param dayOfMonth The day of month.
+   *
+   * @return True if the given date does not exist.
+   */
+  private static boolean isInGregorianGap(int year, int month, int dayOfMonth) {
+    return (year == 1582) && (month == 9) && (dayOfMonth >= 5) && (dayOfMonth <= 14);
+  }
+}
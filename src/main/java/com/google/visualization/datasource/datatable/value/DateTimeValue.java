@@ -22,8 +22,9 @@ import com.ibm.icu.util.TimeZone;
  * A value of type date-time. Used to represent a specific day in a given year as well as a
  * specific time during that day. This differs from {@link DateValue}, which represents only a
  * specific day in a given year.
- * DateTime is represented internally by a GregorianCalendar. The
- * calendar is immutable and is kept only for validation of the input.
+ * DateTime is represented internally by the number of milliseconds since
+ * 1970-01-01 00:00:00 GMT, and the date and time fields are computed from it.
+ * A calendar is created only when the value is formatted.
  *
  * @author Hillel M.
  */
@@ -45,30 +46,32 @@ public class DateTimeValue extends Value {
   }
 
   /**
-   * Underlying GregorianCalendar.
-   * The calendar is immutable and is set only in the constructor.
+   * Underlying value: the number of milliseconds since 1970-01-01 00:00:00 GMT.
    */
-  private GregorianCalendar calendar;
-
-  /**
-   * Stores the hash code for this DateTime. Do not use GregorianCalendar
-   * hash code since it does not consider time values and it might trigger
-   * internal changes in the calendar values.
-   * The hashCode of NULL_VALUE is zero.
-   */
-  private Integer hashCode = null;
+  private final long epochMillis;
 
   /**
    * Creates a new DateTime value. This constructor is private and is used
    * only to create a NULL_VALUE for this class.
    */
   private DateTimeValue() {
-    hashCode = 0;
+    epochMillis = 0;
+  }
+
+  /**
+   * Creates a new DateTime value from the number of milliseconds since
+   * 1970-01-01 00:00:00 GMT. The value is not validated.
+   *
+   * @param epochMillis The number of milliseconds since 1970-01-01 00:00:00 GMT.
+   */
+  private DateTimeValue(long epochMillis) {
+    this.epochMillis = epochMillis;
   }
 
   /**
    * Creates a new DateTime value.
-   * The input is checked using a gregorian calendar.
+   * The input is checked to be a date that a gregorian calendar returns the
+   * same fields for.
    * Note this uses the java convention for months:
    * January = 0, ..., December = 11.
    *
@@ -85,27 +88,22 @@ public class DateTimeValue extends Value {
    */
   public DateTimeValue(int year, int month, int dayOfMonth, int hours,
       int minutes, int seconds, int milliseconds) {
-    // Constructs a GregorianCalendar with the given date and time.
-    calendar = new GregorianCalendar(year, month, dayOfMonth, hours,
-        minutes, seconds);
-    calendar.set(GregorianCalendar.MILLISECOND, milliseconds);
-    calendar.setTimeZone(TimeZone.getTimeZone("GMT"));
-
     // Check input.
     // A RunTimeException is thrown here since it is very unusual for structured
     // data to be incorrect.
-    if ((getYear() != year)
-        || (getMonth() != month)
-        || (getDayOfMonth() != dayOfMonth)
-        || (getHourOfDay() != hours)
-        || (getMinute() != minutes)
-        || (getSecond() != seconds)
-        || (getMillisecond() != milliseconds)) {
+    if (!CalendarArithmetic.isValidDate(year, month, dayOfMonth)
+        || (hours < 0) || (hours > 23)
+        || (minutes < 0) || (minutes > 59)
+        || (seconds < 0) || (seconds > 59)
+        || (milliseconds < 0) || (milliseconds > 999)) {
       throw new IllegalArgumentException("Invalid java date "
           + "(yyyy-MM-dd hh:mm:ss.S): "
           + year + '-' + month + '-' + dayOfMonth + ' ' + hours + ':'
           + minutes + ':' + seconds + '.' + milliseconds);
     }
+    long millisOfDay = ((hours * 60 + minutes) * 60 + seconds) * 1000 + milliseconds;
+    this.epochMillis = CalendarArithmetic.toEpochDay(year, month, dayOfMonth)
+        * CalendarArithmetic.MILLIS_PER_DAY + millisOfDay;
   }
 
   /**
@@ -126,7 +124,18 @@ public class DateTimeValue extends Value {
       throw new IllegalArgumentException(
           "Can't create DateTimeValue from GregorianCalendar that is not GMT.");
     }
-    this.calendar = (GregorianCalendar) calendar.clone();
+    this.epochMillis = calendar.getTimeInMillis();
+  }
+
+  /**
+   * Creates a new DateTime value from the number of milliseconds since 1970-01-01 00:00:00 GMT.
+   *
+   * @param epochMillis The number of milliseconds since 1970-01-01 00:00:00 GMT.
+   *
+   * @return A new DateTime value.
+   */
+  public static DateTimeValue fromEpochMillis(long epochMillis) {
+    return new DateTimeValue(epochMillis);
   }
 
   /**
@@ -135,7 +144,7 @@ public class DateTimeValue extends Value {
    * @return The year.
    */
   public int getYear() {
-    return calendar.get(GregorianCalendar.YEAR);
+    return CalendarArithmetic.getPackedYear(getPackedDate());
   }
 
   /**
@@ -144,7 +153,7 @@ public class DateTimeValue extends Value {
    * @return The month.
    */
   public int getMonth() {
-    return calendar.get(GregorianCalendar.MONTH);
+    return CalendarArithmetic.getPackedMonth(getPackedDate());
   }
 
   /**
@@ -153,7 +162,7 @@ public class DateTimeValue extends Value {
    * @return The day of month.
    */
   public int getDayOfMonth() {
-    return calendar.get(GregorianCalendar.DAY_OF_MONTH);
+    return CalendarArithmetic.getPackedDayOfMonth(getPackedDate());
   }
 
   /**
@@ -162,7 +171,7 @@ public class DateTimeValue extends Value {
    * @return The hour of day.
    */
   public int getHourOfDay() {
-    return calendar.get(GregorianCalendar.HOUR_OF_DAY);
+    return getMillisOfDay() / 3600000;
   }
 
   /**
@@ -171,7 +180,7 @@ public class DateTimeValue extends Value {
    * @return The minute.
    */
   public int getMinute() {
-    return calendar.get(GregorianCalendar.MINUTE);
+    return (getMillisOfDay() / 60000) % 60;
   }
 
   /**
@@ -180,7 +189,7 @@ public class DateTimeValue extends Value {
    * @return The second.
    */
   public int getSecond() {
-    return calendar.get(GregorianCalendar.SECOND);
+    return (getMillisOfDay() / 1000) % 60;
   }
 
   /**
@@ -189,7 +198,26 @@ public class DateTimeValue extends Value {
    * @return The millisecond.
    */
   public int getMillisecond() {
-    return calendar.get(GregorianCalendar.MILLISECOND);
+    return getMillisOfDay() % 1000;
+  }
+
+  /**
+   * Returns the date of this value, packed as in {@link CalendarArithmetic#packDate}.
+   *
+   * @return The packed date.
+   */
+  private int getPackedDate() {
+    return CalendarArithmetic.toPackedDate(
+        Math.floorDiv(epochMillis, CalendarArithmetic.MILLIS_PER_DAY));
+  }
+
+  /**
+   * Returns the number of milliseconds since midnight.
+   *
+   * @return The number of milliseconds since midnight.
+   */
+  private int getMillisOfDay() {
+    return (int) Math.floorMod(epochMillis, CalendarArithmetic.MILLIS_PER_DAY);
   }
 
 
@@ -208,13 +236,26 @@ public class DateTimeValue extends Value {
     if (this == NULL_VALUE) {
       return "null";
     }
-   String result = String.format("%1$d-%2$02d-%3$02d %4$02d:%5$02d:%6$02d",
-       getYear(), getMonth() + 1, getDayOfMonth(), getHourOfDay(), getMinute(),
-       getSecond());
-    if (getMillisecond() > 0) {
-      result += "." + String.format("%1$03d", getMillisecond());
+    int packedDate = getPackedDate();
+    StringBuilder result = new StringBuilder(23);
+    result.append(CalendarArithmetic.getPackedYear(packedDate)).append('-');
+    CalendarArithmetic.appendPadded(result, CalendarArithmetic.getPackedMonth(packedDate) + 1, 2,
+        '0');
+    result.append('-');
+    CalendarArithmetic.appendPadded(result, CalendarArithmetic.getPackedDayOfMonth(packedDate), 2,
+        '0');
+    result.append(' ');
+    CalendarArithmetic.appendPadded(result, getHourOfDay(), 2, '0');
+    result.append(':');
+    CalendarArithmetic.appendPadded(result, getMinute(), 2, '0');
+    result.append(':');
+    CalendarArithmetic.appendPadded(result, getSecond(), 2, '0');
+    int milliseconds = getMillisecond();
+    if (milliseconds > 0) {
+      result.append('.');
+      CalendarArithmetic.appendPadded(result, milliseconds, 3, '0');
     }
-    return result;
+    return result.toString();
   }
 
   /**
@@ -246,16 +287,14 @@ public class DateTimeValue extends Value {
     if (otherDateTime.isNull()) {
       return 1;
     }
-    // Calendar implements compareTo by converting to milliseconds.
-    return (calendar.compareTo(otherDateTime.getCalendar()));
+    return Long.compare(epochMillis, otherDateTime.epochMillis);
   }
 
   @Override
   public int hashCode() {
-    if (null != hashCode) {
-      return hashCode;
+    if (isNull()) {
+      return 0;
     }
-    // Compute and store hashCode for this DateTimeValue.
     int hash = 1579; // Some arbitrary prime number.
     hash = (hash * 11) + getYear();
     hash = (hash * 11) + getMonth();
@@ -264,8 +303,7 @@ public class DateTimeValue extends Value {
     hash = (hash * 11) + getMinute();
     hash = (hash * 11) + getSecond();
     hash = (hash * 11) + getMillisecond();
-    hashCode = hash;
-    return hashCode;
+    return hash;
   }
 
   @Override
@@ -273,13 +311,14 @@ public class DateTimeValue extends Value {
     if (isNull()) {
       return null;
     }
-    return calendar;
+    return createCalendar();
   }
 
   /**
-   * Returns the internal GregorianCalendar.
+   * Returns a GregorianCalendar in GMT set to this value. A new calendar is created on each
+   * call.
    *
-   * @return The internal GregorianCalendar.
+   * @return A GregorianCalendar set to this value.
    *
    * @throws NullValueException Thrown when this Value is NULL_VALUE.
    */
@@ -287,9 +326,34 @@ public class DateTimeValue extends Value {
     if (isNull()) {
       throw new NullValueException("This object is null");
     }
+    return createCalendar();
+  }
+
+  /**
+   * Creates a GregorianCalendar in GMT set to this value.
+   *
+   * @return A new GregorianCalendar.
+   */
+  private GregorianCalendar createCalendar() {
+    GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+    calendar.setTimeInMillis(epochMillis);
     return calendar;
   }
 
+  /**
+   * Returns the number of milliseconds since 1970-01-01 00:00:00 GMT.
+   *
+   * @return The number of milliseconds since 1970-01-01 00:00:00 GMT.
+   *
+   * @throws NullValueException Thrown when this Value is NULL_VALUE.
+   */
+  public long getEpochMillis() {
+    if (isNull()) {
+      throw new NullValueException("This object is null");
+    }
+    return epochMillis;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -23,9 +23,10 @@ import com.ibm.icu.util.TimeZone;
  * A value of type date. Used to represent a specific day in a given year. This differs from
  * {@link DateTimeValue}, which represents a specific day in a given year as well as a specific
  * time during that day. 
- * Date is represented internally by three values: year, month and dayOfMonth.
- * This class stores only legitimate dates where the validation is done using
- * ibm.icu.GregorianCalendar.
+ * Date is represented internally by the number of days since 1970-01-01, and the year, month
+ * and day of month are computed from it. This class stores only legitimate dates, i.e., dates
+ * that ibm.icu.GregorianCalendar returns the same fields for. A calendar is created only when
+ * the value is formatted.
  *
  * @author Hillel M.
  */
@@ -46,32 +47,26 @@ public class DateValue extends Value {
   }
 
   /**
-   * Underlying value: year.
+   * Underlying value: the number of days since 1970-01-01.
    */
-  private int year;
-
-  /**
-   * Underlying value: month. Note we use the java convention for months, this is:
-   * January = 0, February = 1, ..., December = 11.
-   */
-  private int month;
-
-  /**
-   * Underlying value: day of month.
-   */
-  private int dayOfMonth;
-
-  /**
-   * The hashCode for this DateValue. The hashCode of a NULL_VALUE is zero.
-   */
-  private Integer hashCode = null;
+  private final int epochDay;
 
   /**
    * Create a new date value. This constructor is private and is used only to
    * create a NULL_VALUE for this class.
    */
   private DateValue() {
-    hashCode = 0;
+    epochDay = 0;
+  }
+
+  /**
+   * Creates a new date value from the number of days since 1970-01-01. The value is not
+   * validated.
+   *
+   * @param epochDay The number of days since 1970-01-01.
+   */
+  private DateValue(int epochDay) {
+    this.epochDay = epochDay;
   }
 
   /**
@@ -88,25 +83,15 @@ public class DateValue extends Value {
    *     parameters is illegal.
    */
   public DateValue(int year, int month, int dayOfMonth) {
-    // Constructs a GregorianCalendar with the given date set in
-    // the default time zone.
-    GregorianCalendar calendar =
-        new GregorianCalendar(year, month, dayOfMonth);
-
-    // Input check. If the date is invalid the calendar object will output
-    // different fields for year, month and/or dayOfMonth.
+    // Input check. The date is valid if a GregorianCalendar would output the
+    // same fields for year, month and dayOfMonth, see CalendarArithmetic.
     // A RunTimeException is thrown here since it is very unusual for structured
     // data to be incorrect.
-    if ((calendar.get(GregorianCalendar.YEAR) != year)
-        || (calendar.get(GregorianCalendar.MONTH) != month)
-        || (calendar.get(GregorianCalendar.DAY_OF_MONTH) != dayOfMonth)) {
+    if (!CalendarArithmetic.isValidDate(year, month, dayOfMonth)) {
       throw new IllegalArgumentException("Invalid java date (yyyy-MM-dd): "
           + year + '-' + month + '-' + dayOfMonth);
     }
-    // Assign internal variables.
-    this.year = year;
-    this.month = month;
-    this.dayOfMonth = dayOfMonth;
+    this.epochDay = (int) CalendarArithmetic.toEpochDay(year, month, dayOfMonth);
   }
 
   /**
@@ -127,9 +112,26 @@ public class DateValue extends Value {
       throw new IllegalArgumentException(
            "Can't create DateValue from GregorianCalendar that is not GMT.");
     }
-    this.year = calendar.get(GregorianCalendar.YEAR);
-    this.month = calendar.get(GregorianCalendar.MONTH);
-    this.dayOfMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
+    this.epochDay = (int) CalendarArithmetic.toEpochDay(calendar.get(GregorianCalendar.YEAR),
+        calendar.get(GregorianCalendar.MONTH), calendar.get(GregorianCalendar.DAY_OF_MONTH));
+  }
+
+  /**
+   * Creates a new date value from the number of days since 1970-01-01. Dates before
+   * October 15, 1582 are Julian calendar dates, as in the default GregorianCalendar.
+   *
+   * @param epochDay The number of days since 1970-01-01.
+   *
+   * @return A new date value.
+   *
+   * @throws IllegalArgumentException Thrown if the date is before year 1.
+   */
+  public static DateValue fromEpochDay(int epochDay) {
+    int year = CalendarArithmetic.getPackedYear(CalendarArithmetic.toPackedDate(epochDay));
+    if (year < 1) {
+      throw new IllegalArgumentException("Invalid epoch day: " + epochDay);
+    }
+    return new DateValue(epochDay);
   }
 
   @Override
@@ -147,7 +149,15 @@ public class DateValue extends Value {
     if (this == NULL_VALUE) {
       return "null";
     }
-    return String.format("%1$d-%2$02d-%3$02d", year, month + 1, dayOfMonth);
+    int packedDate = CalendarArithmetic.toPackedDate(epochDay);
+    StringBuilder result = new StringBuilder(10);
+    result.append(CalendarArithmetic.getPackedYear(packedDate)).append('-');
+    CalendarArithmetic.appendPadded(result, CalendarArithmetic.getPackedMonth(packedDate) + 1, 2,
+        '0');
+    result.append('-');
+    CalendarArithmetic.appendPadded(result, CalendarArithmetic.getPackedDayOfMonth(packedDate), 2,
+        '0');
+    return result.toString();
 
   }
 
@@ -180,48 +190,28 @@ public class DateValue extends Value {
     if (otherDate.isNull()) {
       return 1;
     }
-    // Compare year.
-    if (this.year > otherDate.year) {
-      return 1;
-    } else if (this.year < otherDate.year) {
-      return -1;
-    }
-    // Compare month.
-    if (this.month > otherDate.month) {
-      return 1;
-    } else if (this.month < otherDate.month) {
-      return -1;
-    }
-    // Compare dayOfMonth.
-    if (this.dayOfMonth > otherDate.dayOfMonth) {
-      return 1;
-    } else if (this.dayOfMonth < otherDate.dayOfMonth) {
-      return -1;
-    }
-    // Equal Values.
-    return 0;
+    return Integer.compare(epochDay, otherDate.epochDay);
   }
 
   @Override
   public int hashCode() {
-    if (null != hashCode) {
-      return hashCode;
+    if (isNull()) {
+      return 0;
     }
-    // Compute and store hashCode for this DateValue.
+    int packedDate = CalendarArithmetic.toPackedDate(epochDay);
     int hash  = 1279; // Some arbitrary prime number.
-    hash = (hash * 17) + year;
-    hash = (hash * 17) + month;
-    hash = (hash * 17) + dayOfMonth;
-    hashCode = hash;
-    return hashCode;
- }
+    hash = (hash * 17) + CalendarArithmetic.getPackedYear(packedDate);
+    hash = (hash * 17) + CalendarArithmetic.getPackedMonth(packedDate);
+    hash = (hash * 17) + CalendarArithmetic.getPackedDayOfMonth(packedDate);
+    return hash;
+  }
 
   @Override
   public Calendar getObjectToFormat() {
     if (isNull()) {
       return null;
     }
-    GregorianCalendar cal = new GregorianCalendar(year, month, dayOfMonth);
+    GregorianCalendar cal = new GregorianCalendar(getYear(), getMonth(), getDayOfMonth());
     cal.setTimeZone(TimeZone.getTimeZone("GMT"));
     return cal;
   }
@@ -237,7 +227,7 @@ public class DateValue extends Value {
     if (isNull()) {
       throw new NullValueException("This object is null");
     }
-    return year;
+    return CalendarArithmetic.getPackedYear(CalendarArithmetic.toPackedDate(epochDay));
   }
 
   /**
@@ -251,7 +241,7 @@ public class DateValue extends Value {
     if (isNull()) {
       throw new NullValueException("This object is null");
     }
-    return month;
+    return CalendarArithmetic.getPackedMonth(CalendarArithmetic.toPackedDate(epochDay));
   }
 
   /**
@@ -265,7 +255,21 @@ public class DateValue extends Value {
     if (isNull()) {
       throw new NullValueException("This object is null");
     }
-    return dayOfMonth;
+    return CalendarArithmetic.getPackedDayOfMonth(CalendarArithmetic.toPackedDate(epochDay));
+  }
+
+  /**
+   * Returns the number of days since 1970-01-01.
+   *
+   * @return The number of days since 1970-01-01.
+   *
+   * @throws NullValueException Thrown when this Value is NULL_VALUE.
+   */
+  public int getEpochDay() {
+    if (isNull()) {
+      throw new NullValueException("This object is null");
+    }
+    return epochDay;
   }
 
   /**
@@ -273,6 +277,6 @@ public class DateValue extends Value {
    */
   @Override
   protected String innerToQueryString() {
-    return "DATE '" + year + "-" + (month + 1) + "-" + dayOfMonth + "'";
+    return "DATE '" + getYear() + "-" + (getMonth() + 1) + "-" + getDayOfMonth() + "'";
   }
 }
@@ -14,6 +14,9 @@
 
 package com.google.visualization.datasource.datatable.value;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.ibm.icu.text.Collator;
 import com.ibm.icu.util.ULocale;
 
@@ -31,6 +34,25 @@ public class TextValue extends Value {
    */
   private static final TextValue NULL_VALUE = new TextValue("");
 
+  /**
+   * The maximum number of collators kept in the cache.
+   */
+  /* package */ static final int MAX_CACHED_COLLATORS = 100;
+
+  /**
+   * The most recently used frozen collators, by locale. Creating a collator is expensive, and a
+   * frozen collator can be shared by all threads. The locales come from user requests, so the
+   * cache is bounded.
+   */
+  private static final LoadingCache<ULocale, Collator> COLLATORS = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_COLLATORS)
+      .build(new CacheLoader<ULocale, Collator>() {
+        @Override
+        public Collator load(ULocale ulocale) {
+          return Collator.getInstance(ulocale).freeze();
+        }
+      });
+
   /**
    * The underlying value.
    */
@@ -123,7 +145,7 @@ public class TextValue extends Value {
    */
   public static Comparator<TextValue> getTextLocalizedComparator(final ULocale ulocale) {
     return new Comparator<TextValue>() {
-      Collator collator = Collator.getInstance(ulocale);
+      Collator collator = getCollator(ulocale);
 
       @Override
       public int compare(TextValue tv1, TextValue tv2) {
@@ -135,6 +157,18 @@ public class TextValue extends Value {
     };
   }
 
+  /**
+   * Returns a frozen, thread-safe collator for the given locale. Collators of recently used
+   * locales are shared, so the returned collator must not be changed.
+   *
+   * @param ulocale The ulocale defining the order relation for text values.
+   *
+   * @return A frozen collator for the given locale.
+   */
+  public static Collator getCollator(ULocale ulocale) {
+    return COLLATORS.getUnchecked(ulocale);
+  }
+
   /**
    * Returns the text value.
    *
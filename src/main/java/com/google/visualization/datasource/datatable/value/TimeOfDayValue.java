@@ -22,7 +22,8 @@ import com.ibm.icu.util.TimeZone;
 
 /**
  * A value of type time-of-day.
- * Time is represented internally by four fields: hours, minutes, seconds and milliseconds.
+ * Time is represented internally by the number of milliseconds since midnight. A calendar is
+ * created only when the value is formatted.
  *
  * @author Hillel M.
  */
@@ -43,36 +44,26 @@ public class TimeOfDayValue extends Value {
   }
 
   /**
-   * Underlying value: hours (24 hours).
+   * Underlying value: the number of milliseconds since midnight.
    */
-  private int hours;
-
-  /**
-   * Underlying value: minutes (60 minutes).
-   */
-  private int minutes;
-
-  /**
-   * Underlying value: seconds (60 seconds).
-   */
-  private int seconds;
-
-  /**
-   * Underlying value: milliseconds (1000 milliseconds).
-   */
-  private int milliseconds;
-
-  /**
-   * The hashCode for this TimeOfDayValue. The hashCode of NULL_VALUE is zero.
-   */
-  private Integer hashCode = null;
+  private final int millisOfDay;
 
   /**
    * Creates a new time value. This constructor is private and is used only to
    * create a NULL_VALUE for this class.
    */
   private TimeOfDayValue() {
-    hashCode = 0;
+    millisOfDay = 0;
+  }
+
+  /**
+   * Creates a new time value from the number of milliseconds since midnight. The value is not
+   * validated.
+   *
+   * @param millisOfDay The number of milliseconds since midnight.
+   */
+  private TimeOfDayValue(int millisOfDay) {
+    this.millisOfDay = millisOfDay;
   }
 
   /**
@@ -121,10 +112,7 @@ public class TimeOfDayValue extends Value {
           + milliseconds);
     }
     // Assign internal variables.
-    this.hours = hours;
-    this.minutes = minutes;
-    this.seconds = seconds;
-    this.milliseconds = milliseconds;
+    this.millisOfDay = ((hours * 60 + minutes) * 60 + seconds) * 1000 + milliseconds;
   }
 
   /**
@@ -146,10 +134,25 @@ public class TimeOfDayValue extends Value {
       throw new IllegalArgumentException(
           "Can't create TimeOfDayValue from GregorianCalendar that is not GMT.");
     }
-    this.hours = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-    this.minutes = calendar.get(GregorianCalendar.MINUTE);
-    this.seconds = calendar.get(GregorianCalendar.SECOND);
-    this.milliseconds = calendar.get(GregorianCalendar.MILLISECOND);
+    this.millisOfDay = (int) Math.floorMod(calendar.getTimeInMillis(),
+        CalendarArithmetic.MILLIS_PER_DAY);
+  }
+
+  /**
+   * Creates a new time of day value from the number of milliseconds since midnight.
+   *
+   * @param millisOfDay The number of milliseconds since midnight.
+   *
+   * @return A new time of day value.
+   *
+   * @throws IllegalArgumentException Thrown if millisOfDay is not within a single day.
+   */
+  public static TimeOfDayValue fromMillisOfDay(int millisOfDay) {
+    if ((millisOfDay < 0) || (millisOfDay >= CalendarArithmetic.MILLIS_PER_DAY)) {
+      throw new IllegalArgumentException("This milliseconds of day value is invalid: "
+          + millisOfDay);
+    }
+    return new TimeOfDayValue(millisOfDay);
   }
 
   @Override
@@ -167,12 +170,18 @@ public class TimeOfDayValue extends Value {
     if (this == NULL_VALUE) {
       return "null";
     }
-   String result = String.format("%1$02d:%2$02d:%3$02d", hours, minutes,
-       seconds);
+    StringBuilder result = new StringBuilder(12);
+    CalendarArithmetic.appendPadded(result, getHours(), 2, '0');
+    result.append(':');
+    CalendarArithmetic.appendPadded(result, getMinutes(), 2, '0');
+    result.append(':');
+    CalendarArithmetic.appendPadded(result, getSeconds(), 2, '0');
+    int milliseconds = getMilliseconds();
     if (milliseconds > 0) {
-      result += "." + String.format("%1$3d", milliseconds);
+      result.append('.');
+      CalendarArithmetic.appendPadded(result, milliseconds, 3, ' ');
     }
-    return result;
+    return result.toString();
   }
 
   /**
@@ -204,48 +213,21 @@ public class TimeOfDayValue extends Value {
     if (otherTimeOfDay.isNull()) {
       return 1;
     }
-    // Compare hours.
-    if (this.hours > otherTimeOfDay.hours) {
-      return 1;
-    } else if (this.hours < otherTimeOfDay.hours) {
-      return -1;
-    }
-    // Compare minutes.
-    if (this.minutes > otherTimeOfDay.minutes) {
-      return 1;
-    } else if (this.minutes < otherTimeOfDay.minutes) {
-      return -1;
-    }
-    // Compare seconds.
-    if (this.seconds > otherTimeOfDay.seconds) {
-      return 1;
-    } else if (this.seconds < otherTimeOfDay.seconds) {
-      return -1;
-    }
-    // Compare milliseconds.
-    if (this.milliseconds > otherTimeOfDay.milliseconds) {
-      return 1;
-    } else if (this.milliseconds < otherTimeOfDay.milliseconds) {
-      return -1;
-    }
-    // Equal Values.
-    return 0;
+    return Integer.compare(millisOfDay, otherTimeOfDay.millisOfDay);
   }
 
 
   @Override
   public int hashCode() {
-    if (null != hashCode) {
-      return hashCode;
+    if (isNull()) {
+      return 0;
     }
-    // Compute and store hashCode for this TimeOfDayValue - done only once.
     int hash = 1193; // Some arbitrary prime number.
-    hash = (hash * 13) + hours;
-    hash = (hash * 13) + minutes;
-    hash = (hash * 13) + seconds;
-    hash = (hash * 13) + milliseconds;
-    hashCode = hash;
-    return hashCode;
+    hash = (hash * 13) + getHours();
+    hash = (hash * 13) + getMinutes();
+    hash = (hash * 13) + getSeconds();
+    hash = (hash * 13) + getMilliseconds();
+    return hash;
   }
 
   /**
@@ -265,10 +247,10 @@ public class TimeOfDayValue extends Value {
     cal.set(Calendar.MONTH, Calendar.DECEMBER);
     cal.set(Calendar.DAY_OF_MONTH, 30);
     // Set the TimeOfDay based on this TimeOfDayValue.
-    cal.set(Calendar.HOUR_OF_DAY, hours);
-    cal.set(Calendar.MINUTE, minutes);
-    cal.set(Calendar.SECOND, seconds);
-    cal.set(Calendar.MILLISECOND, milliseconds);
+    cal.set(Calendar.HOUR_OF_DAY, getHours());
+    cal.set(Calendar.MINUTE, getMinutes());
+    cal.set(Calendar.SECOND, getSeconds());
+    cal.set(Calendar.MILLISECOND, getMilliseconds());
 
     return cal;
   }
@@ -284,7 +266,7 @@ public class TimeOfDayValue extends Value {
     if (isNull()) {
       throw new NullValueException("This object is null");
     }
-    return hours;
+    return millisOfDay / 3600000;
   }
 
   /**
@@ -298,7 +280,7 @@ public class TimeOfDayValue extends Value {
     if (isNull()) {
       throw new NullValueException("This object is null");
     }
-    return minutes;
+    return (millisOfDay / 60000) % 60;
   }
 
   /**
@@ -312,7 +294,7 @@ public class TimeOfDayValue extends Value {
     if (isNull()) {
       throw new NullValueException("This object is null");
     }
-    return seconds;
+    return (millisOfDay / 1000) % 60;
   }
 
   /**
@@ -326,7 +308,21 @@ public class TimeOfDayValue extends Value {
     if (isNull()) {
       throw new NullValueException("This object is null");
     }
-    return milliseconds;
+    return millisOfDay % 1000;
+  }
+
+  /**
+   * Returns the number of milliseconds since midnight.
+   *
+   * @return The number of milliseconds since midnight.
+   *
+   * @throws NullValueException Thrown when this Value is NULL_VALUE.
+   */
+  public int getMillisOfDay() {
+    if (isNull()) {
+      throw new NullValueException("This object is null");
+    }
+    return millisOfDay;
   }
 
   /**
@@ -334,7 +330,8 @@ public class TimeOfDayValue extends Value {
    */
   @Override
   protected String innerToQueryString() {
-    String s = "TIMEOFDAY '" + hours + ":" + minutes + ":" + seconds;
+    String s = "TIMEOFDAY '" + getHours() + ":" + getMinutes() + ":" + getSeconds();
+    int milliseconds = getMilliseconds();
     if (milliseconds != 0) {
       s += "." + milliseconds;
     }
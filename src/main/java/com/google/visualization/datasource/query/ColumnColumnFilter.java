@@ -75,6 +75,15 @@ public class ColumnColumnFilter extends ComparisonFilter {
     return isOperatorMatch(firstValue, secondValue);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public RowPredicate compile(DataTable table) {
+    return compileOperatorMatch(ColumnValueReader.create(firstColumn, table),
+        ColumnValueReader.create(secondColumn, table));
+  }
+
   /**
    * Returns all the simple column IDs this filter uses, in this case
    * the simple column IDs of firstColumn and secondColumn.
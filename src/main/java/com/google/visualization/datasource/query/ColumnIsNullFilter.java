@@ -89,6 +89,20 @@ public class ColumnIsNullFilter extends QueryFilter {
     return column.getValue(lookup, row).isNull();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public RowPredicate compile(DataTable table) {
+    final ColumnValueReader reader = ColumnValueReader.create(column, table);
+    return new RowPredicate() {
+      @Override
+      public boolean isMatch(int rowIndex) {
+        return reader.isNull(rowIndex);
+      }
+    };
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -97,6 +97,15 @@ public class ColumnValueFilter extends ComparisonFilter {
         isOperatorMatch(columnValue, value);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public RowPredicate compile(DataTable table) {
+    return compileOperatorMatch(ColumnValueReader.create(column, table), value,
+        isComparisonOrderReversed);
+  }
+
   /**
    * Returns all the columnIds this filter uses, in this case the simple column
    * IDs of the filter's column.
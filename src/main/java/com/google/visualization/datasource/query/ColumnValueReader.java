@@ -0,0 +1,221 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query;
+
+import com.google.visualization.datasource.datatable.ColumnarDataTable;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.Value;
+import com.google.visualization.datasource.datatable.value.ValueType;
+
+/**
+ * Reads the values of a column from the rows of a specific table, for compiled filters.
+ * The index of a simple column is resolved once, when the reader is created. Other columns,
+ * e.g., scalar function columns, are evaluated on each row using a single column lookup.
+ */
+/* package */ abstract class ColumnValueReader {
+
+  /**
+   * The type of the values read by this reader.
+   */
+  private final ValueType type;
+
+  /**
+   * Creates a new reader of values of the given type.
+   *
+   * @param type The type of the values read by this reader.
+   */
+  private ColumnValueReader(ValueType type) {
+    this.type = type;
+  }
+
+  /**
+   * Returns a reader of the given column from the rows of the given table.
+   *
+   * @param column The column to read.
+   * @param table The table to read from.
+   *
+   * @return A reader of the given column.
+   */
+  public static ColumnValueReader create(AbstractColumn column, DataTable table) {
+    if (column instanceof SimpleColumn) {
+      int columnIndex = table.getColumnIndex(column.getId());
+      ValueType type = table.getColumnDescription(columnIndex).getType();
+      if (table instanceof ColumnarDataTable) {
+        return new ColumnarTableReader((ColumnarDataTable) table, columnIndex, type);
+      }
+      return new SimpleColumnReader(table, columnIndex, type);
+    }
+    return new CalculatedColumnReader(column, table);
+  }
+
+  /**
+   * Returns the type of the values read by this reader.
+   *
+   * @return The type of the values read by this reader.
+   */
+  public ValueType getType() {
+    return type;
+  }
+
+  /**
+   * Returns the value in the row at the given index.
+   *
+   * @param rowIndex The row index.
+   *
+   * @return The value in the row at the given index.
+   */
+  public abstract Value getValue(int rowIndex);
+
+  /**
+   * Returns true if the value in the row at the given index is null.
+   *
+   * @param rowIndex The row index.
+   *
+   * @return True if the value in the row at the given index is null.
+   */
+  public boolean isNull(int rowIndex) {
+    return getValue(rowIndex).isNull();
+  }
+
+  /**
+   * Returns the number in the row at the given index. Can only be called if the type of this
+   * reader is NUMBER, and the result is undefined if the value is null.
+   *
+   * @param rowIndex The row index.
+   *
+   * @return The number in the row at the given index.
+   */
+  public double getNumber(int rowIndex) {
+    return ((NumberValue) getValue(rowIndex)).getValue();
+  }
+
+  /**
+   * Reads a simple column of a regular table.
+   */
+  private static class SimpleColumnReader extends ColumnValueReader {
+
+    /**
+     * The table.
+     */
+    private final DataTable table;
+
+    /**
+     * The index of the column in the table.
+     */
+    private final int columnIndex;
+
+    /**
+     * Creates a new reader of the column at the given index.
+     *
+     * @param table The table.
+     * @param columnIndex The index of the column in the table.
+     * @param type The type of the column.
+     */
+    SimpleColumnReader(DataTable table, int columnIndex, ValueType type) {
+      super(type);
+      this.table = table;
+      this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public Value getValue(int rowIndex) {
+      return table.getValue(rowIndex, columnIndex);
+    }
+  }
+
+  /**
+   * Reads a simple column of a columnar table, without creating rows or number values.
+   */
+  private static class ColumnarTableReader extends ColumnValueReader {
+
+    /**
+     * The table.
+     */
+    private final ColumnarDataTable table;
+
+    /**
+     * The index of the column in the table.
+     */
+    private final int columnIndex;
+
+    /**
+     * Creates a new reader of the column at the given index.
+     *
+     * @param table The table.
+     * @param columnIndex The index of the column in the table.
+     * @param type The type of the column.
+     */
+    ColumnarTableReader(ColumnarDataTable table, int columnIndex, ValueType type) {
+      super(type);
+      this.table = table;
+      this.columnIndex = columnIndex;
+    }
+
+    @Override
+    public Value getValue(int rowIndex) {
+      return table.getValue(rowIndex, columnIndex);
+    }
+
+    @Override
+    public boolean isNull(int rowIndex) {
+      return table.isNull(rowIndex, columnIndex);
+    }
+
+    @Override
+    public double getNumber(int rowIndex) {
+      return table.getNumber(rowIndex, columnIndex);
+    }
+  }
+
+  /**
+   * Reads a column that is calculated from the other columns of a row.
+   */
+  private static class CalculatedColumnReader extends ColumnValueReader {
+
+    /**
+     * The column.
+     */
+    private final AbstractColumn column;
+
+    /**
+     * The table.
+     */
+    private final DataTable table;
+
+    /**
+     * The column lookup of the table.
+     */
+    private final ColumnLookup lookup;
+
+    /**
+     * Creates a new reader of the given column.
+     *
+     * @param column The column.
+     * @param table The table.
+     */
+    CalculatedColumnReader(AbstractColumn column, DataTable table) {
+      super(column.getValueType(table));
+      this.column = column;
+      this.table = table;
+      this.lookup = new DataTableColumnLookup(table);
+    }
+
+    @Override
+    public Value getValue(int rowIndex) {
+      return column.getValue(lookup, table.getRow(rowIndex));
+    }
+  }
+}
@@ -14,7 +14,9 @@
 
 package com.google.visualization.datasource.query;
 
+import com.google.visualization.datasource.datatable.value.NumberValue;
 import com.google.visualization.datasource.datatable.value.Value;
+import com.google.visualization.datasource.datatable.value.ValueType;
 
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
@@ -89,6 +91,17 @@ public abstract class ComparisonFilter extends QueryFilter {
     private String queryStringForm;
   }
 
+  /**
+   * A compiled filter that matches no row, used when the operator can never be true, e.g., when
+   * it compares values of different types.
+   */
+  private static final RowPredicate NO_MATCH = new RowPredicate() {
+    @Override
+    public boolean isMatch(int rowIndex) {
+      return false;
+    }
+  };
+
   /**
    * The comparison operator for this filter.
    */
@@ -115,19 +128,31 @@ public abstract class ComparisonFilter extends QueryFilter {
    * @return True if s1 is "like" s2, in the sql-sense.
    */
   private boolean isLike(String s1, String s2) {
-    StringTokenizer tokenizer = new StringTokenizer(s2, "%_", true);
+    return s1.matches(toLikeRegexp(s2));
+  }
+
+  /**
+   * Returns the regular expression that a string must match to be "like" the given string, see
+   * {@link #isLike(String, String)}.
+   *
+   * @param s The string in the right hand side of the LIKE operator.
+   *
+   * @return The equivalent regular expression.
+   */
+  private static String toLikeRegexp(String s) {
+    StringTokenizer tokenizer = new StringTokenizer(s, "%_", true);
     StringBuilder regexp = new StringBuilder();
     while (tokenizer.hasMoreTokens()) {
-      String s = tokenizer.nextToken();
-      if (s.equals("%")) {
+      String token = tokenizer.nextToken();
+      if (token.equals("%")) {
         regexp.append(".*");
-      } else if (s.equals("_")) {
+      } else if (token.equals("_")) {
         regexp.append(".");
       } else {
-        regexp.append(Pattern.quote(s));
+        regexp.append(Pattern.quote(token));
       }
     }
-    return s1.matches(regexp.toString());
+    return regexp.toString();
   }
 
   /**
@@ -149,17 +174,12 @@ public abstract class ComparisonFilter extends QueryFilter {
 
     switch (operator) {
       case EQ:
-        return (v1.compareTo(v2) == 0);
       case NE:
-        return (v1.compareTo(v2) != 0);
       case LT:
-        return (v1.compareTo(v2) < 0);
       case GT:
-        return (v1.compareTo(v2) > 0);
       case LE:
-        return (v1.compareTo(v2) <= 0);
       case GE:
-        return (v1.compareTo(v2) >= 0);
+        return isComparisonMatch(v1.compareTo(v2));
       case CONTAINS:
         return v1.toString().contains(v2.toString());
       case STARTS_WITH:
@@ -178,6 +198,123 @@ public abstract class ComparisonFilter extends QueryFilter {
     return false; // should never get here
   }
 
+  /**
+   * Returns true if the result of comparing two values, as returned by compareTo(), satisfies
+   * the operator. E.g., if the operator is GT, returns true if the comparison is positive.
+   * Can only be called for the EQ, NE, LT, GT, LE and GE operators.
+   *
+   * @param comparison The result of comparing the first value to the second.
+   *
+   * @return true if the comparison satisfies the operator, false otherwise.
+   */
+  protected boolean isComparisonMatch(int comparison) {
+    switch (operator) {
+      case EQ:
+        return (comparison == 0);
+      case NE:
+        return (comparison != 0);
+      case LT:
+        return (comparison < 0);
+      case GT:
+        return (comparison > 0);
+      case LE:
+        return (comparison <= 0);
+      case GE:
+        return (comparison >= 0);
+      default:
+        throw new IllegalStateException("Not a comparison operator: " + operator);
+    }
+  }
+
+  /**
+   * Returns a compiled filter that matches the values read by the two given readers against the
+   * operator, as {@link #isOperatorMatch(Value, Value)} does. If the operator requires equal
+   * types and the types of the readers differ, the returned filter matches no row.
+   *
+   * @param first The reader of the first value.
+   * @param second The reader of the second value.
+   *
+   * @return The compiled filter.
+   */
+  /* package */ RowPredicate compileOperatorMatch(final ColumnValueReader first,
+      final ColumnValueReader second) {
+    if (operator.areEqualTypesRequired() && (first.getType() != second.getType())) {
+      return NO_MATCH;
+    }
+    return new RowPredicate() {
+      @Override
+      public boolean isMatch(int rowIndex) {
+        return isOperatorMatch(first.getValue(rowIndex), second.getValue(rowIndex));
+      }
+    };
+  }
+
+  /**
+   * Returns a compiled filter that matches the values read by the given reader against a
+   * constant value, as {@link #isOperatorMatch(Value, Value)} does, but without checking the
+   * types or parsing a regular expression for every row. Number comparisons are done on the
+   * primitive numbers.
+   *
+   * @param reader The reader of the column values.
+   * @param value The constant value.
+   * @param isComparisonOrderReversed Whether the constant value is the first value, i.e.,
+   *     value op column instead of column op value.
+   *
+   * @return The compiled filter.
+   */
+  /* package */ RowPredicate compileOperatorMatch(final ColumnValueReader reader,
+      final Value value, final boolean isComparisonOrderReversed) {
+    if (operator.areEqualTypesRequired()) {
+      if (reader.getType() != value.getType()) {
+        return NO_MATCH;
+      }
+      if ((value.getType() == ValueType.NUMBER) && !value.isNull()) {
+        final double number = ((NumberValue) value).getValue();
+        return new RowPredicate() {
+          @Override
+          public boolean isMatch(int rowIndex) {
+            // A null number is smaller than any other number.
+            int comparison = reader.isNull(rowIndex)
+                ? -1 : Double.compare(reader.getNumber(rowIndex), number);
+            return isComparisonMatch(isComparisonOrderReversed ? -comparison : comparison);
+          }
+        };
+      }
+      return new RowPredicate() {
+        @Override
+        public boolean isMatch(int rowIndex) {
+          Value columnValue = reader.getValue(rowIndex);
+          return isComparisonMatch(isComparisonOrderReversed
+              ? value.compareTo(columnValue) : columnValue.compareTo(value));
+        }
+      };
+    }
+    if (!isComparisonOrderReversed
+        && ((operator == Operator.MATCHES) || (operator == Operator.LIKE))) {
+      final Pattern pattern;
+      try {
+        pattern = Pattern.compile((operator == Operator.LIKE)
+            ? toLikeRegexp(value.toString()) : value.toString());
+      } catch (PatternSyntaxException ex) {
+        return NO_MATCH; // a match against an illegal expression is false
+      }
+      return new RowPredicate() {
+        @Override
+        public boolean isMatch(int rowIndex) {
+          return pattern.matcher(reader.getValue(rowIndex).toString()).matches();
+        }
+      };
+    }
+    return new RowPredicate() {
+      @Override
+      public boolean isMatch(int rowIndex) {
+        Value columnValue = reader.getValue(rowIndex);
+        return isComparisonOrderReversed ? isOperatorMatch(value, columnValue)
+            : isOperatorMatch(columnValue, value);
+      }
+    };
+  }
+
   /**
    * Returns the operator associated with this CompoundFilter.
    *
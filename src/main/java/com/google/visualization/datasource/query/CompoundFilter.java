@@ -14,7 +14,6 @@
 
 package com.google.visualization.datasource.query;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.visualization.datasource.datatable.DataTable;
@@ -22,6 +21,7 @@ import com.google.visualization.datasource.datatable.TableRow;
 
 import org.apache.commons.lang.text.StrBuilder;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -50,6 +50,11 @@ public class CompoundFilter extends QueryFilter {
    */
   private List<QueryFilter> subFilters;
 
+  /**
+   * A read-only view of the sub-filters, returned by {@link #getSubFilters()}.
+   */
+  private List<QueryFilter> subFiltersView;
+
   /**
    * The type of this compound filter ('and' or 'or').
    */
@@ -64,6 +69,7 @@ public class CompoundFilter extends QueryFilter {
   public CompoundFilter(LogicalOperator operator,
       List<QueryFilter> subFilters) {
     this.subFilters = subFilters;
+    this.subFiltersView = Collections.unmodifiableList(subFilters);
     this.operator = operator;
   }
 
@@ -101,6 +107,39 @@ public class CompoundFilter extends QueryFilter {
     return (operator == LogicalOperator.AND);
   }
 
+  /**
+   * Compiles this filter by compiling each of the sub-filters. The compiled
+   * filter evaluates the sub-filters in order, and uses short-circuit
+   * evaluation, as isMatch() does.
+   *
+   * @param table The table whose rows will be matched.
+   *
+   * @return A predicate on the indices of the rows of the given table.
+   */
+  @Override
+  public RowPredicate compile(DataTable table) {
+    if (subFilters.isEmpty()) {
+      // Fails on the first row, as isMatch() does.
+      return super.compile(table);
+    }
+    final RowPredicate[] compiledSubFilters = new RowPredicate[subFilters.size()];
+    for (int i = 0; i < compiledSubFilters.length; i++) {
+      compiledSubFilters[i] = subFilters.get(i).compile(table);
+    }
+    final boolean isAnd = (operator == LogicalOperator.AND);
+    return new RowPredicate() {
+      @Override
+      public boolean isMatch(int rowIndex) {
+        for (RowPredicate compiledSubFilter : compiledSubFilters) {
+          if (compiledSubFilter.isMatch(rowIndex) != isAnd) {
+            return !isAnd;
+          }
+        }
+        return isAnd;
+      }
+    };
+  }
+
   /**
    * Returns all the columnIds this filter uses, in this case the union of all
    * the results of getAllColumnIds() of all its subfilters.
@@ -150,7 +189,7 @@ public class CompoundFilter extends QueryFilter {
    * @return The list of sub-filters associated with this CompoundFilter.
    */
   public List<QueryFilter> getSubFilters() {
-    return ImmutableList.copyOf(subFilters);
+    return subFiltersView;
   }
 
   /**
@@ -56,6 +56,24 @@ public class NegationFilter extends QueryFilter {
     return !subFilter.isMatch(table, row);
   }
 
+  /**
+   * Compiles this filter by compiling the sub-filter and negating its result.
+   *
+   * @param table The table whose rows will be matched.
+   *
+   * @return A predicate on the indices of the rows of the given table.
+   */
+  @Override
+  public RowPredicate compile(DataTable table) {
+    final RowPredicate compiledSubFilter = subFilter.compile(table);
+    return new RowPredicate() {
+      @Override
+      public boolean isMatch(int rowIndex) {
+        return !compiledSubFilter.isMatch(rowIndex);
+      }
+    };
+  }
+
   /**
    * Returns all the columnIds this filter uses, in this case exactly all the
    * columnIds that the sub-filter uses.
@@ -162,6 +162,16 @@ public class Query {
    */
   private ULocale localeForUserMessages = null;
 
+  /**
+   * Whether this query is frozen, i.e., can no longer be changed.
+   */
+  private volatile boolean frozen = false;
+
+  /**
+   * The query string of this query, computed once this query is frozen.
+   */
+  private volatile String frozenQueryString = null;
+
   /**
    * Constructs a new, empty, query.
    */
@@ -174,6 +184,7 @@ public class Query {
    * @param sort The required sort of the query result.
    */
   public void setSort(QuerySort sort) {
+    checkNotFrozen();
     this.sort = sort;
   }
 
@@ -201,6 +212,7 @@ public class Query {
    * @param selection The required selection of the query result.
    */
   public void setSelection(QuerySelection selection) {
+    checkNotFrozen();
     this.selection = selection;
   }
 
@@ -229,6 +241,7 @@ public class Query {
    * @param filter The required filter of this query.
    */
   public void setFilter(QueryFilter filter) {
+    checkNotFrozen();
     this.filter = filter;
   }
 
@@ -256,6 +269,7 @@ public class Query {
    * @param group The required group of the query result.
    */
   public void setGroup(QueryGroup group) {
+    checkNotFrozen();
     this.group = group;
   }
 
@@ -265,6 +279,7 @@ public class Query {
    * @param pivot The required pivot of the query result.
    */
   public void setPivot(QueryPivot pivot) {
+    checkNotFrozen();
     this.pivot = pivot;
   }
 
@@ -329,6 +344,7 @@ public class Query {
    * @throws InvalidQueryException Thrown if an invalid value is specified.
    */
   public void setRowSkipping(int rowSkipping) throws InvalidQueryException {
+    checkNotFrozen();
     if (rowSkipping < 0) {
       String messageToLogAndUser = MessagesEnum.INVALID_SKIPPING.getMessageWithArgs(
           localeForUserMessages, Integer.toString(rowSkipping));
@@ -345,6 +361,7 @@ public class Query {
    * @param originalQuery The query from which the row skipping should be taken.
    */
   public void copyRowSkipping(Query originalQuery) {
+    checkNotFrozen();
     rowSkipping = originalQuery.getRowSkipping();
   }
 
@@ -388,6 +405,7 @@ public class Query {
    * @throws InvalidQueryException Thrown if an invalid value is specified.
    */
   public void setRowLimit(int rowLimit) throws InvalidQueryException {
+    checkNotFrozen();
     if (rowLimit < -1) {
       String messageToLogAndUser = "Invalid value for row limit: " + rowLimit;
       log.error(messageToLogAndUser);
@@ -403,6 +421,7 @@ public class Query {
    * @param originalQuery The query from which the row limit should be taken.
    */
   public void copyRowLimit(Query originalQuery) {
+    checkNotFrozen();
     rowLimit = originalQuery.getRowLimit();
   }
 
@@ -445,6 +464,7 @@ public class Query {
    * @throws InvalidQueryException Thrown if an invalid value is specified.
    */
   public void setRowOffset(int rowOffset) throws InvalidQueryException {
+    checkNotFrozen();
     if (rowOffset < 0) {
       String messageToLogAndUser = MessagesEnum.INVALID_OFFSET.getMessageWithArgs(
           localeForUserMessages, Integer.toString(rowOffset));
@@ -460,6 +480,7 @@ public class Query {
    * @param originalQuery The query from which the row offset should be taken.
    */
   public void copyRowOffset(Query originalQuery) {
+    checkNotFrozen();
     rowOffset = originalQuery.getRowOffset();
   }
 
@@ -487,6 +508,7 @@ public class Query {
    * @param userFormatOptions A map of patterns to column IDs.
    */
   public void setUserFormatOptions(QueryFormat userFormatOptions) {
+    checkNotFrozen();
     this.userFormatOptions = userFormatOptions;
   }
 
@@ -514,6 +536,7 @@ public class Query {
    * @param labels A map of labels to column IDs.
    */
   public void setLabels(QueryLabels labels) {
+    checkNotFrozen();
     this.labels = labels;
   }
 
@@ -542,6 +565,7 @@ public class Query {
    * @param options The required options.
    */
   public void setOptions(QueryOptions options) {
+    checkNotFrozen();
     this.options = options;
   }
 
@@ -572,6 +596,7 @@ public class Query {
    * @param userLocale the user locale.
    */
   public void setLocaleForUserMessages(ULocale localeForUserMessges) {
+    checkNotFrozen();
     this.localeForUserMessages = localeForUserMessges;
   }
 
@@ -581,6 +606,7 @@ public class Query {
    * @param query The query to copy from.
    */
   public void copyFrom(Query query) {
+    checkNotFrozen();
     setSort(query.getSort());
     setSelection(query.getSelection());
     setFilter(query.getFilter());
@@ -594,6 +620,36 @@ public class Query {
     setOptions(query.getOptions());
   }
 
+  /**
+   * Freezes this query, so that it can no longer be changed. Setting or copying any of its
+   * clauses afterwards throws an UnsupportedOperationException. A frozen query can be shared,
+   * e.g., by a cache of parsed queries. Note that the clauses themselves are not frozen, and must
+   * not be changed either.
+   */
+  public void freeze() {
+    frozen = true;
+  }
+
+  /**
+   * Returns true if this query is frozen.
+   *
+   * @return True if this query is frozen.
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Throws an exception if this query is frozen.
+   *
+   * @throws UnsupportedOperationException Thrown if this query is frozen.
+   */
+  private void checkNotFrozen() {
+    if (frozen) {
+      throw new UnsupportedOperationException("A frozen query cannot be changed.");
+    }
+  }
+
   /**
    * Validates the query. Runs a sanity check on the query, verifies that there are no
    * duplicates, and that the query follows a basic set of rules required for its execution.
@@ -1121,11 +1177,28 @@ public class Query {
   
   /**
    * Returns a string that when fed to the query parser will yield an identical Query.
-   * Used mainly for debugging purposes.
+   * Used mainly for debugging purposes. The query string of a frozen query is computed only once.
    * 
    * @return The query string.
    */
   public String toQueryString() {
+    if (frozen) {
+      String result = frozenQueryString;
+      if (result == null) {
+        result = createQueryString();
+        frozenQueryString = result;
+      }
+      return result;
+    }
+    return createQueryString();
+  }
+
+  /**
+   * Creates the query string of this query. See {@link #toQueryString()}.
+   *
+   * @return The query string.
+   */
+  private String createQueryString() {
     List<String> clauses = Lists.newArrayList();
     if (hasSelection()) {               
       clauses.add("SELECT " + selection.toQueryString());
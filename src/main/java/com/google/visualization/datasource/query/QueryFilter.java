@@ -40,6 +40,27 @@ public abstract class QueryFilter {
    */
   public abstract boolean isMatch(DataTable table, TableRow row);
 
+  /**
+   * Compiles this filter against the given table, so that rows of the table can be matched
+   * without resolving columns, checking types or parsing patterns for every row. The returned
+   * predicate decides on the same rows as {@link #isMatch(DataTable, TableRow)}.
+   *
+   * This implementation calls isMatch() for every row. Subclasses should override it with a
+   * compiled form of the filter.
+   *
+   * @param table The table whose rows will be matched.
+   *
+   * @return A predicate on the indices of the rows of the given table.
+   */
+  public RowPredicate compile(final DataTable table) {
+    return new RowPredicate() {
+      @Override
+      public boolean isMatch(int rowIndex) {
+        return QueryFilter.this.isMatch(table, table.getRow(rowIndex));
+      }
+    };
+  }
+
   /**
    * Returns all the columnIds this filter uses.
    *
@@ -0,0 +1,36 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query;
+
+/**
+ * A filter that has been compiled against a specific table, see
+ * {@link QueryFilter#compile(com.google.visualization.datasource.datatable.DataTable)}.
+ * Column indices, column types and patterns are resolved once, when the filter is compiled, and
+ * not for every row.
+ *
+ * A row predicate is only valid as long as the columns of the table it was compiled against do
+ * not change.
+ */
+public interface RowPredicate {
+
+  /**
+   * Checks if the row at the given index should be part of the result set.
+   *
+   * @param rowIndex The index of the row in the table this predicate was compiled against.
+   *
+   * @return true if this row should be part of the result set, false otherwise.
+   */
+  public boolean isMatch(int rowIndex);
+}
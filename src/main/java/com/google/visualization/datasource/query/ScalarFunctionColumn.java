@@ -138,16 +138,43 @@ public class ScalarFunctionColumn extends AbstractColumn {
   public TableCell getCell(ColumnLookup lookup, TableRow row) {
     if (lookup.containsColumn(this)) {
       int columnIndex = lookup.getColumnIndex(this);
-      return row.getCells().get(columnIndex);
+      return row.getCell(columnIndex);
     }
-    // If the given column lookup does not contain this column, get the inner
-    // column values of this column and use them as parameters to evaluate the
-    // scalar function value in the given row.
+    return new TableCell(evaluate(lookup, row));
+  }
+
+  /**
+   * Returns the value of the column in the given row. Same as
+   * getCell(lookup, row).getValue(), without creating a cell for a calculated value.
+   *
+   * @param row The given row.
+   * @param lookup The column lookup.
+   *
+   * @return The value of the column in the given row.
+   */
+  @Override
+  public Value getValue(ColumnLookup lookup, TableRow row) {
+    if (lookup.containsColumn(this)) {
+      return row.getCell(lookup.getColumnIndex(this)).getValue();
+    }
+    return evaluate(lookup, row);
+  }
+
+  /**
+   * Evaluates the scalar function in the given row. The inner column values of this column are
+   * used as parameters to evaluate the scalar function.
+   *
+   * @param row The given row.
+   * @param lookup The column lookup.
+   *
+   * @return The value of the scalar function in the given row.
+   */
+  private Value evaluate(ColumnLookup lookup, TableRow row) {
     List<Value> functionParameters = Lists.newArrayListWithCapacity(columns.size());
     for (AbstractColumn column : columns) {
       functionParameters.add(column.getValue(lookup, row));
     }
-    return new TableCell(scalarFunction.evaluate(functionParameters));
+    return scalarFunction.evaluate(functionParameters);
   }
 
   /**
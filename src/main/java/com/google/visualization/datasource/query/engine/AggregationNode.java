@@ -31,7 +31,11 @@ import java.util.Set;
  * in the child node. See {@link AggregationTree} for more details.
  *
  * @author Yoav G.
+ *
+ * @deprecated As of version 1.1.3, the query engine groups rows with a hash table and no longer
+ *     uses aggregation trees. It will be removed in a future version.
  */
+@Deprecated
 public class AggregationNode {
 
   /**
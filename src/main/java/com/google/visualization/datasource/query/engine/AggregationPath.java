@@ -14,7 +14,6 @@
 
 package com.google.visualization.datasource.query.engine;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.visualization.datasource.datatable.value.Value;
 
@@ -36,11 +35,17 @@ public class AggregationPath {
    */
   private List<Value> values;
 
+  /**
+   * A read-only view of the values, returned by {@link #getValues()}.
+   */
+  private List<Value> valuesView;
+
   /**
    * Construct an empty path.
    */
   public AggregationPath() {
     values = Lists.newArrayList();
+    valuesView = Collections.unmodifiableList(values);
   }
 
   /**
@@ -53,13 +58,12 @@ public class AggregationPath {
   }
 
   /**
-   * Returns the list of values. This list is immutable.
+   * Returns the list of values. This list is a read-only view of the values of this path.
    *
-   * @return The list of values. This list is immutable.
+   * @return The list of values. This list is unmodifiable.
    */
-
   public List<Value> getValues() {
-    return ImmutableList.copyOf(values);
+    return valuesView;
   }
 
   /**
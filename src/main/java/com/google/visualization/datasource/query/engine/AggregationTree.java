@@ -38,7 +38,11 @@ import java.util.Set;
  * for the entire table. 
  *
  * @author Yoav G.
+ *
+ * @deprecated As of version 1.1.3, the query engine groups rows with a hash table and no longer
+ *     uses aggregation trees. It will be removed in a future version.
  */
+@Deprecated
 public class AggregationTree {
 
   /**
@@ -0,0 +1,36 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+/**
+ * A listener that is told how long each stage of serving a request took, and how many rows and
+ * columns went in and out of it. See {@link ExecutionStage} for the reported stages.
+ *
+ * A listener is registered in the {@link ExecutionOptions} of a query, and, for a servlet, by
+ * overriding <code>DataSourceServlet.getExecutionOptions()</code>. When no listener is
+ * registered, nothing is measured.
+ *
+ * A listener is called on the thread that executed the stage, right after the stage, and may be
+ * called by many requests concurrently, so it must be thread-safe and fast.
+ */
+public interface ExecutionListener {
+
+  /**
+   * Called when a stage has completed.
+   *
+   * @param metrics The measurements of the stage.
+   */
+  public void stageCompleted(StageMetrics metrics);
+}
@@ -0,0 +1,177 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Options for executing a query with the {@link QueryEngine}.
+ *
+ * By default queries are executed on the calling thread. A fork-join pool can be given to execute
+ * the filter, the grouping and the selection of large tables in parallel. The rows are then split
+ * into partitions of a fixed size, each partition is processed by a task in the pool, and the
+ * partial results are merged in the order of the partitions. The output therefore has the same
+ * rows, in the same order, as a serial execution. The partitions do not depend on the number of
+ * threads in the pool, so repeated executions return identical results. Sums and averages of
+ * numbers are the exception: each partition adds up its own values, and the partition sums are
+ * then added in the order of the partitions. A parallel sum can therefore differ from a serial
+ * sum, which adds the values in row order, in the last bits.
+ *
+ * Tables with fewer rows than the parallel threshold are always executed serially, because the
+ * cost of splitting and merging outweighs the gain for them.
+ *
+ * An {@link ExecutionListener} can be given to measure each stage of the execution, see
+ * {@link #withListener(ExecutionListener)}.
+ */
+public class ExecutionOptions {
+
+  /**
+   * The default minimal number of rows for which a query is executed in parallel.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 100000;
+
+  /**
+   * The default number of rows in a partition.
+   */
+  public static final int DEFAULT_PARTITION_SIZE = 32768;
+
+  /**
+   * Options for executing queries serially, on the calling thread.
+   */
+  public static final ExecutionOptions SERIAL = new ExecutionOptions(null, Integer.MAX_VALUE,
+      DEFAULT_PARTITION_SIZE);
+
+  /**
+   * The pool that executes the partitions, or null to execute queries serially.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * The minimal number of rows for which a query is executed in parallel.
+   */
+  private final int parallelThreshold;
+
+  /**
+   * The number of rows in a partition.
+   */
+  private final int partitionSize;
+
+  /**
+   * The listener that is told about each execution stage, or null.
+   */
+  private final ExecutionListener listener;
+
+  /**
+   * Creates options for executing queries in parallel on the given pool, with the default
+   * threshold and partition size.
+   *
+   * @param pool The pool that executes the partitions.
+   */
+  public ExecutionOptions(ForkJoinPool pool) {
+    this(pool, DEFAULT_PARALLEL_THRESHOLD, DEFAULT_PARTITION_SIZE);
+  }
+
+  /**
+   * Creates options for executing queries in parallel on the given pool.
+   *
+   * @param pool The pool that executes the partitions, or null to execute queries serially.
+   * @param parallelThreshold The minimal number of rows for which a query is executed in
+   *     parallel.
+   * @param partitionSize The number of rows in a partition.
+   */
+  public ExecutionOptions(ForkJoinPool pool, int parallelThreshold, int partitionSize) {
+    this(pool, parallelThreshold, partitionSize, null);
+  }
+
+  /**
+   * Creates options for executing queries in parallel on the given pool, and reporting each
+   * execution stage to the given listener.
+   *
+   * @param pool The pool that executes the partitions, or null to execute queries serially.
+   * @param parallelThreshold The minimal number of rows for which a query is executed in
+   *     parallel.
+   * @param partitionSize The number of rows in a partition.
+   * @param listener The listener that is told about each execution stage, or null.
+   */
+  public ExecutionOptions(ForkJoinPool pool, int parallelThreshold, int partitionSize,
+      ExecutionListener listener) {
+    if (partitionSize < 1) {
+      throw new IllegalArgumentException("Partition size must be positive: " + partitionSize);
+    }
+    this.pool = pool;
+    this.parallelThreshold = parallelThreshold;
+    this.partitionSize = partitionSize;
+    this.listener = listener;
+  }
+
+  /**
+   * Returns a copy of these options that reports each execution stage to the given listener.
+   *
+   * @param listener The listener that is told about each execution stage, or null.
+   *
+   * @return The new options.
+   */
+  public ExecutionOptions withListener(ExecutionListener listener) {
+    return new ExecutionOptions(pool, parallelThreshold, partitionSize, listener);
+  }
+
+  /**
+   * Returns the pool that executes the partitions, or null if queries are executed serially.
+   *
+   * @return The pool that executes the partitions.
+   */
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  /**
+   * Returns the minimal number of rows for which a query is executed in parallel.
+   *
+   * @return The minimal number of rows for which a query is executed in parallel.
+   */
+  public int getParallelThreshold() {
+    return parallelThreshold;
+  }
+
+  /**
+   * Returns the number of rows in a partition.
+   *
+   * @return The number of rows in a partition.
+   */
+  public int getPartitionSize() {
+    return partitionSize;
+  }
+
+  /**
+   * Returns the listener that is told about each execution stage.
+   *
+   * @return The listener, or null if execution stages are not measured.
+   */
+  public ExecutionListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Returns true if a table with the given number of rows should be processed in parallel.
+   *
+   * @param numberOfRows The number of rows.
+   *
+   * @return True if the table should be processed in parallel.
+   */
+  public boolean isParallel(int numberOfRows) {
+    return (pool != null) && (numberOfRows >= parallelThreshold)
+        && (numberOfRows > partitionSize);
+  }
+}
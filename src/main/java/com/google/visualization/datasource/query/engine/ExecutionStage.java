@@ -0,0 +1,69 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+/**
+ * The stages of serving a data source request that are reported to an
+ * {@link ExecutionListener}.
+ */
+public enum ExecutionStage {
+
+  /**
+   * Splitting the query into a data source query and a completion query.
+   */
+  SPLIT,
+
+  /**
+   * Generating the data table by the data table generator.
+   */
+  GENERATE,
+
+  /**
+   * The filter (WHERE) stage of the query engine.
+   */
+  FILTER,
+
+  /**
+   * The grouping and pivoting (GROUP BY, PIVOT) stage of the query engine.
+   */
+  GROUPING,
+
+  /**
+   * The sort (ORDER BY) stage of the query engine, including the selection of the top rows of a
+   * sorted and limited query.
+   */
+  SORT,
+
+  /**
+   * The skipping, pagination and selection (SKIPPING, LIMIT, OFFSET, SELECT) stages of the query
+   * engine, which run as a single pass over the rows.
+   */
+  SELECTION,
+
+  /**
+   * The labels (LABEL) stage of the query engine.
+   */
+  LABELS,
+
+  /**
+   * The formatting (FORMAT) stage of the query engine.
+   */
+  FORMATTING,
+
+  /**
+   * Rendering the response.
+   */
+  RENDER
+}
@@ -0,0 +1,590 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.TableRow;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.Value;
+import com.google.visualization.datasource.datatable.value.ValueType;
+import com.google.visualization.datasource.query.AggregationType;
+import com.google.visualization.datasource.query.ColumnLookup;
+import com.google.visualization.datasource.query.DataTableColumnLookup;
+import com.google.visualization.datasource.query.ScalarFunctionColumn;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aggregates a DataTable according to the groups of rows that share the values of an ordered list
+ * of group-by columns.
+ *
+ * The groups are kept in a single open addressing hash table keyed on the list of group-by
+ * values, and the aggregations of each group are kept in primitive arrays indexed by the group:
+ * the sum, minimum and maximum of number columns as doubles, and the count of non null values as
+ * a long. The values are read straight from the rows of the table, and group-by
+ * columns that are scalar function columns are calculated on each row, so the table is not
+ * copied. Apart from the group-by values of each new group, nothing is allocated per row.
+ *
+ * The groups are numbered in the order they first appear in the table.
+ *
+ * The aggregations are mergeable: a table can be aggregated by several aggregators, each over a
+ * different range of rows, and the aggregators merged in the order of the ranges. See
+ * {@link #aggregate}.
+ */
+/* package */ class HashTableAggregator {
+
+  /**
+   * The initial number of groups the arrays can hold.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * The number of group-by columns.
+   */
+  private final int keyWidth;
+
+  /**
+   * The ids of the columns to aggregate.
+   */
+  private final List<String> aggregateColumns;
+
+  /**
+   * The aggregations of each of the aggregate columns, in the same order.
+   */
+  private final Accumulator[] accumulators;
+
+  /**
+   * The group-by values of all groups, keyWidth values per group.
+   */
+  private Value[] keys;
+
+  /**
+   * The hash code of the group-by values of each group.
+   */
+  private int[] keyHashes;
+
+  /**
+   * The hash table. Each slot holds a group index plus one, or 0 if the slot is empty.
+   * The length is a power of two.
+   */
+  private int[] slots;
+
+  /**
+   * The number of groups.
+   */
+  private int numberOfGroups = 0;
+
+  /**
+   * Aggregates the table, in parallel if the execution options allow it. When it is done in
+   * parallel, each partition of the rows is aggregated separately and the partial aggregations are
+   * merged in the order of the partitions, so the groups are numbered as in a serial
+   * aggregation.
+   *
+   * @param groupByColumns An ordered list of ids of columns to group by.
+   * @param scalarFunctionColumns The scalar function columns that are grouped by.
+   * @param aggregateColumns The ids of the columns to aggregate, without duplicates.
+   * @param table The table.
+   * @param options The execution options.
+   *
+   * @return The aggregator of the whole table.
+   */
+  public static HashTableAggregator aggregate(final List<String> groupByColumns,
+      final List<ScalarFunctionColumn> scalarFunctionColumns,
+      final List<String> aggregateColumns, final DataTable table, ExecutionOptions options) {
+    List<HashTableAggregator> partitions = RowPartitions.process(options,
+        table.getNumberOfRows(), new RowPartitions.PartitionTask<HashTableAggregator>() {
+          @Override
+          public HashTableAggregator process(int fromIndex, int toIndex) {
+            return new HashTableAggregator(groupByColumns, scalarFunctionColumns,
+                aggregateColumns, table, fromIndex, toIndex);
+          }
+        });
+    HashTableAggregator result = partitions.get(0);
+    for (int i = 1; i < partitions.size(); i++) {
+      result.merge(partitions.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Constructs a hash table aggregator and aggregates the table.
+   *
+   * @param groupByColumns An ordered list of ids of columns to group by. Each id is either the id
+   *     of a column of the table or the id of one of the given scalar function columns.
+   * @param scalarFunctionColumns The scalar function columns that are grouped by, and that are
+   *     not columns of the table.
+   * @param aggregateColumns The ids of the columns to aggregate, without duplicates.
+   * @param table The table.
+   */
+  public HashTableAggregator(List<String> groupByColumns,
+      List<ScalarFunctionColumn> scalarFunctionColumns, List<String> aggregateColumns,
+      DataTable table) {
+    this(groupByColumns, scalarFunctionColumns, aggregateColumns, table, 0,
+        table.getNumberOfRows());
+  }
+
+  /**
+   * Constructs a hash table aggregator and aggregates a range of rows of the table.
+   *
+   * @param groupByColumns An ordered list of ids of columns to group by. Each id is either the id
+   *     of a column of the table or the id of one of the given scalar function columns.
+   * @param scalarFunctionColumns The scalar function columns that are grouped by, and that are
+   *     not columns of the table.
+   * @param aggregateColumns The ids of the columns to aggregate, without duplicates.
+   * @param table The table.
+   * @param fromIndex The index of the first row to aggregate, inclusive.
+   * @param toIndex The index of the last row to aggregate, exclusive.
+   */
+  public HashTableAggregator(List<String> groupByColumns,
+      List<ScalarFunctionColumn> scalarFunctionColumns, List<String> aggregateColumns,
+      DataTable table, int fromIndex, int toIndex) {
+    this.keyWidth = groupByColumns.size();
+    this.aggregateColumns = aggregateColumns;
+
+    // Resolve the group-by columns once. A column index of -1 means the value is calculated by
+    // the scalar function column with the same index.
+    int[] keyColumnIndices = new int[keyWidth];
+    ScalarFunctionColumn[] keyFunctions = new ScalarFunctionColumn[keyWidth];
+    for (int i = 0; i < keyWidth; i++) {
+      String columnId = groupByColumns.get(i);
+      keyColumnIndices[i] = -1;
+      for (ScalarFunctionColumn column : scalarFunctionColumns) {
+        if (column.getId().equals(columnId)) {
+          keyFunctions[i] = column;
+        }
+      }
+      if (keyFunctions[i] == null) {
+        keyColumnIndices[i] = table.getColumnIndex(columnId);
+      }
+    }
+    int[] aggregateColumnIndices = new int[aggregateColumns.size()];
+    accumulators = new Accumulator[aggregateColumns.size()];
+    for (int i = 0; i < aggregateColumnIndices.length; i++) {
+      aggregateColumnIndices[i] = table.getColumnIndex(aggregateColumns.get(i));
+      ValueType type = table.getColumnDescription(aggregateColumnIndices[i]).getType();
+      accumulators[i] = (type == ValueType.NUMBER)
+          ? new NumberAccumulator() : new ValueAccumulator(type);
+    }
+
+    keys = new Value[INITIAL_CAPACITY * keyWidth];
+    keyHashes = new int[INITIAL_CAPACITY];
+    slots = new int[INITIAL_CAPACITY * 2];
+    for (Accumulator accumulator : accumulators) {
+      accumulator.resize(INITIAL_CAPACITY);
+    }
+
+    ColumnLookup lookup = new DataTableColumnLookup(table);
+    Value[] rowKey = new Value[keyWidth];
+    for (int rowIndex = fromIndex; rowIndex < toIndex; rowIndex++) {
+      TableRow row = table.getRow(rowIndex);
+      for (int i = 0; i < keyWidth; i++) {
+        rowKey[i] = (keyFunctions[i] == null) ? row.getCell(keyColumnIndices[i]).getValue()
+            : keyFunctions[i].getValue(lookup, row);
+      }
+      int group = findOrAddGroup(rowKey);
+      for (int i = 0; i < accumulators.length; i++) {
+        accumulators[i].aggregate(group, row.getCell(aggregateColumnIndices[i]).getValue());
+      }
+    }
+  }
+
+  /**
+   * Returns the number of groups.
+   *
+   * @return The number of groups.
+   */
+  public int getNumberOfGroups() {
+    return numberOfGroups;
+  }
+
+  /**
+   * Returns the group-by values of a group, in the order of the group-by columns.
+   *
+   * @param group The group index.
+   *
+   * @return The group-by values of the group.
+   */
+  public List<Value> getGroupValues(int group) {
+    return Arrays.asList(Arrays.copyOfRange(keys, group * keyWidth, (group + 1) * keyWidth));
+  }
+
+  /**
+   * Returns the aggregation value of a specific column and type in a group.
+   *
+   * @param group The group index.
+   * @param columnId The requested column id.
+   * @param type The requested aggregation type.
+   *
+   * @return The aggregation value.
+   *
+   * @throws IllegalArgumentException Thrown if the column is not aggregated.
+   */
+  public Value getAggregationValue(int group, String columnId, AggregationType type) {
+    int index = aggregateColumns.indexOf(columnId);
+    if (index == -1) {
+      throw new IllegalArgumentException("Column " + columnId + " is not aggregated");
+    }
+    return accumulators[index].getValue(group, type);
+  }
+
+  /**
+   * Merges the groups and aggregations of another aggregator into this one. The other aggregator
+   * must group by and aggregate the same columns, and should have aggregated rows that come after
+   * the rows aggregated by this one. Groups that are new to this aggregator are numbered in the
+   * order of the other aggregator. The sums of the other aggregator are added to the sums of this
+   * one, so they may differ in the last bits from sums of all the values in row order.
+   *
+   * @param other The aggregator to merge.
+   */
+  public void merge(HashTableAggregator other) {
+    Value[] key = new Value[keyWidth];
+    for (int otherGroup = 0; otherGroup < other.numberOfGroups; otherGroup++) {
+      System.arraycopy(other.keys, otherGroup * keyWidth, key, 0, keyWidth);
+      int group = findOrAddGroup(key);
+      for (int i = 0; i < accumulators.length; i++) {
+        accumulators[i].merge(group, other.accumulators[i], otherGroup);
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the group with the given group-by values, adding a new group if there is
+   * none. The given array is copied when a group is added, so it can be reused.
+   *
+   * @param rowKey The group-by values.
+   *
+   * @return The group index.
+   */
+  private int findOrAddGroup(Value[] rowKey) {
+    int hash = 1;
+    for (Value value : rowKey) {
+      hash = 31 * hash + value.hashCode();
+    }
+    int mask = slots.length - 1;
+    int slot = spread(hash) & mask;
+    while (slots[slot] != 0) {
+      int group = slots[slot] - 1;
+      if ((keyHashes[group] == hash) && isKeyEqual(group, rowKey)) {
+        return group;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int group = numberOfGroups++;
+    if (group == keyHashes.length) {
+      resize(keyHashes.length * 2);
+      mask = slots.length - 1;
+      slot = spread(hash) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+    }
+    System.arraycopy(rowKey, 0, keys, group * keyWidth, keyWidth);
+    keyHashes[group] = hash;
+    slots[slot] = group + 1;
+    return group;
+  }
+
+  /**
+   * Returns true if the group-by values of the given group equal the given values.
+   *
+   * @param group The group index.
+   * @param rowKey The group-by values.
+   *
+   * @return True if the group-by values are equal.
+   */
+  private boolean isKeyEqual(int group, Value[] rowKey) {
+    int offset = group * keyWidth;
+    for (int i = 0; i < keyWidth; i++) {
+      if (!keys[offset + i].equals(rowKey[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Grows the arrays to hold the given number of groups, and rebuilds the hash table with twice
+   * as many slots, so that it is never more than half full.
+   *
+   * @param capacity The new number of groups the arrays can hold.
+   */
+  private void resize(int capacity) {
+    keys = Arrays.copyOf(keys, capacity * keyWidth);
+    keyHashes = Arrays.copyOf(keyHashes, capacity);
+    for (Accumulator accumulator : accumulators) {
+      accumulator.resize(capacity);
+    }
+    slots = new int[capacity * 2];
+    int mask = slots.length - 1;
+    for (int group = 0; group < numberOfGroups - 1; group++) {
+      int slot = spread(keyHashes[group]) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = group + 1;
+    }
+  }
+
+  /**
+   * Spreads the bits of a hash code, so that hash codes that differ only in their high bits do
+   * not fall into the same slots.
+   *
+   * @param hash The hash code.
+   *
+   * @return The spread hash code.
+   */
+  private static int spread(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * The aggregations of a single column in all groups.
+   */
+  private abstract static class Accumulator {
+
+    /**
+     * The number of non null values in each group.
+     */
+    protected long[] counts = new long[0];
+
+    /**
+     * Grows the arrays to hold the given number of groups.
+     *
+     * @param capacity The new number of groups the arrays can hold.
+     */
+    void resize(int capacity) {
+      counts = Arrays.copyOf(counts, capacity);
+    }
+
+    /**
+     * Aggregates a value into a group.
+     *
+     * @param group The group index.
+     * @param value The value.
+     */
+    abstract void aggregate(int group, Value value);
+
+    /**
+     * Merges the aggregations of a group of another accumulator of the same type into a group.
+     * The values of the other accumulator are treated as if they came after the values already
+     * aggregated, so that the minimum and maximum are the same as if all values were aggregated
+     * by this accumulator.
+     *
+     * @param group The group index.
+     * @param other The other accumulator.
+     * @param otherGroup The group index in the other accumulator.
+     */
+    abstract void merge(int group, Accumulator other, int otherGroup);
+
+    /**
+     * Returns an aggregation value of a group. The count is never null. The other aggregations
+     * are null values of the column type when the group has no non null values.
+     *
+     * @param group The group index.
+     * @param type The aggregation type.
+     *
+     * @return The aggregation value.
+     */
+    abstract Value getValue(int group, AggregationType type);
+  }
+
+  /**
+   * The aggregations of a number column, kept as primitive doubles.
+   */
+  private static class NumberAccumulator extends Accumulator {
+
+    /**
+     * The sum of the values in each group.
+     */
+    private double[] sums = new double[0];
+
+    /**
+     * The minimum value in each group.
+     */
+    private double[] mins = new double[0];
+
+    /**
+     * The maximum value in each group.
+     */
+    private double[] maxs = new double[0];
+
+    @Override
+    void resize(int capacity) {
+      super.resize(capacity);
+      sums = Arrays.copyOf(sums, capacity);
+      mins = Arrays.copyOf(mins, capacity);
+      maxs = Arrays.copyOf(maxs, capacity);
+    }
+
+    @Override
+    void aggregate(int group, Value value) {
+      if (value.isNull()) {
+        return;
+      }
+      double number = ((NumberValue) value).getValue();
+      sums[group] += number;
+      // Compare as NumberValue.compareTo() does, and keep the first of equal values.
+      if (counts[group]++ == 0) {
+        mins[group] = maxs[group] = number;
+      } else {
+        if (Double.compare(number, maxs[group]) > 0) {
+          maxs[group] = number;
+        }
+        if (Double.compare(number, mins[group]) < 0) {
+          mins[group] = number;
+        }
+      }
+    }
+
+    @Override
+    void merge(int group, Accumulator other, int otherGroup) {
+      NumberAccumulator otherNumbers = (NumberAccumulator) other;
+      long otherCount = otherNumbers.counts[otherGroup];
+      if (otherCount == 0) {
+        return;
+      }
+      sums[group] += otherNumbers.sums[otherGroup];
+      if (counts[group] == 0) {
+        mins[group] = otherNumbers.mins[otherGroup];
+        maxs[group] = otherNumbers.maxs[otherGroup];
+      } else {
+        if (Double.compare(otherNumbers.maxs[otherGroup], maxs[group]) > 0) {
+          maxs[group] = otherNumbers.maxs[otherGroup];
+        }
+        if (Double.compare(otherNumbers.mins[otherGroup], mins[group]) < 0) {
+          mins[group] = otherNumbers.mins[otherGroup];
+        }
+      }
+      counts[group] += otherCount;
+    }
+
+    @Override
+    Value getValue(int group, AggregationType type) {
+      long count = counts[group];
+      switch (type) {
+        case AVG:
+          return (count != 0) ? new NumberValue(sums[group] / count)
+              : NumberValue.getNullValue();
+        case COUNT:
+          return new NumberValue(count);
+        case MAX:
+          return (count != 0) ? new NumberValue(maxs[group]) : NumberValue.getNullValue();
+        case MIN:
+          return (count != 0) ? new NumberValue(mins[group]) : NumberValue.getNullValue();
+        case SUM:
+          return (count != 0) ? new NumberValue(sums[group]) : NumberValue.getNullValue();
+        default:
+          throw new RuntimeException("Invalid AggregationType");
+      }
+    }
+  }
+
+  /**
+   * The aggregations of a column that is not a number column, i.e., the count, minimum and
+   * maximum values.
+   */
+  private static class ValueAccumulator extends Accumulator {
+
+    /**
+     * The type of the values.
+     */
+    private final ValueType valueType;
+
+    /**
+     * The minimum value in each group.
+     */
+    private Value[] mins = new Value[0];
+
+    /**
+     * The maximum value in each group.
+     */
+    private Value[] maxs = new Value[0];
+
+    /**
+     * Creates an accumulator of values of the given type.
+     *
+     * @param valueType The type of the values.
+     */
+    ValueAccumulator(ValueType valueType) {
+      this.valueType = valueType;
+    }
+
+    @Override
+    void resize(int capacity) {
+      super.resize(capacity);
+      mins = Arrays.copyOf(mins, capacity);
+      maxs = Arrays.copyOf(maxs, capacity);
+    }
+
+    @Override
+    void aggregate(int group, Value value) {
+      if (value.isNull()) {
+        return;
+      }
+      if (counts[group]++ == 0) {
+        mins[group] = maxs[group] = value;
+      } else {
+        if (maxs[group].compareTo(value) < 0) {
+          maxs[group] = value;
+        }
+        if (mins[group].compareTo(value) > 0) {
+          mins[group] = value;
+        }
+      }
+    }
+
+    @Override
+    void merge(int group, Accumulator other, int otherGroup) {
+      ValueAccumulator otherValues = (ValueAccumulator) other;
+      long otherCount = otherValues.counts[otherGroup];
+      if (otherCount == 0) {
+        return;
+      }
+      if (counts[group] == 0) {
+        mins[group] = otherValues.mins[otherGroup];
+        maxs[group] = otherValues.maxs[otherGroup];
+      } else {
+        if (maxs[group].compareTo(otherValues.maxs[otherGroup]) < 0) {
+          maxs[group] = otherValues.maxs[otherGroup];
+        }
+        if (mins[group].compareTo(otherValues.mins[otherGroup]) > 0) {
+          mins[group] = otherValues.mins[otherGroup];
+        }
+      }
+      counts[group] += otherCount;
+    }
+
+    @Override
+    Value getValue(int group, AggregationType type) {
+      long count = counts[group];
+      switch (type) {
+        case COUNT:
+          return new NumberValue(count);
+        case MAX:
+          return (count != 0) ? maxs[group] : Value.getNullValueFromValueType(valueType);
+        case MIN:
+          return (count != 0) ? mins[group] : Value.getNullValueFromValueType(valueType);
+        case AVG:
+        case SUM:
+          throw new UnsupportedOperationException();
+        default:
+          throw new RuntimeException("Invalid AggregationType");
+      }
+    }
+  }
+}
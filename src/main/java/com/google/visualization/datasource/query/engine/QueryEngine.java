@@ -14,6 +14,7 @@
 
 package com.google.visualization.datasource.query.engine;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -21,7 +22,9 @@ import com.google.visualization.datasource.base.ReasonType;
 import com.google.visualization.datasource.base.TypeMismatchException;
 import com.google.visualization.datasource.base.Warning;
 import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.ColumnarDataTable;
 import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.DataTableBuilder;
 import com.google.visualization.datasource.datatable.TableCell;
 import com.google.visualization.datasource.datatable.TableRow;
 import com.google.visualization.datasource.datatable.ValueFormatter;
@@ -32,20 +35,19 @@ import com.google.visualization.datasource.query.ColumnLookup;
 import com.google.visualization.datasource.query.DataTableColumnLookup;
 import com.google.visualization.datasource.query.GenericColumnLookup;
 import com.google.visualization.datasource.query.Query;
-import com.google.visualization.datasource.query.QueryFilter;
 import com.google.visualization.datasource.query.QueryFormat;
 import com.google.visualization.datasource.query.QueryGroup;
 import com.google.visualization.datasource.query.QueryLabels;
 import com.google.visualization.datasource.query.QueryPivot;
 import com.google.visualization.datasource.query.QuerySelection;
 import com.google.visualization.datasource.query.QuerySort;
+import com.google.visualization.datasource.query.RowPredicate;
 import com.google.visualization.datasource.query.ScalarFunctionColumn;
 import com.google.visualization.datasource.query.SimpleColumn;
 
 import com.ibm.icu.util.ULocale;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -104,7 +106,7 @@ public final class QueryEngine {
   /**
    * Returns the data that is the result of executing the query. The query is validated against the
    * data table before execution and an InvalidQueryException is thrown if it is invalid.
-   * This function may change the given DataTable.
+   * This function may change the given DataTable, unless it is a {@link ColumnarDataTable}.
    *
    * @param query The query.
    * @param table The table to execute the query on.
@@ -112,6 +114,25 @@ public final class QueryEngine {
    * @return The data that is the result of executing the query.
    */
   public static DataTable executeQuery(Query query, DataTable table, ULocale locale) {
+    return executeQuery(query, table, locale, ExecutionOptions.SERIAL);
+  }
+
+  /**
+   * Returns the data that is the result of executing the query, using the given execution
+   * options, e.g., to execute the query in parallel. The result is the same as the result of
+   * {@link #executeQuery(Query, DataTable, ULocale)}, except as noted in
+   * {@link ExecutionOptions}.
+   * This function may change the given DataTable, unless it is a {@link ColumnarDataTable}.
+   *
+   * @param query The query.
+   * @param table The table to execute the query on.
+   * @param locale The user locale.
+   * @param options The execution options.
+   *
+   * @return The data that is the result of executing the query.
+   */
+  public static DataTable executeQuery(Query query, DataTable table, ULocale locale,
+      ExecutionOptions options) {
     ColumnIndices columnIndices = new ColumnIndices();
     List<ColumnDescription> columnsDescription = table.getColumnDescriptions();
     for (int i = 0; i < columnsDescription.size(); i++) {
@@ -123,19 +144,83 @@ public final class QueryEngine {
     TreeMap<List<Value>, ColumnLookup> columnLookups =
         new TreeMap<List<Value>, ColumnLookup>(GroupingComparators.VALUE_LIST_COMPARATOR);
     try {
-      table = performFilter(table, query);
-      table = performGroupingAndPivoting(table, query, columnIndices, columnLookups);
-      table = performSort(table, query, locale);
-      table = performSkipping(table, query);
-      table = performPagination(table, query);
+      // The rows flow through the filter, sort, skipping, pagination and selection stages as a
+      // list, and only the final table is built. Grouping is the only stage that needs the rows
+      // in a table.
+      // Each stage is measured only if the options have a listener, in which case the timer is
+      // not null.
+      List<TableRow> rows;
+      boolean rowsInTable;
+      StageTimer timer;
+      if (table instanceof ColumnarDataTable) {
+        timer = StageTimer.start(options, table.getNumberOfRows(), table.getNumberOfColumns());
+        ColumnarDataTable columnarTable = (ColumnarDataTable) table;
+        RowPredicate filter = query.hasFilter() ? query.getFilter().compile(table) : null;
+        table = createColumnarResultTable(columnarTable);
+        rows = getMatchingRows(columnarTable, filter, options);
+        rowsInTable = false;
+        stopTimer(timer, ExecutionStage.FILTER, rows.size(), table.getNumberOfColumns());
+      } else if (query.hasFilter()) {
+        timer = StageTimer.start(options, table.getNumberOfRows(), table.getNumberOfColumns());
+        rows = getMatchingRows(table, query.getFilter().compile(table), options);
+        rowsInTable = false;
+        stopTimer(timer, ExecutionStage.FILTER, rows.size(), table.getNumberOfColumns());
+      } else {
+        rows = table.getRows();
+        rowsInTable = true;
+      }
 
+      if (queryHasAggregation(query) && !rows.isEmpty()) {
+        timer = StageTimer.start(options, rows.size(), table.getNumberOfColumns());
+        if (!rowsInTable) {
+          new DataTableBuilder(table.getColumnDescriptions(), rows.size()).addRows(rows)
+              .buildInto(table);
+        }
+        table = performGroupingAndPivoting(table, query, columnIndices, columnLookups, options);
+        rows = table.getRows();
+        rowsInTable = true;
+        stopTimer(timer, ExecutionStage.GROUPING, rows.size(), table.getNumberOfColumns());
+      }
+
+      boolean topRowsSelected = false;
+      if (query.hasSort()) {
+        timer = StageTimer.start(options, rows.size(), table.getNumberOfColumns());
+        if (isTopRowsQuery(query)
+            && ((long) query.getRowOffset() + query.getRowLimit() < rows.size())) {
+          rows = selectTopRows(table, rows, query, locale);
+          rowsInTable = false;
+          topRowsSelected = true;
+        } else {
+          sortRows(table, rows, query, locale, options);
+          if (rowsInTable) {
+            // The rows of the table were sorted in place.
+            table.invalidateSignature();
+          }
+        }
+        stopTimer(timer, ExecutionStage.SORT, rows.size(), table.getNumberOfColumns());
+      }
+
+      timer = StageTimer.start(options, rows.size(), table.getNumberOfColumns());
       AtomicReference<ColumnIndices> columnIndicesReference =
         new AtomicReference<ColumnIndices>(columnIndices);
-      table = performSelection(table, query, columnIndicesReference, columnLookups);
+      table = performRowStages(table, rows, rowsInTable, topRowsSelected, query,
+          columnIndicesReference, columnLookups, options);
       columnIndices = columnIndicesReference.get();
-
-      table = performLabels(table, query, columnIndices);
-      table = performFormatting(table, query, columnIndices, locale);
+      stopTimer(timer, ExecutionStage.SELECTION, table.getNumberOfRows(),
+          table.getNumberOfColumns());
+
+      if (query.hasLabels()) {
+        timer = StageTimer.start(options, table.getNumberOfRows(), table.getNumberOfColumns());
+        table = performLabels(table, query, columnIndices);
+        stopTimer(timer, ExecutionStage.LABELS, table.getNumberOfRows(),
+            table.getNumberOfColumns());
+      }
+      if (query.hasUserFormatOptions()) {
+        timer = StageTimer.start(options, table.getNumberOfRows(), table.getNumberOfColumns());
+        table = performFormatting(table, query, columnIndices, locale);
+        stopTimer(timer, ExecutionStage.FORMATTING, table.getNumberOfRows(),
+            table.getNumberOfColumns());
+      }
     } catch (TypeMismatchException e) {
       // Should not happen.
     }
@@ -143,88 +228,169 @@ public final class QueryEngine {
   }
 
   /**
-   * Returns a table consisted of a subset of rows of the input table. 
-   * We select the first out of every k rows in the table according to the 
-   * skipping value in the query.
-   * If there is no need to do anything, returns the original table.
-   * 
-   * @param table The original table.
-   * @param query The query.
+   * Stops the given timer, if there is one, and reports the stage to its listener.
    *
-   * @return The skipped table, or the original if no skipping is needed. 
+   * @param timer The timer, or null if the stage is not measured.
+   * @param stage The stage.
+   * @param rowsOut The number of rows that came out of the stage.
+   * @param columnsOut The number of columns that came out of the stage.
    */
-  private static DataTable performSkipping(DataTable table, Query query)
-      throws TypeMismatchException {
-    int rowSkipping = query.getRowSkipping();
-    
-    // Return the original table if no skipping is needed
-    if (rowSkipping <= 1) {
-      return table;
+  private static void stopTimer(StageTimer timer, ExecutionStage stage, int rowsOut,
+      int columnsOut) {
+    if (timer != null) {
+      timer.stop(stage, rowsOut, columnsOut);
     }
-
-    // Add the first out of every k rows of the original table to TableRow
-    int numRows = table.getNumberOfRows();
-    List<TableRow> relevantRows = new ArrayList<TableRow>();
-    for (int rowIndex = 0; rowIndex < numRows; rowIndex += rowSkipping) {
-        relevantRows.add(table.getRows().get(rowIndex));
-    }
-    
-    // Create a table out of the TableRow array
-    DataTable newTable = new DataTable();
-    newTable.addColumns(table.getColumnDescriptions());
-    newTable.addRows(relevantRows);
-    
-    return newTable;
   }
 
   /**
-   * Returns a paginated table, based on the row limit and offset parameters.
-   * If there is no need to do anything, returns the original table.
+   * Performs the skipping, pagination and selection stages in a single pass over the given rows,
+   * and returns the resulting table. The rows are the rows of the given table after the filter,
+   * grouping and sort stages, and may not have been added to it. Only the rows that remain after
+   * skipping and pagination are visited, and no intermediate table is built.
    *
-   * @param table The original table.
+   * The result is the same as performing the stages one after the other: skipping takes the first
+   * out of every k rows, pagination takes the rows between the offset and the limit and adds a
+   * DATA_TRUNCATED warning if rows were left out, and selection creates a new table with the
+   * selected columns only. If no stage is needed, the given table is returned with the given
+   * rows.
+   *
+   * @param table The table that the rows belong to. Only its columns are used, unless no stage
+   *     is needed.
+   * @param rows The rows.
+   * @param rowsInTable True if the rows are the rows of the given table.
+   * @param topRowsSelected True if the rows were already paginated by {@link #selectTopRows}.
    * @param query The query.
+   * @param columnIndicesReference A reference to a ColumnIndices instance, so that
+   *     this function can change the internal ColumnIndices.
+   * @param columnLookups A map of column lookups by their list of pivot values.
+   * @param options The execution options.
    *
-   * @return The paginated table, or the original if no pagination is needed.
+   * @return The table after skipping, pagination and selection.
    */
-  private static DataTable performPagination(DataTable table, Query query)
+  private static DataTable performRowStages(final DataTable table, final List<TableRow> rows,
+      boolean rowsInTable, boolean topRowsSelected, Query query,
+      AtomicReference<ColumnIndices> columnIndicesReference,
+      Map<List<Value>, ColumnLookup> columnLookups, ExecutionOptions options)
       throws TypeMismatchException {
-    int rowOffset = query.getRowOffset();
-    int rowLimit = query.getRowLimit();
+    // The rows that remain after skipping.
+    final int rowSkipping = topRowsSelected ? 1 : Math.max(1, query.getRowSkipping());
+    int numSkippedRows = (rows.size() + rowSkipping - 1) / rowSkipping;
+
+    // The rows that remain after pagination, out of the skipped rows.
+    int fromIndex = 0;
+    int toIndex = numSkippedRows;
+    boolean isPaginated = topRowsSelected;
+    if (!topRowsSelected) {
+      int rowOffset = query.getRowOffset();
+      int rowLimit = query.getRowLimit();
+      if (((rowLimit != -1) && (numSkippedRows > rowLimit)) || (rowOffset != 0)) {
+        isPaginated = true;
+        fromIndex = Math.min(numSkippedRows, Math.max(0, rowOffset));
+        toIndex = (rowLimit == -1) ? numSkippedRows
+            : Math.min(numSkippedRows, rowOffset + rowLimit);
+      }
+    }
+    boolean isTruncated = topRowsSelected || (toIndex < numSkippedRows);
 
-    // Return the original table if no pagination is needed
-    if (((rowLimit == -1) || (table.getRows().size() <= rowLimit)) && (rowOffset == 0)) {
-      return table;
+    if (!query.hasSelection()) {
+      if ((rowSkipping == 1) && !isPaginated) {
+        if (!rowsInTable) {
+          new DataTableBuilder(table.getColumnDescriptions(), rows.size()).addRows(rows)
+              .buildInto(table);
+        }
+        return table;
+      }
+      DataTableBuilder builder =
+          new DataTableBuilder(table.getColumnDescriptions(), toIndex - fromIndex);
+      for (int i = fromIndex; i < toIndex; i++) {
+        builder.addRow(rows.get(i * rowSkipping));
+      }
+      DataTable newTable = builder.build();
+      if (isTruncated) {
+        Warning warning = new Warning(ReasonType.DATA_TRUNCATED,
+            "Data has been truncated due to user" + "request (LIMIT in query)");
+        newTable.addWarning(warning);
+      }
+      return newTable;
     }
-    int numRows = table.getNumberOfRows();
-    int fromIndex = Math.max(0, rowOffset);
-    int toIndex = (rowLimit == -1) ? numRows : Math.min(numRows, rowOffset + rowLimit);
 
-    List<TableRow> relevantRows = table.getRows().subList(fromIndex, toIndex);
-    DataTable newTable = new DataTable();
-    newTable.addColumns(table.getColumnDescriptions());
-    newTable.addRows(relevantRows);
+    ColumnIndices columnIndices = columnIndicesReference.get();
+
+    List<AbstractColumn> selectedColumns = query.getSelection().getColumns();
 
-    if (toIndex < numRows) { // Data truncated
-      Warning warning = new Warning(ReasonType.DATA_TRUNCATED, "Data has been truncated due to user"
-          + "request (LIMIT in query)");
-      newTable.addWarning(warning);
+    // Build the new table description, and update columnIndices
+    List<ColumnDescription> oldColumnDescriptions = table.getColumnDescriptions();
+    List<ColumnDescription> newColumnDescriptions = Lists.newArrayList();
+    ColumnIndices newColumnIndices = new ColumnIndices();
+    int currIndex = 0;
+    for (AbstractColumn col : selectedColumns) {
+      // If the query has pivoting, then AggregationColumns in the SELECT are
+      // discarded, since they are only there to control the pivoting.
+      List<Integer> colIndices = columnIndices.getColumnIndices(col);
+      // If the selected column does not exist in the columnIndices, then it is
+      // a scalar function column that was not in the original table, and was not
+      // calculated in the grouping and pivoting stage.
+      if (colIndices.size() == 0) {
+        newColumnDescriptions.add(new ColumnDescription(col.getId(),
+            col.getValueType(table),
+            ScalarFunctionColumnTitle.getColumnDescriptionLabel(table, col)));
+        newColumnIndices.put(col, currIndex++);
+      } else {
+        for (int colIndex : colIndices) {
+          newColumnDescriptions.add(oldColumnDescriptions.get(colIndex));
+          newColumnIndices.put(col, currIndex++);
+        }
+      }
     }
+    columnIndices = newColumnIndices;
+    columnIndicesReference.set(columnIndices);
 
-    return newTable;
+    // Whether each selected column contains aggregations. This does not depend on the row, so
+    // it is computed once rather than for every cell.
+    final boolean[] hasAggregations = new boolean[selectedColumns.size()];
+    for (int i = 0; i < selectedColumns.size(); i++) {
+      hasAggregations[i] = !selectedColumns.get(i).getAllAggregationColumns().isEmpty();
+    }
+    final Collection<ColumnLookup> lookups = columnLookups.values();
+    final DataTableColumnLookup lookup = new DataTableColumnLookup(table);
+    final AbstractColumn[] columns = selectedColumns.toArray(new AbstractColumn[0]);
+    final int firstIndex = fromIndex;
+
+    // Calculate the values in the data table rows, in parallel if the options allow it.
+    List<List<TableRow>> partitions = RowPartitions.process(options, toIndex - fromIndex,
+        new RowPartitions.PartitionTask<List<TableRow>>() {
+          @Override
+          public List<TableRow> process(int fromIndex, int toIndex) {
+            List<TableRow> selectedRows = Lists.newArrayListWithCapacity(toIndex - fromIndex);
+            for (int i = fromIndex; i < toIndex; i++) {
+              TableRow sourceRow = rows.get((firstIndex + i) * rowSkipping);
+              selectedRows.add(selectRow(sourceRow, columns, hasAggregations, lookups, lookup));
+            }
+            return selectedRows;
+          }
+        });
+    // The selected table does not keep the warnings of the previous stages, including the
+    // DATA_TRUNCATED warning of pagination.
+    DataTableBuilder builder = new DataTableBuilder(newColumnDescriptions, toIndex - fromIndex);
+    for (List<TableRow> selectedRows : partitions) {
+      builder.addRows(selectedRows);
+    }
+    return builder.build();
   }
 
   /**
-   * Returns a table sorted according to the query's sort.
-   * The returned table has the same rows as the original table.
+   * Sorts the given rows of the given table in place, according to the query's sort.
    *
-   * @param table The table to sort.
+   * @param table The table that the rows belong to. Only its columns are used.
+   * @param rows The rows to sort.
    * @param query The query.
-   *
-   * @return The sorted table.
+   * @param locale The locale defining the order relation of text values.
+   * @param options The execution options.
    */
-  private static DataTable performSort(DataTable table, Query query, ULocale locale) {
+  private static void sortRows(DataTable table, List<TableRow> rows, Query query, ULocale locale,
+      ExecutionOptions options) {
     if (!query.hasSort()) {
-      return table;
+      return;
     }
     QuerySort sortBy = query.getSort();
     // A table description column lookup is enough because sorting by a column
@@ -232,121 +398,239 @@ public final class QueryEngine {
     // it is impossible to sort by an aggregation column when there is a pivot.
     DataTableColumnLookup columnLookup = new DataTableColumnLookup(table);
     TableRowComparator comparator = new TableRowComparator(sortBy, locale, columnLookup);
-    Collections.sort(table.getRows(), comparator);
-    return table;
+    comparator.sort(rows, options);
   }
 
   /**
-   * Returns a table that has only the rows from the given table that match the filter
-   * provided by a query.
+   * Returns true if the query sorts and then takes a limited number of rows, with no skipping in
+   * between. The result of such a query can be computed by {@link #selectTopRows}.
    *
-   * @param table The table to filter.
    * @param query The query.
    *
-   * @return The filtered table.
+   * @return True if only the top rows of the sorted table are needed.
    */
-  private static DataTable performFilter(DataTable table, Query query)
-      throws TypeMismatchException {
-    if (!query.hasFilter()) {
-      return table;
-    }
+  private static boolean isTopRowsQuery(Query query) {
+    return query.hasSort() && (query.getRowSkipping() <= 1) && (query.getRowLimit() != -1);
+  }
 
-    List<TableRow> newRowList = Lists.newArrayList();
-    QueryFilter filter = query.getFilter();
-    for (TableRow inputRow : table.getRows()) {
-      if (filter.isMatch(table, inputRow)) {
-        newRowList.add(inputRow);
+  /**
+   * Returns the same rows as sorting, and then paginating, the given rows, without sorting all
+   * of them. Only the first offset + limit rows of the sorted rows are needed, so they are
+   * selected with a bounded heap, and only they are sorted. Rows that compare equal keep their
+   * original order, as in the stable full sort. Some rows must be left out, i.e., offset + limit
+   * must be smaller than the number of rows.
+   *
+   * @param table The table that the rows belong to. Only its columns are used.
+   * @param rows The rows to sort and paginate.
+   * @param query The query.
+   * @param locale The locale defining the order relation of text values.
+   *
+   * @return The sorted and paginated rows.
+   */
+  private static List<TableRow> selectTopRows(DataTable table, List<TableRow> rows, Query query,
+      ULocale locale) {
+    int numRows = rows.size();
+    DataTableColumnLookup columnLookup = new DataTableColumnLookup(table);
+    TableRowComparator rowComparator =
+        new TableRowComparator(query.getSort(), locale, columnLookup);
+
+    // A heap of the indices of the smallest rows seen so far, with the largest of them at the
+    // top. Rows are ordered by the query's sort, and then by their index in the table.
+    int k = query.getRowOffset() + query.getRowLimit();
+    int[] heap = new int[k];
+    for (int rowIndex = 0; rowIndex < numRows; rowIndex++) {
+      if (rowIndex < k) {
+        heap[rowIndex] = rowIndex;
+        siftUp(heap, rowIndex, rows, rowComparator);
+      } else if ((k > 0) && (rowComparator.compare(rows.get(rowIndex), rows.get(heap[0])) < 0)) {
+        // The row is smaller than the largest row in the heap. Row indices only grow, so a row
+        // that compares equal to the top of the heap is never smaller.
+        heap[0] = rowIndex;
+        siftDown(heap, k, rows, rowComparator);
       }
     }
-    table.setRows(newRowList);
-    return table;
+    // Sort the heap in place, largest rows last.
+    for (int size = k - 1; size > 0; size--) {
+      int largest = heap[0];
+      heap[0] = heap[size];
+      heap[size] = largest;
+      siftDown(heap, size, rows, rowComparator);
+    }
+
+    List<TableRow> topRows = Lists.newArrayListWithCapacity(query.getRowLimit());
+    for (int i = query.getRowOffset(); i < k; i++) {
+      topRows.add(rows.get(heap[i]));
+    }
+    return topRows;
   }
 
   /**
-   * Returns a table that has only the columns from the given table that are specified by
-   * the query.
+   * Compares two rows, given by their indices, by the query's sort and then by their indices.
    *
-   * @param table The table from which to select.
-   * @param query The query.
-   * @param columnIndicesReference A reference to a ColumnIndices instance, so that
-   *     this function can change the internal ColumnIndices.
-   * @param columnLookups A map of column lookups by their list of pivot values.
+   * @param index1 The index of the first row.
+   * @param index2 The index of the second row.
+   * @param rows The rows of the table.
+   * @param rowComparator The comparator of the query's sort.
    *
-   * @return The table with selected columns only.
+   * @return A negative integer, zero, or a positive integer as the first row is less than,
+   *     equal to, or greater than the second.
    */
-  private static DataTable performSelection(DataTable table, Query query,
-      AtomicReference<ColumnIndices> columnIndicesReference,
-      Map<List<Value>, ColumnLookup> columnLookups) throws TypeMismatchException {
-    if (!query.hasSelection()) {
-      return table;
+  private static int compareRows(int index1, int index2, List<TableRow> rows,
+      TableRowComparator rowComparator) {
+    int cc = rowComparator.compare(rows.get(index1), rows.get(index2));
+    return (cc != 0) ? cc : Integer.compare(index1, index2);
+  }
+
+  /**
+   * Moves the row index at the given position of a heap of row indices up, until its parent is
+   * not smaller than it. The largest row is at the top of the heap.
+   *
+   * @param heap The heap.
+   * @param position The position of the row index to move.
+   * @param rows The rows of the table.
+   * @param rowComparator The comparator of the query's sort.
+   */
+  private static void siftUp(int[] heap, int position, List<TableRow> rows,
+      TableRowComparator rowComparator) {
+    int rowIndex = heap[position];
+    while (position > 0) {
+      int parent = (position - 1) >>> 1;
+      if (compareRows(heap[parent], rowIndex, rows, rowComparator) >= 0) {
+        break;
+      }
+      heap[position] = heap[parent];
+      position = parent;
     }
+    heap[position] = rowIndex;
+  }
 
-    ColumnIndices columnIndices = columnIndicesReference.get();
+  /**
+   * Moves the row index at the top of a heap of row indices down, until none of its children is
+   * larger than it. The largest row is at the top of the heap.
+   *
+   * @param heap The heap.
+   * @param size The number of row indices in the heap.
+   * @param rows The rows of the table.
+   * @param rowComparator The comparator of the query's sort.
+   */
+  private static void siftDown(int[] heap, int size, List<TableRow> rows,
+      TableRowComparator rowComparator) {
+    int rowIndex = heap[0];
+    int position = 0;
+    while (true) {
+      int child = 2 * position + 1;
+      if (child >= size) {
+        break;
+      }
+      if ((child + 1 < size)
+          && (compareRows(heap[child + 1], heap[child], rows, rowComparator) > 0)) {
+        child++;
+      }
+      if (compareRows(heap[child], rowIndex, rows, rowComparator) <= 0) {
+        break;
+      }
+      heap[position] = heap[child];
+      position = child;
+    }
+    heap[position] = rowIndex;
+  }
 
-    List<AbstractColumn> selectedColumns = query.getSelection().getColumns();
-    List<Integer> selectedIndices = Lists.newArrayList();
 
-    // Build the new table description, and update columnIndices
-    List<ColumnDescription> oldColumnDescriptions = table.getColumnDescriptions();
-    List<ColumnDescription> newColumnDescriptions = Lists.newArrayList();
-    ColumnIndices newColumnIndices = new ColumnIndices();
-    int currIndex = 0;
-    for (AbstractColumn col : selectedColumns) {
-      // If the query has pivoting, then AggregationColumns in the SELECT are
-      // discarded, since they are only there to control the pivoting.
-      List<Integer> colIndices = columnIndices.getColumnIndices(col);
-      selectedIndices.addAll(colIndices);
-      // If the selected column does not exist in the columnIndices, then it is
-      // a scalar function column that was not in the original table, and was not
-      // calculated in the grouping and pivoting stage.
-      if (colIndices.size() == 0) {
-        newColumnDescriptions.add(new ColumnDescription(col.getId(),
-            col.getValueType(table),
-            ScalarFunctionColumnTitle.getColumnDescriptionLabel(table, col)));
-        newColumnIndices.put(col, currIndex++);
-      } else {
-        for (int colIndex : colIndices) {
-          newColumnDescriptions.add(oldColumnDescriptions.get(colIndex));
-          newColumnIndices.put(col, currIndex++);
-        }
-      }
+  /**
+   * Returns the rows of the given table that match the given compiled filter, in the order of
+   * the table. The rows are matched in parallel if the execution options allow it.
+   *
+   * @param table The table to filter.
+   * @param filter The filter, compiled against the table, or null to return all rows.
+   * @param options The execution options.
+   *
+   * @return The matching rows.
+   */
+  private static List<TableRow> getMatchingRows(final DataTable table, final RowPredicate filter,
+      ExecutionOptions options) {
+    List<List<TableRow>> partitions = RowPartitions.process(options, table.getNumberOfRows(),
+        new RowPartitions.PartitionTask<List<TableRow>>() {
+          @Override
+          public List<TableRow> process(int fromIndex, int toIndex) {
+            List<TableRow> rows = Lists.newArrayList();
+            for (int rowIndex = fromIndex; rowIndex < toIndex; rowIndex++) {
+              if ((filter == null) || filter.isMatch(rowIndex)) {
+                rows.add(table.getRow(rowIndex));
+              }
+            }
+            return rows;
+          }
+        });
+    if (partitions.size() == 1) {
+      return partitions.get(0);
     }
-    columnIndices = newColumnIndices;
-    columnIndicesReference.set(columnIndices);
+    return Lists.newArrayList(Iterables.concat(partitions));
+  }
 
+  /**
+   * Returns a new empty table with the columns, custom properties, warnings and locale of the
+   * given columnar table. The rows of the columnar table that match the query's filter are
+   * passed to the later stages separately.
+   * Columnar tables are usually shared, e.g., kept in a cache, so unlike the other stages this
+   * one never changes the given table. The columns of the new table are clones, because later
+   * stages change their labels and patterns.
+   *
+   * @param table The columnar table.
+   *
+   * @return A new empty table with the same columns.
+   */
+  private static DataTable createColumnarResultTable(ColumnarDataTable table) {
     DataTable result = new DataTable();
-    result.addColumns(newColumnDescriptions);
-
-    // Calculate the values in the data table rows.
-    for (TableRow sourceRow : table.getRows()) {
-      TableRow newRow = new TableRow();
-      for (AbstractColumn col : selectedColumns) {
-        boolean wasFound = false;
-        Set<List<Value>> pivotValuesSet = columnLookups.keySet();
-        for (List<Value> values : pivotValuesSet) {
-          // If the current column-lookup contains the current column and it is
-          // either a column that contains aggregations or a column that
-          // contains only group-by columns and was not yet found, get its value
-          // in the current row. Otherwise continue. If the column contains
-          // only group-by columns it should appear only once, even though
-          // it may appear in many column lookups.
-          if (columnLookups.get(values).containsColumn(col)
-              && ((col.getAllAggregationColumns().size() != 0) || !wasFound)) {
-            wasFound = true;
-            newRow.addCell(sourceRow.getCell(columnLookups.get(values).getColumnIndex(col)));
-          }
-        }
-        // If the column was not found in any of the column lookups
-        // calculate its value (e.g., scalar function column that was not
-        // calculated in a previous stage).
-        if (!wasFound) {
-          DataTableColumnLookup lookup = new DataTableColumnLookup(table);
-          newRow.addCell(col.getCell(lookup, sourceRow));
+    for (ColumnDescription column : table.getColumnDescriptions()) {
+      result.addColumn(column.clone());
+    }
+    for (Map.Entry<String, String> entry : table.getCustomProperties().entrySet()) {
+      result.setCustomProperty(entry.getKey(), entry.getValue());
+    }
+    for (Warning warning : table.getWarnings()) {
+      result.addWarning(warning);
+    }
+    result.setLocaleForUserMessages(table.getLocaleForUserMessages());
+    return result;
+  }
+
+  /**
+   * Returns a new row with the cells of the selected columns in the given row.
+   *
+   * @param sourceRow The row from which to select.
+   * @param selectedColumns The selected columns.
+   * @param hasAggregations Whether each selected column contains aggregations.
+   * @param lookups The column lookups of the grouping and pivoting stage.
+   * @param lookup The column lookup of the table.
+   *
+   * @return The new row.
+   */
+  private static TableRow selectRow(TableRow sourceRow, AbstractColumn[] selectedColumns,
+      boolean[] hasAggregations, Collection<ColumnLookup> lookups, ColumnLookup lookup) {
+    TableRow newRow = new TableRow();
+    for (int i = 0; i < selectedColumns.length; i++) {
+      AbstractColumn col = selectedColumns[i];
+      boolean wasFound = false;
+      for (ColumnLookup columnLookup : lookups) {
+        // If the current column-lookup contains the current column and it is
+        // either a column that contains aggregations or a column that
+        // contains only group-by columns and was not yet found, get its value
+        // in the current row. Otherwise continue. If the column contains
+        // only group-by columns it should appear only once, even though
+        // it may appear in many column lookups.
+        if (columnLookup.containsColumn(col) && (hasAggregations[i] || !wasFound)) {
+          wasFound = true;
+          newRow.addCell(sourceRow.getCell(columnLookup.getColumnIndex(col)));
         }
       }
-      result.addRow(newRow);
+      // If the column was not found in any of the column lookups
+      // calculate its value (e.g., scalar function column that was not
+      // calculated in a previous stage).
+      if (!wasFound) {
+        newRow.addCell(col.getCell(lookup, sourceRow));
+      }
     }
-    return result;
+    return newRow;
   }
 
   /**
@@ -395,12 +679,14 @@ public final class QueryEngine {
    *     of the new columns, if grouping is performed, and then any
    *     previous values in it are cleared. If grouping is not performed, it is
    *     left as is.
+   * @param columnLookups A map of column lookups by their list of pivot values.
+   * @param options The execution options.
    *
    * @return The new table, after grouping and pivoting was performed.
    */
   private static DataTable performGroupingAndPivoting(DataTable table, Query query,
-      ColumnIndices columnIndices, TreeMap<List<Value>, ColumnLookup> columnLookups)
-      throws TypeMismatchException {
+      ColumnIndices columnIndices, TreeMap<List<Value>, ColumnLookup> columnLookups,
+      ExecutionOptions options) throws TypeMismatchException {
     if (!queryHasAggregation(query) || (table.getNumberOfRows() == 0)) {
       return table;
     }
@@ -459,31 +745,18 @@ public final class QueryEngine {
           ScalarFunctionColumnTitle.getColumnDescriptionLabel(table, column)));
     }
 
+    // The table description with the added scalar function columns is only used to describe
+    // the result columns. The aggregator calculates the values of the scalar function columns
+    // from the rows of the original table, so the rows are not copied.
     DataTable tempTable = new DataTable();
     tempTable.addColumns(newColumnDescriptions);
 
-    // Calculate the values of the added scalar function columns in each row.
-    DataTableColumnLookup lookup = new DataTableColumnLookup(table);
-    for (TableRow sourceRow : table.getRows()) {
-      TableRow newRow = new TableRow();
-      for (TableCell sourceCell : sourceRow.getCells()) {
-        newRow.addCell(sourceCell);
-      }
-      for (ScalarFunctionColumn column : groupAndPivotScalarFunctionColumns) {
-        newRow.addCell(new TableCell(column.getValue(lookup, sourceRow)));
-      }
-      try {
-        tempTable.addRow(newRow);
-      } catch (TypeMismatchException e) {
-        // Should not happen, given that the original table is OK.
-      }
-    }
-    table = tempTable;
-
     // Calculate the aggregations.
-    TableAggregator aggregator = new TableAggregator(groupAndPivotIds,
-        Sets.newHashSet(aggregationIds), table);
-    Set<AggregationPath> paths = aggregator.getPathsToLeaves();
+    List<String> distinctAggregationIds =
+        Lists.newArrayList(Sets.newLinkedHashSet(aggregationIds));
+    HashTableAggregator aggregator = HashTableAggregator.aggregate(groupAndPivotIds,
+        groupAndPivotScalarFunctionColumns, distinctAggregationIds, table, options);
+    table = tempTable;
 
     // These variables will hold the "titles" of the rows and columns.
     // They are TreeSets because their order matters.
@@ -500,12 +773,12 @@ public final class QueryEngine {
     // dumped into the real table.
     MetaTable metaTable = new MetaTable();
     for (AggregationColumn columnAggregation : columnAggregations) {
-      for (AggregationPath path : paths) {
+      for (int groupIndex = 0; groupIndex < aggregator.getNumberOfGroups(); groupIndex++) {
 
         // A ColumnTitle is composed of all the values for the pivot-by
         // columns, and a ColumnAggregation. That is why it is necessary to iterate over all
         // ColumnAggregations and create a ColumnTitle for each one.
-        List<Value> originalValues = path.getValues();
+        List<Value> originalValues = aggregator.getGroupValues(groupIndex);
 
         // Separate originalValues into the rowValues and columnValues. The
         // rowValues are the values of the group-by columns and the columnValues
@@ -520,8 +793,8 @@ public final class QueryEngine {
         ColumnTitle columnTitle = new ColumnTitle(columnValues,
             columnAggregation, (columnAggregations.size() > 1));
         columnTitles.add(columnTitle);
-        metaTable.put(rowTitle, columnTitle, new TableCell(aggregator.getAggregationValue(path,
-            columnAggregation.getAggregatedColumn().getId(),
+        metaTable.put(rowTitle, columnTitle, new TableCell(aggregator.getAggregationValue(
+            groupIndex, columnAggregation.getAggregatedColumn().getId(),
             columnAggregation.getAggregationType())));
       }
     }
@@ -577,6 +850,7 @@ public final class QueryEngine {
     }
 
     // Dump the data from the metaTable to the result DataTable.
+    DataTableBuilder builder = new DataTableBuilder(colDescs, rowTitles.size());
     for (RowTitle rowTitle : rowTitles) {
       TableRow curRow = new TableRow();
       // Add the group-by columns cells.
@@ -597,8 +871,9 @@ public final class QueryEngine {
         curRow.addCell(new TableCell(columnTitle.scalarFunctionColumn.
             getValue(columnLookups.get(columnTitle.getValues()), curRow)));
       }
-      result.addRow(curRow);
+      builder.addRow(curRow);
     }
+    builder.buildInto(result);
 
     // Fill the columnIndices and columnLookups parameters for the scalar
     // function column titles. This must be done after the calculation of the values
@@ -660,6 +935,7 @@ public final class QueryEngine {
 
       }
     }
+    table.invalidateSignature();
     return table;
   }
 
@@ -715,6 +991,7 @@ public final class QueryEngine {
         cell.setFormattedValue(formattedValue);
       }
     }
+    table.invalidateSignature();
     return table;
   }
 }
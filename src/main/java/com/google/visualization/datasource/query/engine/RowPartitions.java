@@ -0,0 +1,116 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the rows of a table into partitions, processes them, and returns the partial results in
+ * the order of the partitions. The partitions are processed in parallel when the execution options
+ * allow it for the number of rows, and as a single partition on the calling thread otherwise.
+ */
+/* package */ final class RowPartitions {
+
+  /**
+   * Processes a range of rows.
+   *
+   * @param <T> The type of the partial result.
+   */
+  /* package */ interface PartitionTask<T> {
+
+    /**
+     * Processes the rows in the given range.
+     *
+     * @param fromIndex The index of the first row, inclusive.
+     * @param toIndex The index of the last row, exclusive.
+     *
+     * @return The partial result.
+     */
+    T process(int fromIndex, int toIndex);
+  }
+
+  /**
+   * Private constructor, to prevent initialization.
+   */
+  private RowPartitions() {}
+
+  /**
+   * Processes all rows and returns the partial results in the order of the partitions.
+   *
+   * @param options The execution options.
+   * @param numberOfRows The number of rows.
+   * @param task The task that processes a partition.
+   * @param <T> The type of the partial results.
+   *
+   * @return The partial results, one per partition.
+   */
+  public static <T> List<T> process(ExecutionOptions options, int numberOfRows,
+      final PartitionTask<T> task) {
+    if (!options.isParallel(numberOfRows)) {
+      List<T> result = Lists.newArrayListWithCapacity(1);
+      result.add(task.process(0, numberOfRows));
+      return result;
+    }
+    int partitionSize = options.getPartitionSize();
+    List<Callable<T>> callables = Lists.newArrayList();
+    for (int fromIndex = 0; fromIndex < numberOfRows; fromIndex += partitionSize) {
+      final int from = fromIndex;
+      final int to = Math.min(numberOfRows, fromIndex + partitionSize);
+      callables.add(new Callable<T>() {
+        @Override
+        public T call() {
+          return task.process(from, to);
+        }
+      });
+    }
+    List<Future<T>> futures = options.getPool().invokeAll(callables);
+    List<T> result = Lists.newArrayListWithCapacity(futures.size());
+    for (Future<T> future : futures) {
+      result.add(getResult(future));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the result of a completed partition, rethrowing any unchecked exception it threw.
+   *
+   * @param future The completed partition.
+   * @param <T> The type of the partial result.
+   *
+   * @return The partial result.
+   */
+  private static <T> T getResult(Future<T> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while executing a query", e);
+    }
+  }
+}
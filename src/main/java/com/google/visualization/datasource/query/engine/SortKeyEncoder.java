@@ -0,0 +1,216 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+import com.google.visualization.datasource.datatable.value.BooleanValue;
+import com.google.visualization.datasource.datatable.value.DateTimeValue;
+import com.google.visualization.datasource.datatable.value.DateValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.TimeOfDayValue;
+import com.google.visualization.datasource.datatable.value.Value;
+import com.google.visualization.datasource.datatable.value.ValueType;
+import com.google.visualization.datasource.query.SortOrder;
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.text.RawCollationKey;
+
+import java.util.Arrays;
+
+/**
+ * Encodes the values a row is ordered by into a single binary key. Two keys compare, as unsigned
+ * bytes in lexicographic order, in the same order as the localized value comparator and the sort
+ * orders compare the values: null values come first, numbers compare as by Double.compare, dates,
+ * date-times and times of day compare chronologically, and text values compare by their
+ * collation keys. The bytes of descending columns are inverted.
+ *
+ * The encoding of each value is prefix-free, i.e., no encoded value is a prefix of another
+ * encoded value of the same type, so the concatenated encodings compare column by column.
+ *
+ * An encoder reuses an internal buffer, and must not be shared by threads.
+ */
+/* package */ class SortKeyEncoder {
+
+  /**
+   * The byte that encodes a null value.
+   */
+  private static final byte NULL_MARKER = 0;
+
+  /**
+   * The byte that precedes the encoding of a non-null value.
+   */
+  private static final byte VALUE_MARKER = 1;
+
+  /**
+   * The collator of the locale defining the order relation of text values. Must be frozen.
+   */
+  private final Collator collator;
+
+  /**
+   * The sort order of each value, in sequence of importance.
+   */
+  private final SortOrder[] sortOrders;
+
+  /**
+   * A reusable collation key.
+   */
+  private final RawCollationKey collationKey = new RawCollationKey();
+
+  /**
+   * The buffer the key is built in.
+   */
+  private byte[] buffer = new byte[64];
+
+  /**
+   * The number of bytes used in the buffer.
+   */
+  private int length;
+
+  /**
+   * Creates a new encoder.
+   *
+   * @param collator The frozen collator of the locale defining the order relation of text
+   *     values.
+   * @param sortOrders The sort order of each value, in sequence of importance.
+   */
+  public SortKeyEncoder(Collator collator, SortOrder[] sortOrders) {
+    this.collator = collator;
+    this.sortOrders = sortOrders;
+  }
+
+  /**
+   * Returns the key of the given values.
+   *
+   * @param values The values, one per sort order, in sequence of importance. The values of each
+   *     position must all be of the same type.
+   *
+   * @return The key.
+   */
+  public byte[] encode(Value[] values) {
+    length = 0;
+    for (int i = 0; i < values.length; i++) {
+      int start = length;
+      appendValue(values[i]);
+      if (sortOrders[i] == SortOrder.DESCENDING) {
+        for (int j = start; j < length; j++) {
+          buffer[j] = (byte) ~buffer[j];
+        }
+      }
+    }
+    return Arrays.copyOf(buffer, length);
+  }
+
+  /**
+   * Appends the encoding of a single value.
+   *
+   * @param value The value.
+   */
+  private void appendValue(Value value) {
+    if (value.getType() == ValueType.TEXT) {
+      // Text values have no null value, the empty string is ordered as a string.
+      appendCollationKey(((TextValue) value).getValue());
+      return;
+    }
+    if (value.isNull()) {
+      appendByte(NULL_MARKER);
+      return;
+    }
+    appendByte(VALUE_MARKER);
+    switch (value.getType()) {
+      case NUMBER:
+        long bits = Double.doubleToLongBits(((NumberValue) value).getValue());
+        // Flip all the bits of negative numbers and only the sign bit of the others, so that
+        // the bits compare as unsigned longs in the order of Double.compare.
+        appendLong(bits ^ ((bits < 0) ? -1L : Long.MIN_VALUE));
+        break;
+      case BOOLEAN:
+        appendByte((byte) (((BooleanValue) value).getValue() ? 1 : 0));
+        break;
+      case DATE:
+        appendInt(((DateValue) value).getEpochDay() ^ Integer.MIN_VALUE);
+        break;
+      case DATETIME:
+        appendLong(((DateTimeValue) value).getEpochMillis() ^ Long.MIN_VALUE);
+        break;
+      case TIMEOFDAY:
+        appendInt(((TimeOfDayValue) value).getMillisOfDay());
+        break;
+      default:
+        throw new IllegalArgumentException("Cannot encode values of type " + value.getType());
+    }
+  }
+
+  /**
+   * Appends the collation key of a string. Collation keys contain no zero bytes, so a
+   * terminating zero makes them prefix-free.
+   *
+   * @param s The string.
+   */
+  private void appendCollationKey(String s) {
+    collator.getRawCollationKey(s, collationKey);
+    int size = collationKey.size;
+    while ((size > 0) && (collationKey.bytes[size - 1] == 0)) {
+      size--;
+    }
+    ensureCapacity(size + 1);
+    System.arraycopy(collationKey.bytes, 0, buffer, length, size);
+    length += size;
+    buffer[length++] = 0;
+  }
+
+  /**
+   * Appends a byte.
+   *
+   * @param b The byte.
+   */
+  private void appendByte(byte b) {
+    ensureCapacity(1);
+    buffer[length++] = b;
+  }
+
+  /**
+   * Appends an int, most significant byte first.
+   *
+   * @param v The int.
+   */
+  private void appendInt(int v) {
+    ensureCapacity(4);
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      buffer[length++] = (byte) (v >>> shift);
+    }
+  }
+
+  /**
+   * Appends a long, most significant byte first.
+   *
+   * @param v The long.
+   */
+  private void appendLong(long v) {
+    ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      buffer[length++] = (byte) (v >>> shift);
+    }
+  }
+
+  /**
+   * Makes room for the given number of bytes at the end of the buffer.
+   *
+   * @param count The number of bytes.
+   */
+  private void ensureCapacity(int count) {
+    if (length + count > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+    }
+  }
+}
@@ -0,0 +1,152 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+/**
+ * The measurements of a single execution stage, reported to an {@link ExecutionListener}.
+ * A count that does not apply to a stage, e.g., the number of input rows of the GENERATE stage,
+ * is -1.
+ */
+public class StageMetrics {
+
+  /**
+   * The stage.
+   */
+  private final ExecutionStage stage;
+
+  /**
+   * The wall time of the stage in nanoseconds.
+   */
+  private final long wallTimeNanos;
+
+  /**
+   * The number of rows that went into the stage.
+   */
+  private final int rowsIn;
+
+  /**
+   * The number of rows that came out of the stage.
+   */
+  private final int rowsOut;
+
+  /**
+   * The number of columns that went into the stage.
+   */
+  private final int columnsIn;
+
+  /**
+   * The number of columns that came out of the stage.
+   */
+  private final int columnsOut;
+
+  /**
+   * The number of bytes allocated by the executing thread during the stage, or -1.
+   */
+  private final long allocatedBytes;
+
+  /**
+   * Creates new stage measurements.
+   *
+   * @param stage The stage.
+   * @param wallTimeNanos The wall time of the stage in nanoseconds.
+   * @param rowsIn The number of rows that went into the stage, or -1.
+   * @param rowsOut The number of rows that came out of the stage, or -1.
+   * @param columnsIn The number of columns that went into the stage, or -1.
+   * @param columnsOut The number of columns that came out of the stage, or -1.
+   * @param allocatedBytes The number of bytes allocated by the executing thread during the
+   *     stage, or -1 if the JVM does not measure allocations.
+   */
+  public StageMetrics(ExecutionStage stage, long wallTimeNanos, int rowsIn, int rowsOut,
+      int columnsIn, int columnsOut, long allocatedBytes) {
+    this.stage = stage;
+    this.wallTimeNanos = wallTimeNanos;
+    this.rowsIn = rowsIn;
+    this.rowsOut = rowsOut;
+    this.columnsIn = columnsIn;
+    this.columnsOut = columnsOut;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * Returns the stage.
+   *
+   * @return The stage.
+   */
+  public ExecutionStage getStage() {
+    return stage;
+  }
+
+  /**
+   * Returns the wall time of the stage in nanoseconds.
+   *
+   * @return The wall time of the stage in nanoseconds.
+   */
+  public long getWallTimeNanos() {
+    return wallTimeNanos;
+  }
+
+  /**
+   * Returns the number of rows that went into the stage.
+   *
+   * @return The number of input rows, or -1.
+   */
+  public int getRowsIn() {
+    return rowsIn;
+  }
+
+  /**
+   * Returns the number of rows that came out of the stage.
+   *
+   * @return The number of output rows, or -1.
+   */
+  public int getRowsOut() {
+    return rowsOut;
+  }
+
+  /**
+   * Returns the number of columns that went into the stage.
+   *
+   * @return The number of input columns, or -1.
+   */
+  public int getColumnsIn() {
+    return columnsIn;
+  }
+
+  /**
+   * Returns the number of columns that came out of the stage.
+   *
+   * @return The number of output columns, or -1.
+   */
+  public int getColumnsOut() {
+    return columnsOut;
+  }
+
+  /**
+   * Returns the number of bytes allocated by the thread that executed the stage, during the
+   * stage. Allocations by the threads of a parallel execution pool are not included.
+   *
+   * @return The number of allocated bytes, or -1 if the JVM does not measure allocations.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return stage + ": " + wallTimeNanos + "ns, rows " + rowsIn + " -> " + rowsOut
+        + ", columns " + columnsIn + " -> " + columnsOut + ", allocated " + allocatedBytes
+        + " bytes";
+  }
+}
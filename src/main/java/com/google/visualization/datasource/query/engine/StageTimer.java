@@ -0,0 +1,151 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures a single execution stage and reports it to the {@link ExecutionListener} of the
+ * execution options. When the options have no listener, {@link #start} returns null and nothing
+ * is measured, so the callers check for null:
+ *
+ * <pre>
+ *   StageTimer timer = StageTimer.start(options, rowsIn, columnsIn);
+ *   ... execute the stage ...
+ *   if (timer != null) {
+ *     timer.stop(ExecutionStage.FILTER, rowsOut, columnsOut);
+ *   }
+ * </pre>
+ *
+ * Allocated bytes are measured using the thread allocation counter of the HotSpot
+ * <code>ThreadMXBean</code>, on JVMs that support and enable it.
+ */
+public final class StageTimer {
+
+  /**
+   * The bean that measures the bytes allocated by a thread, or null if the JVM does not support
+   * it. When not null, this is a HotSpot <code>com.sun.management.ThreadMXBean</code>. The field
+   * has the standard type, so that this class loads on JVMs without the HotSpot extensions.
+   */
+  private static final ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+  /**
+   * The listener to report to.
+   */
+  private final ExecutionListener listener;
+
+  /**
+   * The number of rows that went into the stage.
+   */
+  private final int rowsIn;
+
+  /**
+   * The number of columns that went into the stage.
+   */
+  private final int columnsIn;
+
+  /**
+   * The time the stage started, in nanoseconds.
+   */
+  private final long startNanos;
+
+  /**
+   * The number of bytes allocated by the current thread when the stage started, or -1.
+   */
+  private final long startAllocatedBytes;
+
+  /**
+   * Creates a new timer and starts it.
+   *
+   * @param listener The listener to report to.
+   * @param rowsIn The number of rows that went into the stage, or -1.
+   * @param columnsIn The number of columns that went into the stage, or -1.
+   */
+  private StageTimer(ExecutionListener listener, int rowsIn, int columnsIn) {
+    this.listener = listener;
+    this.rowsIn = rowsIn;
+    this.columnsIn = columnsIn;
+    startAllocatedBytes = getAllocatedBytes();
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Starts measuring a stage, if the given options have a listener.
+   *
+   * @param options The execution options.
+   * @param rowsIn The number of rows that go into the stage, or -1.
+   * @param columnsIn The number of columns that go into the stage, or -1.
+   *
+   * @return A started timer, or null if the options have no listener.
+   */
+  public static StageTimer start(ExecutionOptions options, int rowsIn, int columnsIn) {
+    ExecutionListener listener = options.getListener();
+    return (listener == null) ? null : new StageTimer(listener, rowsIn, columnsIn);
+  }
+
+  /**
+   * Stops measuring the stage and reports it to the listener.
+   *
+   * @param stage The stage.
+   * @param rowsOut The number of rows that came out of the stage, or -1.
+   * @param columnsOut The number of columns that came out of the stage, or -1.
+   */
+  public void stop(ExecutionStage stage, int rowsOut, int columnsOut) {
+    long wallTimeNanos = System.nanoTime() - startNanos;
+    long allocatedBytes = -1;
+    if (startAllocatedBytes != -1) {
+      allocatedBytes = getAllocatedBytes() - startAllocatedBytes;
+    }
+    listener.stageCompleted(new StageMetrics(stage, wallTimeNanos, rowsIn, rowsOut, columnsIn,
+        columnsOut, allocatedBytes));
+  }
+
+  /**
+   * Returns the number of bytes allocated by the current thread so far.
+   *
+   * @return The number of allocated bytes, or -1 if the JVM does not measure allocations.
+   */
+  private static long getAllocatedBytes() {
+    if (ALLOCATION_BEAN == null) {
+      return -1;
+    }
+    return ((com.sun.management.ThreadMXBean) ALLOCATION_BEAN).getThreadAllocatedBytes(
+        Thread.currentThread().getId());
+  }
+
+  /**
+   * Returns the bean that measures the bytes allocated by a thread.
+   *
+   * @return The bean, or null if the JVM does not support or enable allocation measurement.
+   */
+  private static ThreadMXBean getAllocationBean() {
+    try {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        if (allocationBean.isThreadAllocatedMemorySupported()
+            && allocationBean.isThreadAllocatedMemoryEnabled()) {
+          return allocationBean;
+        }
+      }
+    } catch (LinkageError e) {
+      // The JVM does not have the HotSpot management extensions.
+    } catch (SecurityException e) {
+      // Management is not allowed.
+    }
+    return null;
+  }
+}
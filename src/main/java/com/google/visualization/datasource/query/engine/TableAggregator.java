@@ -46,8 +46,11 @@ import java.util.Set;
  * where applicable.
  *
  * @author Yoav G.
+ *
+ * @deprecated As of version 1.1.3, the query engine groups rows with a hash table and no longer
+ *     uses this class. It will be removed in a future version.
  */
-
+@Deprecated
 public class TableAggregator {
 
   /**
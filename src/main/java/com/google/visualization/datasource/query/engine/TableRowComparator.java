@@ -14,17 +14,23 @@
 
 package com.google.visualization.datasource.query.engine;
 
+import com.google.common.primitives.UnsignedBytes;
 import com.google.visualization.datasource.datatable.TableRow;
+import com.google.visualization.datasource.datatable.value.TextValue;
 import com.google.visualization.datasource.datatable.value.Value;
 import com.google.visualization.datasource.query.AbstractColumn;
 import com.google.visualization.datasource.query.ColumnLookup;
 import com.google.visualization.datasource.query.ColumnSort;
 import com.google.visualization.datasource.query.QuerySort;
 import com.google.visualization.datasource.query.SortOrder;
+import com.ibm.icu.text.Collator;
 import com.ibm.icu.util.ULocale;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * A comparator comparing two {@link TableRow}s according to the query's ORDER BY, i.e.,
@@ -34,6 +40,25 @@ import java.util.List;
  */
 /*package*/ class TableRowComparator implements Comparator<TableRow> {
 
+  /**
+   * The minimal number of rows for which the rows are sorted by binary keys. Fewer rows are
+   * sorted with this comparator, since encoding the keys does not pay off for them.
+   */
+  /* package */ static final int KEY_SORT_THRESHOLD = 1000;
+
+  /**
+   * Compares sort entries by their keys, and then by their original indices.
+   */
+  private static final Comparator<SortEntry> SORT_ENTRY_COMPARATOR = new Comparator<SortEntry>() {
+    private final Comparator<byte[]> keyComparator = UnsignedBytes.lexicographicalComparator();
+
+    @Override
+    public int compare(SortEntry entry1, SortEntry entry2) {
+      int cc = keyComparator.compare(entry1.key, entry2.key);
+      return (cc != 0) ? cc : Integer.compare(entry1.index, entry2.index);
+    }
+  };
+
   /**
    * The columns to order by, in sequence of importance.
    */
@@ -50,6 +75,11 @@ import java.util.List;
    */
   private Comparator<Value> valueComparator;
 
+  /**
+   * The collator of the locale defining the order relation of text values.
+   */
+  private Collator collator;
+
   /**
    * The column lookup.
    */
@@ -64,6 +94,7 @@ import java.util.List;
    */
   public TableRowComparator(QuerySort sort, ULocale locale, ColumnLookup lookup) {
     valueComparator = Value.getLocalizedComparator(locale);
+    collator = TextValue.getCollator(locale);
     columnLookup = lookup;
     List<ColumnSort> columns = sort.getSortColumns();
     sortColumns = new AbstractColumn[columns.size()];
@@ -97,4 +128,102 @@ import java.util.List;
     }
     return 0;
   }
+
+  /**
+   * Sorts the given rows by this comparator. The sort is stable.
+   *
+   * At least {@link #KEY_SORT_THRESHOLD} rows are sorted by binary keys, see
+   * {@link #sortByKeys}. Fewer rows are sorted with {@link Collections#sort}.
+   *
+   * @param rows The rows to sort. The list is sorted in place.
+   * @param options The execution options.
+   */
+  public void sort(List<TableRow> rows, ExecutionOptions options) {
+    if (rows.size() < KEY_SORT_THRESHOLD) {
+      Collections.sort(rows, this);
+    } else {
+      sortByKeys(rows, options);
+    }
+  }
+
+  /**
+   * Sorts the given rows by this comparator, using binary sort keys. The sort is stable.
+   *
+   * The values to order by are computed once for each row, rather than once for each
+   * comparison, and encoded into a binary key by a {@link SortKeyEncoder}. The rows are then
+   * sorted by their keys, which compare as plain bytes, and by their original indices. This is
+   * much faster than comparing the rows with {@link #compare}, which computes the values and
+   * collates text values in each of the O(n log n) comparisons. The keys are computed, and the
+   * rows sorted, in parallel if the execution options allow it for the number of rows.
+   *
+   * @param rows The rows to sort. The list is sorted in place.
+   * @param options The execution options.
+   */
+  /* package */ void sortByKeys(final List<TableRow> rows, ExecutionOptions options) {
+    final SortEntry[] entries = new SortEntry[rows.size()];
+    RowPartitions.process(options, entries.length, new RowPartitions.PartitionTask<Void>() {
+      @Override
+      public Void process(int fromIndex, int toIndex) {
+        SortKeyEncoder encoder = new SortKeyEncoder(collator, sortColumnOrder);
+        Value[] values = new Value[sortColumns.length];
+        for (int rowIndex = fromIndex; rowIndex < toIndex; rowIndex++) {
+          TableRow row = rows.get(rowIndex);
+          for (int i = 0; i < sortColumns.length; i++) {
+            values[i] = sortColumns[i].getValue(columnLookup, row);
+          }
+          entries[rowIndex] = new SortEntry(encoder.encode(values), rowIndex, row);
+        }
+        return null;
+      }
+    });
+
+    if (options.isParallel(entries.length)) {
+      options.getPool().invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          // Runs in the options' pool, so the parallel sort forks its tasks there.
+          Arrays.parallelSort(entries, SORT_ENTRY_COMPARATOR);
+        }
+      });
+    } else {
+      Arrays.sort(entries, SORT_ENTRY_COMPARATOR);
+    }
+    for (int i = 0; i < entries.length; i++) {
+      rows.set(i, entries[i].row);
+    }
+  }
+
+  /**
+   * A row to sort, with its sort key and original index.
+   */
+  private static class SortEntry {
+
+    /**
+     * The encoded values to order the row by.
+     */
+    private final byte[] key;
+
+    /**
+     * The index of the row before sorting.
+     */
+    private final int index;
+
+    /**
+     * The row.
+     */
+    private final TableRow row;
+
+    /**
+     * Creates a new sort entry.
+     *
+     * @param key The encoded values to order the row by.
+     * @param index The index of the row before sorting.
+     * @param row The row.
+     */
+    public SortEntry(byte[] key, int index, TableRow row) {
+      this.key = key;
+      this.index = index;
+      this.row = row;
+    }
+  }
 }
@@ -92,6 +92,29 @@ import com.google.visualization.datasource.query.AggregationType;
     }
   }
 
+  /**
+   * Merges the values aggregated by another aggregator of the same column type into this one, as
+   * if they were aggregated by this aggregator after its own values. This allows aggregating
+   * separate partitions of the rows and merging the partial aggregations in the order of the
+   * partitions.
+   *
+   * @param other The aggregator to merge.
+   */
+  public void merge(ValueAggregator other) {
+    if (other.count == 0) {
+      return;
+    }
+    if (count == 0) {
+      max = other.max;
+      min = other.min;
+    } else {
+      max = max.compareTo(other.max) >= 0 ? max : other.max;
+      min = min.compareTo(other.min) <= 0 ? min : other.min;
+    }
+    count += other.count;
+    sum += other.sum;
+  }
+
   /**
    * Returns the sum of all (non null) aggregated values.
    *
@@ -14,23 +14,24 @@
 
 package com.google.visualization.datasource.render;
 
+import com.google.common.collect.Maps;
 import com.google.visualization.datasource.base.ResponseStatus;
 import com.google.visualization.datasource.datatable.ColumnDescription;
 import com.google.visualization.datasource.datatable.DataTable;
 import com.google.visualization.datasource.datatable.TableCell;
-import com.google.visualization.datasource.datatable.TableRow;
 import com.google.visualization.datasource.datatable.ValueFormatter;
 import com.google.visualization.datasource.datatable.value.ValueType;
 
 import com.ibm.icu.util.ULocale;
 
-import org.apache.commons.lang.StringUtils;
-
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Takes a data table and returns a csv string.
+ * The csv can also be written to an {@link Appendable}, e.g., a servlet response writer, so that
+ * large tables can be written without holding the whole response in memory.
  *
  * @author Nimrod T.
  */
@@ -54,74 +55,116 @@ public class CsvRenderer {
    */
   public static CharSequence renderDataTable(DataTable dataTable, ULocale locale,
       String separator) {
+    StringBuilder sb = new StringBuilder();
+    try {
+      renderDataTable(dataTable, locale, separator, sb);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Writes a csv representation of a data table to the given appendable, row by row. The
+   * characters written are the same as the ones returned by
+   * {@link #renderDataTable(DataTable, ULocale, String)}.
+   *
+   * @param dataTable The data table.
+   * @param locale The locale. If null, uses the default from
+   *     {@code LocaleUtil#getDefaultLocale}.
+   * @param separator The separator string used to delimit row values.
+   *     If the separator is {@code null}, comma is used as a separator.
+   * @param out The appendable to write to.
+   *
+   * @throws IOException Thrown if the appendable cannot be written to.
+   */
+  public static void renderDataTable(DataTable dataTable, ULocale locale, String separator,
+      Appendable out) throws IOException {
     if (separator == null) {
       separator = ",";
     }
 
     // Deal with empty data table.
-    if (dataTable.getColumnDescriptions().isEmpty()) {
-      return "";
-    }
-
-    // Deal with non-empty data table.
-    StringBuilder sb = new StringBuilder();
     List<ColumnDescription> columns = dataTable.getColumnDescriptions();
-    // Append column labels
-    for (ColumnDescription column : columns) {
-      sb.append(escapeString(column.getLabel())).append(separator);
+    if (columns.isEmpty()) {
+      return;
     }
 
-    Map<ValueType, ValueFormatter> formatters = ValueFormatter.createDefaultFormatters(locale);
-
-    // Remove last comma.
-    int length = sb.length();
-    sb.replace(length - 1, length, "\n");
+    // Append column labels.
+    int numberOfColumns = columns.size();
+    for (int i = 0; i < numberOfColumns; i++) {
+      if (i > 0) {
+        out.append(separator);
+      }
+      appendEscapedString(columns.get(i).getLabel(), out);
+    }
+    out.append('\n');
+
+    // The default formatters are created once, and only for the types of the columns.
+    Map<ValueType, ValueFormatter> formattersByType = Maps.newEnumMap(ValueType.class);
+    ValueFormatter[] formatters = new ValueFormatter[numberOfColumns];
+    for (int i = 0; i < numberOfColumns; i++) {
+      ValueType type = columns.get(i).getType();
+      if (!formattersByType.containsKey(type)) {
+        formattersByType.put(type, ValueFormatter.createDefault(type, locale));
+      }
+      formatters[i] = formattersByType.get(type);
+    }
 
     // Append the data cells.
-    List<TableRow> rows = dataTable.getRows();
-    for (TableRow row : rows) {
-      List<TableCell> cells = row.getCells();
-      for (TableCell cell : cells) {
+    int numberOfRows = dataTable.getNumberOfRows();
+    for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+      for (int i = 0; i < numberOfColumns; i++) {
+        if (i > 0) {
+          out.append(separator);
+        }
+        TableCell cell = dataTable.getCell(rowIndex, i);
+        if (cell.isNull()) {
+          out.append("null");
+          continue;
+        }
         String formattedValue = cell.getFormattedValue();
         if (formattedValue == null) {
-          formattedValue = formatters.get(cell.getType()).format(cell.getValue());
+          formattedValue = formatters[i].format(cell.getValue());
         }
-        if (cell.isNull()) {
-          sb.append("null");
+        // Escape the string with quotes if its a text value or if it contains a comma.
+        if ((cell.getType() == ValueType.TEXT) || (formattedValue.indexOf(',') > -1)) {
+          appendEscapedString(formattedValue, out);
         } else {
-          ValueType type = cell.getType();
-          // Escape the string with quotes if its a text value or if it contains a comma.
-          if (formattedValue.indexOf(',') > -1 || type.equals(ValueType.TEXT)) {
-            sb.append(escapeString(formattedValue));
-          } else {
-            sb.append(formattedValue);
-          }
+          out.append(formattedValue);
         }
-        sb.append(separator);
       }
-
-      // Remove last comma.
-      length = sb.length();
-      sb.replace(length - 1, length, "\n");
+      out.append('\n');
     }
-    return sb.toString();
   }
 
   /**
-   * Escapes a string that is written to a csv file. The escaping is as follows:
+   * Appends a string that is written to a csv file, escaped as follows:
    * 1) surround with ".
    * 2) double each internal ".
    *
    * @param input The input string.
+   * @param out The appendable to append to.
    *
-   * @return An escaped string.
+   * @throws IOException Thrown if the appendable cannot be appended to.
    */
-  private static String escapeString(String input) {
-    StringBuilder sb = new StringBuilder();
-    sb.append("\"");
-    sb.append(StringUtils.replace(input, "\"", "\"\""));
-    sb.append("\"");
-    return sb.toString();
+  private static void appendEscapedString(String input, Appendable out) throws IOException {
+    out.append('"');
+    int quote = (input == null) ? -1 : input.indexOf('"');
+    if (quote < 0) {
+      // The common case: a string without quotes is appended as it is.
+      out.append(input);
+    } else {
+      int start = 0;
+      do {
+        out.append(input.substring(start, quote + 1)).append('"');
+        start = quote + 1;
+        quote = input.indexOf('"', start);
+      } while (quote > -1);
+      out.append(input.substring(start));
+    }
+    out.append('"');
   }
 
   /**
@@ -133,8 +176,13 @@ public class CsvRenderer {
    */
   public static String renderCsvError(ResponseStatus responseStatus) {
     StringBuilder sb = new StringBuilder();
-    sb.append("Error: ").append(responseStatus.getReasonType().getMessageForReasonType(null));
-    sb.append(". ").append(responseStatus.getDescription());
-    return escapeString(sb.toString());
+    try {
+      appendEscapedString("Error: " + responseStatus.getReasonType().getMessageForReasonType(null)
+          + ". " + responseStatus.getDescription(), sb);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
+    }
+    return sb.toString();
   }
 }
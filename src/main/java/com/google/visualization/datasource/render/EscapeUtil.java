@@ -17,6 +17,8 @@ package com.google.visualization.datasource.render;
 
 import org.apache.commons.lang.StringEscapeUtils;
 
+import java.io.IOException;
+
 /**
  * A utility to escape strings.
  *
@@ -57,7 +59,29 @@ public class EscapeUtil {
     if (str == null || str.length() == 0) {
       return "";
     }
-    StringBuffer sb = new StringBuffer();
+    StringBuilder sb = new StringBuilder(str.length() + 16);
+    try {
+      jsonEscape(str, sb);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Escapes a string embedded in the json response, as {@link #jsonEscape(String)} does, and
+   * appends the escaped string to the given appendable, without creating an intermediate string.
+   *
+   * @param str The original string to escape.
+   * @param sb The appendable to append the escaped string to.
+   *
+   * @throws IOException Thrown if the appendable cannot be appended to.
+   */
+  static void jsonEscape(String str, Appendable sb) throws IOException {
+    if (str == null) {
+      return;
+    }
     char current;
     for (int i = 0, j = str.length(); i < j; ++i) {
       current = str.charAt(i);
@@ -140,7 +164,6 @@ public class EscapeUtil {
           }
       }
     }
-    return sb.toString();
   }
 
   /**
@@ -14,6 +14,7 @@
 
 package com.google.visualization.datasource.render;
 
+import com.google.common.collect.Maps;
 import com.google.visualization.datasource.base.ReasonType;
 import com.google.visualization.datasource.base.ResponseStatus;
 import com.google.visualization.datasource.base.StatusType;
@@ -21,7 +22,6 @@ import com.google.visualization.datasource.base.Warning;
 import com.google.visualization.datasource.datatable.ColumnDescription;
 import com.google.visualization.datasource.datatable.DataTable;
 import com.google.visualization.datasource.datatable.TableCell;
-import com.google.visualization.datasource.datatable.TableRow;
 import com.google.visualization.datasource.datatable.ValueFormatter;
 import com.google.visualization.datasource.datatable.value.BooleanValue;
 import com.google.visualization.datasource.datatable.value.ValueType;
@@ -29,39 +29,21 @@ import com.google.visualization.datasource.datatable.value.ValueType;
 import com.ibm.icu.util.ULocale;
 
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
-import java.io.StringWriter;
-import java.io.Writer;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
 /**
  * Takes a data table and returns an html string.
+ * The html of a data table can also be written to an {@link Appendable}, e.g., a servlet
+ * response writer. The markup is written row by row as it is generated, so that large tables
+ * are never held in memory as a whole.
  *
  * @author Nimrod T.
  */
 public class HtmlRenderer {
-  
-  /**
-   * Log.
-   */
-  private static final Log log = LogFactory.getLog("HtmlRenderer");  
 
   /**
    * Private constructor.
@@ -82,6 +64,22 @@ public class HtmlRenderer {
    */
   private static final Pattern BAD_JAVASCRIPT_REGEXP = Pattern.compile("javascript(( )*):");
 
+  /**
+   * The html that precedes the body of every document.
+   */
+  private static final String HTML_HEAD = "<!DOCTYPE html PUBLIC \"-//W3C//DTD HTML 4.01//EN\">\n"
+      + "<html>\n"
+      + "    <head>\n"
+      + "        <META http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\">\n"
+      + "        <title>Google Visualization</title>\n"
+      + "    </head>\n"
+      + "    <body>\n";
+
+  /**
+   * The html that follows the body of every document.
+   */
+  private static final String HTML_TAIL = "    </body>\n</html>\n";
+
   /**
    * Generates an HTML string representation of a data table.
    * 
@@ -92,124 +90,198 @@ public class HtmlRenderer {
    * @return The char sequence with the html string.
    */
   public static CharSequence renderDataTable(DataTable dataTable, ULocale locale) {
-    // Create an xml document with head and an empty body.
-    Document document = createDocument();
-    Element bodyElement = appendHeadAndBody(document);
+    StringBuilder sb = new StringBuilder();
+    try {
+      renderDataTable(dataTable, locale, sb);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
+    }
+    return sb.toString();
+  }
 
-    // Populate the xml document.
-    Element tableElement = document.createElement("table");
-    bodyElement.appendChild(tableElement);
-    tableElement.setAttribute("border", "1");
-    tableElement.setAttribute("cellpadding", "2");
-    tableElement.setAttribute("cellspacing", "0");
+  /**
+   * Writes an HTML representation of a data table to the given appendable, row by row. The
+   * characters written are the same as the ones returned by
+   * {@link #renderDataTable(DataTable, ULocale)}.
+   *
+   * @param dataTable The data table to render.
+   * @param locale The locale. If null, uses the default from
+   *     {@code LocaleUtil#getDefaultLocale}.
+   * @param out The appendable to write to.
+   *
+   * @throws IOException Thrown if the appendable cannot be written to.
+   */
+  public static void renderDataTable(DataTable dataTable, ULocale locale, Appendable out)
+      throws IOException {
+    out.append(HTML_HEAD);
+    out.append("        <table border=\"1\" cellpadding=\"2\" cellspacing=\"0\">\n");
 
     // Labels tr element.
     List<ColumnDescription> columnDescriptions = dataTable.getColumnDescriptions();
-    Element trElement = document.createElement("tr");
-    trElement.setAttribute("style", "font-weight: bold; background-color: #aaa;");
-    for (ColumnDescription columnDescription : columnDescriptions) {
-      Element tdElement = document.createElement("td");
-      tdElement.setTextContent(columnDescription.getLabel());
-      trElement.appendChild(tdElement);
+    int numberOfColumns = columnDescriptions.size();
+    out.append("            <tr style=\"font-weight: bold; background-color: #aaa;\">");
+    if (numberOfColumns > 0) {
+      out.append("\n                ");
+      for (ColumnDescription columnDescription : columnDescriptions) {
+        appendElement("td", null, columnDescription.getLabel(), out);
+      }
+      out.append("\n            ");
+    }
+    out.append("</tr>\n");
+
+    // The default formatters are created once, and only for the types of the columns.
+    Map<ValueType, ValueFormatter> formattersByType = Maps.newEnumMap(ValueType.class);
+    ValueFormatter[] formatters = new ValueFormatter[numberOfColumns];
+    for (int c = 0; c < numberOfColumns; c++) {
+      ValueType type = columnDescriptions.get(c).getType();
+      if (!formattersByType.containsKey(type)) {
+        formattersByType.put(type, ValueFormatter.createDefault(type, locale));
+      }
+      formatters[c] = formattersByType.get(type);
     }
-    tableElement.appendChild(trElement);
 
-    Map<ValueType, ValueFormatter> formatters = ValueFormatter.createDefaultFormatters(locale);
     // Table tr elements.
-    int rowCount = 0;
-    for (TableRow row : dataTable.getRows()) {
-      rowCount++;
-      trElement = document.createElement("tr");
-      String backgroundColor = (rowCount % 2 != 0) ? "#f0f0f0" : "#ffffff";
-      trElement.setAttribute("style", "background-color: " + backgroundColor);
-
-      List<TableCell> cells = row.getCells();
-      for (int c = 0; c < cells.size(); c++) {
-        ValueType valueType = columnDescriptions.get(c).getType();
-        TableCell cell = cells.get(c);
-        String cellFormattedText = cell.getFormattedValue();
-        if (cellFormattedText == null) {
-          cellFormattedText = formatters.get(cell.getType()).format(cell.getValue());
-        }
-
-        Element tdElement = document.createElement("td");
-        if (cell.isNull()) {
-          tdElement.setTextContent("\u00a0");
-        } else {
-          switch (valueType) {
-            case NUMBER:
-              tdElement.setAttribute("align", "right");
-              tdElement.setTextContent(cellFormattedText);
-              break;
-            case BOOLEAN:
-              BooleanValue booleanValue = (BooleanValue) cell.getValue();
-              tdElement.setAttribute("align", "center");
-              if (booleanValue.getValue()) {
-                tdElement.setTextContent("\u2714"); // Check mark.
-              } else {
-                tdElement.setTextContent("\u2717"); // X mark.
-              }
-              break;
-            default:
-              if (StringUtils.isEmpty(cellFormattedText)) {
-                tdElement.setTextContent("\u00a0"); // nbsp.
-              } else {
-                tdElement.setTextContent(cellFormattedText);
-              }
-          }
+    int numberOfRows = dataTable.getNumberOfRows();
+    for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+      // The first row is odd.
+      String backgroundColor = (rowIndex % 2 == 0) ? "#f0f0f0" : "#ffffff";
+      out.append("            <tr style=\"background-color: ").append(backgroundColor)
+          .append("\">");
+      if (numberOfColumns > 0) {
+        out.append("\n                ");
+        for (int c = 0; c < numberOfColumns; c++) {
+          appendCell(dataTable.getCell(rowIndex, c), columnDescriptions.get(c).getType(),
+              formatters[c], out);
         }
-        trElement.appendChild(tdElement);
+        out.append("\n            ");
       }
-      tableElement.appendChild(trElement);
+      out.append("</tr>\n");
     }
-    bodyElement.appendChild(tableElement);
+    out.append("        </table>\n");
 
     // Warnings:
     for (Warning warning : dataTable.getWarnings()) {
-      bodyElement.appendChild(document.createElement("br"));
-      bodyElement.appendChild(document.createElement("br"));
-      Element messageElement = document.createElement("div");
-      messageElement.setTextContent(warning.getReasonType().getMessageForReasonType() + ". " +
-          warning.getMessage());
-      bodyElement.appendChild(messageElement);
+      out.append("        <br>\n        <br>\n        ");
+      appendElement("div", null, warning.getReasonType().getMessageForReasonType() + ". "
+          + warning.getMessage(), out);
+      out.append("\n");
     }
+    out.append(HTML_TAIL);
+  }
 
-    return transformDocumentToHtmlString(document);
+  /**
+   * Appends the td element of a cell.
+   *
+   * @param cell The cell.
+   * @param valueType The type of the column of the cell.
+   * @param formatter The default formatter of the column of the cell.
+   * @param out The appendable to append to.
+   *
+   * @throws IOException Thrown if the appendable cannot be appended to.
+   */
+  private static void appendCell(TableCell cell, ValueType valueType, ValueFormatter formatter,
+      Appendable out) throws IOException {
+    if (cell.isNull()) {
+      appendElement("td", null, "\u00a0", out);
+      return;
+    }
+    String cellFormattedText = cell.getFormattedValue();
+    if (cellFormattedText == null) {
+      cellFormattedText = formatter.format(cell.getValue());
+    }
+    switch (valueType) {
+      case NUMBER:
+        appendElement("td", "right", cellFormattedText, out);
+        break;
+      case BOOLEAN:
+        BooleanValue booleanValue = (BooleanValue) cell.getValue();
+        // Check mark or X mark.
+        appendElement("td", "center", booleanValue.getValue() ? "\u2714" : "\u2717", out);
+        break;
+      default:
+        if (StringUtils.isEmpty(cellFormattedText)) {
+          appendElement("td", null, "\u00a0", out); // nbsp.
+        } else {
+          appendElement("td", null, cellFormattedText, out);
+        }
+    }
   }
 
   /**
-   * Transforms a document to a valid html string.
+   * Appends an element with the given text content.
    *
-   * @param document The document to transform
+   * @param name The name of the element.
+   * @param align The value of the align attribute, or null for no align attribute.
+   * @param text The text content of the element, which is escaped.
+   * @param out The appendable to append to.
    *
-   * @return A string representation of a valid html.
+   * @throws IOException Thrown if the appendable cannot be appended to.
    */
-  private static String transformDocumentToHtmlString(Document document) {
-    // Generate a CharSequence from the xml document.
-    Transformer transformer = null;
-    try {
-      transformer = TransformerFactory.newInstance().newTransformer();
-    } catch (TransformerConfigurationException e) {
-      log.error("Couldn't create a transformer", e);
-      throw new RuntimeException("Couldn't create a transformer. This should never happen.", e);
+  private static void appendElement(String name, String align, String text, Appendable out)
+      throws IOException {
+    out.append('<').append(name);
+    if (align != null) {
+      out.append(" align=\"").append(align).append('"');
     }
-    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-    transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, "-//W3C//DTD HTML 4.01//EN");
-    transformer.setOutputProperty(OutputKeys.METHOD, "html");
-    transformer.setOutputProperty(OutputKeys.VERSION, "4.01");
-    
-    DOMSource source = new DOMSource(document);
-    Writer writer = new StringWriter();
-    StreamResult result = new StreamResult(writer);
-    try {
-      transformer.transform(source, result);
-    } catch (TransformerException e) {
-      log.error("Couldn't transform", e);
-      throw new RuntimeException("Couldn't transform. This should never happen.", e);
+    out.append('>');
+    appendEscapedText(text, out);
+    out.append("</").append(name).append('>');
+  }
+
+  /**
+   * Appends html text, escaping the characters that have a meaning in html, and writing
+   * non-breaking spaces as <code>&amp;nbsp;</code>, so that they are visible in the source.
+   *
+   * @param text The text to append.
+   * @param out The appendable to append to.
+   *
+   * @throws IOException Thrown if the appendable cannot be appended to.
+   */
+  private static void appendEscapedText(String text, Appendable out) throws IOException {
+    if (text == null) {
+      return;
+    }
+    int length = text.length();
+    int i = 0;
+    while ((i < length) && !needsEscaping(text.charAt(i))) {
+      i++;
+    }
+    if (i == length) {
+      // The common case: a text without special characters is appended as it is.
+      out.append(text);
+      return;
+    }
+    for (i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '&':
+          out.append("&amp;");
+          break;
+        case '<':
+          out.append("&lt;");
+          break;
+        case '>':
+          out.append("&gt;");
+          break;
+        case '\u00a0':
+          out.append("&nbsp;");
+          break;
+        default:
+          out.append(c);
+      }
     }
+  }
 
-    return writer.toString();
+  /**
+   * Returns whether a character is escaped by {@link #appendEscapedText(String, Appendable)}.
+   *
+   * @param c The character.
+   *
+   * @return True if the character is escaped.
+   */
+  private static boolean needsEscaping(char c) {
+    return (c == '&') || (c == '<') || (c == '>') || (c == '\u00a0');
   }
 
   /**
@@ -247,81 +319,46 @@ public class HtmlRenderer {
     ReasonType reason = responseStatus.getReasonType();
     String detailedMessage = responseStatus.getDescription();
 
-    // Create an xml document with head and an empty body.
-    Document document = createDocument();
-    Element bodyElement = appendHeadAndBody(document);
-
-    // Populate the xml document.
-    Element oopsElement = document.createElement("h3");
-    oopsElement.setTextContent("Oops, an error occured.");
-    bodyElement.appendChild(oopsElement);
-
-    if (status != null) {
-      String text = "Status: " + status.lowerCaseString();
-      appendSimpleText(document, bodyElement, text);
-    }
-
-    if (reason != null) {
-      String text = "Reason: " + reason.getMessageForReasonType(null);
-      appendSimpleText(document, bodyElement, text);
-    }
-
-    if (detailedMessage != null) {
-      String text = "Description: " + sanitizeDetailedMessage(detailedMessage);
-      appendSimpleText(document, bodyElement, text);
-    }
+    StringBuilder sb = new StringBuilder();
+    try {
+      sb.append(HTML_HEAD);
+      sb.append("        ");
+      appendElement("h3", null, "Oops, an error occured.", sb);
+      sb.append("\n");
+
+      if (status != null) {
+        String text = "Status: " + status.lowerCaseString();
+        appendSimpleText(text, sb);
+      }
 
-    return transformDocumentToHtmlString(document);
-  }
+      if (reason != null) {
+        String text = "Reason: " + reason.getMessageForReasonType(null);
+        appendSimpleText(text, sb);
+      }
 
-  /**
-   * Creates a document element.
-   *
-   * @return A document element.
-   */
-  private static Document createDocument() {
-    DocumentBuilder documentBuilder = null;
-    try {
-      documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-    } catch (ParserConfigurationException e) {
-      log.error("Couldn't create a document builder", e);
-      throw new RuntimeException(
-          "Couldn't create a document builder. This should never happen.", e);
+      if (detailedMessage != null) {
+        String text = "Description: " + sanitizeDetailedMessage(detailedMessage);
+        appendSimpleText(text, sb);
+      }
+      sb.append(HTML_TAIL);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
     }
-    Document document = documentBuilder.newDocument();
-    return document;
-  }
-
-  /**
-   * Appends &lt;html&gt;, &lt;head&gt;, &lt;title&gt;, and &lt;body&gt; elements to the document.
-   *
-   * @param document The containing document.
-   *
-   * @return The &lt;body&gt; element.
-   */
-  private static Element appendHeadAndBody(Document document) {
-    Element htmlElement = document.createElement("html");
-    document.appendChild(htmlElement);
-    Element headElement = document.createElement("head");
-    htmlElement.appendChild(headElement);
-    Element titleElement = document.createElement("title");
-    titleElement.setTextContent("Google Visualization");
-    headElement.appendChild(titleElement);
-    Element bodyElement = document.createElement("body");
-    htmlElement.appendChild(bodyElement);
-    return bodyElement;
+    return sb.toString();
   }
 
   /**
    * Appends a simple text line to the body of the document.
    *
-   * @param document The containing document.
-   * @param bodyElement The body of the document.
    * @param text The text to append.
+   * @param out The appendable to append to.
+   *
+   * @throws IOException Thrown if the appendable cannot be appended to.
    */
-  private static void appendSimpleText(Document document, Element bodyElement, String text) {
-    Element statusElement = document.createElement("div");
-    statusElement.setTextContent(text);
-    bodyElement.appendChild(statusElement);
+  private static void appendSimpleText(String text, Appendable out) throws IOException {
+    out.append("        ");
+    appendElement("div", null, text, out);
+    out.append("\n");
   }
 }
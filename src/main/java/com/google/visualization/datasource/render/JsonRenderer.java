@@ -14,7 +14,6 @@
 
 package com.google.visualization.datasource.render;
 
-import com.google.common.collect.Lists;
 import com.google.visualization.datasource.base.DataSourceParameters;
 import com.google.visualization.datasource.base.OutputType;
 import com.google.visualization.datasource.base.ReasonType;
@@ -33,16 +32,18 @@ import com.google.visualization.datasource.datatable.value.TimeOfDayValue;
 import com.google.visualization.datasource.datatable.value.Value;
 import com.google.visualization.datasource.datatable.value.ValueType;
 
-import com.ibm.icu.util.GregorianCalendar;
-
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.text.StrBuilder;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Takes a data table and returns a json string.
+ *
+ * Each rendering method also has a form that writes the json to an {@link Appendable}, e.g., a
+ * buffered writer on the servlet output stream, instead of building the whole response in memory.
+ * Both forms render exactly the same characters.
  * 
  * The renderer renders a response which primarily contains the serializing of a data table.
  * The response type can be either json or jsonp (a json format wrapped inside a callback method).
@@ -65,7 +66,8 @@ public class JsonRenderer {
   private JsonRenderer() {}
 
   /**
-   * Returns a String-form 32-bit hash of this table's json.
+   * Returns the signature of the given table, a String-form 64-bit hash of its contents.
+   * The signature is computed once per table, see {@link DataTable#getSignature()}.
    * Note: the signature ignores formatting.
    *
    * @param data The data table.
@@ -73,33 +75,37 @@ public class JsonRenderer {
    * @return a String-form 64-bit hash of this table.
    */
   public static String getSignature(DataTable data) {
-    String tableAsString = renderDataTable(data, true, false, true).toString();
-    // Casting to long to avoid bug with abs(Integer.MIN_VALUE) being negative.
-    long longHashCode = tableAsString.hashCode();
-    return String.valueOf(Math.abs(longHashCode));
+    return data.getSignature();
   }
 
   /**
-   * Returns the part of the json string that describes a single warning or error.
+   * Appends the part of the json string that describes a single warning or error.
    *
    * @param reasonType The reason for the warning or error.
    * @param description The detailed description for this warning or error.
+   * @param out The appendable to append to.
    *
-   * @return The part of the json string.
+   * @throws IOException Thrown if the appendable cannot be appended to.
    */
-  private static String getFaultString(ReasonType reasonType, String description) {
-    List<String> objectParts = Lists.newArrayList();
+  private static void appendFaultJson(ReasonType reasonType, String description, Appendable out)
+      throws IOException {
+    out.append("{");
     if (reasonType != null) {
-      objectParts.add("\"reason\":\"" + reasonType.lowerCaseString() + "\"");
-      objectParts.add("\"message\":\"" + EscapeUtil.jsonEscape(
-              reasonType.getMessageForReasonType(null)) + "\"");
+      out.append("\"reason\":\"").append(reasonType.lowerCaseString()).append("\"");
+      out.append(",\"message\":\"");
+      EscapeUtil.jsonEscape(reasonType.getMessageForReasonType(null), out);
+      out.append("\"");
     }
 
     if (description != null) {
-      objectParts.add("\"detailed_message\":\"" + EscapeUtil.jsonEscape(description)
-          + "\"");
+      if (reasonType != null) {
+        out.append(",");
+      }
+      out.append("\"detailed_message\":\"");
+      EscapeUtil.jsonEscape(description, out);
+      out.append("\"");
     }
-    return new StrBuilder("{").appendWithSeparators(objectParts, ",").append("}").toString();
+    out.append("}");
   }
 
   /**
@@ -141,24 +147,57 @@ public class JsonRenderer {
       DataSourceParameters dsParams,
       ResponseStatus responseStatus,
       DataTable data) {
-    StrBuilder sb = new StrBuilder();
+    StringBuilder sb = new StringBuilder();
+    try {
+      renderJsonResponse(dsParams, responseStatus, data, sb);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Writes the json response for the given data table to the given appendable. The characters
+   * written are the same as the ones returned by
+   * {@link #renderJsonResponse(DataSourceParameters, ResponseStatus, DataTable)}.
+   *
+   * @param dsParams The datasource parameters. If the OutputType parameter is set to
+   *     JSONP the response will be rendered as JSONP. Otherwise a plain JSON string will
+   *     be written.
+   * @param responseStatus The response status.
+   * @param data The data table.
+   * @param out The appendable to write to.
+   *
+   * @throws IOException Thrown if the appendable cannot be written to.
+   */
+  public static void renderJsonResponse(
+      DataSourceParameters dsParams,
+      ResponseStatus responseStatus,
+      DataTable data,
+      Appendable out) throws IOException {
     boolean isJsonp = dsParams.getOutputType() == OutputType.JSONP;
     if (isJsonp) {
-      sb.append(dsParams.getResponseHandler()).append("(");
+      out.append(dsParams.getResponseHandler()).append("(");
     }
-    sb.append("{\"version\":\"0.6\"");
+    out.append("{\"version\":\"0.6\"");
 
     // If no reqId found in the request, do not return reqId in the response.
     String requestId = dsParams.getRequestId();
     if (requestId != null) {
-      sb.append(",\"reqId\":\"").append(EscapeUtil.jsonEscape(requestId)).append("\"");
+      out.append(",\"reqId\":\"");
+      EscapeUtil.jsonEscape(requestId, out);
+      out.append("\"");
     }
 
-    // Check signature.
+    // Check signature. If the client already has this table, the table is not rendered.
+    String signature = null;
     String previousSignature = dsParams.getSignature();
     if (responseStatus == null) {
-      if (!StringUtils.isEmpty(previousSignature) && (data != null)
-          && (JsonRenderer.getSignature(data).equals(previousSignature))) {
+      if (!StringUtils.isEmpty(previousSignature) && (data != null)) {
+        signature = JsonRenderer.getSignature(data);
+      }
+      if ((signature != null) && signature.equals(previousSignature)) {
         responseStatus = new ResponseStatus(StatusType.ERROR, ReasonType.NOT_MODIFIED, null);
       } else {
         responseStatus = new ResponseStatus(StatusType.OK, null, null);
@@ -166,41 +205,47 @@ public class JsonRenderer {
     }
 
     StatusType statusType = responseStatus.getStatusType();
-    sb.append(",\"status\":\"").append(statusType.lowerCaseString()).append("\"");
+    out.append(",\"status\":\"").append(statusType.lowerCaseString()).append("\"");
 
     // There are reason and messages if the status is WARNING/ERROR.
     if (statusType != StatusType.OK) {
       // Status is warning or error.
       if (statusType == StatusType.WARNING) {
         List<Warning> warnings = data.getWarnings();
-        List<String> warningJsonStrings = Lists.newArrayList();
+        out.append(",\"warnings\":[");
         if (warnings != null) {
-          for (Warning warning : warnings) {
-            warningJsonStrings.add(getFaultString(warning.getReasonType(), warning.getMessage()));
+          for (int i = 0; i < warnings.size(); i++) {
+            if (i > 0) {
+              out.append(",");
+            }
+            Warning warning = warnings.get(i);
+            appendFaultJson(warning.getReasonType(), warning.getMessage(), out);
           }
         }
-        sb.append(",\"warnings\":[").appendWithSeparators(warningJsonStrings, ",").append("]");
+        out.append("]");
 
       } else { // Status is error.
-        sb.append(",\"errors\":[");
-        sb.append(getFaultString(responseStatus.getReasonType(), responseStatus.getDescription()));
-        sb.append("]");
+        out.append(",\"errors\":[");
+        appendFaultJson(responseStatus.getReasonType(), responseStatus.getDescription(), out);
+        out.append("]");
       }
     }
     
     if ((statusType != StatusType.ERROR) && (data != null)) {
       // MessageType OK or WARNING,
       // so need to attach a data table (and a signature).
-      sb.append(",\"sig\":\"").append(JsonRenderer.getSignature(data)).append("\"");
-      sb.append(",\"table\":").append(JsonRenderer.renderDataTable(data, true, true, isJsonp));
+      if (signature == null) {
+        signature = JsonRenderer.getSignature(data);
+      }
+      out.append(",\"sig\":\"").append(signature).append("\"");
+      out.append(",\"table\":");
+      renderDataTable(data, true, true, isJsonp, out);
     }
     
-    sb.append("}");
+    out.append("}");
     if (isJsonp) {
-      sb.append(");");
+      out.append(");");
     }
-    
-    return sb.toString();
   }
 
   /**
@@ -244,38 +289,69 @@ public class JsonRenderer {
     if (dataTable.getColumnDescriptions().isEmpty()) {
       return "";
     }
+    StringBuilder sb = new StringBuilder();
+    try {
+      renderDataTable(dataTable, includeValues, includeFormatting, renderDateAsDateConstructor,
+          sb);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
+    }
+    return sb;
+  }
+
+  /**
+   * Writes a JSON representation of the data table object to the given appendable. The
+   * characters written are the same as the ones returned by
+   * {@link #renderDataTable(DataTable, boolean, boolean, boolean)}.
+   *
+   * @param includeValues False if the json should contain just meta-data and column descriptions
+   *     but without the data rows.
+   * @param includeFormatting False if formatting information should be omitted from the
+   *     generated json.
+   * @param renderDateAsDateConstructor True -> date constructor, False -> date string.
+   *     See {@link #renderDataTable(DataTable, boolean, boolean, boolean)}.
+   * @param out The appendable to write to.
+   *
+   * @throws IOException Thrown if the appendable cannot be written to.
+   */
+  public static void renderDataTable(DataTable dataTable, boolean includeValues,
+      boolean includeFormatting, boolean renderDateAsDateConstructor, Appendable out)
+      throws IOException {
+    if (dataTable.getColumnDescriptions().isEmpty()) {
+      return;
+    }
 
     List<ColumnDescription> columnDescriptions = dataTable.getColumnDescriptions();
 
-    StringBuilder sb = new StringBuilder();
-    sb.append("{");
-    sb.append("\"cols\":["); // column descriptions.
+    out.append("{");
+    out.append("\"cols\":["); // column descriptions.
 
     ColumnDescription col;
     for (int colId = 0; colId < columnDescriptions.size(); colId++) {
       col = columnDescriptions.get(colId);
-      appendColumnDescriptionJson(col, sb);
+      appendColumnDescriptionJson(col, out);
       if (colId != (columnDescriptions.size() - 1)) {
-        sb.append(",");
+        out.append(",");
       }
     }
-    sb.append("]"); // columns.
+    out.append("]"); // columns.
 
     if (includeValues) {
-      sb.append(",\"rows\":[");
+      out.append(",\"rows\":[");
       List<TableCell> cells;
       TableCell cell;
-      ColumnDescription columnDescription;
 
-      List<TableRow> rows = dataTable.getRows();
-      for (int rowId = 0; rowId < rows.size(); rowId++) {
-        TableRow tableRow = rows.get(rowId);
+      int numberOfRows = dataTable.getNumberOfRows();
+      for (int rowId = 0; rowId < numberOfRows; rowId++) {
+        TableRow tableRow = dataTable.getRow(rowId);
         cells = tableRow.getCells();
-        sb.append("{\"c\":[");
+        out.append("{\"c\":[");
         for (int cellId = 0; cellId < cells.size(); cellId++) {
           cell = cells.get(cellId);
           if (cellId < (cells.size() - 1)) {
-            appendCellJson(cell, sb, includeFormatting, false, renderDateAsDateConstructor);
+            boolean isAppended = appendCellJson(cell, out, includeFormatting, false,
+                renderDateAsDateConstructor);
 
             /* From the JSON spec:
              * "An object is an unordered set of name/value pairs. An object
@@ -284,47 +360,37 @@ public class JsonRenderer {
              * separated by , (comma)."
              *
              * Avoid a invalid ",," (comma empty comma) sequence in the JSON
-             * output. Emmit a valid ",{}," sequence instead.
+             * output. Emmit a valid ",{}," sequence instead. The output ends with a
+             * comma exactly when this cell was dropped and it is not the first cell.
              */
-            if (sb.toString().endsWith(",")) {
-              sb.append("{}");
+            if (!isAppended && (cellId > 0)) {
+              out.append("{}");
             }
 
-            sb.append(",");
+            out.append(",");
           } else {
             // Last column in the row.
-            appendCellJson(cell, sb, includeFormatting, true, renderDateAsDateConstructor);
+            appendCellJson(cell, out, includeFormatting, true, renderDateAsDateConstructor);
           }
         }
-        sb.append("]");
+        out.append("]");
 
         // Row properties.
-        String customPropertiesString = getPropertiesMapString(tableRow.getCustomProperties());
-        if (customPropertiesString != null) {
-          sb.append(",\"p\":").append(customPropertiesString);
-        }
+        appendPropertiesJson(tableRow.getCustomProperties(), out);
 
-        sb.append("}"); // cells.
-        if ((rows.size() - 1) > rowId) {
-          sb.append(",");
+        out.append("}"); // cells.
+        if ((numberOfRows - 1) > rowId) {
+          out.append(",");
         }
       }
 
-      sb.append("]"); // rows.
+      out.append("]"); // rows.
     }
 
     // Table properties.
-    String customPropertiesString = getPropertiesMapString(dataTable.getCustomProperties());
-    if (customPropertiesString != null) {
-      sb.append(",\"p\":").append(customPropertiesString);
-    }
-
-    sb.append("}"); // table.
+    appendPropertiesJson(dataTable.getCustomProperties(), out);
 
-    // Avoid a invalid ",," sequence in the JSON output.
-    // Emmit a ",{}," sequence instead.
-    //return sb.toString().replaceAll(",,",",{},");
-    return sb;
+    out.append("}"); // table.
   }
   
   /**
@@ -364,112 +430,127 @@ public class JsonRenderer {
   static StringBuilder appendCellJson(TableCell cell, 
       StringBuilder sb, boolean includeFormatting, boolean isLastColumn,
       boolean renderDateAsDateConstructor) {
+    try {
+      appendCellJson(cell, (Appendable) sb, includeFormatting, isLastColumn,
+          renderDateAsDateConstructor);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
+    }
+    return sb;
+  }
+
+  /**
+   * Appends a Json representing a cell to the appendable. A null value that is not in the last
+   * column of its row is dropped, and nothing is appended for it.
+   *
+   * @param cell The cell to write Json for.
+   * @param out The appendable to append to.
+   * @param includeFormatting False if formatting information should be omitted from the json.
+   * @param isLastColumn Is this the last column in the row.
+   * @param renderDateAsDateConstructor True -> date constructor, False -> date string.
+   *
+   * @return True if the cell was appended, false if it was dropped.
+   *
+   * @throws IOException Thrown if the appendable cannot be appended to.
+   */
+  private static boolean appendCellJson(TableCell cell, Appendable out,
+      boolean includeFormatting, boolean isLastColumn, boolean renderDateAsDateConstructor)
+      throws IOException {
     Value value = cell.getValue();
     ValueType type = cell.getType();
-    StringBuilder valueJson = new StringBuilder();
-    GregorianCalendar calendar;
-    String escapedFormattedString = "";
-    boolean isJsonNull = false;
+    boolean isJsonNull = (value == null) || (value.isNull());
 
-    // Prepare a Json string representing the current value.
-    DateValue dateValue;
-    TimeOfDayValue timeOfDayValue;
-    if ((value == null) || (value.isNull())) {
-      valueJson.append("null");
-      isJsonNull = true;
+    // If the value is null, and it is not the last column in the row drop the entire Json.
+    if (!isLastColumn && isJsonNull) {
+      return false;
+    }
+
+    out.append("{");
+    // Value
+    out.append("\"v\":");
+    if (isJsonNull) {
+      out.append("null");
     } else {
-      switch (type) {
-        case BOOLEAN:
-          valueJson.append(((BooleanValue) value).getValue());
-          break;
-        case DATE:
-          valueJson.append("Date(");
-          dateValue = (DateValue) value;
-          valueJson.append(dateValue.getYear()).append(",");
-          valueJson.append(dateValue.getMonth()).append(",");
-          valueJson.append(dateValue.getDayOfMonth());
-          valueJson.append(")");
-          if (renderDateAsDateConstructor) {
-            // Rendering date as a call to Date constructor, e.g new Date(2011,1,1)
-            valueJson.insert(0, "new ");
-          } else {
-            // Rendering date in string format, e.g "Date(2011,1,1)"
-            valueJson.insert(0, "\"");
-            valueJson.append("\"");           
-          }
-          break;
-        case NUMBER:
-          valueJson.append(((NumberValue) value).getValue());
-          break;
-        case TEXT:
-          valueJson.append("\"");
-          valueJson.append(EscapeUtil.jsonEscape(value.toString()));
-          valueJson.append("\"");
-          break;
-        case TIMEOFDAY:
-          valueJson.append("[");
-          timeOfDayValue = (TimeOfDayValue) value;
-          valueJson.append(timeOfDayValue.getHours()).append(",");
-          valueJson.append(timeOfDayValue.getMinutes()).append(",");
-          valueJson.append(timeOfDayValue.getSeconds()).append(",");
-          valueJson.append(timeOfDayValue.getMilliseconds());
-          valueJson.append("]");
-          break;
-        case DATETIME:
-          calendar = ((DateTimeValue) value).getCalendar();
-          valueJson.append("Date(");
-          valueJson.append(calendar.get(GregorianCalendar.YEAR)).append(",");
-          valueJson.append(calendar.get(GregorianCalendar.MONTH)).append(",");
-          valueJson.append(calendar.get(GregorianCalendar.DAY_OF_MONTH));
-          valueJson.append(",");
-          valueJson.append(calendar.get(GregorianCalendar.HOUR_OF_DAY));
-          valueJson.append(",");
-          valueJson.append(calendar.get(GregorianCalendar.MINUTE)).append(",");
-          valueJson.append(calendar.get(GregorianCalendar.SECOND));
-          valueJson.append(")");
-          if (renderDateAsDateConstructor) {
-            // Rendering date as a call to Date constructor, e.g new Date(2011,1,1,0,0,0)
-            valueJson.insert(0, "new ");
-          } else {
-            // Rendering date in string format, e.g "Date(2011,1,1,0,0,0)"
-            valueJson.insert(0, "\"");
-            valueJson.append("\"");           
-          }
-          break;
-        default:
-          throw new IllegalArgumentException("Illegal value Type " + type);
-      }
+      appendValueJson(value, type, out, renderDateAsDateConstructor);
     }
 
-    // Prepare an escaped string representing the current formatted value.
+    // Formatted value. If the formatted value is empty drop it. A formatted value of type TEXT
+    // that equals its value's ordinary toString is dropped as well.
     String formattedValue = cell.getFormattedValue();
-    if ((value != null) && !value.isNull() && (formattedValue != null)) {
-      escapedFormattedString = EscapeUtil.jsonEscape(formattedValue);
-      // Check for a value of type TEXT if the formatted value equals
-      // its ordinary toString.
-      if ((type == ValueType.TEXT) && value.toString().equals(formattedValue)) {
-        escapedFormattedString = "";
-      }
+    if (includeFormatting && !isJsonNull && !StringUtils.isEmpty(formattedValue)
+        && !((type == ValueType.TEXT) && value.toString().equals(formattedValue))) {
+      out.append(",\"f\":\"");
+      EscapeUtil.jsonEscape(formattedValue, out);
+      out.append("\"");
     }
+    appendPropertiesJson(cell.getCustomProperties(), out);
+    out.append("}");
+    return true;
+  }
 
-    // Add a Json for this cell. And,
-    // 1) If the formatted value is empty drop it.
-    // 2) If the value is null, and it is not the last column in the row drop the entire Json.
-    if ((isLastColumn) || (!isJsonNull)) {
-      sb.append("{");
-      // Value
-      sb.append("\"v\":").append(valueJson);
-      // Formatted value
-      if ((includeFormatting) && (!escapedFormattedString.equals(""))) {
-        sb.append(",\"f\":\"").append(escapedFormattedString).append("\"");
-      }
-      String customPropertiesString = getPropertiesMapString(cell.getCustomProperties());
-      if (customPropertiesString != null) {
-        sb.append(",\"p\":").append(customPropertiesString);
-      }
-      sb.append("}");
+  /**
+   * Appends a Json representing a non null value to the appendable.
+   *
+   * @param value The value.
+   * @param type The type of the value.
+   * @param out The appendable to append to.
+   * @param renderDateAsDateConstructor True -> date constructor, False -> date string.
+   *
+   * @throws IOException Thrown if the appendable cannot be appended to.
+   */
+  private static void appendValueJson(Value value, ValueType type, Appendable out,
+      boolean renderDateAsDateConstructor) throws IOException {
+    DateValue dateValue;
+    DateTimeValue dateTimeValue;
+    TimeOfDayValue timeOfDayValue;
+    // Dates are rendered either as a call to Date constructor, e.g new Date(2011,1,1), or in
+    // string format, e.g "Date(2011,1,1)".
+    String datePrefix = renderDateAsDateConstructor ? "new " : "\"";
+    String dateSuffix = renderDateAsDateConstructor ? "" : "\"";
+    switch (type) {
+      case BOOLEAN:
+        out.append(String.valueOf(((BooleanValue) value).getValue()));
+        break;
+      case DATE:
+        dateValue = (DateValue) value;
+        out.append(datePrefix).append("Date(");
+        out.append(String.valueOf(dateValue.getYear())).append(",");
+        out.append(String.valueOf(dateValue.getMonth())).append(",");
+        out.append(String.valueOf(dateValue.getDayOfMonth()));
+        out.append(")").append(dateSuffix);
+        break;
+      case NUMBER:
+        out.append(String.valueOf(((NumberValue) value).getValue()));
+        break;
+      case TEXT:
+        out.append("\"");
+        EscapeUtil.jsonEscape(value.toString(), out);
+        out.append("\"");
+        break;
+      case TIMEOFDAY:
+        timeOfDayValue = (TimeOfDayValue) value;
+        out.append("[");
+        out.append(String.valueOf(timeOfDayValue.getHours())).append(",");
+        out.append(String.valueOf(timeOfDayValue.getMinutes())).append(",");
+        out.append(String.valueOf(timeOfDayValue.getSeconds())).append(",");
+        out.append(String.valueOf(timeOfDayValue.getMilliseconds()));
+        out.append("]");
+        break;
+      case DATETIME:
+        dateTimeValue = (DateTimeValue) value;
+        out.append(datePrefix).append("Date(");
+        out.append(String.valueOf(dateTimeValue.getYear())).append(",");
+        out.append(String.valueOf(dateTimeValue.getMonth())).append(",");
+        out.append(String.valueOf(dateTimeValue.getDayOfMonth())).append(",");
+        out.append(String.valueOf(dateTimeValue.getHourOfDay())).append(",");
+        out.append(String.valueOf(dateTimeValue.getMinute())).append(",");
+        out.append(String.valueOf(dateTimeValue.getSecond()));
+        out.append(")").append(dateSuffix);
+        break;
+      default:
+        throw new IllegalArgumentException("Illegal value Type " + type);
     }
-    return sb;
   }
 
   /**
@@ -482,40 +563,69 @@ public class JsonRenderer {
    */
   public static StringBuilder appendColumnDescriptionJson(
       ColumnDescription col, StringBuilder sb) {
-    sb.append("{");
-    sb.append("\"id\":\"").append(EscapeUtil.jsonEscape(col.getId())).append("\",");
-    sb.append("\"label\":\"").append(EscapeUtil.jsonEscape(col.getLabel())).append("\",");
-    sb.append("\"type\":\"").append(col.getType().getTypeCodeLowerCase()).append("\",");
-    sb.append("\"pattern\":\"").append(EscapeUtil.jsonEscape(col.getPattern())).append("\"");
-
-    String customPropertiesString = getPropertiesMapString(col.getCustomProperties());
-    if (customPropertiesString != null) {
-      sb.append(",\"p\":").append(customPropertiesString);
+    try {
+      appendColumnDescriptionJson(col, (Appendable) sb);
+    } catch (IOException e) {
+      // Should not happen. A StringBuilder does not throw IOExceptions.
+      throw new RuntimeException(e);
     }
-
-    sb.append("}");
     return sb;
   }
 
   /**
-   * Makes a string from a properties map.
+   * Appends a Json representing a column description to the appendable.
+   *
+   * @param col The column description to write Json for.
+   * @param out The appendable to append to.
+   *
+   * @throws IOException Thrown if the appendable cannot be appended to.
+   */
+  private static void appendColumnDescriptionJson(ColumnDescription col, Appendable out)
+      throws IOException {
+    out.append("{");
+    out.append("\"id\":\"");
+    EscapeUtil.jsonEscape(col.getId(), out);
+    out.append("\",");
+    out.append("\"label\":\"");
+    EscapeUtil.jsonEscape(col.getLabel(), out);
+    out.append("\",");
+    out.append("\"type\":\"").append(col.getType().getTypeCodeLowerCase()).append("\",");
+    out.append("\"pattern\":\"");
+    EscapeUtil.jsonEscape(col.getPattern(), out);
+    out.append("\"");
+
+    appendPropertiesJson(col.getCustomProperties(), out);
+
+    out.append("}");
+  }
+
+  /**
+   * Appends a properties map, preceded by ',"p":', to the appendable. Nothing is appended if
+   * the map is null or empty.
    *
    * @param propertiesMap The properties map.
+   * @param out The appendable to append to.
    *
-   * @return A json string.
+   * @throws IOException Thrown if the appendable cannot be appended to.
    */
-  private static String getPropertiesMapString(Map<String, String> propertiesMap) {
-    String customPropertiesString = null;
-    if ((propertiesMap != null) && (!propertiesMap.isEmpty())) {
-      List<String> customPropertiesStrings = Lists.newArrayList();
-      for (Map.Entry<String, String> entry : propertiesMap.entrySet()) {
-        customPropertiesStrings.add("\""
-            + EscapeUtil.jsonEscape(entry.getKey()) + "\":\""
-            + EscapeUtil.jsonEscape(entry.getValue()) + "\"");
+  private static void appendPropertiesJson(Map<String, String> propertiesMap, Appendable out)
+      throws IOException {
+    if ((propertiesMap == null) || propertiesMap.isEmpty()) {
+      return;
+    }
+    out.append(",\"p\":{");
+    boolean isFirst = true;
+    for (Map.Entry<String, String> entry : propertiesMap.entrySet()) {
+      if (!isFirst) {
+        out.append(",");
       }
-      customPropertiesString = new StrBuilder("{")
-          .appendWithSeparators(customPropertiesStrings, ",").append("}").toString();
+      isFirst = false;
+      out.append("\"");
+      EscapeUtil.jsonEscape(entry.getKey(), out);
+      out.append("\":\"");
+      EscapeUtil.jsonEscape(entry.getValue(), out);
+      out.append("\"");
     }
-    return customPropertiesString;
+    out.append("}");
   }
 }
@@ -17,10 +17,11 @@ package com.google.visualization.datasource.util;
 import com.google.common.collect.Lists;
 import com.google.visualization.datasource.base.DataSourceException;
 import com.google.visualization.datasource.base.ReasonType;
-import com.google.visualization.datasource.base.TypeMismatchException;
 import com.google.visualization.datasource.datatable.ColumnDescription;
 import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.DataTableBuilder;
 import com.google.visualization.datasource.datatable.TableRow;
+import com.google.visualization.datasource.datatable.ValueDictionary;
 import com.google.visualization.datasource.datatable.ValueFormatter;
 import com.google.visualization.datasource.datatable.value.Value;
 import com.google.visualization.datasource.datatable.value.ValueType;
@@ -88,6 +89,29 @@ public class CsvDataSourceHelper {
   public static DataTable read(Reader reader, List<ColumnDescription> columnDescriptions,
       Boolean headerRow, ULocale locale)
       throws IOException, CsvDataSourceException {
+    return read(reader, columnDescriptions, headerRow, locale, null);
+  }
+
+  /**
+   * Translates a CSV formatted input into a data table representation, sharing equal values
+   * of a column through the given dictionary.
+   * See {@link #read(java.io.Reader, java.util.List, Boolean, ULocale)}.
+   *
+   * @param reader The CSV input Reader from which to read.
+   * @param columnDescriptions The column descriptions.
+   * @param headerRow True if there is an header row.
+   * @param locale An optional locale in which to parse the input csv file.
+   * @param valueDictionary An optional dictionary with which to share the values of each column.
+   *     If null, every cell gets its own value.
+   *
+   * @return A data table with the values populated from the CSV file.
+   *
+   * @throws IOException In case of error reading from the reader.
+   * @throws CsvDataSourceException In case of specific csv error.
+   */
+  public static DataTable read(Reader reader, List<ColumnDescription> columnDescriptions,
+      Boolean headerRow, ULocale locale, ValueDictionary valueDictionary)
+      throws IOException, CsvDataSourceException {
     DataTable dataTable = new DataTable();
 
     if (reader == null) {
@@ -99,6 +123,7 @@ public class CsvDataSourceHelper {
         ValueFormatter.createDefaultFormatters(locale);
 
     // Parse the CSV.
+    DataTableBuilder builder = null;
     String[] line;
     boolean firstLine = true;
     while ((line = csvReader.readNext()) != null) {
@@ -163,8 +188,7 @@ public class CsvDataSourceHelper {
         }
 
         columnDescriptions = tempColumnDescriptions;
-        dataTable = new DataTable();
-        dataTable.addColumns(columnDescriptions);
+        builder = new DataTableBuilder(columnDescriptions);
       }
       if (!(firstLine && headerRow)) {
         // Need to parse the first line as a regular row.
@@ -185,19 +209,23 @@ public class CsvDataSourceHelper {
           }
           Value value = valueFormatter.parse(string);
           
-          tableRow.addCell(value);
-        }
-        try {
-          dataTable.addRow(tableRow);
-        } catch (TypeMismatchException e) {
-          // Should not happen as we always use the correct types (null if we cannot parse),
-          // and we check the size of the lines.
+          if (valueDictionary == null) {
+            tableRow.addCell(value);
+          } else {
+            tableRow.addCell(valueDictionary.createCell(columnDescription.getId(), value));
+          }
         }
+        // The cells always have the correct types (null if we cannot parse), and the size of
+        // the lines is checked, so the rows are added without checking them.
+        builder.addRow(tableRow);
       }
 
       firstLine = false;
     }
 
+    if (builder != null) {
+      dataTable = builder.build();
+    }
     return dataTable;
   }
 
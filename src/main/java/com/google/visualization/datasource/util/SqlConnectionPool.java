@@ -0,0 +1,483 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.visualization.datasource.util;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of connections to a sql database, that keeps connections open between requests.
+ *
+ * At most <code>maxSize</code> connections are in use at the same time. A caller that asks for
+ * a connection when all the connections are in use waits up to the borrow timeout, and then gets
+ * an SQLException. Idle connections are reused, most recently used first, after they are
+ * validated with {@link Connection#isValid(int)}. Connections that were idle for longer than the
+ * idle timeout are closed. Idle connections are evicted whenever a connection is borrowed or
+ * released, or when {@link #evictIdleConnections()} is called; the pool does not start threads
+ * of its own.
+ *
+ * A pool is safe for use by concurrent threads. Call {@link #close()} to close the idle
+ * connections when the pool is no longer needed, e.g., when the servlet is destroyed.
+ */
+public class SqlConnectionPool implements SqlConnectionProvider {
+
+  /**
+   * The default time, in milliseconds, to wait for a connection.
+   */
+  public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 30000;
+
+  /**
+   * The default time, in milliseconds, after which an idle connection is closed.
+   */
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000;
+
+  /**
+   * The default time, in seconds, to wait for the database to validate a connection.
+   */
+  public static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 5;
+
+  /**
+   * Log.
+   */
+  private static final Log log = LogFactory.getLog(SqlConnectionPool.class.getName());
+
+  /**
+   * The url of the sql database.
+   */
+  private final String url;
+
+  /**
+   * The user name used to access the sql database.
+   */
+  private final String user;
+
+  /**
+   * The password used to access the sql database.
+   */
+  private final String password;
+
+  /**
+   * The maximum number of connections in use at the same time.
+   */
+  private final int maxSize;
+
+  /**
+   * The ticker used to measure idle times.
+   */
+  private final Ticker ticker;
+
+  /**
+   * The permits to borrow a connection. There are as many permits as the maximum size.
+   */
+  private final Semaphore permits;
+
+  /**
+   * The idle connections, most recently released first. Guarded by this.
+   */
+  private final LinkedList<IdleConnection> idleConnections = Lists.newLinkedList();
+
+  /**
+   * The connections that are in use. Guarded by this.
+   */
+  private final Set<Connection> borrowedConnections = Sets.newIdentityHashSet();
+
+  /**
+   * The time, in milliseconds, to wait for a connection.
+   */
+  private volatile long borrowTimeoutMillis = DEFAULT_BORROW_TIMEOUT_MILLIS;
+
+  /**
+   * The time, in milliseconds, after which an idle connection is closed.
+   */
+  private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+
+  /**
+   * The time, in seconds, to wait for the database to validate a connection. Zero disables the
+   * validation of connections.
+   */
+  private volatile int validationTimeoutSeconds = DEFAULT_VALIDATION_TIMEOUT_SECONDS;
+
+  /**
+   * True if the pool was closed. Guarded by this.
+   */
+  private boolean isClosed = false;
+
+  /**
+   * The number of connections borrowed. Guarded by this.
+   */
+  private long borrowCount = 0;
+
+  /**
+   * The number of connections opened. Guarded by this.
+   */
+  private long createdCount = 0;
+
+  /**
+   * The number of connections closed by the pool. Guarded by this.
+   */
+  private long closedCount = 0;
+
+  /**
+   * The number of times a caller timed out waiting for a connection. Guarded by this.
+   */
+  private long timeoutCount = 0;
+
+  /**
+   * Constructs a connection pool.
+   *
+   * @param url The url of the sql database.
+   * @param user The user name to access the sql database.
+   * @param password The password to access the sql database.
+   * @param maxSize The maximum number of connections in use at the same time.
+   */
+  public SqlConnectionPool(String url, String user, String password, int maxSize) {
+    this(url, user, password, maxSize, Ticker.systemTicker());
+  }
+
+  /**
+   * Constructs a connection pool that uses the given ticker to measure idle times.
+   *
+   * @param url The url of the sql database.
+   * @param user The user name to access the sql database.
+   * @param password The password to access the sql database.
+   * @param maxSize The maximum number of connections in use at the same time.
+   * @param ticker The ticker.
+   */
+  /* package */ SqlConnectionPool(String url, String user, String password, int maxSize,
+      Ticker ticker) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Illegal maximum pool size: " + maxSize);
+    }
+    this.url = url;
+    this.user = user;
+    this.password = password;
+    this.maxSize = maxSize;
+    this.ticker = ticker;
+    permits = new Semaphore(maxSize, true);
+  }
+
+  /**
+   * Sets the time to wait for a connection when all the connections are in use.
+   *
+   * @param borrowTimeoutMillis The time, in milliseconds.
+   */
+  public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+    this.borrowTimeoutMillis = borrowTimeoutMillis;
+  }
+
+  /**
+   * Sets the time after which an idle connection is closed.
+   *
+   * @param idleTimeoutMillis The time, in milliseconds.
+   */
+  public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+    this.idleTimeoutMillis = idleTimeoutMillis;
+  }
+
+  /**
+   * Sets the time to wait for the database to validate an idle connection before it is reused.
+   *
+   * @param validationTimeoutSeconds The time, in seconds, or zero to reuse idle connections
+   *     without validating them.
+   */
+  public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+    this.validationTimeoutSeconds = validationTimeoutSeconds;
+  }
+
+  /**
+   * Returns a connection from the pool. Reuses a valid idle connection if there is one, and
+   * opens a new connection otherwise. Waits for a connection to be released if all the
+   * connections are in use.
+   *
+   * @return A connection to the sql database.
+   *
+   * @throws SQLException Thrown if the pool is closed, if no connection was released within the
+   *     borrow timeout, or if a new connection could not be opened.
+   */
+  @Override
+  public Connection getConnection() throws SQLException {
+    try {
+      if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        synchronized (this) {
+          timeoutCount++;
+        }
+        throw new SQLException("Timed out waiting for a database connection. All " + maxSize
+            + " connections are in use.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection.");
+    }
+
+    Connection connection = null;
+    try {
+      connection = getIdleConnection();
+      if (connection == null) {
+        connection = DriverManager.getConnection(url, user, password);
+        synchronized (this) {
+          createdCount++;
+        }
+      }
+      synchronized (this) {
+        if (isClosed) {
+          throw new SQLException("The connection pool is closed.");
+        }
+        borrowedConnections.add(connection);
+        borrowCount++;
+      }
+      return connection;
+    } catch (SQLException e) {
+      if (connection != null) {
+        closeConnection(connection);
+      }
+      permits.release();
+      throw e;
+    } catch (RuntimeException e) {
+      if (connection != null) {
+        closeConnection(connection);
+      }
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns a connection to the pool. A connection that was closed by the caller is discarded.
+   * Connections that are not in autocommit mode are rolled back before they are reused.
+   *
+   * @param connection The connection to release.
+   */
+  @Override
+  public void releaseConnection(Connection connection) {
+    synchronized (this) {
+      if (!borrowedConnections.remove(connection)) {
+        throw new IllegalArgumentException("The connection was not borrowed from this pool.");
+      }
+    }
+    try {
+      boolean isReusable = !connection.isClosed();
+      if (isReusable && !connection.getAutoCommit()) {
+        connection.rollback();
+      }
+      synchronized (this) {
+        if (isReusable && !isClosed) {
+          idleConnections.addFirst(new IdleConnection(connection, ticker.read()));
+          connection = null;
+        }
+      }
+    } catch (SQLException e) {
+      log.warn("Failed to return a connection to the pool.", e);
+    } finally {
+      if (connection != null) {
+        closeConnection(connection);
+      }
+      permits.release();
+    }
+    evictIdleConnections();
+  }
+
+  /**
+   * Closes the connections that were idle for longer than the idle timeout.
+   */
+  public void evictIdleConnections() {
+    List<Connection> expired = Lists.newArrayList();
+    long now = ticker.read();
+    long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    synchronized (this) {
+      // The oldest connections are at the end of the list.
+      Iterator<IdleConnection> it = idleConnections.descendingIterator();
+      while (it.hasNext()) {
+        IdleConnection idleConnection = it.next();
+        if ((now - idleConnection.idleSinceNanos) < idleTimeoutNanos) {
+          break;
+        }
+        it.remove();
+        expired.add(idleConnection.connection);
+      }
+    }
+    for (Connection connection : expired) {
+      closeConnection(connection);
+    }
+  }
+
+  /**
+   * Closes the idle connections and the pool. Connections that are in use are closed when they
+   * are released. No connections can be borrowed from a closed pool.
+   */
+  public void close() {
+    List<IdleConnection> idle;
+    synchronized (this) {
+      isClosed = true;
+      idle = Lists.newArrayList(idleConnections);
+      idleConnections.clear();
+    }
+    for (IdleConnection idleConnection : idle) {
+      closeConnection(idleConnection.connection);
+    }
+  }
+
+  /**
+   * Returns the number of connections in use.
+   *
+   * @return The number of connections in use.
+   */
+  public synchronized int getActiveCount() {
+    return borrowedConnections.size();
+  }
+
+  /**
+   * Returns the number of idle connections.
+   *
+   * @return The number of idle connections.
+   */
+  public synchronized int getIdleCount() {
+    return idleConnections.size();
+  }
+
+  /**
+   * Returns the number of times a connection was borrowed from this pool.
+   *
+   * @return The number of borrowed connections.
+   */
+  public synchronized long getBorrowCount() {
+    return borrowCount;
+  }
+
+  /**
+   * Returns the number of connections opened by this pool.
+   *
+   * @return The number of connections opened.
+   */
+  public synchronized long getCreatedCount() {
+    return createdCount;
+  }
+
+  /**
+   * Returns the number of connections closed by this pool, because they were idle for too long,
+   * were not valid, or because the pool was closed.
+   *
+   * @return The number of connections closed.
+   */
+  public synchronized long getClosedCount() {
+    return closedCount;
+  }
+
+  /**
+   * Returns the number of times a caller timed out waiting for a connection.
+   *
+   * @return The number of borrow timeouts.
+   */
+  public synchronized long getTimeoutCount() {
+    return timeoutCount;
+  }
+
+  /**
+   * Removes and returns the most recently used valid idle connection. Closes the expired and
+   * invalid idle connections found on the way.
+   *
+   * @return An idle connection, or null if there is none.
+   */
+  private Connection getIdleConnection() {
+    evictIdleConnections();
+    while (true) {
+      Connection connection;
+      synchronized (this) {
+        if (idleConnections.isEmpty()) {
+          return null;
+        }
+        connection = idleConnections.removeFirst().connection;
+      }
+      if (isValid(connection)) {
+        return connection;
+      }
+      closeConnection(connection);
+    }
+  }
+
+  /**
+   * Returns true if the given idle connection can be reused.
+   *
+   * @param connection The connection.
+   *
+   * @return True if the connection is valid.
+   */
+  private boolean isValid(Connection connection) {
+    int timeout = validationTimeoutSeconds;
+    try {
+      if (timeout > 0) {
+        return connection.isValid(timeout);
+      }
+      return !connection.isClosed();
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Closes a connection of this pool, ignoring errors.
+   *
+   * @param connection The connection.
+   */
+  private void closeConnection(Connection connection) {
+    synchronized (this) {
+      closedCount++;
+    }
+    try {
+      connection.close();
+    } catch (SQLException e) { /* ignore close errors */ }
+  }
+
+  /**
+   * An idle connection, and the time it was released.
+   */
+  private static class IdleConnection {
+
+    /**
+     * The connection.
+     */
+    final Connection connection;
+
+    /**
+     * The ticker time at which the connection was released.
+     */
+    final long idleSinceNanos;
+
+    /**
+     * Constructs an idle connection.
+     *
+     * @param connection The connection.
+     * @param idleSinceNanos The ticker time at which the connection was released.
+     */
+    IdleConnection(Connection connection, long idleSinceNanos) {
+      this.connection = connection;
+      this.idleSinceNanos = idleSinceNanos;
+    }
+  }
+}
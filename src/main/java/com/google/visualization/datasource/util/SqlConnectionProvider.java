@@ -0,0 +1,44 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.visualization.datasource.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Provides connections to a sql database, e.g., from a pool of open connections.
+ * See {@link SqlConnectionPool} and {@link SqlDatabaseDescription#setConnectionProvider}.
+ */
+public interface SqlConnectionProvider {
+
+  /**
+   * Returns a connection to the sql database. Every connection returned by this method must be
+   * passed to {@link #releaseConnection(Connection)} when it is no longer used.
+   *
+   * @return A connection to the sql database.
+   *
+   * @throws SQLException Thrown if a connection could not be obtained.
+   */
+  public Connection getConnection() throws SQLException;
+
+  /**
+   * Releases a connection returned by {@link #getConnection()}. The connection must not be used
+   * after it is released.
+   *
+   * @param connection The connection to release.
+   */
+  public void releaseConnection(Connection connection);
+}
@@ -17,11 +17,13 @@ package com.google.visualization.datasource.util;
 import com.google.common.collect.Lists;
 import com.google.visualization.datasource.base.DataSourceException;
 import com.google.visualization.datasource.base.ReasonType;
-import com.google.visualization.datasource.base.TypeMismatchException;
+import com.google.visualization.datasource.base.Warning;
 import com.google.visualization.datasource.datatable.ColumnDescription;
 import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.DataTableBuilder;
 import com.google.visualization.datasource.datatable.TableCell;
 import com.google.visualization.datasource.datatable.TableRow;
+import com.google.visualization.datasource.datatable.ValueDictionary;
 import com.google.visualization.datasource.datatable.value.BooleanValue;
 import com.google.visualization.datasource.datatable.value.DateTimeValue;
 import com.google.visualization.datasource.datatable.value.DateValue;
@@ -48,10 +50,6 @@ import com.google.visualization.datasource.query.QuerySort;
 import com.google.visualization.datasource.query.SimpleColumn;
 import com.google.visualization.datasource.query.SortOrder;
 
-import com.ibm.icu.util.Calendar;
-import com.ibm.icu.util.GregorianCalendar;
-import com.ibm.icu.util.TimeZone;
-
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.text.StrBuilder;
 import org.apache.commons.logging.Log;
@@ -67,6 +65,9 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
 
@@ -84,6 +85,11 @@ public class SqlDataSourceHelper {
    */
   private static final Log log = LogFactory.getLog(SqlDataSourceHelper.class.getName());
 
+  /**
+   * The fetch size used in streaming mode when no fetch size is set.
+   */
+  public static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
   /**
    * A private constructor - all methods are static.
    */
@@ -103,7 +109,6 @@ public class SqlDataSourceHelper {
    */
   public static DataTable executeQuery(Query query, SqlDatabaseDescription databaseDescription)
       throws DataSourceException {
-    Connection con = getDatabaseConnection(databaseDescription);
     String tableName = databaseDescription.getTableName();
 
     // Build the sql query.
@@ -113,16 +118,40 @@ public class SqlDataSourceHelper {
     if (query.hasSelection()) {
       columnIdsList = getColumnIdsList(query.getSelection());
     }
+
+    // Connect only after the query was built, so that the connection is always released.
+    Connection con = getDatabaseConnection(databaseDescription);
     Statement stmt = null;
+    boolean isStreaming = databaseDescription.isStreamingResults();
+    boolean restoreAutoCommit = false;
+    int maxRows = databaseDescription.getMaxRows();
     try {
       // Execute the sql query.
-      stmt = con.createStatement();
+      int fetchSize = databaseDescription.getFetchSize();
+      if (isStreaming) {
+        // Cursors are only available outside of autocommit mode on some databases.
+        if (con.getAutoCommit()) {
+          con.setAutoCommit(false);
+          restoreAutoCommit = true;
+        }
+        if (fetchSize == 0) {
+          fetchSize = DEFAULT_STREAMING_FETCH_SIZE;
+        }
+      }
+      stmt = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      if (fetchSize != 0) {
+        stmt.setFetchSize(fetchSize);
+      }
+      if ((maxRows > 0) && (maxRows < Integer.MAX_VALUE)) {
+        // One more row, to know whether the data was truncated.
+        stmt.setMaxRows(maxRows + 1);
+      }
       ResultSet rs = stmt.executeQuery(queryStringBuilder.toString());
 
       DataTable table = buildColumns(rs, columnIdsList);
 
       // Fill the data in the data table.
-      buildRows(table, rs);
+      buildRows(table, rs, maxRows, databaseDescription.getValueDictionary());
       return table;
     } catch (SQLException e) {
       String messageToUser = "Failed to execute SQL query: "
@@ -136,11 +165,13 @@ public class SqlDataSourceHelper {
           stmt.close();
         } catch (SQLException e) { /* ignore close errors */ }
       }
-      if (con != null) {
+      if (restoreAutoCommit) {
         try {
-          con.close();
-        } catch (SQLException e) { /* ignore close errors */ }
+          con.rollback();
+          con.setAutoCommit(true);
+        } catch (SQLException e) { /* ignore, the connection is released anyway */ }
       }
+      releaseDatabaseConnection(databaseDescription, con);
     }
   }
 
@@ -160,10 +191,15 @@ public class SqlDataSourceHelper {
     String userName = databaseDescription.getUser();
     String password = databaseDescription.getPassword();
     String url = databaseDescription.getUrl();
+    SqlConnectionProvider connectionProvider = databaseDescription.getConnectionProvider();
     try {
-      // Connect to the database.
-      // We should add connection pooling to avoid heavy creation of connections.
-      con = DriverManager.getConnection(url, userName, password);
+      // Take a connection from the provider if there is one, and connect to the database
+      // otherwise.
+      if (connectionProvider != null) {
+        con = connectionProvider.getConnection();
+      } else {
+        con = DriverManager.getConnection(url, userName, password);
+      }
     } catch (SQLException e) {
       log.error("Failed to connect to database server.", e);
       throw new DataSourceException(
@@ -172,6 +208,25 @@ public class SqlDataSourceHelper {
     return con;
   }
 
+  /**
+   * Releases a connection returned by {@link #getDatabaseConnection}. The connection is returned
+   * to the connection provider of the database description if there is one, and closed otherwise.
+   *
+   * @param databaseDescription The database description.
+   * @param con The SQL database connection.
+   */
+  private static void releaseDatabaseConnection(SqlDatabaseDescription databaseDescription,
+      Connection con) {
+    SqlConnectionProvider connectionProvider = databaseDescription.getConnectionProvider();
+    if (connectionProvider != null) {
+      connectionProvider.releaseConnection(con);
+    } else {
+      try {
+        con.close();
+      } catch (SQLException e) { /* ignore close errors */ }
+    }
+  }
+
   /**
    * Builds the sql query.
    *
@@ -644,6 +699,39 @@ public class SqlDataSourceHelper {
    * @throws SQLException Thrown when the connection to the database failed.
    */
   static void buildRows(DataTable dataTable, ResultSet rs) throws SQLException {
+    buildRows(dataTable, rs, 0);
+  }
+
+  /**
+   * Populates the data table with the rows of the result set, up to the given number of rows.
+   * If the result set has more rows, the rest of the result set is not read, and a
+   * DATA_TRUNCATED warning is added to the data table.
+   *
+   * @param dataTable The data table to populate.
+   * @param rs The result set holding the data from the sql table.
+   * @param maxRows The maximum number of rows to read, or 0 for no limit.
+   *
+   * @throws SQLException Thrown when the connection to the database failed.
+   */
+  static void buildRows(DataTable dataTable, ResultSet rs, int maxRows) throws SQLException {
+    buildRows(dataTable, rs, maxRows, null);
+  }
+
+  /**
+   * Populates the data table with the rows of the result set, up to the given number of rows,
+   * sharing equal values of a column through the given dictionary.
+   * See {@link #buildRows(DataTable, ResultSet, int)}.
+   *
+   * @param dataTable The data table to populate.
+   * @param rs The result set holding the data from the sql table.
+   * @param maxRows The maximum number of rows to read, or 0 for no limit.
+   * @param valueDictionary The dictionary with which to share the values of each column, or null
+   *     if every cell gets its own value.
+   *
+   * @throws SQLException Thrown when the connection to the database failed.
+   */
+  static void buildRows(DataTable dataTable, ResultSet rs, int maxRows,
+      ValueDictionary valueDictionary) throws SQLException {
     List <ColumnDescription> columnsDescriptionList = dataTable.getColumnDescriptions();
     int numOfCols = dataTable.getNumberOfColumns();
 
@@ -654,23 +742,34 @@ public class SqlDataSourceHelper {
     }
 
     // Build the data table rows, and in each row create the table cells with
-    // the information in the result set.
+    // the information in the result set. The cells are created with the types of the columns,
+    // so the rows are added without checking them.
+    DataTableBuilder builder = new DataTableBuilder(columnsDescriptionList);
+    int numOfRows = 0;
     while (rs.next()) {
+      if ((maxRows > 0) && (numOfRows == maxRows)) {
+        dataTable.addWarning(new Warning(ReasonType.DATA_TRUNCATED,
+            "Data has been truncated to " + maxRows + " rows"));
+        break;
+      }
+      numOfRows++;
       TableRow tableRow = new TableRow();
       for (int c = 0; c < numOfCols; c++) {
-        tableRow.addCell(buildTableCell(rs, columnsTypeArray[c], c));
-      }
-      try {
-        dataTable.addRow(tableRow);
-      } catch (TypeMismatchException e) {
-        // Should not happen. An SQLException would already have been thrown if there was such a
-        // problem.
+        Value value = buildValue(rs, columnsTypeArray[c], c);
+        if (valueDictionary == null) {
+          tableRow.addCell(new TableCell(value));
+        } else {
+          tableRow.addCell(valueDictionary.createCell(columnsDescriptionList.get(c).getId(),
+              value));
+        }
       }
+      builder.addRow(tableRow);
     }
+    builder.buildInto(dataTable);
   }
 
   /**
-   * Creates a table cell from the value in the current row of the given result
+   * Creates a value from the value in the current row of the given result
    * set and the given column index. The type of the value is determined by the
    * given value type.
    *
@@ -679,11 +778,11 @@ public class SqlDataSourceHelper {
    * @param valueType The value type of the column that the cell belongs to.
    * @param column The column index. Indexes are 0-based.
    *
-   * @return The table cell.
+   * @return The value.
    *
    * @throws SQLException Thrown when the connection to the database failed.
    */
-  private static TableCell buildTableCell(ResultSet rs, ValueType valueType,
+  private static Value buildValue(ResultSet rs, ValueType valueType,
       int column) throws SQLException {
     Value value = null;
 
@@ -701,55 +800,34 @@ public class SqlDataSourceHelper {
         Date date = rs.getDate(column);
         // If date is null it is handled later.
         if (date != null) {
-          GregorianCalendar gc =
-              new GregorianCalendar(TimeZone.getTimeZone("GMT"));
-          // Set the year, month and date in the gregorian calendar.
-          // Use the 'set' method with those parameters, and not the 'setTime'
-          // method with the date parameter, since the Date object contains the
-          // current time zone and it's impossible to change it to 'GMT'.
-          gc.set(date.getYear() + 1900, date.getMonth(), date.getDate());
-          value = new DateValue(gc);
+          // The local date has the same year, month and date as the Date object in the current
+          // time zone, so there is no need to convert the date to 'GMT'.
+          LocalDate localDate = date.toLocalDate();
+          value = new DateValue(localDate.getYear(), localDate.getMonthValue() - 1,
+              localDate.getDayOfMonth());
         }
         break;
       case DATETIME:
         Timestamp timestamp = rs.getTimestamp(column);
         // If timestamp is null it is handled later.
         if (timestamp != null) {
-          GregorianCalendar gc =
-              new GregorianCalendar(TimeZone.getTimeZone("GMT"));
-          // Set the year, month, date, hours, minutes and seconds in the
-          // gregorian calendar. Use the 'set' method with those parameters,
-          // and not the 'setTime' method with the timestamp parameter, since
-          // the Timestamp object contains the current time zone and it's
-          // impossible to change it to 'GMT'.
-          gc.set(timestamp.getYear() + 1900, timestamp.getMonth(),
-                 timestamp.getDate(), timestamp.getHours(), timestamp.getMinutes(),
-                 timestamp.getSeconds());
-          // Set the milliseconds explicitly, as they are not saved in the
-          // underlying date.
-          gc.set(Calendar.MILLISECOND, timestamp.getNanos() / 1000000);
-          value = new DateTimeValue(gc);
+          // The local date time has the same fields as the Timestamp object in the current time
+          // zone, including the nanoseconds.
+          LocalDateTime localDateTime = timestamp.toLocalDateTime();
+          value = new DateTimeValue(localDateTime.getYear(), localDateTime.getMonthValue() - 1,
+              localDateTime.getDayOfMonth(), localDateTime.getHour(), localDateTime.getMinute(),
+              localDateTime.getSecond(), localDateTime.getNano() / 1000000);
         }
         break;
       case TIMEOFDAY:
         Time time = rs.getTime(column);
         // If time is null it is handled later.
         if (time != null) {
-          GregorianCalendar gc =
-              new GregorianCalendar(TimeZone.getTimeZone("GMT"));
-          // Set the hours, minutes and seconds of the time in the gregorian
-          // calendar. Set the year, month and date to be January 1 1970 like
-          // in the Time object.
-          // Use the 'set' method with those parameters,
-          // and not the 'setTime' method with the time parameter, since
-          // the Time object contains the current time zone and it's
-          // impossible to change it to 'GMT'.
-          gc.set(1970, Calendar.JANUARY, 1, time.getHours(), time.getMinutes(),
-                 time.getSeconds());
-          // Set the milliseconds explicitly, otherwise the milliseconds from
-          // the time the gc was initialized are used.
-          gc.set(GregorianCalendar.MILLISECOND, 0);
-          value = new TimeOfDayValue(gc);
+          // The local time has the hours, minutes and seconds of the Time object in the current
+          // time zone, and no milliseconds.
+          LocalTime localTime = time.toLocalTime();
+          value = new TimeOfDayValue(localTime.getHour(), localTime.getMinute(),
+              localTime.getSecond());
         }
         break;
       default:
@@ -757,15 +835,15 @@ public class SqlDataSourceHelper {
         if (colValue == null) {
           value = TextValue.getNullValue();
         } else {
-          value = new TextValue(rs.getString(column));
+          value = new TextValue(colValue);
         }
         break;
     }
     // Handle null values.
     if (rs.wasNull()) {
-      return new TableCell(Value.getNullValueFromValueType(valueType));
+      return Value.getNullValueFromValueType(valueType);
     } else {
-      return new TableCell(value);
+      return value;
     }
   }
 }
@@ -14,6 +14,8 @@
 
 package com.google.visualization.datasource.util;
 
+import com.google.visualization.datasource.datatable.ValueDictionary;
+
 /**
  * This class contains all information required to connect to the sql database.
  *
@@ -41,6 +43,35 @@ public class SqlDatabaseDescription {
    */
   private String tableName;
 
+  /**
+   * The provider of connections to the sql database, or null to open a new connection for every
+   * query.
+   */
+  private SqlConnectionProvider connectionProvider = null;
+
+  /**
+   * The number of rows to fetch from the database in each round trip, or 0 to use the driver's
+   * default.
+   */
+  private int fetchSize = 0;
+
+  /**
+   * True if results should be read through a database cursor, instead of being buffered by the
+   * driver as a whole.
+   */
+  private boolean streamingResults = false;
+
+  /**
+   * The maximum number of rows to read from the database, or 0 for no limit.
+   */
+  private int maxRows = 0;
+
+  /**
+   * The dictionary with which to share the values of each column, or null if every cell gets its
+   * own value.
+   */
+  private ValueDictionary valueDictionary = null;
+
   /**
    * Constructs a sql database description.
    *
@@ -101,4 +132,112 @@ public class SqlDatabaseDescription {
   public String getTableName() {
     return tableName;
   }
+
+  /**
+   * Returns the provider of connections to the sql database, or null if a new connection is
+   * opened for every query.
+   *
+   * @return The connection provider, or null.
+   */
+  public SqlConnectionProvider getConnectionProvider() {
+    return connectionProvider;
+  }
+
+  /**
+   * Sets the provider of connections to the sql database, e.g., a {@link SqlConnectionPool}.
+   * When a provider is set, connections are taken from the provider instead of being opened
+   * with the url, user and password of this description.
+   *
+   * @param connectionProvider The connection provider, or null to open a new connection for
+   *     every query.
+   */
+  public void setConnectionProvider(SqlConnectionProvider connectionProvider) {
+    this.connectionProvider = connectionProvider;
+  }
+
+  /**
+   * Returns the number of rows to fetch from the database in each round trip.
+   *
+   * @return The fetch size, or 0 if the driver's default is used.
+   */
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  /**
+   * Sets the number of rows to fetch from the database in each round trip. This is a hint to the
+   * driver, see {@link java.sql.Statement#setFetchSize(int)}. Some drivers accept special
+   * values, e.g., the MySQL driver streams results row by row when the fetch size is
+   * {@link Integer#MIN_VALUE}.
+   *
+   * @param fetchSize The fetch size, or 0 to use the driver's default.
+   */
+  public void setFetchSize(int fetchSize) {
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Returns true if results are read through a database cursor.
+   *
+   * @return True if results are read through a database cursor.
+   */
+  public boolean isStreamingResults() {
+    return streamingResults;
+  }
+
+  /**
+   * Sets whether results are read through a database cursor, a fetch size at a time, instead of
+   * being buffered by the driver as a whole. In streaming mode queries run outside of autocommit
+   * mode, which some drivers (e.g., PostgreSQL) require for cursors, on a forward only, read only
+   * result set. If no fetch size is set, {@link SqlDataSourceHelper#DEFAULT_STREAMING_FETCH_SIZE}
+   * is used.
+   *
+   * @param streamingResults True to read results through a database cursor.
+   */
+  public void setStreamingResults(boolean streamingResults) {
+    this.streamingResults = streamingResults;
+  }
+
+  /**
+   * Returns the maximum number of rows to read from the database.
+   *
+   * @return The maximum number of rows, or 0 for no limit.
+   */
+  public int getMaxRows() {
+    return maxRows;
+  }
+
+  /**
+   * Sets the maximum number of rows to read from the database. Reading stops once that many rows
+   * were read, and a DATA_TRUNCATED warning is added to the data table if there were more rows.
+   *
+   * @param maxRows The maximum number of rows, or 0 for no limit.
+   */
+  public void setMaxRows(int maxRows) {
+    this.maxRows = maxRows;
+  }
+
+  /**
+   * Returns the dictionary with which the values of each column are shared.
+   *
+   * @return The value dictionary, or null if every cell gets its own value.
+   */
+  public ValueDictionary getValueDictionary() {
+    return valueDictionary;
+  }
+
+  /**
+   * Sets a dictionary with which to share the values of each column when reading rows from the
+   * database. This saves memory for columns with few distinct values.
+   *
+   * The dictionary is kept across queries, and keeps the values it has seen until it is cleared.
+   * It identifies columns by their ids only, so the columns with the same id in all the tables
+   * read with this description share their values. Set a separate dictionary on descriptions of
+   * unrelated tables, and clear it when the data of the table changes substantially.
+   *
+   * @param valueDictionary The value dictionary, or null to give every cell its own value.
+   */
+  public void setValueDictionary(ValueDictionary valueDictionary) {
+    this.valueDictionary = valueDictionary;
+  }
 }
@@ -0,0 +1,204 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource;
+
+import com.google.common.collect.Lists;
+import com.google.visualization.datasource.base.DataSourceException;
+import com.google.visualization.datasource.base.ReasonType;
+import com.google.visualization.datasource.base.TypeMismatchException;
+import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.value.ValueType;
+import com.google.visualization.datasource.query.Query;
+import com.google.visualization.datasource.query.engine.ExecutionOptions;
+
+import com.ibm.icu.util.ULocale;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Unit test for CoalescingDataTableGenerator.
+ */
+public class CoalescingDataTableGeneratorTest extends TestCase {
+
+  /**
+   * A generator that counts its calls, and blocks each call until it is released.
+   */
+  private static class BlockingGenerator implements VersionedDataTableGenerator {
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    String dataVersion = "v1";
+    DataSourceException exception = null;
+
+    @Override
+    public DataTable generateDataTable(Query query, HttpServletRequest request)
+        throws DataSourceException {
+      calls.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      if (exception != null) {
+        throw exception;
+      }
+      DataTable table = new DataTable();
+      table.addColumn(new ColumnDescription("name", ValueType.TEXT, "Name"));
+      table.addColumn(new ColumnDescription("size", ValueType.NUMBER, "Size"));
+      try {
+        for (int i = 0; i < 5; i++) {
+          table.addRowFromValues("name" + i, i);
+        }
+      } catch (TypeMismatchException e) {
+        throw new RuntimeException(e);
+      }
+      return table;
+    }
+
+    @Override
+    public String getDataVersion(Query query, HttpServletRequest request) {
+      return dataVersion;
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+      return Capabilities.NONE;
+    }
+  }
+
+  private static QueryPair splitQuery(String queryString) throws DataSourceException {
+    return DataSourceHelper.splitQuery(DataSourceHelper.parseQuery(queryString),
+        Capabilities.NONE);
+  }
+
+  /**
+   * Runs the given number of concurrent identical queries, and releases the generator once all
+   * of them are either generating or waiting.
+   */
+  private static List<Future<DataTable>> runConcurrently(
+      final CoalescingDataTableGenerator coalescer, BlockingGenerator generator,
+      int numberOfQueries, final QueryPair query) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfQueries);
+    List<Future<DataTable>> results = Lists.newArrayList();
+    for (int i = 0; i < numberOfQueries; i++) {
+      results.add(executor.submit(new Callable<DataTable>() {
+        @Override
+        public DataTable call() throws DataSourceException {
+          return coalescer.generateAndApplyQuery(query, ULocale.US, null);
+        }
+      }));
+    }
+    while (generator.calls.get() + coalescer.getCoalescedCount() < numberOfQueries) {
+      Thread.sleep(1);
+    }
+    generator.release.countDown();
+    executor.shutdown();
+    return results;
+  }
+
+  public void testCoalescing() throws Exception {
+    BlockingGenerator generator = new BlockingGenerator();
+    CoalescingDataTableGenerator coalescer = new CoalescingDataTableGenerator(generator);
+    assertSame(generator, coalescer.getGenerator());
+    List<Future<DataTable>> results = runConcurrently(coalescer, generator, 8,
+        splitQuery("select name where size > 1 limit 2"));
+
+    DataTable result = results.get(0).get();
+    assertEquals(2, result.getNumberOfRows());
+    assertEquals(1, result.getNumberOfColumns());
+    for (Future<DataTable> future : results) {
+      assertSame(result, future.get());
+    }
+    assertEquals(1, generator.calls.get());
+    assertEquals(1, coalescer.getExecutionCount());
+    assertEquals(7, coalescer.getCoalescedCount());
+    assertEquals(0, coalescer.getInFlightCount());
+
+    // Later requests are not coalesced with a finished computation.
+    DataTable later = coalescer.generateAndApplyQuery(
+        splitQuery("select name where size > 1 limit 2"), ULocale.US, null);
+    assertNotSame(result, later);
+    assertEquals(2, coalescer.getExecutionCount());
+  }
+
+  public void testNoCoalescingWithoutDataVersion() throws Exception {
+    BlockingGenerator generator = new BlockingGenerator();
+    generator.dataVersion = null;
+    generator.release.countDown();
+    CoalescingDataTableGenerator coalescer = new CoalescingDataTableGenerator(generator);
+    QueryPair query = splitQuery("select name");
+    coalescer.generateAndApplyQuery(query, ULocale.US, null);
+    coalescer.generateAndApplyQuery(query, ULocale.US, null);
+    assertEquals(2, generator.calls.get());
+    assertEquals(2, coalescer.getExecutionCount());
+    assertEquals(0, coalescer.getCoalescedCount());
+  }
+
+  public void testGivenDataVersion() throws Exception {
+    BlockingGenerator generator = new BlockingGenerator();
+    // The given data version is used, even if the generator has none.
+    generator.dataVersion = null;
+    generator.release.countDown();
+    CoalescingDataTableGenerator coalescer = new CoalescingDataTableGenerator(generator);
+    DataTable result = coalescer.generateAndApplyQuery(splitQuery("select name limit 3"),
+        ULocale.US, null, ExecutionOptions.SERIAL, "v1");
+    assertEquals(3, result.getNumberOfRows());
+    assertEquals(1, coalescer.getExecutionCount());
+    assertEquals(0, coalescer.getInFlightCount());
+  }
+
+  public void testSharedException() throws Exception {
+    BlockingGenerator generator = new BlockingGenerator();
+    generator.exception = new DataSourceException(ReasonType.INTERNAL_ERROR, "Backend down");
+    CoalescingDataTableGenerator coalescer = new CoalescingDataTableGenerator(generator);
+    List<Future<DataTable>> results = runConcurrently(coalescer, generator, 4,
+        splitQuery("select name"));
+    for (Future<DataTable> future : results) {
+      try {
+        future.get();
+        fail();
+      } catch (ExecutionException e) {
+        assertSame(generator.exception, e.getCause());
+      }
+    }
+    assertEquals(1, generator.calls.get());
+    assertEquals(0, coalescer.getInFlightCount());
+  }
+
+  public void testCreateKey() throws DataSourceException {
+    String key = CoalescingDataTableGenerator.createKey(splitQuery("select name"), ULocale.US,
+        "v1");
+    // The query is normalized.
+    assertEquals(key, CoalescingDataTableGenerator.createKey(splitQuery("SELECT   name"),
+        ULocale.US, "v1"));
+    assertFalse(key.equals(CoalescingDataTableGenerator.createKey(splitQuery("select name"),
+        ULocale.UK, "v1")));
+    assertFalse(key.equals(CoalescingDataTableGenerator.createKey(splitQuery("select name"),
+        ULocale.US, "v2")));
+    assertFalse(key.equals(CoalescingDataTableGenerator.createKey(splitQuery("select size"),
+        ULocale.US, "v1")));
+  }
+}
@@ -14,29 +14,49 @@
 
 package com.google.visualization.datasource;
 
+import com.google.common.collect.Lists;
 import com.google.visualization.datasource.base.DataSourceException;
 import com.google.visualization.datasource.base.DataSourceParameters;
 import com.google.visualization.datasource.base.InvalidQueryException;
+import com.google.visualization.datasource.base.ReasonType;
 import com.google.visualization.datasource.base.TypeMismatchException;
+import com.google.visualization.datasource.base.Warning;
 import com.google.visualization.datasource.datatable.ColumnDescription;
 import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.TableCell;
 import com.google.visualization.datasource.datatable.TableRow;
 import com.google.visualization.datasource.datatable.value.BooleanValue;
 import com.google.visualization.datasource.datatable.value.NumberValue;
 import com.google.visualization.datasource.datatable.value.TextValue;
 import com.google.visualization.datasource.datatable.value.ValueType;
 import com.google.visualization.datasource.query.Query;
+import com.google.visualization.datasource.query.engine.ExecutionOptions;
 
 import com.ibm.icu.util.ULocale;
 
 import junit.framework.TestCase;
 
+import org.easymock.Capture;
+import org.easymock.IAnswer;
+
 import static org.easymock.EasyMock.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 
 /**
@@ -167,6 +187,425 @@ public class DataSourceHelperTest extends TestCase {
    *
    * @throws DataSourceException
    */
+  public void testSetServletResponseStreamsJson() throws DataSourceException, IOException {
+    DataTable dataTable = createData();
+    dataTable.addRowFromValues("Gr\u00fcn \"quoted\"", "http://x", 5, false);
+    dataTable.addWarning(new Warning(ReasonType.DATA_TRUNCATED, "Truncated"));
+
+    String[] outputTypes = {"out:json", "out:jsonp;reqId:7"};
+    String[] contentTypes = {"application/json; charset=UTF-8",
+        "text/javascript; charset=UTF-8"};
+    for (int i = 0; i < outputTypes.length; i++) {
+      DataSourceRequest dataSourceRequest = new DataSourceRequest(
+          new Query(),
+          new DataSourceParameters(outputTypes[i]),
+          ULocale.UK);
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      HttpServletResponse res = createMock(HttpServletResponse.class);
+      res.setContentType(contentTypes[i]);
+      expect(res.getOutputStream()).andReturn(new ServletOutputStream() {
+        @Override
+        public void write(int b) {
+          bytes.write(b);
+        }
+      });
+      replay(res);
+
+      DataSourceHelper.setServletResponse(dataTable, dataSourceRequest, res);
+      verify(res);
+
+      // The streamed response is the same as the generated response.
+      assertEquals(DataSourceHelper.generateResponse(dataTable, dataSourceRequest),
+          bytes.toString("UTF-8"));
+    }
+  }
+
+  public void testSetServletResponseStreamsCsv() throws DataSourceException, IOException {
+    DataTable dataTable = createData();
+    dataTable.addRowFromValues("Gr\u00fcn \"quoted\"", "http://x,y", 5, false);
+
+    String[] outputTypes = {"out:csv;outFileName:export", "out:tsv-excel;outFileName:export.xls"};
+    String[] contentTypes = {"text/csv; charset=UTF-8", "text/csv; charset=UTF-16LE"};
+    String[] fileNames = {"export.csv", "export.xls"};
+    String[] charsets = {"UTF-8", "UTF-16LE"};
+    int[] prefixLengths = {0, 2};
+    for (int i = 0; i < outputTypes.length; i++) {
+      DataSourceRequest dataSourceRequest = new DataSourceRequest(
+          new Query(),
+          new DataSourceParameters(outputTypes[i]),
+          ULocale.UK);
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      HttpServletResponse res = createMock(HttpServletResponse.class);
+      res.setContentType(contentTypes[i]);
+      res.setHeader("Content-Disposition", "attachment; filename=" + fileNames[i]);
+      expect(res.getOutputStream()).andReturn(new ServletOutputStream() {
+        @Override
+        public void write(int b) {
+          bytes.write(b);
+        }
+      });
+      replay(res);
+
+      DataSourceHelper.setServletResponse(dataTable, dataSourceRequest, res);
+      verify(res);
+
+      // The streamed response is the same as the generated response, after the byte-order mark
+      // of tsv-excel.
+      byte[] response = bytes.toByteArray();
+      if (prefixLengths[i] > 0) {
+        assertEquals((byte) 0xff, response[0]);
+        assertEquals((byte) 0xfe, response[1]);
+      }
+      assertEquals(DataSourceHelper.generateResponse(dataTable, dataSourceRequest),
+          new String(response, prefixLengths[i], response.length - prefixLengths[i],
+          charsets[i]));
+    }
+  }
+
+  public void testSetServletResponseStreamsHtml() throws DataSourceException, IOException {
+    DataTable dataTable = createData();
+    dataTable.addRowFromValues("<Gr\u00fcn>", "http://x?a=1&b=2", 5, false);
+    dataTable.addWarning(new Warning(ReasonType.DATA_TRUNCATED, "Truncated"));
+
+    DataSourceRequest dataSourceRequest = new DataSourceRequest(
+        new Query(),
+        new DataSourceParameters("out:html"),
+        ULocale.UK);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse res = createMock(HttpServletResponse.class);
+    res.setContentType("text/html; charset=UTF-8");
+    expect(res.getOutputStream()).andReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) {
+        bytes.write(b);
+      }
+    });
+    replay(res);
+
+    DataSourceHelper.setServletResponse(dataTable, dataSourceRequest, res);
+    verify(res);
+
+    // The streamed response is the same as the generated response.
+    assertEquals(DataSourceHelper.generateResponse(dataTable, dataSourceRequest),
+        bytes.toString("UTF-8"));
+  }
+
+  /**
+   * A data table generator of the test data, followed by enough rows to fill the buffer of the
+   * response writer, and by a row whose rendering fails.
+   */
+  private class FailingGenerator extends TestGenerator {
+    @Override
+    public DataTable generateDataTable(Query query, HttpServletRequest request)
+        throws DataSourceException {
+      DataTable data = createData();
+      for (int i = 0; i < 1000; i++) {
+        data.addRowFromValues("Animal " + i, "http://en.wikipedia.org/wiki/Animal", i, false);
+      }
+      TableRow row = new TableRow();
+      row.addCell(new TableCell(new TextValue("Unicorn")) {
+        @Override
+        public String getFormattedValue() {
+          throw new IllegalStateException("Cannot render");
+        }
+      });
+      row.addCell("http://en.wikipedia.org/wiki/Unicorn");
+      row.addCell(1);
+      row.addCell(true);
+      data.addRow(row);
+      return data;
+    }
+  }
+
+  /**
+   * Creates a mock request with the given data source parameters.
+   */
+  private static HttpServletRequest createRequestMock(String tqx) {
+    HttpServletRequest req = createNiceMock(HttpServletRequest.class);
+    expect(req.getLocale()).andReturn(Locale.US).anyTimes();
+    expect(req.getParameter("tqx")).andReturn(tqx).anyTimes();
+    replay(req);
+    return req;
+  }
+
+  public void testRenderingFailureBeforeCommit() throws IOException {
+    String[] outputTypes = {"out:json", "out:jsonp", "out:csv", "out:tsv-excel", "out:html"};
+    for (String outputType : outputTypes) {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      HttpServletResponse res = createNiceMock(HttpServletResponse.class);
+      expect(res.getOutputStream()).andReturn(new ServletOutputStream() {
+        @Override
+        public void write(int b) {
+          bytes.write(b);
+        }
+      }).anyTimes();
+      expect(res.isCommitted()).andReturn(false).anyTimes();
+      // The response buffer holds everything that was written.
+      res.resetBuffer();
+      expectLastCall().andAnswer(new IAnswer<Object>() {
+        @Override
+        public Object answer() {
+          bytes.reset();
+          return null;
+        }
+      });
+      replay(res);
+
+      DataSourceHelper.executeDataSourceServletFlow(createRequestMock(outputType), res,
+          new FailingGenerator(), false);
+      verify(res);
+
+      // Only the error response is sent, without the rows rendered before the failure.
+      String response = bytes.toString(outputType.equals("out:tsv-excel") ? "UTF-16LE" : "UTF-8");
+      assertTrue(outputType, response.contains("Cannot render"));
+      assertFalse(outputType, response.contains("Aye-aye"));
+    }
+  }
+
+  public void testRenderingFailureAfterCommit() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse res = createNiceMock(HttpServletResponse.class);
+    expect(res.getOutputStream()).andReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) {
+        bytes.write(b);
+      }
+    }).anyTimes();
+    expect(res.isCommitted()).andReturn(true).anyTimes();
+    replay(res);
+
+    try {
+      DataSourceHelper.executeDataSourceServletFlow(createRequestMock("out:json"), res,
+          new FailingGenerator(), false);
+      fail();
+    } catch (IllegalStateException e) {
+      // Expected behavior.
+    }
+    // The rows sent before the failure are not followed by an error response.
+    String response = bytes.toString("UTF-8");
+    assertTrue(response.contains("Aye-aye"));
+    assertFalse(response.contains("Cannot render"));
+  }
+
+  /**
+   * A data table generator of the test data.
+   */
+  private class TestGenerator implements DataTableGenerator {
+    @Override
+    public DataTable generateDataTable(Query query, HttpServletRequest request)
+        throws DataSourceException {
+      return createData();
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+      return Capabilities.NONE;
+    }
+  }
+
+  /**
+   * Creates a mock response that writes to the given stream.
+   */
+  private static HttpServletResponse createResponseMock(final ByteArrayOutputStream bytes)
+      throws IOException {
+    HttpServletResponse res = createNiceMock(HttpServletResponse.class);
+    expect(res.getOutputStream()).andReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) {
+        bytes.write(b);
+      }
+    }).anyTimes();
+    replay(res);
+    return res;
+  }
+
+  /**
+   * Creates a mock request that starts the given asynchronous context.
+   */
+  private static HttpServletRequest createAsyncRequestMock(HttpServletResponse res,
+      AsyncContext asyncContext) {
+    HttpServletRequest req = createNiceMock(HttpServletRequest.class);
+    expect(req.getLocale()).andReturn(Locale.US).anyTimes();
+    expect(req.startAsync(req, res)).andReturn(asyncContext);
+    replay(req);
+    return req;
+  }
+
+  public void testAsyncServletFlow() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse res = createResponseMock(bytes);
+    AsyncContext asyncContext = createMock(AsyncContext.class);
+    HttpServletRequest req = createAsyncRequestMock(res, asyncContext);
+    asyncContext.setTimeout(1000);
+    asyncContext.addListener(anyObject(AsyncListener.class));
+    asyncContext.complete();
+    replay(asyncContext);
+
+    final List<Runnable> tasks = Lists.newArrayList();
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+        tasks.add(task);
+      }
+    };
+    DataSourceHelper.executeDataSourceServletFlowAsync(req, res, new TestGenerator(), false,
+        null, null, ExecutionOptions.SERIAL, executor, 1000);
+    // Nothing is written until the executor runs the flow.
+    assertEquals(1, tasks.size());
+    assertEquals(0, bytes.size());
+
+    tasks.get(0).run();
+    verify(asyncContext);
+    String response = bytes.toString("UTF-8");
+    assertTrue(response.contains("\"status\":\"ok\""));
+    assertTrue(response.contains("Aye-aye"));
+  }
+
+  public void testAsyncServletFlowTimeout() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse res = createResponseMock(bytes);
+    AsyncContext asyncContext = createMock(AsyncContext.class);
+    HttpServletRequest req = createAsyncRequestMock(res, asyncContext);
+    asyncContext.setTimeout(1000);
+    Capture<AsyncListener> listener = newCapture();
+    asyncContext.addListener(capture(listener));
+    // The request is completed once, by the timeout.
+    asyncContext.complete();
+    replay(asyncContext);
+
+    final List<Runnable> tasks = Lists.newArrayList();
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+        tasks.add(task);
+      }
+    };
+    final AtomicInteger generated = new AtomicInteger();
+    DataTableGenerator generator = new TestGenerator() {
+      @Override
+      public DataTable generateDataTable(Query query, HttpServletRequest request)
+          throws DataSourceException {
+        generated.incrementAndGet();
+        return super.generateDataTable(query, request);
+      }
+    };
+    DataSourceHelper.executeDataSourceServletFlowAsync(req, res, generator, false, null, null,
+        ExecutionOptions.SERIAL, executor, 1000);
+    listener.getValue().onTimeout(null);
+    String response = bytes.toString("UTF-8");
+    assertTrue(response.contains("\"status\":\"error\""));
+    assertTrue(response.contains("timeout"));
+
+    // The executor runs the flow after the timeout, and the flow does nothing.
+    tasks.get(0).run();
+    verify(asyncContext);
+    assertEquals(0, generated.get());
+    assertEquals(response, bytes.toString("UTF-8"));
+  }
+
+  public void testAsyncServletFlowInvalidRequest() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse res = createResponseMock(bytes);
+    HttpServletRequest req = createNiceMock(HttpServletRequest.class);
+    expect(req.getLocale()).andReturn(Locale.US).anyTimes();
+    expect(req.getParameter("tq")).andReturn("select where").anyTimes();
+    replay(req);
+
+    final List<Runnable> tasks = Lists.newArrayList();
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+        tasks.add(task);
+      }
+    };
+    // The invalid query is answered right away, without starting an asynchronous context.
+    DataSourceHelper.executeDataSourceServletFlowAsync(req, res, new TestGenerator(), false,
+        null, null, ExecutionOptions.SERIAL, executor, 1000);
+    assertTrue(tasks.isEmpty());
+    String response = bytes.toString("UTF-8");
+    assertTrue(response.contains("invalid_query"));
+  }
+
+  public void testAsyncServletFlowTimeoutWhileWriting() throws Exception {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse res = createNiceMock(HttpServletResponse.class);
+    // The output stream blocks on the first write, until it is released.
+    expect(res.getOutputStream()).andReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        writing.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        bytes.write(b);
+      }
+    }).anyTimes();
+    replay(res);
+    AsyncContext asyncContext = createMock(AsyncContext.class);
+    HttpServletRequest req = createAsyncRequestMock(res, asyncContext);
+    asyncContext.setTimeout(1000);
+    Capture<AsyncListener> listener = newCapture();
+    asyncContext.addListener(capture(listener));
+    // The request is completed once, by the flow.
+    asyncContext.complete();
+    replay(asyncContext);
+
+    final List<Thread> threads = Lists.newArrayList();
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+        Thread thread = new Thread(task);
+        threads.add(thread);
+        thread.start();
+      }
+    };
+    DataSourceHelper.executeDataSourceServletFlowAsync(req, res, new TestGenerator(), false,
+        null, null, ExecutionOptions.SERIAL, executor, 1000);
+    assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+    // The timeout finds the flow writing the response, and returns after the completion wait
+    // without writing an error.
+    AsyncServletFlow flow = (AsyncServletFlow) listener.getValue();
+    flow.setCompletionWaitMillis(50);
+    long start = System.nanoTime();
+    flow.onTimeout(null);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+    release.countDown();
+    threads.get(0).join(10000);
+    verify(asyncContext);
+    String response = bytes.toString("UTF-8");
+    assertTrue(response.contains("\"status\":\"ok\""));
+    assertFalse(response.contains("timeout"));
+  }
+
+  public void testAsyncServletFlowRejected() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse res = createResponseMock(bytes);
+    AsyncContext asyncContext = createMock(AsyncContext.class);
+    HttpServletRequest req = createAsyncRequestMock(res, asyncContext);
+    asyncContext.setTimeout(0);
+    asyncContext.addListener(anyObject(AsyncListener.class));
+    asyncContext.complete();
+    replay(asyncContext);
+
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+        throw new RejectedExecutionException("Busy");
+      }
+    };
+    DataSourceHelper.executeDataSourceServletFlowAsync(req, res, new TestGenerator(), false,
+        null, null, ExecutionOptions.SERIAL, executor, -1);
+    verify(asyncContext);
+    String response = bytes.toString("UTF-8");
+    assertTrue(response.contains("internal_error"));
+  }
+
   public void testGenerateResponse() throws DataSourceException {
     // Check with simple data table and simple data source parameters.
     DataTable dataTable = new DataTable();
@@ -184,7 +623,7 @@ public class DataSourceHelperTest extends TestCase {
         new DataSourceParameters(null),
         ULocale.UK);
     assertEquals(
-        "{\"version\":\"0.6\",\"status\":\"ok\",\"sig\":\"1548939605\","
+        "{\"version\":\"0.6\",\"status\":\"ok\",\"sig\":\"15588486770105380302\","
         + "\"table\":{\"cols\":[{\"id\":\"col1\",\"label\":\"column1\","
         + "\"type\":\"number\",\"pattern\":\"\"},"
         + "{\"id\":\"col2\",\"label\":\"column2\",\"type\":\"boolean\",\"pattern\":\"\"},"
@@ -198,7 +637,7 @@ public class DataSourceHelperTest extends TestCase {
         new DataSourceParameters("reqId:666"),
         ULocale.UK);
     assertEquals(
-        "{\"version\":\"0.6\",\"reqId\":\"666\",\"status\":\"ok\",\"sig\":\"1548939605\","
+        "{\"version\":\"0.6\",\"reqId\":\"666\",\"status\":\"ok\",\"sig\":\"15588486770105380302\","
         + "\"table\":{\"cols\":[{\"id\":\"col1\",\"label\":\"column1\","
         + "\"type\":\"number\",\"pattern\":\"\"},"
         + "{\"id\":\"col2\",\"label\":\"column2\",\"type\":\"boolean\",\"pattern\":\"\"},"
@@ -212,7 +651,7 @@ public class DataSourceHelperTest extends TestCase {
         new DataSourceParameters("out:json"),
         ULocale.UK);
     assertEquals(
-        "{\"version\":\"0.6\",\"status\":\"ok\",\"sig\":\"1548939605\","
+        "{\"version\":\"0.6\",\"status\":\"ok\",\"sig\":\"15588486770105380302\","
         + "\"table\":{\"cols\":[{\"id\":\"col1\",\"label\":\"column1\","
         + "\"type\":\"number\",\"pattern\":\"\"},"
         + "{\"id\":\"col2\",\"label\":\"column2\",\"type\":\"boolean\",\"pattern\":\"\"},"
@@ -227,7 +666,7 @@ public class DataSourceHelperTest extends TestCase {
         ULocale.UK);
     assertEquals(
         "// Data table response\ngoogle.visualization.Query.setResponse("
-        + "{\"version\":\"0.6\",\"status\":\"ok\",\"sig\":\"1548939605\","
+        + "{\"version\":\"0.6\",\"status\":\"ok\",\"sig\":\"15588486770105380302\","
         + "\"table\":{\"cols\":[{\"id\":\"col1\",\"label\":\"column1\","
         + "\"type\":\"number\",\"pattern\":\"\"},"
         + "{\"id\":\"col2\",\"label\":\"column2\",\"type\":\"boolean\",\"pattern\":\"\"},"
@@ -0,0 +1,117 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource;
+
+import com.google.visualization.datasource.base.DataSourceException;
+import com.google.visualization.datasource.base.InvalidQueryException;
+import com.google.visualization.datasource.query.Query;
+import com.google.visualization.datasource.query.QuerySort;
+
+import com.ibm.icu.util.ULocale;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for ParsedQueryCache.
+ */
+public class ParsedQueryCacheTest extends TestCase {
+
+  public void testParseQuery() throws InvalidQueryException {
+    ParsedQueryCache cache = new ParsedQueryCache(10);
+    Query query = cache.parseQuery("select name where size > 1", ULocale.US);
+    assertTrue(query.isFrozen());
+    assertEquals(DataSourceHelper.parseQuery("select name where size > 1"), query);
+    assertSame(query, cache.parseQuery("select name where size > 1", ULocale.US));
+
+    // The locale is part of the key.
+    assertNotSame(query, cache.parseQuery("select name where size > 1", ULocale.FRANCE));
+
+    // An empty and a missing query string share the same query.
+    Query emptyQuery = cache.parseQuery("", null);
+    assertTrue(emptyQuery.isEmpty());
+    assertSame(emptyQuery, cache.parseQuery(null, null));
+
+    assertEquals(3, cache.size());
+    assertEquals(2, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+    assertNotSame(query, cache.parseQuery("select name where size > 1", ULocale.US));
+  }
+
+  public void testInvalidQueryIsNotCached() {
+    ParsedQueryCache cache = new ParsedQueryCache(10);
+    for (int i = 0; i < 2; i++) {
+      try {
+        cache.parseQuery("select name, name", null);
+        fail();
+      } catch (InvalidQueryException e) {
+        // Expected behavior.
+      }
+    }
+    assertEquals(0, cache.size());
+  }
+
+  public void testFrozenQueryCannotChange() throws InvalidQueryException {
+    ParsedQueryCache cache = new ParsedQueryCache(10);
+    Query query = cache.parseQuery("select name limit 3", null);
+    try {
+      query.setSort(new QuerySort());
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Expected behavior.
+    }
+    try {
+      query.copyFrom(new Query());
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Expected behavior.
+    }
+    try {
+      query.setRowLimit(5);
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Expected behavior.
+    }
+    assertEquals(3, query.getRowLimit());
+    assertEquals("SELECT \"name\" LIMIT 3", query.toQueryString());
+    assertSame(query.toQueryString(), query.toQueryString());
+  }
+
+  public void testSplitQuery() throws DataSourceException {
+    ParsedQueryCache cache = new ParsedQueryCache(10);
+    Query query = cache.parseQuery("select name, sum(size) group by name", null);
+
+    QueryPair pair = cache.splitQuery(query, Capabilities.SQL);
+    assertSame(pair, cache.splitQuery(query, Capabilities.SQL));
+    assertTrue(pair.getDataSourceQuery().isFrozen());
+    assertTrue(pair.getCompletionQuery().isFrozen());
+    QueryPair expected = QuerySplitter.splitQuery(query, Capabilities.SQL);
+    assertEquals(expected.getDataSourceQuery(), pair.getDataSourceQuery());
+    assertEquals(expected.getCompletionQuery(), pair.getCompletionQuery());
+
+    QueryPair nonePair = cache.splitQuery(query, Capabilities.NONE);
+    assertNotSame(pair, nonePair);
+    assertNull(nonePair.getDataSourceQuery());
+    assertSame(nonePair, cache.splitQuery(query, Capabilities.NONE));
+
+    // Queries that are not frozen are split without caching.
+    Query notFrozen = DataSourceHelper.parseQuery("select name");
+    assertNotSame(cache.splitQuery(notFrozen, Capabilities.SQL),
+        cache.splitQuery(notFrozen, Capabilities.SQL));
+    assertFalse(cache.splitQuery(notFrozen, Capabilities.SQL).getDataSourceQuery().isFrozen());
+  }
+}
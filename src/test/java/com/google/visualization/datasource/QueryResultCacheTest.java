@@ -0,0 +1,231 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.visualization.datasource;
+
+import com.google.common.base.Ticker;
+import com.google.visualization.datasource.base.DataSourceException;
+import com.google.visualization.datasource.base.InvalidQueryException;
+import com.google.visualization.datasource.base.TypeMismatchException;
+import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.value.ValueType;
+import com.google.visualization.datasource.query.Query;
+
+import com.ibm.icu.util.ULocale;
+
+import junit.framework.TestCase;
+
+import static org.easymock.EasyMock.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Unit test for QueryResultCache.
+ */
+public class QueryResultCacheTest extends TestCase {
+
+  /**
+   * A ticker whose time is set by the test.
+   */
+  private static class FakeTicker extends Ticker {
+    long nanos = 0;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+
+  private DataTable createTable(int numberOfRows) throws TypeMismatchException {
+    DataTable table = new DataTable();
+    table.addColumn(new ColumnDescription("name", ValueType.TEXT, "Name"));
+    table.addColumn(new ColumnDescription("size", ValueType.NUMBER, "Size"));
+    for (int i = 0; i < numberOfRows; i++) {
+      table.addRowFromValues("name" + i, i);
+    }
+    return table;
+  }
+
+  public void testGetAndPut() throws InvalidQueryException, TypeMismatchException {
+    QueryResultCache cache = new QueryResultCache(1000, 60000);
+    Query query = DataSourceHelper.parseQuery("select name where size > 1");
+    DataTable table = createTable(3);
+
+    assertNull(cache.get(query, ULocale.US, "v1"));
+    cache.put(query, ULocale.US, "v1", table);
+    assertSame(table, cache.get(query, ULocale.US, "v1"));
+
+    // The query is normalized.
+    assertSame(table, cache.get(
+        DataSourceHelper.parseQuery("SELECT   name WHERE size>1"), ULocale.US, "v1"));
+
+    // A different data version, locale or query misses.
+    assertNull(cache.get(query, ULocale.US, "v2"));
+    assertNull(cache.get(query, ULocale.FRANCE, "v1"));
+    assertNull(cache.get(DataSourceHelper.parseQuery("select name"), ULocale.US, "v1"));
+
+    assertEquals(2, cache.getHitCount());
+    assertEquals(4, cache.getMissCount());
+    assertEquals(0, cache.getEvictionCount());
+
+    cache.invalidateAll();
+    assertNull(cache.get(query, ULocale.US, "v1"));
+    assertEquals(0, cache.size());
+  }
+
+  public void testSizeWeightedEviction() throws InvalidQueryException, TypeMismatchException {
+    // Each table of 10 rows and 2 columns weighs 21.
+    QueryResultCache cache = new QueryResultCache(50, 60000);
+    Query query1 = DataSourceHelper.parseQuery("select name");
+    Query query2 = DataSourceHelper.parseQuery("select size");
+    Query query3 = DataSourceHelper.parseQuery("select name, size");
+    cache.put(query1, ULocale.US, "v", createTable(10));
+    cache.put(query2, ULocale.US, "v", createTable(10));
+    assertNotNull(cache.get(query1, ULocale.US, "v"));
+
+    // The least recently used result is evicted.
+    cache.put(query3, ULocale.US, "v", createTable(10));
+    assertNotNull(cache.get(query1, ULocale.US, "v"));
+    assertNull(cache.get(query2, ULocale.US, "v"));
+    assertNotNull(cache.get(query3, ULocale.US, "v"));
+    assertEquals(1, cache.getEvictionCount());
+
+    // A result that is larger than the cache is not kept.
+    cache.put(query2, ULocale.US, "v", createTable(100));
+    assertNull(cache.get(query2, ULocale.US, "v"));
+  }
+
+  public void testTimeToLive() throws InvalidQueryException, TypeMismatchException {
+    FakeTicker ticker = new FakeTicker();
+    QueryResultCache cache = new QueryResultCache(1000, 1000, ticker);
+    Query query = DataSourceHelper.parseQuery("select name");
+    cache.put(query, ULocale.US, "v", createTable(1));
+
+    ticker.nanos = TimeUnit.MILLISECONDS.toNanos(999);
+    assertNotNull(cache.get(query, ULocale.US, "v"));
+    ticker.nanos = TimeUnit.MILLISECONDS.toNanos(1000);
+    assertNull(cache.get(query, ULocale.US, "v"));
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  public void testServletFlow() throws IOException {
+    final int[] generated = new int[1];
+    final String[] dataVersion = {"v1"};
+    VersionedDataTableGenerator generator = new VersionedDataTableGenerator() {
+      @Override
+      public DataTable generateDataTable(Query query, HttpServletRequest request)
+          throws DataSourceException {
+        generated[0]++;
+        return createTable(5);
+      }
+
+      @Override
+      public Capabilities getCapabilities() {
+        return Capabilities.NONE;
+      }
+
+      @Override
+      public String getDataVersion(Query query, HttpServletRequest request) {
+        return dataVersion[0];
+      }
+    };
+    QueryResultCache cache = new QueryResultCache(1000, 60000);
+
+    String first = executeFlow(generator, cache);
+    assertEquals(1, generated[0]);
+    assertEquals(first, executeFlow(generator, cache));
+    assertEquals(1, generated[0]);
+    assertEquals(1, cache.getHitCount());
+
+    // A new data version generates the table again.
+    dataVersion[0] = "v2";
+    assertEquals(first, executeFlow(generator, cache));
+    assertEquals(2, generated[0]);
+
+    // Without a data version, or without a cache, nothing is cached.
+    dataVersion[0] = null;
+    executeFlow(generator, cache);
+    executeFlow(generator, cache);
+    executeFlow(generator, null);
+    assertEquals(5, generated[0]);
+    assertEquals(2, cache.size());
+  }
+
+  public void testServletFlowWithCoalescingGenerator() throws IOException {
+    final int[] versions = new int[1];
+    VersionedDataTableGenerator generator = new VersionedDataTableGenerator() {
+      @Override
+      public DataTable generateDataTable(Query query, HttpServletRequest request)
+          throws DataSourceException {
+        return createTable(5);
+      }
+
+      @Override
+      public Capabilities getCapabilities() {
+        return Capabilities.NONE;
+      }
+
+      @Override
+      public String getDataVersion(Query query, HttpServletRequest request) {
+        versions[0]++;
+        return "v1";
+      }
+    };
+    CoalescingDataTableGenerator coalescer = new CoalescingDataTableGenerator(generator);
+    QueryResultCache cache = new QueryResultCache(1000, 60000);
+
+    // The data version taken for the cache lookup is reused for coalescing.
+    String first = executeFlow(coalescer, cache);
+    assertEquals(1, versions[0]);
+    assertEquals(1, coalescer.getExecutionCount());
+    assertEquals(first, executeFlow(coalescer, cache));
+    assertEquals(2, versions[0]);
+    assertEquals(1, coalescer.getExecutionCount());
+
+    // Without a cache, the coalescer takes the data version itself.
+    executeFlow(coalescer, null);
+    assertEquals(3, versions[0]);
+    assertEquals(2, coalescer.getExecutionCount());
+  }
+
+  private String executeFlow(DataTableGenerator generator, QueryResultCache cache)
+      throws IOException {
+    HttpServletRequest req = createNiceMock(HttpServletRequest.class);
+    expect(req.getParameter(DataSourceRequest.QUERY_REQUEST_PARAMETER))
+        .andReturn("select name where size > 2").anyTimes();
+    expect(req.getParameter(DataSourceHelper.LOCALE_REQUEST_PARAMETER))
+        .andReturn("en_US").anyTimes();
+    expect(req.getHeader(DataSourceRequest.SAME_ORIGIN_HEADER)).andReturn("1").anyTimes();
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    HttpServletResponse res = createNiceMock(HttpServletResponse.class);
+    expect(res.getOutputStream()).andReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) {
+        bytes.write(b);
+      }
+    }).anyTimes();
+    replay(req, res);
+
+    DataSourceHelper.executeDataSourceServletFlow(req, res, generator, true, cache);
+    return bytes.toString("UTF-8");
+  }
+}
@@ -98,7 +98,7 @@ public class ResponseWriterTest extends TestCase {
     ResponseStatus responseStatus = new ResponseStatus(StatusType.OK, null, null);
 
     String expected = "{\"version\":\"0.6\",\"status\":\"ok\","
-        + "\"sig\":\"2087475733\",\"table\":"
+        + "\"sig\":\"17456798800795054045\",\"table\":"
         + "{\"cols\":[{\"id\":\"A\",\"label\":\"col0\",\"type\":\"string\",\"pattern\":\"\"},"
         + "{\"id\":\"B\",\"label\":\"col1\",\"type\":\"number\",\"pattern\":\"\"},"
         + "{\"id\":\"C\",\"label\":\"col2\",\"type\":\"boolean\",\"pattern\":\"\"}],"
@@ -121,7 +121,7 @@ public class ResponseWriterTest extends TestCase {
     responseStatus = new ResponseStatus(StatusType.OK, null, null);
 
     expected = "{\"version\":\"0.6\",\"reqId\":\"90210\",\"status\":\"ok\","
-        + "\"sig\":\"2087475733\",\"table\":"
+        + "\"sig\":\"17456798800795054045\",\"table\":"
         + "{\"cols\":[{\"id\":\"A\",\"label\":\"col0\",\"type\":\"string\",\"pattern\":\"\"},"
         + "{\"id\":\"B\",\"label\":\"col1\",\"type\":\"number\",\"pattern\":\"\"},"
         + "{\"id\":\"C\",\"label\":\"col2\",\"type\":\"boolean\",\"pattern\":\"\"}],"
@@ -0,0 +1,209 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.datatable;
+
+import com.google.visualization.datasource.base.ReasonType;
+import com.google.visualization.datasource.base.TypeMismatchException;
+import com.google.visualization.datasource.base.Warning;
+import com.google.visualization.datasource.datatable.value.BooleanValue;
+import com.google.visualization.datasource.datatable.value.DateTimeValue;
+import com.google.visualization.datasource.datatable.value.DateValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.TimeOfDayValue;
+import com.google.visualization.datasource.datatable.value.ValueType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for ColumnarDataTable.
+ */
+public class ColumnarDataTableTest extends TestCase {
+
+  private DataTable rowTable;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    rowTable = new DataTable();
+    rowTable.addColumn(new ColumnDescription("text", ValueType.TEXT, "Text"));
+    rowTable.addColumn(new ColumnDescription("number", ValueType.NUMBER, "Number"));
+    rowTable.addColumn(new ColumnDescription("boolean", ValueType.BOOLEAN, "Boolean"));
+    rowTable.addColumn(new ColumnDescription("date", ValueType.DATE, "Date"));
+    rowTable.addColumn(new ColumnDescription("datetime", ValueType.DATETIME, "DateTime"));
+    rowTable.addColumn(new ColumnDescription("timeofday", ValueType.TIMEOFDAY, "TimeOfDay"));
+
+    TableRow row = new TableRow();
+    row.addCell(new TableCell(new TextValue("aaa"), "AAA"));
+    row.addCell(new NumberValue(1.5));
+    row.addCell(BooleanValue.TRUE);
+    row.addCell(new DateValue(2009, 1, 28));
+    row.addCell(new DateTimeValue(2009, 1, 28, 12, 30, 0, 5));
+    row.addCell(new TimeOfDayValue(12, 30, 0, 5));
+    row.setCustomProperty("row", "first");
+    rowTable.addRow(row);
+
+    row = new TableRow();
+    row.addCell(TextValue.getNullValue());
+    row.addCell(NumberValue.getNullValue());
+    row.addCell(BooleanValue.getNullValue());
+    row.addCell(DateValue.getNullValue());
+    row.addCell(DateTimeValue.getNullValue());
+    row.addCell(TimeOfDayValue.getNullValue());
+    rowTable.addRow(row);
+
+    row = new TableRow();
+    TableCell cell = new TableCell("aaa");
+    cell.setCustomProperty("cell", "third");
+    row.addCell(cell);
+    row.addCell(new NumberValue(-7));
+    row.addCell(BooleanValue.FALSE);
+    rowTable.addRow(row);
+
+    rowTable.setCustomProperty("table", "value");
+    rowTable.addWarning(new Warning(ReasonType.DATA_TRUNCATED, "truncated"));
+  }
+
+  public void testCreateFromDataTable() {
+    ColumnarDataTable table = ColumnarDataTable.createFromDataTable(rowTable);
+
+    assertEquals(3, table.getNumberOfRows());
+    assertEquals(6, table.getNumberOfColumns());
+    assertEquals(rowTable.toString(), table.toString());
+    assertEquals("value", table.getCustomProperty("table"));
+    assertEquals(1, table.getWarnings().size());
+
+    for (int row = 0; row < rowTable.getNumberOfRows(); row++) {
+      for (int col = 0; col < rowTable.getNumberOfColumns(); col++) {
+        assertEquals(rowTable.getValue(row, col), table.getValue(row, col));
+        assertEquals(rowTable.getCell(row, col).getFormattedValue(),
+            table.getCell(row, col).getFormattedValue());
+        assertEquals(rowTable.getCell(row, col).getCustomProperties(),
+            table.getCell(row, col).getCustomProperties());
+        assertEquals(rowTable.getValue(row, col).isNull(), table.isNull(row, col));
+      }
+      assertEquals(rowTable.getRow(row).getCustomProperties(),
+          table.getRow(row).getCustomProperties());
+    }
+
+    // Null text values are not confused with empty strings.
+    assertTrue(table.getValue(1, 0).isNull());
+    assertEquals("AAA", table.getCell(0, 0).getFormattedValue());
+    assertEquals("third", table.getCell(2, 0).getCustomProperty("cell"));
+    assertEquals("first", table.getRows().get(0).getCustomProperty("row"));
+
+    // The columns are cloned.
+    rowTable.getColumnDescription(0).setLabel("changed");
+    assertEquals("Text", table.getColumnDescription(0).getLabel());
+  }
+
+  public void testAddRowTypeMismatch() throws TypeMismatchException {
+    ColumnarDataTable table = new ColumnarDataTable();
+    table.addColumn(new ColumnDescription("number", ValueType.NUMBER, "Number"));
+    TableRow row = new TableRow();
+    row.addCell("text");
+    try {
+      table.addRow(row);
+      fail();
+    } catch (TypeMismatchException e) {
+      // Expected behavior.
+    }
+    row = new TableRow();
+    row.addCell(1);
+    row.addCell(2);
+    try {
+      table.addRow(row);
+      fail();
+    } catch (TypeMismatchException e) {
+      // Expected behavior.
+    }
+    assertEquals(0, table.getNumberOfRows());
+  }
+
+  public void testRowsAreCopies() throws TypeMismatchException {
+    ColumnarDataTable table = ColumnarDataTable.createFromDataTable(rowTable);
+    table.getRow(0).getCell(1).setFormattedValue("changed");
+    assertNull(table.getCell(0, 1).getFormattedValue());
+
+    try {
+      table.getRows().add(new TableRow());
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Expected behavior.
+    }
+
+    TableCell previous = table.setCell(0, 1, new TableCell(new NumberValue(3), "three"));
+    assertEquals(new NumberValue(1.5), previous.getValue());
+    assertEquals(new NumberValue(3), table.getValue(0, 1));
+    assertEquals("three", table.getCell(0, 1).getFormattedValue());
+
+    try {
+      table.setCell(0, 1, new TableCell("text"));
+      fail();
+    } catch (TypeMismatchException e) {
+      // Expected behavior.
+    }
+    try {
+      table.getValue(3, 0);
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      // Expected behavior.
+    }
+  }
+
+  public void testAddColumnAndSetRows() throws TypeMismatchException {
+    ColumnarDataTable table = ColumnarDataTable.createFromDataTable(rowTable);
+    table.addColumn(new ColumnDescription("extra", ValueType.NUMBER, "Extra"));
+    assertEquals(7, table.getRow(2).getCells().size());
+    assertTrue(table.getValue(2, 6).isNull());
+
+    // Setting the rows from the table's own rows keeps the same data.
+    String before = table.toString();
+    table.setRows(table.getRows());
+    assertEquals(before, table.toString());
+
+    table.setRows(table.getRows().subList(2, 3));
+    assertEquals(1, table.getNumberOfRows());
+    assertEquals(new NumberValue(-7), table.getValue(0, 1));
+    assertEquals(1, table.getColumnCells("number").size());
+  }
+
+  public void testClone() {
+    ColumnarDataTable table = ColumnarDataTable.createFromDataTable(rowTable);
+    ColumnarDataTable clone = table.clone();
+    assertEquals(table.toString(), clone.toString());
+    assertEquals("first", clone.getRow(0).getCustomProperty("row"));
+
+    table.getColumnDescription(1).setLabel("changed");
+    assertEquals("Number", clone.getColumnDescription(1).getLabel());
+  }
+
+  public void testManyRows() throws TypeMismatchException {
+    ColumnarDataTable table = new ColumnarDataTable();
+    table.addColumn(new ColumnDescription("number", ValueType.NUMBER, "Number"));
+    table.addColumn(new ColumnDescription("text", ValueType.TEXT, "Text"));
+    for (int i = 0; i < 1000; i++) {
+      TableRow row = new TableRow();
+      row.addCell(i);
+      row.addCell("value" + (i % 10));
+      table.addRow(row);
+    }
+    table.trimToSize();
+    assertEquals(1000, table.getNumberOfRows());
+    assertEquals(new NumberValue(999), table.getValue(999, 0));
+    assertEquals(new TextValue("value9"), table.getValue(999, 1));
+    assertSame(table.getValue(9, 1), table.getValue(999, 1));
+  }
+}
@@ -0,0 +1,148 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.datatable;
+
+import com.google.common.collect.Lists;
+import com.google.visualization.datasource.base.TypeMismatchException;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.ValueType;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Tests for DataTableBuilder.
+ */
+public class DataTableBuilderTest extends TestCase {
+
+  private List<ColumnDescription> columns;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    columns = Lists.newArrayList(
+        new ColumnDescription("name", ValueType.TEXT, "Name"),
+        new ColumnDescription("age", ValueType.NUMBER, "Age"));
+  }
+
+  private static TableRow createRow(String name, double age) {
+    TableRow row = new TableRow();
+    row.addCell(new TextValue(name));
+    row.addCell(new NumberValue(age));
+    return row;
+  }
+
+  public void testBuild() {
+    TableRow first = createRow("a", 1);
+    TableRow second = createRow("b", 2);
+    DataTableBuilder builder = new DataTableBuilder(columns, 2);
+    builder.addRow(first).addRows(Lists.newArrayList(second, createRow("c", 3)));
+    assertEquals(3, builder.getNumberOfRows());
+
+    DataTable table = builder.build();
+    assertEquals(2, table.getNumberOfColumns());
+    assertEquals("age", table.getColumnDescription(1).getId());
+    assertEquals(3, table.getNumberOfRows());
+    assertSame(first, table.getRow(0));
+    assertSame(second, table.getRow(1));
+    assertEquals("c", table.getValue(2, 0).toString());
+
+    // The table can still be changed through its own methods.
+    try {
+      table.addRow(createRow("d", 4));
+    } catch (TypeMismatchException e) {
+      fail();
+    }
+    assertEquals(4, table.getNumberOfRows());
+
+    // A builder builds a single table.
+    try {
+      builder.addRow(createRow("e", 5));
+      fail();
+    } catch (IllegalStateException e) {
+      // Expected behavior.
+    }
+    try {
+      builder.build();
+      fail();
+    } catch (IllegalStateException e) {
+      // Expected behavior.
+    }
+  }
+
+  public void testBuildInto() throws TypeMismatchException {
+    DataTable table = new DataTable();
+    table.addColumns(columns);
+    table.setCustomProperty("key", "value");
+    table.addRow(createRow("old", 0));
+    String signature = table.getSignature();
+
+    new DataTableBuilder(columns).addRow(createRow("new", 1)).buildInto(table);
+    assertEquals(1, table.getNumberOfRows());
+    assertEquals("new", table.getValue(0, 0).toString());
+    assertEquals("value", table.getCustomProperty("key"));
+    assertFalse(signature.equals(table.getSignature()));
+  }
+
+  public void testBuildIntoColumnarTable() throws TypeMismatchException {
+    DataTable original = new DataTable();
+    original.addColumns(columns);
+    ColumnarDataTable table = ColumnarDataTable.createFromDataTable(original);
+
+    new DataTableBuilder(columns).addRow(createRow("a", 1)).addRow(createRow("b", 2))
+        .buildInto(table);
+    assertEquals(2, table.getNumberOfRows());
+    assertEquals(2.0, ((NumberValue) table.getValue(1, 1)).getValue());
+  }
+
+  public void testValidation() {
+    DataTableBuilder builder = new DataTableBuilder(columns).setValidating(true);
+    assertTrue(builder.isValidating());
+    TableRow wrongType = new TableRow();
+    wrongType.addCell(new TextValue("a"));
+    wrongType.addCell(new TextValue("b"));
+    try {
+      builder.addRow(wrongType);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected behavior.
+    }
+    TableRow shortRow = new TableRow();
+    shortRow.addCell(new TextValue("a"));
+    try {
+      builder.addRows(Lists.newArrayList(createRow("a", 1), shortRow));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected behavior.
+    }
+    assertEquals(0, builder.getNumberOfRows());
+
+    DataTable otherTable = new DataTable();
+    otherTable.addColumn(new ColumnDescription("name", ValueType.TEXT, "Name"));
+    try {
+      builder.buildInto(otherTable);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected behavior.
+    }
+
+    // Without validation, the rows are trusted.
+    DataTable table = new DataTableBuilder(columns).setValidating(false).addRow(shortRow)
+        .build();
+    assertSame(shortRow, table.getRow(0));
+  }
+}
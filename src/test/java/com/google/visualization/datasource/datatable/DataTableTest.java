@@ -377,4 +377,50 @@ public class DataTableTest extends TestCase {
       // Expected behavior.
     }
   }
+
+  public void testGetColumnDescriptionsIsReadOnlyView() {
+    List<ColumnDescription> columns = testData.getColumnDescriptions();
+    assertSame(columns, testData.getColumnDescriptions());
+    try {
+      columns.add(new ColumnDescription("col6", ValueType.TEXT, "label6"));
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Expected behavior.
+    }
+    testData.addColumn(new ColumnDescription("col6", ValueType.TEXT, "label6"));
+    assertEquals("col6", columns.get(columns.size() - 1).getId());
+  }
+
+  public void testSignature() throws TypeMismatchException {
+    String signature = testData.getSignature();
+    assertSame(signature, testData.getSignature());
+
+    // Equal contents have equal signatures. Formatting and warnings are ignored.
+    DataTable clone = testData.clone();
+    clone.getRow(0).getCell(0).setFormattedValue("AAA");
+    clone.addWarning(new Warning(ReasonType.DATA_TRUNCATED, "truncated"));
+    assertEquals(signature, clone.getSignature());
+    assertEquals(signature, ColumnarDataTable.createFromDataTable(testData).getSignature());
+
+    // Changes made through the table change the signature.
+    clone.setCell(1, 1, new TableCell(112));
+    String changed = clone.getSignature();
+    assertFalse(signature.equals(changed));
+    clone.setCustomProperty("key", "value");
+    assertFalse(changed.equals(clone.getSignature()));
+    changed = clone.getSignature();
+    clone.addRowFromValues("eee");
+    assertFalse(changed.equals(clone.getSignature()));
+    changed = clone.getSignature();
+    clone.addColumn(new ColumnDescription("col6", ValueType.TEXT, "label6"));
+    assertFalse(changed.equals(clone.getSignature()));
+
+    // A null value differs from an empty string.
+    DataTable table1 = new DataTable();
+    table1.addColumn(new ColumnDescription("a", ValueType.TEXT, "A"));
+    DataTable table2 = table1.clone();
+    table1.addRowFromValues("");
+    table2.addRow(new TableRow());
+    assertFalse(table1.getSignature().equals(table2.getSignature()));
+  }
 }
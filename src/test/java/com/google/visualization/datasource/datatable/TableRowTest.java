@@ -21,6 +21,8 @@ import com.google.visualization.datasource.datatable.value.TextValue;
 
 import junit.framework.TestCase;
 
+import java.util.List;
+
 /**
  * Tests for TableRow
  *
@@ -70,4 +72,20 @@ public class TableRowTest extends TestCase {
     clonedRow.getCell(3).setCustomProperty("foo3", "bar3");
     assertTrue(row.getCell(3).getCustomProperties().isEmpty());
   }
+
+  public void testGetCellsIsReadOnlyView() {
+    TableRow row = new TableRow();
+    row.addCell(1);
+    List<TableCell> cells = row.getCells();
+    assertSame(cells, row.getCells());
+    try {
+      cells.add(new TableCell(2));
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Expected behavior.
+    }
+    row.addCell(2);
+    assertEquals(2, cells.size());
+    assertSame(row.getCell(1), cells.get(1));
+  }
 }
@@ -0,0 +1,96 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.datatable;
+
+import com.google.visualization.datasource.datatable.value.DateValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.Value;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for ValueDictionary.
+ */
+public class ValueDictionaryTest extends TestCase {
+
+  public void testIntern() {
+    ValueDictionary dictionary = new ValueDictionary();
+    Value first = new TextValue("foo");
+    assertSame(first, dictionary.intern("a", first));
+    assertSame(first, dictionary.intern("a", new TextValue("foo")));
+    // Columns have separate dictionaries.
+    Value other = new TextValue("foo");
+    assertSame(other, dictionary.intern("b", other));
+    // Values of different types are not shared.
+    Value number = new NumberValue(1);
+    assertSame(number, dictionary.intern("a", number));
+    assertSame(number, dictionary.intern("a", new NumberValue(1)));
+    Value date = new DateValue(2009, 1, 1);
+    assertSame(date, dictionary.intern("a", date));
+    assertSame(date, dictionary.intern("a", new DateValue(2009, 1, 1)));
+    // Null values are not added.
+    assertSame(TextValue.getNullValue(), dictionary.intern("a", TextValue.getNullValue()));
+
+    assertEquals(3, dictionary.getSize("a"));
+    assertEquals(3, dictionary.getSharedCount("a"));
+    assertEquals(1, dictionary.getSize("b"));
+    assertEquals(0, dictionary.getSharedCount("b"));
+    assertEquals(0, dictionary.getSize("c"));
+    assertEquals(4, dictionary.getTotalSize());
+    assertEquals(2, dictionary.getColumnIds().size());
+
+    dictionary.clear();
+    assertEquals(0, dictionary.getTotalSize());
+  }
+
+  public void testMaxColumnSize() {
+    ValueDictionary dictionary = new ValueDictionary(2);
+    dictionary.intern("a", new NumberValue(1));
+    dictionary.intern("a", new NumberValue(2));
+    Value third = new NumberValue(3);
+    assertSame(third, dictionary.intern("a", third));
+    assertNotSame(third, dictionary.intern("a", new NumberValue(3)));
+    assertEquals(2, dictionary.getSize("a"));
+    try {
+      new ValueDictionary(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected behavior.
+    }
+  }
+
+  public void testCreateCell() {
+    ValueDictionary dictionary = new ValueDictionary();
+    TableCell cell = dictionary.createCell("a", new TextValue("foo"));
+    assertNotSame(cell, dictionary.createCell("a", new TextValue("foo")));
+    assertSame(cell.getValue(), dictionary.createCell("a", new TextValue("foo")).getValue());
+
+    // Null cells are not shared, so changing one does not change the others.
+    TableCell nullCell = dictionary.createCell("a", TextValue.getNullValue());
+    assertTrue(nullCell.isNull());
+    TableCell otherNullCell = dictionary.createCell("a", TextValue.getNullValue());
+    assertNotSame(nullCell, otherNullCell);
+    assertSame(nullCell.getValue(), otherNullCell.getValue());
+    nullCell.setFormattedValue("N/A");
+    nullCell.setCustomProperty("key", "value");
+    assertNull(otherNullCell.getFormattedValue());
+    assertTrue(otherNullCell.getCustomProperties().isEmpty());
+    TableCell nullNumberCell = dictionary.createCell("a", NumberValue.getNullValue());
+    assertEquals(NumberValue.getNullValue(), nullNumberCell.getValue());
+    assertEquals(1, dictionary.getSize("a"));
+    assertEquals(2, dictionary.getSharedCount("a"));
+  }
+}
@@ -342,4 +342,31 @@ public class DateTimeValueTest extends TestCase {
     assertEquals("DATETIME '2020-4-12 2:31:12.123'", val1.toQueryString());
     assertEquals("DATETIME '2007-6-6 7:8:9'", val2.toQueryString());
   }
-}
\ No newline at end of file
+
+  public void testEpochMillis() {
+    assertEquals(0, new DateTimeValue(1970, 0, 1, 0, 0, 0, 0).getEpochMillis());
+    assertEquals(951782400123L, new DateTimeValue(2000, 1, 29, 0, 0, 0, 123).getEpochMillis());
+    DateTimeValue value = new DateTimeValue(1500, 1, 29, 23, 59, 59, 999);
+    assertEquals(value, DateTimeValue.fromEpochMillis(value.getEpochMillis()));
+    assertEquals(new DateTimeValue(1969, 11, 31, 23, 59, 59, 999),
+        DateTimeValue.fromEpochMillis(-1));
+  }
+
+  public void testFieldsMatchCalendar() {
+    GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+    long[] epochMillis = {-12219292800001L, -12219292800000L, -62135596800000L, -1L, 0L,
+        951868799999L, 4102444800000L};
+    for (long millis : epochMillis) {
+      calendar.setTimeInMillis(millis);
+      DateTimeValue value = DateTimeValue.fromEpochMillis(millis);
+      assertEquals(calendar.get(GregorianCalendar.YEAR), value.getYear());
+      assertEquals(calendar.get(GregorianCalendar.MONTH), value.getMonth());
+      assertEquals(calendar.get(GregorianCalendar.DAY_OF_MONTH), value.getDayOfMonth());
+      assertEquals(calendar.get(GregorianCalendar.HOUR_OF_DAY), value.getHourOfDay());
+      assertEquals(calendar.get(GregorianCalendar.MINUTE), value.getMinute());
+      assertEquals(calendar.get(GregorianCalendar.SECOND), value.getSecond());
+      assertEquals(calendar.get(GregorianCalendar.MILLISECOND), value.getMillisecond());
+      assertEquals(calendar, value.getCalendar());
+    }
+  }
+}
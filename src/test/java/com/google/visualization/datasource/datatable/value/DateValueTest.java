@@ -333,4 +333,24 @@ public class DateValueTest extends TestCase {
     assertEquals("DATE '2007-7-20'", val1.toQueryString());
     assertEquals("DATE '2010-12-11'", val2.toQueryString());
   }
-}
\ No newline at end of file
+
+  public void testEpochDay() {
+    assertEquals(0, new DateValue(1970, 0, 1).getEpochDay());
+    assertEquals(10957, new DateValue(2000, 0, 1).getEpochDay());
+    assertEquals(-1, new DateValue(1969, 11, 31).getEpochDay());
+    assertEquals(new DateValue(2008, 1, 29), DateValue.fromEpochDay(13938));
+
+    // Compare with the calendar, including Julian dates before the Gregorian cutover.
+    GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+    for (int epochDay = -700000; epochDay < 100000; epochDay += 13) {
+      calendar.setTimeInMillis(epochDay * 24L * 60 * 60 * 1000);
+      DateValue value = new DateValue(calendar);
+      assertEquals(epochDay, value.getEpochDay());
+      assertEquals(value, DateValue.fromEpochDay(epochDay));
+    }
+    DateValue julianLeapDay = new DateValue(1500, 1, 29);
+    assertEquals(julianLeapDay, DateValue.fromEpochDay(julianLeapDay.getEpochDay()));
+    assertEquals(new DateValue(1582, 9, 15).getEpochDay(),
+        new DateValue(1582, 9, 4).getEpochDay() + 1);
+  }
+}
@@ -14,6 +14,7 @@
 
 package com.google.visualization.datasource.datatable.value;
 
+import com.ibm.icu.text.Collator;
 import com.ibm.icu.util.ULocale;
 import junit.framework.TestCase;
 
@@ -140,6 +141,25 @@ public class TextValueTest extends TestCase {
     assertEquals(1, frComparator.compare(text1, text2));
   }
 
+  public void testGetCollator() {
+    assertSame(TextValue.getCollator(ULocale.CANADA_FRENCH),
+        TextValue.getCollator(ULocale.CANADA_FRENCH));
+    assertTrue(TextValue.getCollator(ULocale.CANADA_FRENCH).isFrozen());
+    assertNotSame(TextValue.getCollator(ULocale.ROOT),
+        TextValue.getCollator(ULocale.CANADA_FRENCH));
+  }
+
+  public void testGetCollatorOfManyLocales() {
+    // Locales with arbitrary variants, e.g., from user requests, do not fill up the cache.
+    Collator first = TextValue.getCollator(new ULocale("en_US_V0"));
+    for (int i = 1; i <= TextValue.MAX_CACHED_COLLATORS * 2; i++) {
+      Collator collator = TextValue.getCollator(new ULocale("en_US_V" + i));
+      assertTrue(collator.isFrozen());
+      assertEquals(0, collator.compare("abc", "abc"));
+    }
+    assertNotSame(first, TextValue.getCollator(new ULocale("en_US_V0")));
+  }
+
   public void testToQueryString() {
     TextValue t1 = new TextValue("foo bar");
     TextValue t2 = new TextValue("foo\"bar");
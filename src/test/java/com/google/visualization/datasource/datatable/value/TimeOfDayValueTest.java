@@ -380,4 +380,16 @@ public class TimeOfDayValueTest extends TestCase {
     assertEquals("TIMEOFDAY '12:23:12.111'", val1.toQueryString());
     assertEquals("TIMEOFDAY '2:3:4'", val2.toQueryString());
   }
-}
\ No newline at end of file
+
+  public void testMillisOfDay() {
+    assertEquals(0, new TimeOfDayValue(0, 0, 0).getMillisOfDay());
+    assertEquals(44592111, new TimeOfDayValue(12, 23, 12, 111).getMillisOfDay());
+    assertEquals(new TimeOfDayValue(23, 59, 59, 999), TimeOfDayValue.fromMillisOfDay(86399999));
+    try {
+      TimeOfDayValue.fromMillisOfDay(86400000);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected behavior.
+    }
+  }
+}
@@ -14,13 +14,16 @@
 
 package com.google.visualization.datasource.query;
 
+import com.google.visualization.datasource.base.TypeMismatchException;
 import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.ColumnarDataTable;
 import com.google.visualization.datasource.datatable.DataTable;
 import com.google.visualization.datasource.datatable.TableCell;
 import com.google.visualization.datasource.datatable.TableRow;
 import com.google.visualization.datasource.datatable.value.DateValue;
 import com.google.visualization.datasource.datatable.value.NumberValue;
 import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.Value;
 import com.google.visualization.datasource.datatable.value.ValueType;
 
 import junit.framework.TestCase;
@@ -61,6 +64,46 @@ public class ColumnValueFilterTest extends TestCase {
     assertFalse(filter.isMatch(table, row));
   }
 
+  public void testCompile() throws TypeMismatchException {
+    DataTable table = new DataTable();
+    table.addColumn(new ColumnDescription("text", ValueType.TEXT, "text"));
+    table.addColumn(new ColumnDescription("number", ValueType.NUMBER, "number"));
+    String[] texts = {"abc", "a%c", "b.c", "", null};
+    double[] numbers = {-1, 0, 2.5, 100, Double.NaN};
+    for (int i = 0; i < texts.length; i++) {
+      TableRow row = new TableRow();
+      row.addCell((texts[i] == null) ? TextValue.getNullValue() : new TextValue(texts[i]));
+      row.addCell(Double.isNaN(numbers[i]) ? NumberValue.getNullValue()
+          : new NumberValue(numbers[i]));
+      table.addRow(row);
+    }
+    ColumnarDataTable columnarTable = ColumnarDataTable.createFromDataTable(table);
+
+    Value[] values = {new TextValue("b.c"), new TextValue("a%"), new TextValue("_.c"),
+        new TextValue("[a"), TextValue.getNullValue(), new NumberValue(0),
+        new NumberValue(2.5), NumberValue.getNullValue()};
+    String[] columnIds = {"text", "number"};
+    for (String columnId : columnIds) {
+      for (Value value : values) {
+        for (ComparisonFilter.Operator operator : ComparisonFilter.Operator.values()) {
+          for (boolean reversed : new boolean[] {false, true}) {
+            ColumnValueFilter filter = new ColumnValueFilter(new SimpleColumn(columnId), value,
+                operator, reversed);
+            RowPredicate compiled = filter.compile(table);
+            RowPredicate compiledColumnar = filter.compile(columnarTable);
+            for (int i = 0; i < table.getNumberOfRows(); i++) {
+              String message = columnId + " " + operator + " " + value + " " + reversed
+                  + ", row " + i;
+              boolean expected = filter.isMatch(table, table.getRow(i));
+              assertEquals(message, expected, compiled.isMatch(i));
+              assertEquals(message, expected, compiledColumnar.isMatch(i));
+            }
+          }
+        }
+      }
+    }
+  }
+
   public void testToQueryString() {
     ColumnValueFilter filter1 = new ColumnValueFilter(new SimpleColumn("c2"),
         new NumberValue(100.23), ComparisonFilter.Operator.GE);
@@ -15,12 +15,15 @@
 package com.google.visualization.datasource.query;
 
 import com.google.common.collect.Lists;
+import com.google.visualization.datasource.base.TypeMismatchException;
 import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.ColumnarDataTable;
 import com.google.visualization.datasource.datatable.DataTable;
 import com.google.visualization.datasource.datatable.TableCell;
 import com.google.visualization.datasource.datatable.TableRow;
 import com.google.visualization.datasource.datatable.value.BooleanValue;
 import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
 import com.google.visualization.datasource.datatable.value.ValueType;
 
 import junit.framework.TestCase;
@@ -90,6 +93,47 @@ public class CompoundFilterTest extends TestCase {
     assertFalse(compoundFilter.isMatch(table, falseRow));
   }
 
+  public void testCompile() throws TypeMismatchException {
+    DataTable table = new DataTable();
+    table.addColumn(new ColumnDescription("c1", ValueType.TEXT, "c1"));
+    table.addColumn(new ColumnDescription("c2", ValueType.NUMBER, "c2"));
+    table.addColumn(new ColumnDescription("c3", ValueType.TEXT, "c3"));
+    String[][] texts = {{"a", "a"}, {"a", "b"}, {"b", "b"}, {null, "a"}};
+    for (int i = 0; i < texts.length; i++) {
+      TableRow row = new TableRow();
+      row.addCell((texts[i][0] == null) ? TextValue.getNullValue()
+          : new TextValue(texts[i][0]));
+      row.addCell(i * 100);
+      row.addCell(texts[i][1]);
+      table.addRow(row);
+    }
+
+    // (c1 = c3 AND c2 > 50) OR NOT (c1 IS NULL OR c3 = "b")
+    QueryFilter filter1 = new ColumnColumnFilter(new SimpleColumn("c1"),
+        new SimpleColumn("c3"), ComparisonFilter.Operator.EQ);
+    QueryFilter filter2 = new ColumnValueFilter(new SimpleColumn("c2"),
+        new NumberValue(50), ComparisonFilter.Operator.GT);
+    QueryFilter filter3 = new ColumnIsNullFilter(new SimpleColumn("c1"));
+    QueryFilter filter4 = new ColumnValueFilter(new SimpleColumn("c3"),
+        new TextValue("b"), ComparisonFilter.Operator.EQ);
+    QueryFilter compoundFilter = new CompoundFilter(CompoundFilter.LogicalOperator.OR,
+        Lists.<QueryFilter>newArrayList(
+            new CompoundFilter(CompoundFilter.LogicalOperator.AND,
+                Lists.newArrayList(filter1, filter2)),
+            new NegationFilter(new CompoundFilter(CompoundFilter.LogicalOperator.OR,
+                Lists.newArrayList(filter3, filter4)))));
+
+    boolean[] expected = {true, false, true, false};
+    DataTable[] tables = {table, ColumnarDataTable.createFromDataTable(table)};
+    for (DataTable t : tables) {
+      RowPredicate compiled = compoundFilter.compile(t);
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(expected[i], compoundFilter.isMatch(t, t.getRow(i)));
+        assertEquals(expected[i], compiled.isMatch(i));
+      }
+    }
+  }
+
   public void testGetAllColumnIds() {
     SimpleColumn col1 = new SimpleColumn("c1");
     SimpleColumn col2 = new SimpleColumn("c2");
@@ -72,6 +72,35 @@ public class ColumnValueAggregatorTest extends TestCase {
 
   }
 
+  /**
+   * Test merging the aggregations of two partitions.
+   */
+  public void testMerge() {
+    ValueAggregator first = new ValueAggregator(ValueType.NUMBER);
+    first.aggregate(new NumberValue(2));
+    first.aggregate(NumberValue.getNullValue());
+    ValueAggregator second = new ValueAggregator(ValueType.NUMBER);
+    second.aggregate(new NumberValue(5));
+    second.aggregate(new NumberValue(-1));
+    first.merge(second);
+    first.merge(new ValueAggregator(ValueType.NUMBER));
+
+    assertEquals(new NumberValue(6.0), first.getValue(AggregationType.SUM));
+    assertEquals(new NumberValue(2.0), first.getValue(AggregationType.AVG));
+    assertEquals(new NumberValue(3), first.getValue(AggregationType.COUNT));
+    assertEquals(new NumberValue(-1.0), first.getValue(AggregationType.MIN));
+    assertEquals(new NumberValue(5.0), first.getValue(AggregationType.MAX));
+
+    ValueAggregator empty = new ValueAggregator(ValueType.TEXT);
+    ValueAggregator text = new ValueAggregator(ValueType.TEXT);
+    text.aggregate(new TextValue("b"));
+    text.aggregate(new TextValue("a"));
+    empty.merge(text);
+    assertEquals(new NumberValue(2), empty.getValue(AggregationType.COUNT));
+    assertEquals(new TextValue("a"), empty.getValue(AggregationType.MIN));
+    assertEquals(new TextValue("b"), empty.getValue(AggregationType.MAX));
+  }
+
   public void testGetValueFromEmptyAggregation() {
     ValueAggregator aggregator = new ValueAggregator(ValueType.DATE);
     DateValue dateNull = DateValue.getNullValue();
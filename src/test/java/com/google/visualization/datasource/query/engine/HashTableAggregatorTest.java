@@ -0,0 +1,262 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.visualization.datasource.base.TypeMismatchException;
+import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.TableRow;
+import com.google.visualization.datasource.datatable.value.DateValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.datatable.value.Value;
+import com.google.visualization.datasource.datatable.value.ValueType;
+import com.google.visualization.datasource.query.AggregationType;
+import com.google.visualization.datasource.query.ScalarFunctionColumn;
+import com.google.visualization.datasource.query.mocks.MockDataSource;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for HashTableAggregator.java.
+ */
+public class HashTableAggregatorTest extends TestCase {
+
+  /**
+   * Checks that the hash table aggregator has the same groups, in the same order, and the same
+   * aggregation values as a straightforward aggregation of the rows of each group.
+   *
+   * @param groupByColumns The columns to group by.
+   * @param aggregateColumns The columns to aggregate.
+   * @param table The table.
+   */
+  private void assertSameAggregations(List<String> groupByColumns,
+      List<String> aggregateColumns, DataTable table) {
+    HashTableAggregator aggregator = new HashTableAggregator(groupByColumns,
+        Lists.<ScalarFunctionColumn>newArrayList(), aggregateColumns, table);
+
+    Map<List<Value>, List<TableRow>> groups = Maps.newLinkedHashMap();
+    for (TableRow row : table.getRows()) {
+      List<Value> key = Lists.newArrayList();
+      for (String columnId : groupByColumns) {
+        key.add(row.getCell(table.getColumnIndex(columnId)).getValue());
+      }
+      if (!groups.containsKey(key)) {
+        groups.put(key, Lists.<TableRow>newArrayList());
+      }
+      groups.get(key).add(row);
+    }
+
+    assertEquals(groups.size(), aggregator.getNumberOfGroups());
+    int group = 0;
+    for (Map.Entry<List<Value>, List<TableRow>> entry : groups.entrySet()) {
+      assertEquals(entry.getKey(), aggregator.getGroupValues(group));
+      for (String columnId : aggregateColumns) {
+        int columnIndex = table.getColumnIndex(columnId);
+        ValueType valueType = table.getColumnDescription(columnId).getType();
+        int count = 0;
+        double sum = 0;
+        Value min = Value.getNullValueFromValueType(valueType);
+        Value max = Value.getNullValueFromValueType(valueType);
+        for (TableRow row : entry.getValue()) {
+          Value value = row.getCell(columnIndex).getValue();
+          if (value.isNull()) {
+            continue;
+          }
+          if ((count == 0) || (value.compareTo(min) < 0)) {
+            min = value;
+          }
+          if ((count == 0) || (value.compareTo(max) > 0)) {
+            max = value;
+          }
+          if (valueType == ValueType.NUMBER) {
+            sum += ((NumberValue) value).getValue();
+          }
+          count++;
+        }
+        assertEquals(new NumberValue(count),
+            aggregator.getAggregationValue(group, columnId, AggregationType.COUNT));
+        assertEquals(min, aggregator.getAggregationValue(group, columnId, AggregationType.MIN));
+        assertEquals(max, aggregator.getAggregationValue(group, columnId, AggregationType.MAX));
+        if (valueType == ValueType.NUMBER) {
+          assertEquals((count == 0) ? NumberValue.getNullValue() : new NumberValue(sum),
+              aggregator.getAggregationValue(group, columnId, AggregationType.SUM));
+          assertEquals((count == 0) ? NumberValue.getNullValue() : new NumberValue(sum / count),
+              aggregator.getAggregationValue(group, columnId, AggregationType.AVG));
+        }
+      }
+      group++;
+    }
+  }
+
+  /**
+   * Creates a table with a single column of the given type and values.
+   *
+   * @param type The type of the column.
+   * @param values The values.
+   *
+   * @return The table.
+   */
+  private DataTable newSingleColumnTable(ValueType type, Value... values)
+      throws TypeMismatchException {
+    DataTable table = new DataTable();
+    table.addColumn(new ColumnDescription("col", type, "col"));
+    for (Value value : values) {
+      TableRow row = new TableRow();
+      row.addCell(value);
+      table.addRow(row);
+    }
+    return table;
+  }
+
+  /**
+   * Creates an aggregator of the single group of all rows of a table.
+   *
+   * @param table The table.
+   * @param aggregateColumns The columns to aggregate.
+   *
+   * @return The aggregator.
+   */
+  private HashTableAggregator newSingleGroupAggregator(DataTable table,
+      String... aggregateColumns) {
+    return new HashTableAggregator(Lists.<String>newArrayList(),
+        Lists.<ScalarFunctionColumn>newArrayList(), Lists.newArrayList(aggregateColumns), table);
+  }
+
+  public void testMockTables() {
+    DataTable table = MockDataSource.getData(1);
+    assertSameAggregations(Lists.newArrayList("Year", "Songs"),
+        Lists.newArrayList("Band", "Sales", "Fans"), table);
+    assertSameAggregations(Lists.newArrayList("Band"), Lists.newArrayList("Fans"), table);
+    assertSameAggregations(Lists.<String>newArrayList(), Lists.newArrayList("Year", "Sales"),
+        table);
+    assertSameAggregations(Lists.newArrayList("Year", "Songs"),
+        Lists.newArrayList("Band", "Sales"), MockDataSource.getData(2));
+  }
+
+  public void testGroupSums() {
+    DataTable table = MockDataSource.getData(1);
+    HashTableAggregator aggregator = new HashTableAggregator(Lists.newArrayList("Year", "Songs"),
+        Lists.<ScalarFunctionColumn>newArrayList(), Lists.newArrayList("Sales"), table);
+    assertEquals(Lists.newArrayList(new TextValue("1994"), new NumberValue(2)),
+        aggregator.getGroupValues(0));
+    assertEquals(new NumberValue(48),
+        aggregator.getAggregationValue(0, "Sales", AggregationType.SUM));
+
+    aggregator = new HashTableAggregator(Lists.newArrayList("Year"),
+        Lists.<ScalarFunctionColumn>newArrayList(), Lists.newArrayList("Sales"), table);
+    assertEquals(Lists.newArrayList(new TextValue("1994")), aggregator.getGroupValues(0));
+    assertEquals(new NumberValue(60),
+        aggregator.getAggregationValue(0, "Sales", AggregationType.SUM));
+
+    aggregator = newSingleGroupAggregator(table, "Band");
+    assertEquals(1, aggregator.getNumberOfGroups());
+    assertEquals(new TextValue("Youthanasia"),
+        aggregator.getAggregationValue(0, "Band", AggregationType.MAX));
+  }
+
+  public void testNumberAggregations() throws TypeMismatchException {
+    HashTableAggregator aggregator = newSingleGroupAggregator(newSingleColumnTable(
+        ValueType.NUMBER, new NumberValue(1), NumberValue.getNullValue(), new NumberValue(3)),
+        "col");
+    assertEquals(new NumberValue(4), aggregator.getAggregationValue(0, "col", AggregationType.SUM));
+    assertEquals(new NumberValue(2), aggregator.getAggregationValue(0, "col", AggregationType.AVG));
+    assertEquals(new NumberValue(2),
+        aggregator.getAggregationValue(0, "col", AggregationType.COUNT));
+    assertEquals(new NumberValue(1), aggregator.getAggregationValue(0, "col", AggregationType.MIN));
+    assertEquals(new NumberValue(3), aggregator.getAggregationValue(0, "col", AggregationType.MAX));
+  }
+
+  public void testTextAggregations() throws TypeMismatchException {
+    HashTableAggregator aggregator = newSingleGroupAggregator(newSingleColumnTable(
+        ValueType.TEXT, new TextValue("a"), new TextValue("b")), "col");
+    try {
+      aggregator.getAggregationValue(0, "col", AggregationType.SUM);
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Expected behavior.
+    }
+    try {
+      aggregator.getAggregationValue(0, "col", AggregationType.AVG);
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // Expected behavior.
+    }
+    assertEquals(new NumberValue(2),
+        aggregator.getAggregationValue(0, "col", AggregationType.COUNT));
+    assertEquals(new TextValue("a"), aggregator.getAggregationValue(0, "col", AggregationType.MIN));
+    assertEquals(new TextValue("b"), aggregator.getAggregationValue(0, "col", AggregationType.MAX));
+  }
+
+  public void testOnlyNullValues() throws TypeMismatchException {
+    HashTableAggregator aggregator = newSingleGroupAggregator(newSingleColumnTable(
+        ValueType.DATE, DateValue.getNullValue(), DateValue.getNullValue()), "col");
+    assertEquals(new NumberValue(0),
+        aggregator.getAggregationValue(0, "col", AggregationType.COUNT));
+    assertEquals(DateValue.getNullValue(),
+        aggregator.getAggregationValue(0, "col", AggregationType.MIN));
+    assertEquals(DateValue.getNullValue(),
+        aggregator.getAggregationValue(0, "col", AggregationType.MAX));
+
+    aggregator = newSingleGroupAggregator(newSingleColumnTable(
+        ValueType.NUMBER, NumberValue.getNullValue()), "col");
+    assertEquals(NumberValue.getNullValue(),
+        aggregator.getAggregationValue(0, "col", AggregationType.SUM));
+    assertEquals(NumberValue.getNullValue(),
+        aggregator.getAggregationValue(0, "col", AggregationType.AVG));
+    assertEquals(NumberValue.getNullValue(),
+        aggregator.getAggregationValue(0, "col", AggregationType.MIN));
+  }
+
+  public void testManyGroupsAndNulls() throws TypeMismatchException {
+    DataTable table = new DataTable();
+    table.addColumn(new ColumnDescription("text", ValueType.TEXT, "text"));
+    table.addColumn(new ColumnDescription("number", ValueType.NUMBER, "number"));
+    table.addColumn(new ColumnDescription("date", ValueType.DATE, "date"));
+    for (int i = 0; i < 1000; i++) {
+      TableRow row = new TableRow();
+      row.addCell((i % 7 == 0) ? TextValue.getNullValue() : new TextValue("t" + (i % 50)));
+      row.addCell((i % 5 == 0) ? NumberValue.getNullValue() : new NumberValue(i % 13 - 6.5));
+      row.addCell((i % 3 == 0) ? DateValue.getNullValue() : new DateValue(2000 + i % 11, 1, 1));
+      table.addRow(row);
+    }
+    assertSameAggregations(Lists.newArrayList("text", "number"),
+        Lists.newArrayList("number", "date", "text"), table);
+    assertSameAggregations(Lists.newArrayList("date"), Lists.newArrayList("number"), table);
+  }
+
+  public void testGroupOrderAndNoSuchColumn() {
+    HashTableAggregator aggregator = new HashTableAggregator(Lists.newArrayList("Band"),
+        Lists.<ScalarFunctionColumn>newArrayList(), Lists.newArrayList("Sales"),
+        MockDataSource.getData(1));
+    // The groups are in the order they first appear in the table.
+    assertEquals(3, aggregator.getNumberOfGroups());
+    assertEquals(Lists.newArrayList(new TextValue("Contraband")), aggregator.getGroupValues(0));
+    assertEquals(Lists.newArrayList(new TextValue("Youthanasia")),
+        aggregator.getGroupValues(1));
+    assertEquals(Lists.newArrayList(new TextValue("Collection")), aggregator.getGroupValues(2));
+    try {
+      aggregator.getAggregationValue(0, "Fans", AggregationType.SUM);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected behavior.
+    }
+  }
+}
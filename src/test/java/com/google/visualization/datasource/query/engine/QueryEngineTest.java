@@ -14,9 +14,11 @@
 
 package com.google.visualization.datasource.query.engine;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.visualization.datasource.base.InvalidQueryException;
 import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.ColumnarDataTable;
 import com.google.visualization.datasource.datatable.DataTable;
 import com.google.visualization.datasource.datatable.TableCell;
 import com.google.visualization.datasource.datatable.TableRow;
@@ -58,6 +60,8 @@ import junit.framework.TestCase;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Unit tests for DataTableDataSourceTest.
@@ -1667,4 +1671,239 @@ public class QueryEngineTest extends TestCase {
     assertStringArraysEqual(new String[]{"2003", "Collection", "2.0"},
       resultStrings[3]);  
   }
+
+  public void testColumnarTable() throws Exception {
+    String[] queries = {"", "SELECT Band, Songs WHERE Band like 'Co%' ORDER BY Songs DESC",
+        "SELECT Year, sum(Songs) GROUP BY Year LABEL sum(Songs) 'Total'",
+        "SELECT Band, count(Songs) GROUP BY Band PIVOT Year",
+        "SELECT * WHERE Songs > 1 SKIPPING 3 LIMIT 5 OFFSET 1 FORMAT Songs '#.0'"};
+    ColumnarDataTable columnar = ColumnarDataTable.createFromDataTable(MockDataSource.getData(1));
+    String columnarBefore = columnar.toString();
+
+    for (String queryString : queries) {
+      Query q = QueryBuilder.getInstance().parseQuery(queryString);
+      DataTable expected = QueryEngine.executeQuery(q, MockDataSource.getData(1).clone(),
+          ULocale.US);
+      DataTable result = QueryEngine.executeQuery(q, columnar, ULocale.US);
+      assertEquals(queryString, expected.toString(), result.toString());
+      assertEquals(expected.getWarnings().size(), result.getWarnings().size());
+      for (int i = 0; i < expected.getNumberOfColumns(); i++) {
+        assertEquals(expected.getColumnDescription(i).getLabel(),
+            result.getColumnDescription(i).getLabel());
+      }
+    }
+
+    // The columnar table is not changed by the queries.
+    assertEquals(columnarBefore, columnar.toString());
+    ColumnDescription songs = MockDataSource.getData(1).getColumnDescription("Songs");
+    assertEquals(songs.getLabel(), columnar.getColumnDescription("Songs").getLabel());
+    assertEquals(songs.getPattern(), columnar.getColumnDescription("Songs").getPattern());
+  }
+
+  public void testParallelExecution() throws Exception {
+    String[] queries = {"", "SELECT upper(Band), Fans * 2 WHERE Fans > 500 ORDER BY Fans",
+        "SELECT Year, max(Fans), min(Band), avg(Sales) GROUP BY Year PIVOT Songs",
+        "SELECT year(toDate(Fans * 100000000)), sum(Sales) WHERE Band != 'Collection' "
+            + "GROUP BY year(toDate(Fans * 100000000))",
+        "SELECT * WHERE Songs > 1 SKIPPING 3 LIMIT 5 OFFSET 1"};
+    // Tiny partitions, so that even the small mock table is split into many of them.
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ExecutionOptions options = new ExecutionOptions(pool, 0, 3);
+    try {
+      for (String queryString : queries) {
+        Query q = QueryBuilder.getInstance().parseQuery(queryString);
+        DataTable expected = QueryEngine.executeQuery(q, MockDataSource.getData(1), ULocale.US);
+        DataTable result = QueryEngine.executeQuery(q, MockDataSource.getData(1), ULocale.US,
+            options);
+        assertEquals(queryString, expected.toString(), result.toString());
+        result = QueryEngine.executeQuery(q,
+            ColumnarDataTable.createFromDataTable(MockDataSource.getData(1)), ULocale.US, options);
+        assertEquals(queryString, expected.toString(), result.toString());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  public void testSumsAndAverages() throws Exception {
+    // The values are added in row order, as in a plain loop over the rows.
+    DataTable data = new DataTable();
+    data.addColumn(new ColumnDescription("g", ValueType.TEXT, "G"));
+    data.addColumn(new ColumnDescription("v", ValueType.NUMBER, "V"));
+    for (double v : new double[] {0.1, 0.2, 0.3, 1e16, 1.0, -1e16}) {
+      data.addRowFromValues("x", v);
+    }
+    DataTable result = QueryEngine.executeQuery(
+        QueryBuilder.getInstance().parseQuery("SELECT g, sum(v), avg(v) GROUP BY g"), data,
+        ULocale.US);
+    assertEquals(0.0, ((NumberValue) result.getValue(0, 1)).getValue());
+    assertEquals(0.0, ((NumberValue) result.getValue(0, 2)).getValue());
+  }
+
+  public void testParallelSumsAndAverages() throws Exception {
+    DataTable data = new DataTable();
+    data.addColumn(new ColumnDescription("k", ValueType.TEXT, "K"));
+    data.addColumn(new ColumnDescription("x", ValueType.NUMBER, "X"));
+    Random random = new Random(7);
+    for (int i = 0; i < 5000; i++) {
+      data.addRowFromValues("k" + (i % 3), random.nextDouble() * 1000);
+    }
+    Query q = QueryBuilder.getInstance().parseQuery("SELECT k, sum(x), avg(x) GROUP BY k");
+    DataTable expected = QueryEngine.executeQuery(q, data.clone(), ULocale.US);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int partitionSize : new int[] {1, 7, 100, 1024}) {
+        ExecutionOptions options = new ExecutionOptions(pool, 0, partitionSize);
+        DataTable result = QueryEngine.executeQuery(q, data.clone(), ULocale.US, options);
+        // The partitions are fixed, so repeated executions return identical sums.
+        assertEquals(result.toString(),
+            QueryEngine.executeQuery(q, data.clone(), ULocale.US, options).toString());
+        // The sums of the partitions may differ from the serial sums in the last bits.
+        assertEquals(3, result.getNumberOfRows());
+        for (int row = 0; row < 3; row++) {
+          assertEquals(expected.getValue(row, 0), result.getValue(row, 0));
+          for (int col = 1; col < 3; col++) {
+            double serial = ((NumberValue) expected.getValue(row, col)).getValue();
+            assertEquals(serial, ((NumberValue) result.getValue(row, col)).getValue(),
+                Math.abs(serial) * 1e-12);
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  public void testSignatureAfterInPlaceStages() throws Exception {
+    String[] queries = {"ORDER BY Fans", "LABEL Band 'Group'", "FORMAT Sales '#.0'",
+        "ORDER BY Fans DESC LABEL Fans 'Followers'"};
+    for (String queryString : queries) {
+      DataTable data = MockDataSource.getData(1);
+      String signature = data.getSignature();
+      DataTable result = QueryEngine.executeQuery(
+          QueryBuilder.getInstance().parseQuery(queryString), data, ULocale.US);
+      // The stages change the rows or columns of the table in place, and the signature that was
+      // computed before is discarded.
+      assertFalse(queryString, signature.equals(result.getSignature()));
+      assertEquals(queryString, result.clone().getSignature(), result.getSignature());
+      assertEquals(queryString, data.clone().getSignature(), data.getSignature());
+    }
+  }
+
+  public void testTopRows() throws Exception {
+    DataTable data = new DataTable();
+    data.addColumn(new ColumnDescription("id", ValueType.TEXT, "Id"));
+    data.addColumn(new ColumnDescription("x", ValueType.NUMBER, "X"));
+    for (int i = 0; i < 200; i++) {
+      TableRow row = new TableRow();
+      row.addCell("r" + i);
+      // Many equal sort keys, to check that equal rows keep their original order.
+      row.addCell((i % 3 == 0) ? NumberValue.getNullValue() : new NumberValue((i * 7) % 11));
+      data.addRow(row);
+    }
+    String[] sorts = {"ORDER BY x DESC", "ORDER BY x", "ORDER BY x DESC, id"};
+    int[][] limitsAndOffsets = {{5, 3}, {1, 0}, {0, 4}, {10, 195}, {10, 250}, {199, 1},
+        {200, 0}, {40, 60}};
+
+    for (String sort : sorts) {
+      DataTable sorted = QueryEngine.executeQuery(
+          QueryBuilder.getInstance().parseQuery(sort), data.clone(), ULocale.US);
+      for (int[] limitAndOffset : limitsAndOffsets) {
+        int limit = limitAndOffset[0];
+        int offset = limitAndOffset[1];
+        String queryString = sort + " LIMIT " + limit + " OFFSET " + offset;
+        DataTable result = QueryEngine.executeQuery(
+            QueryBuilder.getInstance().parseQuery(queryString), data.clone(), ULocale.US);
+
+        int fromIndex = Math.min(offset, 200);
+        int toIndex = Math.min(offset + limit, 200);
+        assertEquals(queryString, toIndex - fromIndex, result.getNumberOfRows());
+        for (int i = fromIndex; i < toIndex; i++) {
+          assertEquals(queryString, sorted.getValue(i, 0), result.getValue(i - fromIndex, 0));
+        }
+        assertEquals(queryString, (toIndex < 200) ? 1 : 0, result.getWarnings().size());
+      }
+    }
+  }
+
+  public void testRowStages() throws Exception {
+    DataTable data = new DataTable();
+    data.addColumn(new ColumnDescription("id", ValueType.TEXT, "Id"));
+    data.addColumn(new ColumnDescription("x", ValueType.NUMBER, "X"));
+    for (int i = 0; i < 20; i++) {
+      data.addRowFromValues("r" + i, i % 7);
+    }
+    // The query, the ids in the result, and the number of warnings.
+    Object[][] cases = {
+        {"WHERE x > 2 SKIPPING 3 LIMIT 2 OFFSET 1", "r6,r12", 1},
+        {"SELECT id WHERE x > 2 SKIPPING 3 LIMIT 2 OFFSET 1", "r6,r12", 0},
+        {"SKIPPING 5", "r0,r5,r10,r15", 0},
+        {"SKIPPING 5 LIMIT 4", "r0,r5,r10,r15", 0},
+        {"SKIPPING 5 LIMIT 4 OFFSET 3", "r15", 0},
+        {"WHERE x = 6 ORDER BY id DESC LIMIT 1", "r6", 1},
+        {"SELECT id WHERE x < 1 ORDER BY id DESC LIMIT 2", "r7,r14", 0},
+        {"WHERE x < 0 LIMIT 1", "", 0},
+        {"SELECT id, x + 1 WHERE x = 0 OFFSET 1", "r7,r14", 0}};
+    for (Object[] testCase : cases) {
+      String queryString = (String) testCase[0];
+      DataTable result = QueryEngine.executeQuery(
+          QueryBuilder.getInstance().parseQuery(queryString), data.clone(), ULocale.US);
+      List<String> ids = Lists.newArrayList();
+      for (int i = 0; i < result.getNumberOfRows(); i++) {
+        ids.add(result.getValue(i, 0).toString());
+      }
+      assertEquals(queryString, testCase[1], Joiner.on(',').join(ids));
+      assertEquals(queryString, testCase[2], result.getWarnings().size());
+    }
+  }
+
+  public void testExecutionListener() throws Exception {
+    final List<StageMetrics> stages = Lists.newArrayList();
+    ExecutionOptions options = ExecutionOptions.SERIAL.withListener(new ExecutionListener() {
+      @Override
+      public void stageCompleted(StageMetrics metrics) {
+        stages.add(metrics);
+      }
+    });
+    assertNull(ExecutionOptions.SERIAL.getListener());
+
+    Query q = QueryBuilder.getInstance().parseQuery("SELECT isPig, sum(weight) "
+        + "WHERE weight > 150 GROUP BY isPig ORDER BY isPig LIMIT 1 "
+        + "LABEL isPig 'Pig' FORMAT sum(weight) '#'");
+    DataTable result = QueryEngine.executeQuery(q, input, ULocale.US, options);
+    assertEquals(1, result.getNumberOfRows());
+
+    List<ExecutionStage> stageNames = Lists.newArrayList();
+    for (StageMetrics metrics : stages) {
+      stageNames.add(metrics.getStage());
+      assertTrue(metrics.getWallTimeNanos() >= 0);
+    }
+    assertEquals(Arrays.asList(ExecutionStage.FILTER, ExecutionStage.GROUPING,
+        ExecutionStage.SORT, ExecutionStage.SELECTION, ExecutionStage.LABELS,
+        ExecutionStage.FORMATTING), stageNames);
+
+    // Two of the three rows pass the filter, and are grouped into two groups.
+    StageMetrics filter = stages.get(0);
+    assertEquals(3, filter.getRowsIn());
+    assertEquals(2, filter.getRowsOut());
+    assertEquals(3, filter.getColumnsIn());
+    assertEquals(3, filter.getColumnsOut());
+    StageMetrics grouping = stages.get(1);
+    assertEquals(2, grouping.getRowsIn());
+    assertEquals(2, grouping.getRowsOut());
+    assertEquals(2, grouping.getColumnsOut());
+    // The sort selects the top row, and the selection keeps it.
+    assertEquals(1, stages.get(2).getRowsOut());
+    assertEquals(1, stages.get(3).getRowsIn());
+    assertEquals(1, stages.get(3).getRowsOut());
+
+    // A query without a filter, grouping or sort reports only the selection.
+    stages.clear();
+    QueryEngine.executeQuery(QueryBuilder.getInstance().parseQuery("SELECT name"), input,
+        ULocale.US, options);
+    assertEquals(1, stages.size());
+    assertEquals(ExecutionStage.SELECTION, stages.get(0).getStage());
+    assertEquals(3, stages.get(0).getColumnsIn());
+    assertEquals(1, stages.get(0).getColumnsOut());
+  }
 }
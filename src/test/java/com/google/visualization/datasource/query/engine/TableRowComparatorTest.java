@@ -0,0 +1,165 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.visualization.datasource.query.engine;
+
+import com.google.common.collect.Lists;
+import com.google.visualization.datasource.datatable.ColumnDescription;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.TableRow;
+import com.google.visualization.datasource.datatable.value.BooleanValue;
+import com.google.visualization.datasource.datatable.value.DateTimeValue;
+import com.google.visualization.datasource.datatable.value.DateValue;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TimeOfDayValue;
+import com.google.visualization.datasource.datatable.value.ValueType;
+import com.google.visualization.datasource.query.DataTableColumnLookup;
+import com.google.visualization.datasource.query.QuerySort;
+import com.google.visualization.datasource.query.parser.QueryBuilder;
+import com.ibm.icu.util.ULocale;
+
+import junit.framework.TestCase;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for TableRowComparator.
+ */
+public class TableRowComparatorTest extends TestCase {
+
+  private DataTable table;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    table = new DataTable();
+    table.addColumn(new ColumnDescription("name", ValueType.TEXT, "Name"));
+    table.addColumn(new ColumnDescription("price", ValueType.NUMBER, "Price"));
+    table.addColumn(new ColumnDescription("weight", ValueType.NUMBER, "Weight"));
+    table.addColumn(new ColumnDescription("sold", ValueType.BOOLEAN, "Sold"));
+    table.addColumn(new ColumnDescription("day", ValueType.DATE, "Day"));
+    table.addColumn(new ColumnDescription("time", ValueType.DATETIME, "Time"));
+    table.addColumn(new ColumnDescription("hour", ValueType.TIMEOFDAY, "Hour"));
+    String[] names = {"côte", "coté", "Cote", "cote", "Éclair", "eclair", "zed",
+        "", "apple"};
+    double[] weights = {-1.5, 0.0, -0.0, 3, Double.NEGATIVE_INFINITY, Double.NaN, 1e300, -2e-300,
+        Double.POSITIVE_INFINITY, 7};
+    for (int i = 0; i < 60; i++) {
+      TableRow row = new TableRow();
+      row.addCell(names[(i * 5) % names.length]);
+      row.addCell((i % 4 == 0) ? NumberValue.getNullValue() : new NumberValue(i % 3));
+      row.addCell(new NumberValue(weights[i % weights.length]));
+      row.addCell((i % 5 == 0) ? BooleanValue.getNullValue()
+          : BooleanValue.getInstance(i % 2 == 0));
+      row.addCell((i % 7 == 0) ? DateValue.getNullValue()
+          : new DateValue(1500 + (i * 37) % 600, i % 12, 1 + i % 28));
+      row.addCell((i % 6 == 0) ? DateTimeValue.getNullValue()
+          : new DateTimeValue(1960 + i % 20, i % 12, 1 + i % 28, i % 24, i % 60, 0, i % 3));
+      row.addCell((i % 8 == 0) ? TimeOfDayValue.getNullValue()
+          : new TimeOfDayValue(i % 24, (i * 7) % 60, i % 60, i % 5));
+      table.addRow(row);
+    }
+  }
+
+  /**
+   * Returns the given rows sorted with Collections.sort and the row comparator.
+   */
+  private List<TableRow> sortByCompare(QuerySort sort, ULocale locale, List<TableRow> rows) {
+    List<TableRow> result = Lists.newArrayList(rows);
+    Collections.sort(result,
+        new TableRowComparator(sort, locale, new DataTableColumnLookup(table)));
+    return result;
+  }
+
+  public void testSortMatchesCompare() throws Exception {
+    String[] sorts = {"ORDER BY name", "ORDER BY name DESC", "ORDER BY price, name DESC",
+        "ORDER BY name, price DESC", "ORDER BY price", "ORDER BY upper(name), price",
+        "ORDER BY weight", "ORDER BY weight DESC, name", "ORDER BY sold DESC, weight",
+        "ORDER BY day", "ORDER BY day DESC", "ORDER BY time", "ORDER BY hour DESC, time",
+        "ORDER BY year(day), name DESC, price", "ORDER BY weight * 2 DESC"};
+    ULocale[] locales = {ULocale.ROOT, ULocale.US, ULocale.CANADA_FRENCH};
+    for (String sortString : sorts) {
+      QuerySort sort = QueryBuilder.getInstance().parseQuery(sortString).getSort();
+      for (ULocale locale : locales) {
+        List<TableRow> expected = sortByCompare(sort, locale, table.getRows());
+        TableRowComparator comparator =
+            new TableRowComparator(sort, locale, new DataTableColumnLookup(table));
+        List<TableRow> rows = Lists.newArrayList(table.getRows());
+        comparator.sortByKeys(rows, ExecutionOptions.SERIAL);
+        for (int i = 0; i < rows.size(); i++) {
+          // The sort is stable, so the same row objects are in the same order.
+          assertSame(sortString + " " + locale, expected.get(i), rows.get(i));
+        }
+        // Few rows are sorted without keys, in the same order.
+        rows = Lists.newArrayList(table.getRows());
+        comparator.sort(rows, ExecutionOptions.SERIAL);
+        assertEquals(sortString + " " + locale, expected, rows);
+      }
+    }
+  }
+
+  public void testSortManyRows() throws Exception {
+    for (int i = 0; i < TableRowComparator.KEY_SORT_THRESHOLD; i++) {
+      table.addRowFromValues("name" + (i % 97), i % 13, i % 11 - 5, i % 2 == 0, null, null, null);
+    }
+    QuerySort sort = QueryBuilder.getInstance().parseQuery("ORDER BY name DESC, price")
+        .getSort();
+    List<TableRow> expected = sortByCompare(sort, ULocale.US, table.getRows());
+    List<TableRow> rows = Lists.newArrayList(table.getRows());
+    new TableRowComparator(sort, ULocale.US, new DataTableColumnLookup(table)).sort(rows,
+        ExecutionOptions.SERIAL);
+    for (int i = 0; i < rows.size(); i++) {
+      assertSame(expected.get(i), rows.get(i));
+    }
+  }
+
+  public void testParallelSort() throws Exception {
+    for (int i = 0; i < 5000; i++) {
+      table.addRowFromValues("name" + (i % 97), i % 13, i % 11 - 5, i % 2 == 0, null, null, null);
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ExecutionOptions options = new ExecutionOptions(pool, 0, 100);
+    try {
+      QuerySort sort = QueryBuilder.getInstance().parseQuery("ORDER BY price DESC, name")
+          .getSort();
+      List<TableRow> expected = sortByCompare(sort, ULocale.US, table.getRows());
+      List<TableRow> rows = Lists.newArrayList(table.getRows());
+      new TableRowComparator(sort, ULocale.US, new DataTableColumnLookup(table)).sort(rows,
+          options);
+      for (int i = 0; i < rows.size(); i++) {
+        assertSame(expected.get(i), rows.get(i));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  public void testSortIsLocalized() throws Exception {
+    QuerySort sort = QueryBuilder.getInstance().parseQuery("ORDER BY name").getSort();
+    DataTable frenchTable = new DataTable();
+    frenchTable.addColumn(new ColumnDescription("name", ValueType.TEXT, "Name"));
+    frenchTable.addRowFromValues("côte");
+    frenchTable.addRowFromValues("coté");
+    DataTableColumnLookup lookup = new DataTableColumnLookup(frenchTable);
+
+    List<TableRow> rows = Lists.newArrayList(frenchTable.getRows());
+    new TableRowComparator(sort, ULocale.ROOT, lookup).sort(rows, ExecutionOptions.SERIAL);
+    assertEquals("coté", rows.get(0).getCell(0).getValue().toString());
+
+    new TableRowComparator(sort, ULocale.CANADA_FRENCH, lookup).sort(rows, ExecutionOptions.SERIAL);
+    assertEquals("côte", rows.get(0).getCell(0).getValue().toString());
+  }
+}
@@ -33,6 +33,8 @@ import com.google.visualization.datasource.datatable.value.ValueType;
 
 import junit.framework.TestCase;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 
 /**
@@ -244,6 +246,33 @@ public class CsvRendererTest extends TestCase {
         CsvRenderer.renderDataTable(testData, null, "\t").toString());
   }
 
+  public void testRenderToAppendable() throws DataSourceException, IOException {
+    testData = new DataTable();
+    testData.addColumn(new ColumnDescription("A", ValueType.TEXT, "say \"hi\""));
+    testData.addColumn(new ColumnDescription("B", ValueType.NUMBER, "col1"));
+    testData.addColumn(new ColumnDescription("C", ValueType.DATE, "col2"));
+
+    TableRow row = new TableRow();
+    row.addCell(new TableCell("a \"b\" \"\"c"));
+    row.addCell(new TableCell(new NumberValue(1234.5), "1,234.5"));
+    row.addCell(new TableCell(new DateValue(2009, 0, 2)));
+    testData.addRow(row);
+    row = new TableRow();
+    row.addCell(new TableCell("\""));
+    row.addCell(new TableCell(7));
+    row.addCell(new TableCell(DateValue.getNullValue()));
+    testData.addRow(row);
+
+    String expected = "\"say \"\"hi\"\"\",\"col1\",\"col2\"\n"
+        + "\"a \"\"b\"\" \"\"\"\"c\",\"1,234.5\",2009-01-02\n"
+        + "\"\"\"\",7,null\n";
+    assertEquals(expected, CsvRenderer.renderDataTable(testData, null, ",").toString());
+
+    StringWriter writer = new StringWriter();
+    CsvRenderer.renderDataTable(testData, null, ",", writer);
+    assertEquals(expected, writer.toString());
+  }
+
   public void testRenderError() {
     ResponseStatus responseStatus = new ResponseStatus(
         StatusType.ERROR, ReasonType.INVALID_REQUEST, "but why? why?");
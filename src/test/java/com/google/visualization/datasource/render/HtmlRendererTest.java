@@ -35,6 +35,8 @@ import com.ibm.icu.util.ULocale;
 
 import junit.framework.TestCase;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 
 /**
@@ -297,6 +299,43 @@ public class HtmlRendererTest extends TestCase {
     assertEqualsIgnoreWhitespace(expected, actual);
   }
 
+  public void testRenderToAppendable() throws DataSourceException, IOException {
+    testData = new DataTable();
+    testData.addColumn(new ColumnDescription("A", ValueType.TEXT, "<b>&amp;</b>"));
+    testData.addColumn(new ColumnDescription("B", ValueType.NUMBER, "col1"));
+    TableRow row = new TableRow();
+    row.addCell(new TableCell("x < y & \"z\""));
+    row.addCell(new TableCell(new NumberValue(3), "<3>"));
+    testData.addRow(row);
+
+    String expected =
+        "<!DOCTYPE html PUBLIC \"-//W3C//DTD HTML 4.01//EN\">" + nl
+        + "<html>" + nl
+        + "<head>" + nl
+        + "<META http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\">" + nl
+        + "<title>Google Visualization</title>" + nl
+        + "</head>" + nl
+        + "<body>" + nl
+        + "<table border=\"1\" cellpadding=\"2\" cellspacing=\"0\">" + nl
+        + "<tr style=\"font-weight: bold; background-color: #aaa;\">" + nl
+        + "<td>&lt;b&gt;&amp;amp;&lt;/b&gt;</td>"
+        + "<td>col1</td>" + nl
+        + "</tr>" + nl
+        + "<tr style=\"background-color: #f0f0f0\">" + nl
+        + "<td>x&lt;y&amp;\"z\"</td>"
+        + "<td align=\"right\">&lt;3&gt;</td>" + nl
+        + "</tr>" + nl
+        + "</table>" + nl
+        + "</body>" + nl
+        + "</html>" + nl;
+    String actual = HtmlRenderer.renderDataTable(testData, ULocale.US).toString();
+    assertEqualsIgnoreWhitespace(expected, actual);
+
+    StringWriter writer = new StringWriter();
+    HtmlRenderer.renderDataTable(testData, ULocale.US, writer);
+    assertEquals(actual, writer.toString());
+  }
+
   public void testEscaping() {
     ResponseStatus responseStatus = new ResponseStatus(
         StatusType.ERROR, ReasonType.INVALID_REQUEST, "but why? why? why?");
@@ -25,6 +25,7 @@ import com.google.visualization.datasource.datatable.ColumnDescription;
 import com.google.visualization.datasource.datatable.DataTable;
 import com.google.visualization.datasource.datatable.TableCell;
 import com.google.visualization.datasource.datatable.TableRow;
+import com.google.visualization.datasource.datatable.value.BooleanValue;
 import com.google.visualization.datasource.datatable.value.DateTimeValue;
 import com.google.visualization.datasource.datatable.value.DateValue;
 import com.google.visualization.datasource.datatable.value.NumberValue;
@@ -35,6 +36,7 @@ import com.google.visualization.datasource.datatable.value.ValueType;
 
 import junit.framework.TestCase;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -375,7 +377,7 @@ public class JsonRendererTest extends TestCase {
         + "\"Retrieved data was truncated\",\"detailed_message\":"
         + "\"Sorry, data truncated\"},{\"reason\":\"not_supported\",\"message\":"
         + "\"Operation not supported\",\"detailed_message\":\"foobar\"}],"
-        + "\"sig\":\"121655538\",\"table\":"
+        + "\"sig\":\"1839448755840095952\",\"table\":"
         + "{\"cols\":[{\"id\":\"A\",\"label\":\"col0\",\"type\":\"string\",\"pattern\":\"\"},"
         + "{\"id\":\"B\",\"label\":\"col1\",\"type\":\"number\",\"pattern\":\"\"}],"
         + "\"rows\":[{\"c\":[{\"v\":\"aaa\"},{\"v\":222.0,\"f\":\"$222\"}]},"
@@ -385,6 +387,34 @@ public class JsonRendererTest extends TestCase {
   }
 
 
+  public void testRenderToAppendable() throws DataSourceException, IOException {
+    // Null cells in the middle of a row, a formatted value and custom properties.
+    TableRow row = new TableRow();
+    row.addCell(new TableCell(new TextValue("e\"e"), "E\u00e9"));
+    row.addCell(new TableCell(NumberValue.getNullValue()));
+    row.addCell(new TableCell(BooleanValue.getNullValue()));
+    row.addCell(new TableCell(DateValue.getNullValue()));
+    row.addCell(new TableCell(new TimeOfDayValue(1, 2, 3, 4)));
+    row.addCell(new TableCell(DateTimeValue.getNullValue()));
+    row.setCustomProperty("row", "prop");
+    testData.addRow(row);
+    testData.setCustomProperty("table", "prop");
+    testData.getColumnDescription(0).setCustomProperty("col", "prop");
+
+    for (boolean isJsonp : new boolean[] {false, true}) {
+      StringBuilder out = new StringBuilder();
+      JsonRenderer.renderDataTable(testData, true, true, isJsonp, out);
+      assertEquals(JsonRenderer.renderDataTable(testData, true, true, isJsonp).toString(),
+          out.toString());
+    }
+
+    DataSourceParameters dsParams = new DataSourceParameters("reqId:7;out:jsonp");
+    StringBuilder out = new StringBuilder();
+    JsonRenderer.renderJsonResponse(dsParams, null, testData, out);
+    assertEquals(JsonRenderer.renderJsonResponse(dsParams, null, testData).toString(),
+        out.toString());
+  }
+
   public void testCustomPropertiesToJson() throws DataSourceException {
     colIds = Lists.newArrayList();
 
@@ -19,6 +19,7 @@ import com.google.visualization.datasource.base.DataSourceException;
 import com.google.visualization.datasource.base.ReasonType;
 import com.google.visualization.datasource.datatable.ColumnDescription;
 import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.ValueDictionary;
 import com.google.visualization.datasource.datatable.value.BooleanValue;
 import com.google.visualization.datasource.datatable.value.DateValue;
 import com.google.visualization.datasource.datatable.value.NumberValue;
@@ -300,4 +301,29 @@ public class CsvDataSourceHelperTest extends TestCase {
     assertEquals(new NumberValue(1), dataTable.getRow(0).getCell(0).getValue());
     assertEquals(hindiTimeOfDayValue, dataTable.getRow(0).getCell(1).getValue());
   }
+
+  public void testReadWithValueDictionary() throws IOException, CsvDataSourceException {
+    List <ColumnDescription> columnDescriptions = Lists.newArrayList();
+    columnDescriptions.add(new ColumnDescription("country", ValueType.TEXT, "Country"));
+    columnDescriptions.add(new ColumnDescription("count", ValueType.NUMBER, "Count"));
+    Reader reader = new StringReader("US,1\nFR,\nUS,1\nUS,\nFR,2");
+    ValueDictionary dictionary = new ValueDictionary();
+    DataTable dataTable = CsvDataSourceHelper.read(reader, columnDescriptions, false, null,
+        dictionary);
+    assertEquals(5, dataTable.getNumberOfRows());
+    assertEquals(new TextValue("US"), dataTable.getRow(2).getCell(0).getValue());
+    assertSame(dataTable.getRow(0).getCell(0).getValue(),
+        dataTable.getRow(2).getCell(0).getValue());
+    assertSame(dataTable.getRow(1).getCell(0).getValue(),
+        dataTable.getRow(4).getCell(0).getValue());
+    assertSame(dataTable.getRow(0).getCell(1).getValue(),
+        dataTable.getRow(2).getCell(1).getValue());
+    assertTrue(dataTable.getRow(1).getCell(1).isNull());
+    // Only values are shared, every cell is a separate instance.
+    assertNotSame(dataTable.getRow(1).getCell(1), dataTable.getRow(3).getCell(1));
+    assertEquals(2, dictionary.getSize("country"));
+    assertEquals(3, dictionary.getSharedCount("country"));
+    assertEquals(2, dictionary.getSize("count"));
+    assertEquals(1, dictionary.getSharedCount("count"));
+  }
 }
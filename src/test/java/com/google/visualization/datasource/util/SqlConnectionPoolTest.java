@@ -0,0 +1,217 @@
+// Copyright 2026 The visualization-datasource Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.visualization.datasource.util;
+
+import com.google.common.base.Ticker;
+import com.google.visualization.datasource.base.DataSourceException;
+import com.google.visualization.datasource.base.InvalidQueryException;
+import com.google.visualization.datasource.base.ReasonType;
+import com.google.visualization.datasource.datatable.DataTable;
+import com.google.visualization.datasource.datatable.value.NumberValue;
+import com.google.visualization.datasource.datatable.value.TextValue;
+import com.google.visualization.datasource.query.parser.QueryBuilder;
+
+import junit.framework.TestCase;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the SqlConnectionPool class, against an in-memory database.
+ */
+public class SqlConnectionPoolTest extends TestCase {
+
+  /**
+   * The url of the in-memory database. The database is kept until the JVM exits.
+   */
+  private static final String URL = "jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1";
+
+  /**
+   * A ticker whose time is set by the test.
+   */
+  private static class FakeTicker extends Ticker {
+    long nanos = 0;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+
+  private FakeTicker ticker;
+
+  private SqlConnectionPool pool;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    ticker = new FakeTicker();
+    pool = new SqlConnectionPool(URL, "sa", "", 2, ticker);
+    pool.setBorrowTimeoutMillis(10);
+    Connection con = pool.getConnection();
+    Statement stmt = con.createStatement();
+    stmt.execute("DROP TABLE IF EXISTS animals");
+    stmt.execute("CREATE TABLE animals (\"name\" VARCHAR(20), \"legs\" INT)");
+    stmt.execute("INSERT INTO animals VALUES ('cat', 4), ('bird', 2), ('snake', 0)");
+    stmt.close();
+    pool.releaseConnection(con);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    pool.close();
+    super.tearDown();
+  }
+
+  public void testReuse() throws SQLException {
+    Connection con = pool.getConnection();
+    assertEquals(1, pool.getActiveCount());
+    assertEquals(0, pool.getIdleCount());
+    pool.releaseConnection(con);
+    assertSame(con, pool.getConnection());
+    pool.releaseConnection(con);
+
+    assertEquals(1, pool.getCreatedCount());
+    assertEquals(3, pool.getBorrowCount());
+    assertEquals(1, pool.getIdleCount());
+    assertEquals(0, pool.getActiveCount());
+  }
+
+  public void testMaxSizeAndTimeout() throws SQLException {
+    Connection con1 = pool.getConnection();
+    Connection con2 = pool.getConnection();
+    assertNotSame(con1, con2);
+    try {
+      pool.getConnection();
+      fail();
+    } catch (SQLException e) {
+      // Expected behavior.
+    }
+    assertEquals(1, pool.getTimeoutCount());
+
+    pool.releaseConnection(con2);
+    assertSame(con2, pool.getConnection());
+    pool.releaseConnection(con1);
+    pool.releaseConnection(con2);
+    assertEquals(2, pool.getIdleCount());
+
+    try {
+      pool.releaseConnection(con1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected behavior.
+    }
+  }
+
+  public void testIdleEviction() throws SQLException {
+    pool.setIdleTimeoutMillis(1000);
+    Connection con = pool.getConnection();
+    ticker.nanos = TimeUnit.MILLISECONDS.toNanos(999);
+    pool.evictIdleConnections();
+    assertEquals(0, pool.getClosedCount());
+    pool.releaseConnection(con);
+
+    ticker.nanos = TimeUnit.MILLISECONDS.toNanos(1998);
+    pool.evictIdleConnections();
+    assertEquals(1, pool.getIdleCount());
+    ticker.nanos = TimeUnit.MILLISECONDS.toNanos(1999);
+    pool.evictIdleConnections();
+    assertEquals(0, pool.getIdleCount());
+    assertEquals(1, pool.getClosedCount());
+    assertTrue(con.isClosed());
+
+    assertNotSame(con, pool.getConnection());
+    assertEquals(2, pool.getCreatedCount());
+  }
+
+  public void testValidationOnBorrow() throws SQLException {
+    Connection con = pool.getConnection();
+    con.close();
+    pool.releaseConnection(con);
+    assertEquals(0, pool.getIdleCount());
+
+    // An idle connection that became invalid is not reused.
+    con = pool.getConnection();
+    pool.releaseConnection(con);
+    con.close();
+    Connection other = pool.getConnection();
+    assertNotSame(con, other);
+    assertTrue(other.isValid(1));
+    pool.releaseConnection(other);
+  }
+
+  public void testClose() throws SQLException {
+    Connection con = pool.getConnection();
+    pool.close();
+    assertEquals(0, pool.getIdleCount());
+    pool.releaseConnection(con);
+    assertTrue(con.isClosed());
+    try {
+      pool.getConnection();
+      fail();
+    } catch (SQLException e) {
+      // Expected behavior.
+    }
+  }
+
+  public void testExecuteQueryWithPool() throws DataSourceException, InvalidQueryException {
+    SqlDatabaseDescription databaseDescription =
+        new SqlDatabaseDescription(URL, "sa", "", "animals");
+    databaseDescription.setConnectionProvider(pool);
+    for (int i = 0; i < 3; i++) {
+      DataTable table = SqlDataSourceHelper.executeQuery(
+          QueryBuilder.getInstance().parseQuery("select name, legs where legs > 1 order by legs"),
+          databaseDescription);
+      assertEquals(2, table.getNumberOfRows());
+      assertEquals(new TextValue("bird"), table.getValue(0, 0));
+      assertEquals(new NumberValue(4), table.getValue(1, 1));
+    }
+    assertEquals(1, pool.getCreatedCount());
+    assertEquals(0, pool.getActiveCount());
+
+    // A failed query returns the connection to the pool as well.
+    try {
+      SqlDataSourceHelper.executeQuery(
+          QueryBuilder.getInstance().parseQuery("select nosuchcolumn"), databaseDescription);
+      fail();
+    } catch (DataSourceException e) {
+      // Expected behavior.
+    }
+    assertEquals(0, pool.getActiveCount());
+  }
+
+  public void testExecuteQueryStreamingWithMaxRows() throws DataSourceException,
+      InvalidQueryException, SQLException {
+    SqlDatabaseDescription databaseDescription =
+        new SqlDatabaseDescription(URL, "sa", "", "animals");
+    databaseDescription.setConnectionProvider(pool);
+    databaseDescription.setStreamingResults(true);
+    databaseDescription.setFetchSize(1);
+    databaseDescription.setMaxRows(2);
+    DataTable table = SqlDataSourceHelper.executeQuery(
+        QueryBuilder.getInstance().parseQuery("select name order by name"), databaseDescription);
+    assertEquals(2, table.getNumberOfRows());
+    assertEquals(new TextValue("cat"), table.getValue(1, 0));
+    assertEquals(ReasonType.DATA_TRUNCATED, table.getWarnings().get(0).getReasonType());
+
+    // The connection is back in autocommit mode.
+    Connection con = pool.getConnection();
+    assertTrue(con.getAutoCommit());
+    pool.releaseConnection(con);
+  }
+}
@@ -17,6 +17,7 @@ package com.google.visualization.datasource.util;
 import com.google.common.collect.Lists;
 import com.google.visualization.datasource.base.DataSourceException;
 import com.google.visualization.datasource.base.InvalidQueryException;
+import com.google.visualization.datasource.base.ReasonType;
 import com.google.visualization.datasource.datatable.ColumnDescription;
 import com.google.visualization.datasource.datatable.DataTable;
 import com.google.visualization.datasource.datatable.value.BooleanValue;
@@ -454,4 +455,31 @@ public class SqlDataSourceHelperTest extends TestCase {
     assertEquals(0, dataTable.getNumberOfRows());
     assertEquals(0, dataTable.getRows().size());
   }
+
+  /**
+   * Tests the method buildDataTableRows with a maximum number of rows.
+   *
+   * @throws SQLException Thrown when the connection to the database failed.
+   */
+  public void testBuildDataTableRowsWithMaxRows() throws SQLException {
+    for (int i = 0; i < 3; i++) {
+      rows.add(Lists.<Object>newArrayList(i, "name" + i, null, 'M', 1000, false, null, null,
+          null));
+    }
+
+    ResultSet rs = new MockResultSet(rows, NUM_OF_COLS, labels, types);
+    DataTable dataTable = SqlDataSourceHelper.buildColumns(rs, null);
+    SqlDataSourceHelper.buildRows(dataTable, rs, 2);
+    assertEquals(2, dataTable.getNumberOfRows());
+    assertEquals("name1", dataTable.getRow(1).getCell(1).getValue().toString());
+    assertEquals(1, dataTable.getWarnings().size());
+    assertEquals(ReasonType.DATA_TRUNCATED, dataTable.getWarnings().get(0).getReasonType());
+
+    // No warning if there are no more rows.
+    rs = new MockResultSet(rows, NUM_OF_COLS, labels, types);
+    dataTable = SqlDataSourceHelper.buildColumns(rs, null);
+    SqlDataSourceHelper.buildRows(dataTable, rs, 3);
+    assertEquals(3, dataTable.getNumberOfRows());
+    assertTrue(dataTable.getWarnings().isEmpty());
+  }
 }